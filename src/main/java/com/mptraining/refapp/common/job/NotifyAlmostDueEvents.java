@@ -7,6 +7,7 @@
 
 package com.mptraining.refapp.common.job;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,8 @@ public class NotifyAlmostDueEvents implements JobHandler {
     @Override
 	public void execute(SchedulerExecutionContext etk) throws ApplicationException {
 
+    	List<IEmail> emails = new ArrayList<IEmail>();
+
     	//Complaint
     	List<Map<String,Object>> approachingDueEvents = ComplaintDao.getApproachingDueEventInfo(etk);
 
@@ -35,7 +38,7 @@ public class NotifyAlmostDueEvents implements JobHandler {
     		replacementVariables.put("EventId", event.get("EVENT_ID"));
     		replacementVariables.put("eventType", event.get("EVENT_TYPE"));
     		IEmail email = TemplateEmail.generate(etk, "email.eventDue", event.get("EMAIL_ADDRESS"), null, null, null, replacementVariables);
-    		EmailQueue.queueEmail(etk, email);
+    		emails.add(email);
 		}
 
 
@@ -48,8 +51,10 @@ public class NotifyAlmostDueEvents implements JobHandler {
     		replacementVariables.put("CmpEventId", event.get("EVENT_ID"));
     		replacementVariables.put("cmpEventType", event.get("EVENT_TYPE"));
     		IEmail email = TemplateEmail.generate(etk, "email.cmpEventDue", event.get("EMAIL_ADDRESS"), null, null, null, replacementVariables);
-    		EmailQueue.queueEmail(etk, email);
+    		emails.add(email);
 		}
+
+    	EmailQueue.queueEmails(etk, emails);
     }
 
 }
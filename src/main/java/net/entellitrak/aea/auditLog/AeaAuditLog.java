@@ -1,5 +1,6 @@
 package net.entellitrak.aea.auditLog;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
@@ -27,11 +28,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import net.micropact.aea.auditLog.cache.AuditLogCache;
+import net.micropact.aea.auditLog.cache.DataObjectAccessors;
+import net.micropact.aea.auditLog.cache.DataObjectLookupMetadata;
+import net.micropact.aea.auditLog.spool.AuditLogSpool;
 import net.micropact.aea.auditLog.utility.AeaLookupValueFinder;
+import net.micropact.aea.auditLog.utility.AuditLogWriter;
 import net.micropact.aea.auditLog.utility.ExcludedColumn;
 import net.micropact.aea.auditLog.utility.LogEventType;
 import net.micropact.aea.auditLog.utility.UserSystemEventType;
-import net.micropact.aea.core.exceptionTools.ExceptionUtility;
 import net.micropact.aea.utility.DataElementType;
 import net.micropact.aea.utility.Utility;
 
@@ -40,7 +45,6 @@ import com.entellitrak.DataEventType;
 import com.entellitrak.DataObjectEventContext;
 import com.entellitrak.ExecutionContext;
 import com.entellitrak.ReferenceObjectEventContext;
-import com.entellitrak.SQLFacade;
 import com.entellitrak.WorkflowExecutionContext;
 import com.entellitrak.configuration.DataElement;
 import com.entellitrak.configuration.DataType;
@@ -72,13 +76,15 @@ public class AeaAuditLog {
     private final User user;
 
     private final AeaLookupValueFinder lvf;
-    private final SQLFacade logQuery;
+    private final List<Object[]> pendingLogEntries = new ArrayList<>();
+    private boolean bufferLogEntries = false;
+    private final AuditLogSpool spool;
+    private final long asyncEnqueueTimeoutMillis;
     private InetAddress inetAddress = null;
     //private final Connection connection;
     //private final PreparedStatement logQuery;
 
     private final IAeaAuditLogConfig auditLogConfig;
-    private static final int FIELD_NAME_POSITION = 3;
 
     /**
      * Main constructor, should only be called 1x per ETP transaction. <br>
@@ -151,7 +157,15 @@ public class AeaAuditLog {
 	public AeaAuditLog(final ExecutionContext theEtk, final IAeaAuditLogConfig theConfig) throws ApplicationException {
     	this.etk = theEtk;
     	this.auditLogConfig = theConfig;
-    	this.lvf = new AeaLookupValueFinder(etk);
+    	final long displayCacheTimeToLiveMillis = theConfig == null
+    			? AeaLookupValueFinder.DEFAULT_DISPLAY_CACHE_TIME_TO_LIVE_MILLIS
+    			: theConfig.getLookupDisplayCacheTimeToLiveMillis();
+    	final int displayCacheMaxSize = theConfig == null
+    			? AeaLookupValueFinder.DEFAULT_DISPLAY_CACHE_MAX_SIZE
+    			: theConfig.getLookupDisplayCacheMaxSize();
+    	this.lvf = new AeaLookupValueFinder(etk, (displayCacheTimeToLiveMillis > 0 && displayCacheMaxSize > 0)
+    			? AuditLogCache.getLookupDisplayCache(etk, displayCacheTimeToLiveMillis, displayCacheMaxSize)
+    			: null);
     	this.user = etk.getCurrentUser();
 
 
@@ -161,6 +175,20 @@ public class AeaAuditLog {
 			theEtk.getLogger().warn("Error retrieving server hostname/ip information", e1);
 		}
 
+    	AuditLogSpool theSpool = null;
+    	if ((theConfig != null) && Boolean.TRUE.equals(theConfig.isAsynchronous())) {
+    		try {
+    			theSpool = AuditLogSpool.getInstance(theConfig.getAsyncSpoolDirectory(),
+    					theConfig.getAsyncQueueCapacity());
+    		} catch (final IOException e) {
+    			theEtk.getLogger().warn("Error opening the audit log spool, audit log entries will be written synchronously", e);
+    		}
+    		this.asyncEnqueueTimeoutMillis = theConfig.getAsyncEnqueueTimeoutMillis();
+    	} else {
+    		this.asyncEnqueueTimeoutMillis = 0;
+    	}
+    	this.spool = theSpool;
+
     	if ((theConfig != null) && (theConfig.getLogTableName() != null)) {
     		this.logTable = theConfig.getLogTableName();
     	} else {
@@ -232,43 +260,6 @@ public class AeaAuditLog {
     		dataObjectLabel = "";
     		dataObjectKey = "";
     	}
-
-    	try {
-
-    		if (Utility.isSqlServer(etk)) {
-     		   logQuery = etk.createSQL("insert into " + this.logTable
-   	                + " (C_COLUMN, C_TIMESTAMP, C_DATA_OBJECT_NAME, "
-   	                + " C_TRACKING_ID, C_EVENT_TYPE, C_DATA_ELEMENT_NAME, C_NEW_VALUE, "
-   	                + " C_PREVIOUS_VALUE, C_USER_ACCOUNT_NAME, C_EVENT_MESSAGE, "
-   	                + " C_ORGANIZATION, C_TABLE_NAME, C_EVENT_ACTOR, C_USER_ID, "
-   	                + " C_DATA_OBJECT_KEY, C_DATA_OBJECT_LABEL, C_ORGANIZATION_ID, "
-   	                + " C_USER_ROLE_ID, C_USER_ROLE_NAME, C_PARENT_ID, C_BASE_ID, "
-   	                + " C_APP_SERVER_HOSTNAME, C_APP_SERVER_IP_ADDRESS) "
-   	                + "values (:1 , dbo.ETKF_getServerTime(), :2, "
-   	                + ":3 , :4 , :5 , :6 , "
-   	                + ":7 , :8 , :9 , :10 , :11 , :12 , "
-   	                + ":13 , :14 , :15 , :16 , :17, :18, :19, :20, "
-   	                + ":21, :22) ");
-    		} else {
-    		   logQuery = etk.createSQL("insert into " + this.logTable
-	                + " (ID, C_COLUMN, C_TIMESTAMP, C_DATA_OBJECT_NAME, "
-	                + " C_TRACKING_ID, C_EVENT_TYPE, C_DATA_ELEMENT_NAME, C_NEW_VALUE, "
-	                + " C_PREVIOUS_VALUE, C_USER_ACCOUNT_NAME, C_EVENT_MESSAGE, "
-	                + " C_ORGANIZATION, C_TABLE_NAME, C_EVENT_ACTOR, C_USER_ID, "
-	                + " C_DATA_OBJECT_KEY, C_DATA_OBJECT_LABEL, C_ORGANIZATION_ID, "
-	                + " C_USER_ROLE_ID, C_USER_ROLE_NAME, C_PARENT_ID, C_BASE_ID, "
-	                + " C_APP_SERVER_HOSTNAME, C_APP_SERVER_IP_ADDRESS) "
-	                + "values ("
-	                + "OBJECT_ID.nextval, :1 , ETKF_GETSERVERTIME(), :2, "
-   	                + ":3 , :4 , :5 , :6 , "
-   	                + ":7 , :8 , :9 , :10 , :11 , :12 , "
-   	                + ":13 , :14 , :15 , :16 , :17, :18, :19, :20, "
-   	                + ":21, :22) ");
-    		}
-    	} catch (final Exception e) {
-    		throw new ApplicationException("Error writing to log table \"" + this.logTable + "\" \n\n" +
-    	                                   ExceptionUtility.getFullStackTrace(e));
-    	}
     }
 
     /**
@@ -278,46 +269,79 @@ public class AeaAuditLog {
      * @throws SQLException An exception inserting the log entry.
      */
     public void addLogEntry(final AeaLogEntry aLogEntry) throws SQLException {
-        //ID (done via query)
-    	//logQuery.setLong(1, aLogEntry.getBtoId()); //ID_BASE,
-    	//logQuery.setLong(2, aLogEntry.getBtoId()); //ID_PARENT,
-    	logQuery.setParameter("1", aLogEntry.getColumnName()); //C_COLUMN,
-    	//C_TIMESTAMP (done via query
-    	logQuery.setParameter("2", aLogEntry.getDataObjectName()); //C_DATA_OBJECT
-    	logQuery.setParameter("3", aLogEntry.getTrackingId()); //C_TRACKING_ID
-    	logQuery.setParameter("4", aLogEntry.getCrudEventType().getEventType()); //C_EVENT_TYPE
-    	logQuery.setParameter("5", aLogEntry.getDataElementName()); //C_DATA_ELEMENT
-
-    	logQuery.setParameter("6", aLogEntry.getNewDataValue());
-
-    	logQuery.setParameter("7", aLogEntry.getPreviousDataValue());
-
-    	logQuery.setParameter("8", aLogEntry.getUser().getAccountName()); //C_USER
-
-    	logQuery.setParameter("9", aLogEntry.getMessage());
-
-    	logQuery.setParameter("10", aLogEntry.getUser().getHierarchy().getName()); //C_ORGANIZATION
-    	logQuery.setParameter("11", aLogEntry.getTableName()); //C_TABLE
-    	logQuery.setParameter("12", aLogEntry.getUserSystemEventType().getEventType()); //C_EVENT_ACTOR
-
-    	logQuery.setParameter("13", aLogEntry.getUser().getId());
-    	logQuery.setParameter("14", aLogEntry.getDataObjectKey());
-    	logQuery.setParameter("15", aLogEntry.getDataObjectLabel());
-    	logQuery.setParameter("16", aLogEntry.getUser().getHierarchy().getId());
-    	logQuery.setParameter("17", aLogEntry.getUser().getRole().getId());
-    	logQuery.setParameter("18", aLogEntry.getUser().getRole().getName());
-    	logQuery.setParameter("19", aLogEntry.getParentId());
-    	logQuery.setParameter("20", aLogEntry.getBaseId());
-
-    	if (inetAddress != null) {
-    		logQuery.setParameter("21", inetAddress.getHostName());
-    		logQuery.setParameter("22", inetAddress.getHostAddress());
-    	} else {
-    		logQuery.setParameter("21", null);
-    		logQuery.setParameter("22", null);
+    	pendingLogEntries.add(getLogEntryValues(aLogEntry));
+
+    	if (!bufferLogEntries) {
+    		flushLogEntries();
     	}
+    }
 
-    	logQuery.execute();
+    /**
+     * Sets whether entries added through addLogEntry() are held in memory until writeAuditLogEntries() is called
+     * instead of being written immediately. Buffered entries are written with a small number of multi-row inserts.
+     * When entries are not buffered, the entries created by logETPChanges() are still written together at the end
+     * of logETPChanges().
+     *
+     * @param buffered Whether log entries should be buffered.
+     */
+    public void setBufferLogEntries(final boolean buffered) {
+    	this.bufferLogEntries = buffered;
+    }
+
+    /**
+     * Returns the values of a log entry in the order of LOG_COLUMNS. The values are copied so that the
+     * AeaLogEntry may be reused after it has been added.
+     *
+     * @param aLogEntry A log entry.
+     * @return The values to insert into the log table.
+     */
+    private Object[] getLogEntryValues(final AeaLogEntry aLogEntry) {
+    	return new Object[] {
+    			aLogEntry.getColumnName(),
+    			aLogEntry.getDataObjectName(),
+    			aLogEntry.getTrackingId(),
+    			aLogEntry.getCrudEventType().getEventType(),
+    			aLogEntry.getDataElementName(),
+    			aLogEntry.getNewDataValue(),
+    			aLogEntry.getPreviousDataValue(),
+    			aLogEntry.getUser().getAccountName(),
+    			aLogEntry.getMessage(),
+    			aLogEntry.getUser().getHierarchy().getName(),
+    			aLogEntry.getTableName(),
+    			aLogEntry.getUserSystemEventType().getEventType(),
+    			aLogEntry.getUser().getId(),
+    			aLogEntry.getDataObjectKey(),
+    			aLogEntry.getDataObjectLabel(),
+    			aLogEntry.getUser().getHierarchy().getId(),
+    			aLogEntry.getUser().getRole().getId(),
+    			aLogEntry.getUser().getRole().getName(),
+    			aLogEntry.getParentId(),
+    			aLogEntry.getBaseId(),
+    			inetAddress != null ? inetAddress.getHostName() : null,
+    			inetAddress != null ? inetAddress.getHostAddress() : null};
+    }
+
+    /**
+     * Writes all pending log entries. In asynchronous mode they are handed to the audit log spool, otherwise (or if
+     * the spool is full) they are written to the log table using multi-row inserts.
+     *
+     * @throws SQLException An exception inserting the log entries.
+     */
+    private void flushLogEntries() throws SQLException {
+    	if (pendingLogEntries.isEmpty()) {
+    		return;
+    	}
+
+    	try {
+    		final List<Object[]> entries = spool == null ? pendingLogEntries
+    				: spool.enqueue(this.logTable, pendingLogEntries, asyncEnqueueTimeoutMillis);
+
+    		AuditLogWriter.insert(etk, this.logTable, entries);
+    	} catch (final RuntimeException e) {
+    		throw new SQLException("Error writing to log table \"" + this.logTable + "\"", e);
+    	} finally {
+    		pendingLogEntries.clear();
+    	}
     }
 
     /**
@@ -395,6 +419,7 @@ public class AeaAuditLog {
     	Map<String, Object> newObjectParamMap = new HashMap<>();
     	Map<String, Object> oldObjectValueMap = new HashMap<>();
     	Map<String, Object> oldObjectParamMap = new HashMap<>();
+    	DataObjectAccessors accessors = null;
 
     	if (isCreateEvent || isUpdateEvent) {
 
@@ -412,49 +437,21 @@ public class AeaAuditLog {
 	    	if (newObject.configuration().getElements() == null) {
                 return;
             } else {
-            	//TODO Refactor this once core APIs become available to tell if a data element is bound to a lookup.
-        	    List<Map<String, Object>> isLookupList = etk.createSQL(
-        	    		"select de.business_key as BUSINESS_KEY, ld.business_key as LOOKUP_BUSINESS_KEY, "
-        	    		+ "(case when ld.value_return_type is null then 2 else ld.value_return_type end) as VALUE_TYPE "
-    	    			+ "from etk_data_element de "
-    	    			+ "join etk_data_object do on do.data_object_id = de.data_object_id "
-    	    			+ "left join etk_lookup_definition ld on ld.lookup_definition_id = de.lookup_definition_id "
-    	    			+ "where do.business_key = :dataObjectKey "
-    	    			+ "and do.tracking_config_id = (select max(tracking_config_id) from etk_tracking_config_archive)")
-    	    			.setParameter("dataObjectKey", newObject.configuration().getBusinessKey())
-    	    			.returnEmptyResultSetAs(new ArrayList<Map<String, Object>>())
-    	    			.fetchList();
-
-        	    for (Map<String, Object> record : isLookupList) {
-        	    	isLookupDefMap.put((String) record.get("BUSINESS_KEY"), (String) record.get("LOOKUP_BUSINESS_KEY"));
-        	    	valueTypeMap.put((String) record.get("BUSINESS_KEY"), (Number) record.get("VALUE_TYPE"));
-        	    }
-
-
-        		for (java.lang.reflect.Method aMethod : newObject.getClass().getMethods()) {
-        			if (aMethod.getName().startsWith("get") && (aMethod.getParameterTypes().length == 0)) {
-        				try {
-        					newObjectValueMap.put(aMethod.getName(), aMethod.invoke(newObject));
-        				} catch (Exception e) {
-        					throw new ApplicationException (e);
-        				}
-        			}
-        		}
+            	final DataObjectLookupMetadata lookupMetadata = AuditLogCache.getDataObjectLookupMetadata(etk,
+            			newObject.configuration().getBusinessKey());
+            	isLookupDefMap = lookupMetadata.getLookupBusinessKeys();
+            	valueTypeMap = lookupMetadata.getValueTypes();
+
+        		accessors = AuditLogCache.getDataObjectAccessors(etk, newObject);
 
-        		newObjectParamMap = getParameterMap(newObject, newObjectValueMap, valueTypeMap);
+        		newObjectValueMap = accessors.readValues(newObject);
+        		newObjectParamMap = getParameterMap(newObject, accessors, newObjectValueMap, valueTypeMap);
 
         		if (isUpdateEvent) {
-	        		for (java.lang.reflect.Method aMethod : oldObject.getClass().getMethods()) {
-	        			if (aMethod.getName().startsWith("get") && (aMethod.getParameterTypes().length == 0)) {
-	        				try {
-	        					oldObjectValueMap.put(aMethod.getName(), aMethod.invoke(oldObject));
-	        				} catch (Exception e) {
-	        					throw new ApplicationException (e);
-	        				}
-	        			}
-	        		}
-
-	        		oldObjectParamMap = getParameterMap(oldObject, oldObjectValueMap, valueTypeMap);
+	        		final DataObjectAccessors oldAccessors = AuditLogCache.getDataObjectAccessors(etk, oldObject);
+
+	        		oldObjectValueMap = oldAccessors.readValues(oldObject);
+	        		oldObjectParamMap = getParameterMap(oldObject, oldAccessors, oldObjectValueMap, valueTypeMap);
         		}
             }
     	}
@@ -493,13 +490,13 @@ public class AeaAuditLog {
                     	logEntry.setNewDataValue(newValue);
                     	logEntry.setPreviousDataValue("");
 
-                        addLogEntry(logEntry);
+                        pendingLogEntries.add(getLogEntryValues(logEntry));
                     }
                 }
             } else if (isUpdateEvent) {
                 String oldValue = "";
                 String newValue = "";
-                String fieldName = "";
+                String getterName = "";
                 Object newValRaw = null;
                 Object oldValRaw = null;
                 boolean valChanged = false;
@@ -508,10 +505,10 @@ public class AeaAuditLog {
 
                 	oldValue = "";
                 	newValue = "";
-                    fieldName = dataElement.getBusinessKey().split("\\.")[FIELD_NAME_POSITION];
+                    getterName = accessors.getGetterName(dataElement.getBusinessKey());
 
-                    newValRaw = newObjectValueMap.get("get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1));
-                    oldValRaw = oldObjectValueMap.get("get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1));
+                    newValRaw = newObjectValueMap.get(getterName);
+                    oldValRaw = oldObjectValueMap.get(getterName);
 
                     valChanged = false;
                     if (newValRaw != null) {
@@ -521,8 +518,10 @@ public class AeaAuditLog {
                     }
 
                     if (valChanged) {
-		                newValue = lvf.getValue(dataElement, isLookupDefMap, newObjectValueMap, newObjectParamMap);
-		                oldValue = lvf.getValue(dataElement, isLookupDefMap, oldObjectValueMap, oldObjectParamMap);
+		                final String[] values = lvf.getValues(dataElement, isLookupDefMap,
+		                		oldObjectValueMap, oldObjectParamMap, newObjectValueMap, newObjectParamMap);
+		                oldValue = values[0];
+		                newValue = values[1];
                 	}
 
                     if (!oldValue.equals(newValue)) {
@@ -554,7 +553,7 @@ public class AeaAuditLog {
                     	logEntry.setNewDataValue(newValue);
                     	logEntry.setPreviousDataValue(oldValue);
 
-                        addLogEntry(logEntry);
+                        pendingLogEntries.add(getLogEntryValues(logEntry));
                     }
                 }
             } else if (isDeleteEvent) {
@@ -576,7 +575,7 @@ public class AeaAuditLog {
             	logEntry.setNewDataValue("");
             	logEntry.setPreviousDataValue("");
 
-                addLogEntry(logEntry);
+                pendingLogEntries.add(getLogEntryValues(logEntry));
             } else if (isReadEvent) {
 
             	//EX: "The Intake Record with Tracking ID 123 was read by user aUser"
@@ -596,7 +595,11 @@ public class AeaAuditLog {
             	logEntry.setNewDataValue("");
             	logEntry.setPreviousDataValue("");
 
-                addLogEntry(logEntry);
+                pendingLogEntries.add(getLogEntryValues(logEntry));
+            }
+
+            if (!bufferLogEntries) {
+            	flushLogEntries();
             }
         } catch (final Throwable t) {
         	Utility.aeaLog(etk, t);
@@ -611,7 +614,8 @@ public class AeaAuditLog {
      * Returns a value map of all form element values converted from Java to SQL type values.
      *
      * @param tdo The tracked data object instance.
-     * @param values Raw values from reflection calls to newObject / oldObject
+     * @param accessors The cached accessors of the tracked data object's class.
+     * @param values Raw values read from newObject / oldObject
      * @param valueTypeMap Map containing what "type" of data element ETK thinks
      *                     the elements are (text, long text, number, etc.)
      *
@@ -621,6 +625,7 @@ public class AeaAuditLog {
      */
     @SuppressWarnings({ "rawtypes", "unchecked" })
 	private Map<String, Object> getParameterMap (DataObjectInstance tdo,
+    		                                     DataObjectAccessors accessors,
     		                                     Map<String, Object> values,
     		                                     Map<String, Number> valueTypeMap) {
 
@@ -639,8 +644,8 @@ public class AeaAuditLog {
 
 		for (DataElement anElement : tdo.configuration().getElements()) {
 
-		    elementFieldName = anElement.getBusinessKey().split("\\.")[FIELD_NAME_POSITION];
-		    tmpVal = values.get("get" + elementFieldName.substring(0, 1).toUpperCase() + elementFieldName.substring(1));
+		    elementFieldName = accessors.getFieldName(anElement.getBusinessKey());
+		    tmpVal = values.get(accessors.getGetterName(anElement.getBusinessKey()));
 
 		    if (anElement.getDataType() == DataType.YES_NO) {
 		    	if (Boolean.TRUE.equals(tmpVal)) {
@@ -686,10 +691,17 @@ public class AeaAuditLog {
     }
 
     /**
-     * Writes the entire batch of AeaLogEntries to the AEA Audit Log RDO.
+     * Writes the entire batch of buffered AeaLogEntries to the AEA Audit Log RDO.
+     * Entries are only held back when setBufferLogEntries(true) has been called.
+     *
+     * @throws ApplicationException An exception inserting the buffered log entries.
      */
-    public void writeAuditLogEntries() {
-       //Informally deprecated, not currently used, may be removed (or used again) in future release.
+    public void writeAuditLogEntries() throws ApplicationException {
+    	try {
+    		flushLogEntries();
+    	} catch (final SQLException e) {
+    		throw new ApplicationException(e);
+    	}
     }
 
     /**
@@ -2,6 +2,8 @@ package net.entellitrak.aea.auditLog;
 
 import java.util.List;
 
+import net.micropact.aea.auditLog.spool.AuditLogSpool;
+import net.micropact.aea.auditLog.utility.AeaLookupValueFinder;
 import net.micropact.aea.auditLog.utility.ExcludedColumn;
 
 /**
@@ -50,4 +52,79 @@ public interface IAeaAuditLogConfig {
 	 * @return A list of excluded columns (and their associated tables) to exclude from audit logging.
 	 */
 	List<ExcludedColumn> getExcludedColumns();
+
+	/**
+	 * Returns whether log entries should be written asynchronously. Asynchronous entries are appended to an in-memory
+	 * queue backed by a local spool file and are written to the log table by the
+	 * "AEA Audit Log - SCHEDULER JOB - Drain Audit Log Spool" job.
+	 * NOTE: Asynchronous entries are written even if the transaction which created them is rolled back.
+	 *
+	 * System default is Boolean.FALSE, do not return a null value.
+	 *
+	 * @return Whether log entries should be written asynchronously.
+	 */
+	default Boolean isAsynchronous() {
+		return Boolean.FALSE;
+	}
+
+	/**
+	 * Returns the maximum number of asynchronous log entries which may be waiting to be written to the log table.
+	 * Only used when isAsynchronous() is true. The capacity is fixed by the first audit log which uses a spool directory.
+	 *
+	 * System default is 10000, do not return a null value.
+	 *
+	 * @return The maximum number of waiting log entries.
+	 */
+	default Integer getAsyncQueueCapacity() {
+		return 10000;
+	}
+
+	/**
+	 * Returns how long, in milliseconds, to wait for room in a full asynchronous queue before writing the entries
+	 * synchronously instead. Only used when isAsynchronous() is true.
+	 *
+	 * System default is 100, do not return a null value.
+	 *
+	 * @return The number of milliseconds to wait for room in the queue.
+	 */
+	default Long getAsyncEnqueueTimeoutMillis() {
+		return 100L;
+	}
+
+	/**
+	 * Returns the directory of the local spool file which asynchronous log entries are appended to so that they can be
+	 * recovered if the application server stops before they are written. Only used when isAsynchronous() is true.
+	 * A directory other than the default must also be listed in the al.asyncSpoolDirectories AEA CORE Configuration
+	 * item so that the drain job can recover spool files which were left behind in it.
+	 *
+	 * System default is aeaAuditLogSpool within java.io.tmpdir, do not return a null value.
+	 *
+	 * @return The spool directory.
+	 */
+	default String getAsyncSpoolDirectory() {
+		return AuditLogSpool.DEFAULT_DIRECTORY;
+	}
+
+	/**
+	 * Returns how long, in milliseconds, the display value of a lookup value may be reused after it has been queried.
+	 * Changes to lookup data may take this long to be reflected in new log entries. Return 0 to disable the cache.
+	 *
+	 * System default is 60000, do not return a null value.
+	 *
+	 * @return The number of milliseconds to cache lookup display values.
+	 */
+	default Long getLookupDisplayCacheTimeToLiveMillis() {
+		return AeaLookupValueFinder.DEFAULT_DISPLAY_CACHE_TIME_TO_LIVE_MILLIS;
+	}
+
+	/**
+	 * Returns the maximum number of lookup display values to cache. Return 0 to disable the cache.
+	 *
+	 * System default is 5000, do not return a null value.
+	 *
+	 * @return The maximum number of cached lookup display values.
+	 */
+	default Integer getLookupDisplayCacheMaxSize() {
+		return AeaLookupValueFinder.DEFAULT_DISPLAY_CACHE_MAX_SIZE;
+	}
 }
@@ -1,23 +1,35 @@
 package net.entellitrak.aea.eu;
 
-import java.io.IOException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.mail.internet.InternetAddress;
 
 import com.entellitrak.ExecutionContext;
 import com.entellitrak.IncorrectResultSizeDataAccessException;
-import com.entellitrak.mail.Attachment;
 import com.entellitrak.mail.Mail;
 
 import net.entellitrak.aea.exception.EmailException;
-import net.micropact.aea.core.cache.AeaCoreConfiguration;
-import net.micropact.aea.core.enums.AeaCoreConfigurationItem;
+import net.micropact.aea.core.ioUtility.Hex;
 import net.micropact.aea.core.ioUtility.IOUtility;
-import net.micropact.aea.eu.utility.FileUtility;
+import net.micropact.aea.core.query.Coersion;
+import net.micropact.aea.core.query.QueryUtility;
+import net.micropact.aea.eu.utility.EmailQueueSender;
 import net.micropact.aea.eu.utility.InternetAddressUtility;
 import net.micropact.aea.utility.Utility;
 
@@ -33,6 +45,48 @@ import net.micropact.aea.utility.Utility;
  */
 public final class EmailQueue {
 
+    /**
+     * Algorithm used to identify attachments which have the same content.
+     */
+    private static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * Maximum number of rows which {@link #queueEmails(ExecutionContext, Collection)} will insert with a single
+     * statement, even when the database limits would allow more.
+     */
+    private static final int BULK_INSERT_CHUNK_SIZE = 250;
+
+    /**
+     * Oracle does not allow an INSERT ALL statement to have more than 999 target columns in total.
+     */
+    private static final int ORACLE_MAX_INSERT_ALL_COLUMNS = 999;
+
+    /**
+     * SQL Server does not allow a statement to have more than 2100 parameters.
+     */
+    private static final int SQL_SERVER_MAX_PARAMETERS = 2100;
+
+    /**
+     * Number of columns of each INTO clause of the Oracle T_EU_QUEUE_ADDRESS insert.
+     */
+    private static final int ADDRESS_INSERT_COLUMNS = 3;
+
+    /**
+     * Number of bind parameters of each row of the SQL Server T_EU_QUEUE_ADDRESS merge.
+     */
+    private static final int ADDRESS_MERGE_PARAMETERS = 2;
+
+    /**
+     * Number of columns of each INTO clause of the Oracle T_EU_EMAIL_QUEUE insert.
+     */
+    private static final int EMAIL_INSERT_COLUMNS = 10;
+
+    /**
+     * Number of bind parameters of each row of the SQL Server T_EU_EMAIL_QUEUE merge. The status parameter is
+     * shared by all rows.
+     */
+    private static final int EMAIL_MERGE_PARAMETERS = 6;
+
     /**
      * There is no reason to instantiate an EmailQueue.
      */
@@ -100,139 +154,305 @@ public final class EmailQueue {
 
             /* Handle attachments */
             for(final IAttachment attachment : email.getAttachments()){
-                try(final InputStream contentStream = attachment.getContent()){
-
-                    final String attachmentName = attachment.getName();
-
-                    final byte[] fileContent = IOUtility.toByteArray(contentStream);
-
-                    final String fileExtension =
-                            attachmentName.indexOf('.') == -1
-                            ? ""
-                              : attachmentName.substring(attachmentName.indexOf('.'));
-                    String contentType = URLConnection.guessContentTypeFromName(attachmentName);
-                    if(contentType == null){
-                        contentType = "application/octet-stream";
-                    }
-
-                    if(Utility.isSqlServer(etk)){
-
-                        final String emailQueueAttachmentId = String.valueOf(
-                                etk.createSQL("INSERT INTO t_eu_queue_attachment(c_file, c_email_queue_id) VALUES(NULL, :emailQueueId)")
-                                .setParameter("emailQueueId", emailQueueId)
-                                .executeForKey("id"));
-
-                        final String fileId = String.valueOf(
-                                etk.createSQL("INSERT INTO etk_file(file_name, file_size, content_type, file_Type, file_extension, object_type, reference_id, content, resource_path) VALUES(:fileName, :fileSize, :contentType, :fileType, :fileExtension, :objectType, :referenceId, :content, NULL)")
-                                .setParameter("fileName", attachmentName)
-                                .setParameter("fileSize", fileContent.length)
-                                .setParameter("contentType", contentType)
-                                .setParameter("fileType", 1)
-                                .setParameter("fileExtension", fileExtension)
-                                .setParameter("objectType", "T_EU_QUEUE_ATTACHMENT")
-                                .setParameter("referenceId", emailQueueAttachmentId)
-                                .setParameter("content", fileContent)
-                                .executeForKey("id"));
-
-                        etk.createSQL("UPDATE t_eu_queue_attachment SET c_file = :fileId WHERE id = :attachmentId")
-                        .setParameter("fileId", fileId)
-                        .setParameter("attachmentId", emailQueueAttachmentId)
-                        .execute();
-                    }else{
-                        final Map<String, Object> nextIds = etk.createSQL("SELECT OBJECT_ID.NEXTVAL fileId, OBJECT_ID.NEXTVAL attachmentId FROM DUAL")
-                                .fetchList().get(0);
-
-                        etk.createSQL("INSERT INTO t_eu_queue_attachment(id, c_file, c_email_queue_id) VALUES(:attachmentId, :fileId, :emailQueueId)")
-                        .setParameter("attachmentId", nextIds.get("ATTACHMENTID"))
-                        .setParameter("fileId", nextIds.get("FILEID"))
-                        .setParameter("emailQueueId", emailQueueId)
-                        .execute();
-                        etk.createSQL("INSERT INTO etk_file(id, file_name, file_size, content_type, file_Type, file_extension, object_type, reference_id, content, resource_path) VALUES(:fileId, :fileName, :fileSize, :contentType, :fileType, :fileExtension, :objectType, :referenceId, :content, null)")
-                        .setParameter("fileId", nextIds.get("FILEID"))
-                        .setParameter("fileName", attachmentName)
-                        .setParameter("fileSize", fileContent.length)
-                        .setParameter("contentType", contentType)
-                        .setParameter("fileType", 1)
-                        .setParameter("fileExtension", fileExtension)
-                        .setParameter("objectType", "T_EU_QUEUE_ATTACHMENT")
-                        .setParameter("referenceId", nextIds.get("ATTACHMENTID"))
-                        .setParameter("content", fileContent)
-                        .execute();
-                    }
-                }
+                queueAttachment(etk, emailQueueId, attachment);
             }
             return emailQueueId;
-        } catch (final IncorrectResultSizeDataAccessException | IOException e) {
+        } catch (final IncorrectResultSizeDataAccessException e) {
             throw new EmailException("Error encountered queueing email", e);
         }
     }
 
     /**
-     * Immediately sends an email.
-     * NOTE: CURRENTLY DUE TO CORE LIMITATIONS, IF TWO FILES HAVE THE SAME NAME, I WILL CHANGE ONE OF THEM.
+     * This function will put many emails into the queue at once. It is equivalent to calling
+     * {@link #queueEmail(ExecutionContext, IEmail)} for each email, but uses a small number of multi-row statements
+     * instead of several statements per email. Identical from addresses are only stored once.
+     * Attachments are still stored one at a time.
      *
      * @param etk The etk variable in entellitrak
-     * @param email The email to send
+     * @param emails The emails to send
+     * @return The ids of the new entries in T_EU_EMAIL_QUEUE, in the same order as the emails
      * @throws EmailException If any problem occurs
      */
-    public static void sendEmail(final ExecutionContext etk, final IEmail email) throws EmailException{
-
-        final String errorString = "Error encountered sending email.";
-
+    public static List<Long> queueEmails(final ExecutionContext etk, final Collection<? extends IEmail> emails)
+            throws EmailException{
         try {
-            if(AeaCoreConfiguration.isEuEmailEnabled(etk)){
+            final List<IEmail> emailList = new ArrayList<>(emails);
 
-                final Collection<String> recipients = InternetAddressUtility.toTextCollection(email.getRecipients());
-                final Collection<String> ccRecipients =
-                        InternetAddressUtility.toTextCollection(email.getCcRecipients());
-                final Collection<String> bccRecipients =
-                        InternetAddressUtility.toTextCollection(email.getBccRecipients());
+            if(emailList.isEmpty()){
+                return new ArrayList<>();
+            }
 
-                if(recipients.size() > 0
-                        || ccRecipients.size() > 0
-                        || bccRecipients.size() > 0){
+            final boolean isSqlServer = Utility.isSqlServer(etk);
 
-                    final Mail mail = etk.getMailService().createMail();
+            /* Identical from addresses will share a single T_EU_QUEUE_ADDRESS row */
+            final Map<List<String>, Long> fromAddressIds = new LinkedHashMap<>();
+            for(final IEmail email : emailList){
+                final InternetAddress fromAddress = email.getFrom();
+                if(fromAddress != null){
+                    fromAddressIds.put(fromAddressKey(fromAddress), null);
+                }
+            }
 
-                    for(final String recipient : recipients){
-                        mail.addTo(recipient);
+            /* On Oracle the ids for all of the addresses and emails are reserved with a single query */
+            final Iterator<Long> oracleIds = isSqlServer
+                    ? null
+                    : QueryUtility.mapsToLongs(etk.createSQL("SELECT OBJECT_ID.NEXTVAL FROM DUAL CONNECT BY LEVEL <= :idCount")
+                            .setParameter("idCount", fromAddressIds.size() + emailList.size())
+                            .fetchList())
+                    .iterator();
+
+            /* Handle from addresses */
+            final List<List<String>> fromAddressKeys = new ArrayList<>(fromAddressIds.keySet());
+            final int addressChunkSize = bulkInsertChunkSize(isSqlServer, ADDRESS_INSERT_COLUMNS, ADDRESS_MERGE_PARAMETERS, 0);
+            for(int chunkStart = 0; chunkStart < fromAddressKeys.size(); chunkStart += addressChunkSize){
+                final List<List<String>> chunk = fromAddressKeys.subList(chunkStart,
+                        Math.min(chunkStart + addressChunkSize, fromAddressKeys.size()));
+
+                final Map<String, Object> parameters = new HashMap<>();
+                final StringBuilder query = new StringBuilder();
+
+                if(isSqlServer){
+                    query.append("MERGE INTO t_eu_queue_address USING (VALUES ");
+                    for(int i = 0; i < chunk.size(); i++){
+                        query.append(i == 0 ? "" : ", ")
+                        .append(String.format("(%s, :address%s, :personal%s)", i, i, i));
+                        parameters.put("address" + i, chunk.get(i).get(0));
+                        parameters.put("personal" + i, chunk.get(i).get(1));
                     }
+                    query.append(") source(ROWNUMBER, ADDRESS, PERSONAL) ON 1 = 0 WHEN NOT MATCHED THEN INSERT (c_address, c_personal) VALUES(source.ADDRESS, source.PERSONAL) OUTPUT source.ROWNUMBER ROWNUMBER, inserted.id ID;");
 
-                    for(final String ccRecipient : ccRecipients){
-                        mail.addCc(ccRecipient);
+                    for(final Map<String, Object> row : etk.createSQL(query.toString())
+                            .setParameter(parameters)
+                            .fetchList()){
+                        fromAddressIds.put(chunk.get(Coersion.toLong(row.get("ROWNUMBER")).intValue()),
+                                Coersion.toLong(row.get("ID")));
                     }
-
-                    for(final String bccRecipient : bccRecipients){
-                        mail.addBcc(bccRecipient);
+                }else{
+                    query.append("INSERT ALL");
+                    for(int i = 0; i < chunk.size(); i++){
+                        final long fromAddressId = oracleIds.next();
+                        fromAddressIds.put(chunk.get(i), fromAddressId);
+
+                        query.append(String.format(" INTO t_eu_queue_address (id, c_address, c_personal) VALUES(:fromAddressId%s, :address%s, :personal%s)", i, i, i));
+                        parameters.put("fromAddressId" + i, fromAddressId);
+                        parameters.put("address" + i, chunk.get(i).get(0));
+                        parameters.put("personal" + i, chunk.get(i).get(1));
                     }
+                    query.append(" SELECT * FROM DUAL");
+
+                    etk.createSQL(query.toString())
+                    .setParameter(parameters)
+                    .execute();
+                }
+            }
+
+            /* Handle main emails */
+            final Long createdStatusId = Coersion.toLong(etk.createSQL("SELECT id FROM t_eu_email_queue_status WHERE c_code = 'created'")
+                    .fetchObject());
+            final Long[] emailQueueIds = new Long[emailList.size()];
+
+            final int emailChunkSize = bulkInsertChunkSize(isSqlServer, EMAIL_INSERT_COLUMNS, EMAIL_MERGE_PARAMETERS, 1);
+            for(int chunkStart = 0; chunkStart < emailList.size(); chunkStart += emailChunkSize){
+                final int chunkEnd = Math.min(chunkStart + emailChunkSize, emailList.size());
 
-                    mail.setSubject(email.getSubject());
-                    mail.setMessage(email.getBody());
-                    mail.setHtmlMessage(true);
+                final Map<String, Object> parameters = new HashMap<>();
+                parameters.put("status", createdStatusId);
+                final StringBuilder query = new StringBuilder();
 
+                query.append(isSqlServer ? "MERGE INTO t_eu_email_queue USING (VALUES " : "INSERT ALL");
+
+                for(int i = chunkStart; i < chunkEnd; i++){
+                    final IEmail email = emailList.get(i);
                     final InternetAddress fromAddress = email.getFrom();
-                    if(fromAddress != null){
-                        mail.setFrom(etk.getMailService().createInternetAddress(
-                                fromAddress.getAddress(),
-                                fromAddress.getPersonal()));
+
+                    parameters.put("bccRecipients" + i, InternetAddressUtility.toText(email.getBccRecipients()));
+                    parameters.put("body" + i, email.getBody());
+                    parameters.put("ccRecipients" + i, InternetAddressUtility.toText(email.getCcRecipients()));
+                    parameters.put("fromAddress" + i, fromAddress == null ? null : fromAddressIds.get(fromAddressKey(fromAddress)));
+                    parameters.put("recipients" + i, InternetAddressUtility.toText(email.getRecipients()));
+                    parameters.put("subject" + i, email.getSubject());
+
+                    if(isSqlServer){
+                        query.append(i == chunkStart ? "" : ", ")
+                        .append(String.format("(%s, :bccRecipients%s, :body%s, :ccRecipients%s, :fromAddress%s, :recipients%s, :subject%s)",
+                                i, i, i, i, i, i, i));
+                    }else{
+                        emailQueueIds[i] = oracleIds.next();
+                        parameters.put("emailQueueId" + i, emailQueueIds[i]);
+
+                        query.append(String.format(" INTO t_eu_email_queue(id, c_bcc_recipients, c_body, c_cc_recipients, c_from_address, c_recipients, c_subject, c_created_time, c_sent_time, c_status) VALUES(:emailQueueId%s, :bccRecipients%s, :body%s, :ccRecipients%s, :fromAddress%s, :recipients%s, :subject%s, ETKF_GETSERVERTIME(), NULL, :status)",
+                                i, i, i, i, i, i, i));
                     }
+                }
+
+                if(isSqlServer){
+                    query.append(") source(ROWNUMBER, BCCRECIPIENTS, BODY, CCRECIPIENTS, FROMADDRESS, RECIPIENTS, SUBJECT) ON 1 = 0 WHEN NOT MATCHED THEN INSERT (c_bcc_recipients, c_body, c_cc_recipients, c_from_address, c_recipients, c_subject, c_created_time, c_sent_time, c_status) VALUES(source.BCCRECIPIENTS, source.BODY, source.CCRECIPIENTS, source.FROMADDRESS, source.RECIPIENTS, source.SUBJECT, DBO.ETKF_GETSERVERTIME(), NULL, :status) OUTPUT source.ROWNUMBER ROWNUMBER, inserted.id ID;");
 
-                    for(final IAttachment attachment : email.getAttachments()){
-                        try (InputStream contentStream = attachment.getContent()) {
-                            mail.addAttachment(
-                                    new Attachment(attachment.getName(),
-                                    FileUtility.toByteArray(etk, contentStream)));
-                        } catch (final Exception e) {
-                            throw new EmailException(String.format("Error getting attachment with name: \"%s\"", attachment.getName()),
-                                    e);
-                        }
+                    for(final Map<String, Object> row : etk.createSQL(query.toString())
+                            .setParameter(parameters)
+                            .fetchList()){
+                        emailQueueIds[Coersion.toLong(row.get("ROWNUMBER")).intValue()] = Coersion.toLong(row.get("ID"));
                     }
+                }else{
+                    query.append(" SELECT * FROM DUAL");
 
-                    etk.getMailService().send(mail);
+                    etk.createSQL(query.toString())
+                    .setParameter(parameters)
+                    .execute();
+                }
+            }
+
+            /* Handle attachments */
+            for(int i = 0; i < emailList.size(); i++){
+                for(final IAttachment attachment : emailList.get(i).getAttachments()){
+                    queueAttachment(etk, emailQueueIds[i], attachment);
                 }
+            }
+
+            return Arrays.asList(emailQueueIds);
+        } catch (final IncorrectResultSizeDataAccessException e) {
+            throw new EmailException("Error encountered queueing emails", e);
+        }
+    }
+
+    /**
+     * Determines how many rows a single multi-row insert may contain without exceeding the column limit of an Oracle
+     * INSERT ALL or the parameter limit of SQL Server.
+     *
+     * @param isSqlServer whether the database is SQL Server
+     * @param oracleColumnsPerRow the number of columns of each INTO clause of the Oracle statement
+     * @param sqlServerParametersPerRow the number of bind parameters of each row of the SQL Server statement
+     * @param sqlServerSharedParameters the number of bind parameters of the SQL Server statement shared by all rows
+     * @return the maximum number of rows
+     */
+    private static int bulkInsertChunkSize(final boolean isSqlServer,
+            final int oracleColumnsPerRow,
+            final int sqlServerParametersPerRow,
+            final int sqlServerSharedParameters){
+        final int databaseLimit = isSqlServer
+                ? (SQL_SERVER_MAX_PARAMETERS - sqlServerSharedParameters) / sqlServerParametersPerRow
+                : ORACLE_MAX_INSERT_ALL_COLUMNS / oracleColumnsPerRow;
+
+        return Math.min(BULK_INSERT_CHUNK_SIZE, databaseLimit);
+    }
+
+    /**
+     * Generates the key used to determine whether two from addresses are identical.
+     *
+     * @param fromAddress the from address
+     * @return the key
+     */
+    private static List<String> fromAddressKey(final InternetAddress fromAddress){
+        return Arrays.asList(fromAddress.getAddress(), fromAddress.getPersonal());
+    }
+
+    /**
+     * Stores an attachment of a queued email.
+     * The content is spooled to a temporary file while its SHA-256 hash is computed so that it is never held in memory
+     * all at once. If an attachment with the same name and content has already been queued, its etk_file entry is
+     * shared instead of storing another copy, otherwise the spooled content is streamed into etk_file through the file
+     * service.
+     *
+     * @param etk entellitrak execution context
+     * @param emailQueueId tracking id of the email in T_EU_EMAIL_QUEUE
+     * @param attachment the attachment
+     * @throws EmailException If any problem occurs
+     */
+    private static void queueAttachment(final ExecutionContext etk, final long emailQueueId, final IAttachment attachment)
+            throws EmailException{
+        final String attachmentName = attachment.getName();
+
+        final String fileExtension =
+                attachmentName.indexOf('.') == -1
+                ? ""
+                  : attachmentName.substring(attachmentName.indexOf('.'));
+        String contentType = URLConnection.guessContentTypeFromName(attachmentName);
+        if(contentType == null){
+            contentType = "application/octet-stream";
+        }
+
+        Path spoolFile = null;
+        try{
+            spoolFile = Files.createTempFile("eu_queue_attachment", null);
+
+            final MessageDigest digest = MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+            final long fileSize;
+            try(final InputStream contentStream = attachment.getContent();
+                    final OutputStream spoolStream = new DigestOutputStream(
+                            new BufferedOutputStream(Files.newOutputStream(spoolFile)), digest)){
+                fileSize = IOUtility.copyLarge(contentStream, spoolStream);
+            }
+            final String contentHash = new String(Hex.encodeHex(digest.digest()));
+
+            final Long existingFileId = Coersion.toLong(etk.createSQL("SELECT MIN(etkFile.id) FROM t_eu_queue_attachment queueAttachment JOIN etk_file etkFile ON etkFile.id = queueAttachment.c_file WHERE queueAttachment.c_content_hash = :contentHash AND etkFile.file_size = :fileSize AND etkFile.file_name = :fileName")
+                    .setParameter("contentHash", contentHash)
+                    .setParameter("fileSize", fileSize)
+                    .setParameter("fileName", attachmentName)
+                    .fetchObject());
+
+            final long emailQueueAttachmentId;
+
+            if(Utility.isSqlServer(etk)){
+                emailQueueAttachmentId = ((Number) etk.createSQL("INSERT INTO t_eu_queue_attachment(c_file, c_email_queue_id, c_content_hash) VALUES(:fileId, :emailQueueId, :contentHash)")
+                        .setParameter("fileId", existingFileId)
+                        .setParameter("emailQueueId", emailQueueId)
+                        .setParameter("contentHash", contentHash)
+                        .executeForKey("id")).longValue();
             }else{
-                etk.getLogger().error(
-                        String.format("An email has not been sent to the email server because emails are not enabled. If you want emails sent you must set the \"%s\" option in the \"AEA CORE Configuration\" RDO.", AeaCoreConfigurationItem.EU_ENABLE_EMAIL.getCode()));
+                emailQueueAttachmentId = ((Number) etk.createSQL("SELECT OBJECT_ID.NEXTVAL FROM DUAL").fetchObject()).longValue();
+
+                etk.createSQL("INSERT INTO t_eu_queue_attachment(id, c_file, c_email_queue_id, c_content_hash) VALUES(:attachmentId, :fileId, :emailQueueId, :contentHash)")
+                .setParameter("attachmentId", emailQueueAttachmentId)
+                .setParameter("fileId", existingFileId)
+                .setParameter("emailQueueId", emailQueueId)
+                .setParameter("contentHash", contentHash)
+                .execute();
+            }
+
+            if(existingFileId == null){
+                final long fileId;
+                try(final InputStream spoolContent = new BufferedInputStream(Files.newInputStream(spoolFile))){
+                    fileId = etk.getFileService().create(spoolContent, attachmentName, fileExtension, contentType).getId();
+                }
+
+                etk.createSQL("UPDATE etk_file SET file_size = :fileSize, file_extension = :fileExtension, object_type = :objectType, reference_id = :referenceId WHERE id = :fileId")
+                .setParameter("fileSize", fileSize)
+                .setParameter("fileExtension", fileExtension)
+                .setParameter("objectType", "T_EU_QUEUE_ATTACHMENT")
+                .setParameter("referenceId", emailQueueAttachmentId)
+                .setParameter("fileId", fileId)
+                .execute();
+
+                etk.createSQL("UPDATE t_eu_queue_attachment SET c_file = :fileId WHERE id = :attachmentId")
+                .setParameter("fileId", fileId)
+                .setParameter("attachmentId", emailQueueAttachmentId)
+                .execute();
+            }
+        } catch (final Exception e) {
+            throw new EmailException(String.format("Error encountered queueing attachment with name: \"%s\"", attachmentName),
+                    e);
+        } finally {
+            IOUtility.deleteQuietly(spoolFile);
+        }
+    }
+
+    /**
+     * Immediately sends an email.
+     * NOTE: CURRENTLY DUE TO CORE LIMITATIONS, IF TWO FILES HAVE THE SAME NAME, I WILL CHANGE ONE OF THEM.
+     *
+     * @param etk The etk variable in entellitrak
+     * @param email The email to send
+     * @throws EmailException If any problem occurs
+     */
+    public static void sendEmail(final ExecutionContext etk, final IEmail email) throws EmailException{
+
+        final String errorString = "Error encountered sending email.";
+
+        try {
+            final Mail mail = EmailQueueSender.createMail(etk, email);
+
+            if(mail != null){
+                etk.getMailService().send(mail);
             }
         } catch (final Exception  e) {
             throw new EmailException(errorString, e);
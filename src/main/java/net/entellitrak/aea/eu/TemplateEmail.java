@@ -12,6 +12,8 @@ import net.entellitrak.aea.exception.EmailException;
 import net.entellitrak.aea.exception.TemplateException;
 import net.entellitrak.aea.tu.ITemplater;
 import net.entellitrak.aea.tu.Templater;
+import net.micropact.aea.core.query.Coersion;
+import net.micropact.aea.tu.cache.TemplateCache;
 
 /**
  * <p>
@@ -100,15 +102,29 @@ public final class TemplateEmail{
         final String errorString = String.format("Error generating email %s", emailCode);
 
         try {
-            final List<Map<String, Object>> emailInfos = etk.createSQL("SELECT C_SUBJECT, C_BODY FROM t_eu_email_template WHERE c_code = :code")
+            final List<Map<String, Object>> emailInfos = etk.createSQL("SELECT ID, C_SUBJECT, C_BODY FROM t_eu_email_template WHERE c_code = :code")
                     .setParameter("code", emailCode)
                     .fetchList();
             if(emailInfos.size() == 0){
                 throw new EmailException(String.format("Email not found: \"%s\"", emailCode));
             }else{
-                final Map<String, Object> emailInfo = emailInfos.get(0); /*C_SUBJECT, C_BODY*/
-                final String subject = templater.parse((String) emailInfo.get("C_SUBJECT"), replacementVariables);
-                final String body = templater.parse((String) emailInfo.get("C_BODY"), replacementVariables);
+                final Map<String, Object> emailInfo = emailInfos.get(0); /*ID, C_SUBJECT, C_BODY*/
+                final long emailTemplateId = Coersion.toLong(emailInfo.get("ID"));
+
+                final StringBuilder output = new StringBuilder();
+
+                templater.render(TemplateCache.load(etk, templater, "T_EU_EMAIL_TEMPLATE", "C_SUBJECT", emailTemplateId,
+                        (String) emailInfo.get("C_SUBJECT")),
+                        replacementVariables,
+                        output);
+                final String subject = output.toString();
+
+                output.setLength(0);
+                templater.render(TemplateCache.load(etk, templater, "T_EU_EMAIL_TEMPLATE", "C_BODY", emailTemplateId,
+                        (String) emailInfo.get("C_BODY")),
+                        replacementVariables,
+                        output);
+                final String body = output.toString();
 
                 return new SimpleEmail(etk, subject, body, fromAddress, recipients, ccRecipients, bccRecipients,
                         attachments);
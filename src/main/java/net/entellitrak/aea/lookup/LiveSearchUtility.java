@@ -0,0 +1,73 @@
+package net.entellitrak.aea.lookup;
+
+import com.entellitrak.BaseObjectEventContext;
+import com.entellitrak.DataEventType;
+import com.entellitrak.ExecutionContext;
+
+import net.micropact.aea.ls.cache.LiveSearchCache;
+
+/**
+ * <p>
+ *  Public API for keeping the results which Live Search keeps in memory current when reference data changes.
+ * </p>
+ * <p>
+ *  Saving a record of an AEA reference data object does this automatically. Reference data objects which are used by
+ *  lookups that Live Search searches should call {@link #referenceDataChanged(BaseObjectEventContext)} from their
+ *  event handler, otherwise changes to them only show up once the cached results expire
+ *  (ls.candidateCacheTimeToLiveSeconds and ls.trigramIndexTimeToLiveSeconds).
+ * </p>
+ * <p>
+ *  None of these methods throw. Errors are logged so that they can never cause the save of the reference data to
+ *  fail.
+ * </p>
+ *
+ * @author MicroPact
+ */
+public final class LiveSearchUtility {
+
+    /**
+     * Utility classes do not need public constructors.
+     */
+    private LiveSearchUtility(){}
+
+    /**
+     * Updates the Live Search caches after the record of a data object event handler was created, updated or
+     * deleted. Read events are ignored.
+     *
+     * @param etk entellitrak execution context of the event handler
+     */
+    public static void referenceDataChanged(final BaseObjectEventContext etk){
+        if(DataEventType.READ != etk.getDataEventType()){
+            referenceDataChanged(etk,
+                    etk.getNewObject().configuration().getTableName(),
+                    etk.getNewObject().properties().getId(),
+                    DataEventType.DELETE == etk.getDataEventType());
+        }
+    }
+
+    /**
+     * Updates the Live Search caches after a single reference data record was created, updated or deleted.
+     *
+     * @param etk entellitrak execution context
+     * @param tableName the table of the record
+     * @param trackingId the id of the record
+     * @param isDelete whether the record was deleted
+     */
+    public static void referenceDataChanged(final ExecutionContext etk,
+            final String tableName,
+            final Long trackingId,
+            final boolean isDelete){
+        LiveSearchCache.applyChange(etk, tableName, trackingId, isDelete);
+    }
+
+    /**
+     * Updates the Live Search caches after any number of records of a reference data table were changed without
+     * going through an event handler, for instance by SQL.
+     *
+     * @param etk entellitrak execution context
+     * @param tableName the table which was changed
+     */
+    public static void referenceTableChanged(final ExecutionContext etk, final String tableName){
+        LiveSearchCache.applyTableChange(etk, tableName);
+    }
+}
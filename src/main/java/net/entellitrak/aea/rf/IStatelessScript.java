@@ -0,0 +1,18 @@
+package net.entellitrak.aea.rf;
+
+/**
+ * <p>
+ *  Marker interface for {@link IScript}s which do not keep any state in their fields.
+ * </p>
+ * <p>
+ *  The Rules Framework normally creates a new instance of an {@link IScript} every time its Workflow Effect fires.
+ *  Implementing this interface instead tells the Rules Framework that a single instance may be reused for every
+ *  transition, including transitions happening concurrently on different threads.
+ *  Only implement it if {@link IScript#doEffect(com.entellitrak.ExecutionContext, IRulesFrameworkParameters)}
+ *  relies solely on its arguments.
+ * </p>
+ *
+ * @author zmiller
+ */
+public interface IStatelessScript extends IScript {
+}
@@ -0,0 +1,42 @@
+package net.entellitrak.aea.rf;
+
+import net.entellitrak.aea.exception.RulesFrameworkException;
+
+/**
+ * The outcome of a single record within one of the batch methods of {@link RulesFramework} such as
+ * {@link RulesFramework#updateWorkflows(com.entellitrak.ExecutionContext, String, java.util.Collection)}.
+ * A failure of one record does not prevent the remaining records of the batch from being processed.
+ *
+ * @author zmiller
+ */
+public interface IWorkflowBatchResult {
+
+    /**
+     * The trackingId which was passed in to the batch method and which this result is for.
+     *
+     * @return the trackingId which this result is for.
+     */
+    long getTrackingId();
+
+    /**
+     * The trackingId of the Child Object which was processed.
+     * This will be null if the batch method failed before a Child Object could be determined.
+     *
+     * @return the trackingId of the Child Object.
+     */
+    Long getChildTrackingId();
+
+    /**
+     * Whether the record was processed without any errors.
+     *
+     * @return whether the record was processed without any errors.
+     */
+    boolean isSuccessful();
+
+    /**
+     * The error which was encountered while processing the record.
+     *
+     * @return the error which was encountered, or null if the record was processed successfully.
+     */
+    RulesFrameworkException getError();
+}
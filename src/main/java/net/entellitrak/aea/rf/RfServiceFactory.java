@@ -21,6 +21,8 @@ public final class RfServiceFactory{
 
     /**
      * Gets an instance of a Rules Framework DAO Service.
+     * The service loads each RF Workflow along with its states, transitions, effects and parameters in a fixed number
+     * of queries.
      *
      * @param etk entellitrak execution context
      * @return The RF DAO Service
@@ -29,6 +31,18 @@ public final class RfServiceFactory{
         return new RfDaoService(etk);
     }
 
+    /**
+     * Gets an instance of a Rules Framework DAO Service which can optionally lazily load related objects one at a
+     * time. Lazy loading is only cheaper when a small part of a large workflow will be accessed.
+     *
+     * @param etk entellitrak execution context
+     * @param lazyLoad whether related objects should be lazily loaded
+     * @return The RF DAO Service
+     */
+    public static IRfDaoService getRfDaoService(final ExecutionContext etk, final boolean lazyLoad){
+        return new RfDaoService(etk, lazyLoad);
+    }
+
     /**
      * Gets an instance of a Rules Framework Migration Service.
      *
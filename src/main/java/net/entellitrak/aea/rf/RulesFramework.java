@@ -6,17 +6,34 @@
  **/
 
 package net.entellitrak.aea.rf;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import com.entellitrak.ApplicationException;
 import com.entellitrak.ExecutionContext;
-import com.entellitrak.IncorrectResultSizeDataAccessException;
 
 import net.entellitrak.aea.exception.RulesFrameworkException;
-import net.entellitrak.aea.rf.dao.IRfWorkflow;
+import net.micropact.aea.core.query.Coersion;
+import net.micropact.aea.core.query.InClauseInfo;
+import net.micropact.aea.core.query.QueryUtility;
 import net.micropact.aea.rf.DefaultParameters;
 import net.micropact.aea.rf.RulesFrameworkParameters;
-import net.micropact.aea.rf.TransitionParameters;
+import net.micropact.aea.rf.WorkflowBatchResult;
+import net.micropact.aea.rf.cache.CompiledRfTransition;
+import net.micropact.aea.rf.cache.CompiledRfWorkflow;
+import net.micropact.aea.rf.cache.CompiledRfWorkflowEffect;
+import net.micropact.aea.rf.cache.RfWorkflowCache;
+import net.micropact.aea.rf.utility.RfScriptFactoryRegistry;
 import net.micropact.aea.utility.Utility;
 
 /**
@@ -27,6 +44,12 @@ import net.micropact.aea.utility.Utility;
  */
 public final class RulesFramework{
 
+    /**
+     * The maximum number of trackingIds which the batch methods bind to a single statement.
+     * SQL Server does not allow more than 2100 parameters in a statement.
+     */
+    private static final int MAX_IDS_PER_STATEMENT = 1000;
+
     /**
      * Since all the methods are static, there is no need to instantiate a RulesFramework.
      */
@@ -49,34 +72,30 @@ public final class RulesFramework{
                 workflowCode, trackingId);
 
         try {
-            final IRfWorkflow rfWorkflow = RfServiceFactory.getRfDaoService(etk).loadRfWorkflowByCode(workflowCode);
-            final String parentTable = rfWorkflow.getParentStateElement().getDataObject().getTableName();
-            final String parentStateColumn = rfWorkflow.getParentStateElement().getColumnName();
-            final String childTable = rfWorkflow.getChildTransitionElement().getDataObject().getTableName();
-            final String childTransitionColumn = rfWorkflow.getChildTransitionElement().getColumnName();
-            final boolean parentIsBase =
-                    etk.getDataObjectService().getParent(rfWorkflow.getParentStateElement().getDataObject()) == null;
-
-            final long initialTransitionId;
+            final CompiledRfWorkflow rfWorkflow = RfWorkflowCache.load(etk, workflowCode);
+            final String parentTable = rfWorkflow.getParentTable();
+            final String parentStateColumn = rfWorkflow.getParentStateColumn();
+            final String childTable = rfWorkflow.getChildTable();
+            final String childTransitionColumn = rfWorkflow.getChildTransitionColumn();
+            final boolean parentIsBase = rfWorkflow.isParentBase();
+
             /* Get the Initial Transition, there should only be one. */
-            try{
-                initialTransitionId = etk.createSQL(Utility.isSqlServer(etk) ? "SELECT rfTransition.id FROM t_rf_workflow rfWorkflow JOIN t_rf_transition rfTransition ON rfTransition.id_parent = rfWorkflow.id WHERE rfWorkflow.c_code = :workflowCode AND rfTransition.c_initial_transition = 1 AND EXISTS ( SELECT * FROM m_rf_transition_role transitionRole WHERE transitionRole.id_owner = rfTransition.id AND transitionRole.c_role = :roleId ) AND ( rfTransition.c_start_date IS NULL OR rfTransition.c_start_date <= CAST(DBO.ETKF_GETSERVERTIME() AS DATE) ) AND ( rfTransition.c_end_date IS NULL OR rfTransition.c_end_date > CAST(DBO.ETKF_GETSERVERTIME() AS DATE) )"
-                                                                               : "SELECT rfTransition.id FROM t_rf_workflow rfWorkflow JOIN t_rf_transition rfTransition ON rfTransition.id_parent = rfWorkflow.id WHERE rfWorkflow.c_code = :workflowCode AND rfTransition.c_initial_transition = 1 AND EXISTS( SELECT * FROM m_rf_transition_role transitionRole WHERE transitionRole.id_owner = rfTransition.id AND transitionRole.c_role = :roleId ) AND (rfTransition.c_start_date IS NULL OR rfTransition.c_start_date <= TRUNC(ETKF_GETSERVERTIME())) AND (rfTransition.c_end_date IS NULL OR rfTransition.c_end_date > TRUNC(ETKF_GETSERVERTIME()))")
-                        .setParameter("workflowCode", workflowCode)
-                        .setParameter("roleId", etk.getCurrentUser().getRole().getId())
-                        .fetchInt();
-            }catch(final IncorrectResultSizeDataAccessException e){
-                throw new RulesFrameworkException("There should only be 1 matching \"Initial Transition\".", e);
+            final List<CompiledRfTransition> initialTransitions =
+                    rfWorkflow.getInitialTransitions(etk.getCurrentUser().getRole().getId(),
+                            RfWorkflowCache.getToday());
+
+            if(initialTransitions.size() != 1){
+                throw new RulesFrameworkException("There should only be 1 matching \"Initial Transition\".");
             }
 
-            final Map<String, Object> initialTransition =
-                    RulesFrameworkUtility.getRfTransitionById(etk, initialTransitionId);
+            final CompiledRfTransition initialTransition = initialTransitions.get(0);
+            final long initialTransitionId = initialTransition.getId();
 
             //Update the parent
             etk.createSQL(String.format("UPDATE %s SET %s = :stateId WHERE id = :parentId",
                     parentTable,
                     parentStateColumn))
-            .setParameter("stateId", initialTransition.get("STATEID"))
+            .setParameter("stateId", initialTransition.getToStateId())
             .setParameter("parentId", trackingId)
             .execute();
 
@@ -111,13 +130,14 @@ public final class RulesFramework{
             }
 
             final IDefaultParameters defaultParameters = new DefaultParameters(etk,
-                    workflowCode,
+                    rfWorkflow,
+                    initialTransition,
                     childTrackingId,
-                    null,
-                    initialTransitionId);
+                    trackingId,
+                    null);
 
             //Do the transition's effects
-            RulesFrameworkUtility.doTransitionEffects(etk, defaultParameters);
+            RulesFrameworkUtility.doTransitionEffects(etk, initialTransition, defaultParameters);
 
             //Return the new child's id
             return childTrackingId;
@@ -139,48 +159,50 @@ public final class RulesFramework{
             throws RulesFrameworkException{
         try {
             //Get the RF Workflow
-            final IRfWorkflow rfWorkflow = RfServiceFactory.getRfDaoService(etk).loadRfWorkflowByCode(workflowCode);
-            final String parentTable = rfWorkflow.getParentStateElement().getDataObject().getTableName();
-            final String parentStateColumn = rfWorkflow.getParentStateElement().getColumnName();
-            final String childTable = rfWorkflow.getChildTransitionElement().getDataObject().getTableName();
-            final String childTransitionColumn = rfWorkflow.getChildTransitionElement().getColumnName();
-
-            final Map<String, Object> info = etk.createSQL(String.format(Utility.isSqlServer(etk) ? "SELECT (SELECT childObject.%s  FROM %s childObject WHERE childObject.id = :trackingId) TRANSITIONID, (SELECT parentObject.%s FROM %s parentObject JOIN %s childObject ON childObject.id_parent = parentObject.id WHERE childObject.id = :trackingId) FROMSTATEID"
-                                                                                                    : "SELECT (SELECT childObject.%s  FROM %s childObject WHERE childObject.id = :trackingId) TRANSITIONID, (SELECT parentObject.%s FROM %s parentObject JOIN %s childObject ON childObject.id_parent = parentObject.id WHERE childObject.id = :trackingId) FROMSTATEID FROM DUAL",
+            final CompiledRfWorkflow rfWorkflow = RfWorkflowCache.load(etk, workflowCode);
+            final String parentTable = rfWorkflow.getParentTable();
+            final String parentStateColumn = rfWorkflow.getParentStateColumn();
+            final String childTable = rfWorkflow.getChildTable();
+            final String childTransitionColumn = rfWorkflow.getChildTransitionColumn();
+
+            final Map<String, Object> info = etk.createSQL(String.format(Utility.isSqlServer(etk) ? "SELECT (SELECT childObject.%s  FROM %s childObject WHERE childObject.id = :trackingId) TRANSITIONID, (SELECT childObject.id_parent FROM %s childObject WHERE childObject.id = :trackingId) PARENTID, (SELECT parentObject.%s FROM %s parentObject JOIN %s childObject ON childObject.id_parent = parentObject.id WHERE childObject.id = :trackingId) FROMSTATEID"
+                                                                                                    : "SELECT (SELECT childObject.%s  FROM %s childObject WHERE childObject.id = :trackingId) TRANSITIONID, (SELECT childObject.id_parent FROM %s childObject WHERE childObject.id = :trackingId) PARENTID, (SELECT parentObject.%s FROM %s parentObject JOIN %s childObject ON childObject.id_parent = parentObject.id WHERE childObject.id = :trackingId) FROMSTATEID FROM DUAL",
                                                                                                     childTransitionColumn,
                                                                                                     childTable,
+                                                                                                    childTable,
                                                                                                     parentStateColumn,
                                                                                                     parentTable,
                                                                                                     childTable))
                     .setParameter("trackingId", trackingId)
-                    .fetchMap(); //TRANSITIONID, FROMSTATEID
+                    .fetchMap(); //TRANSITIONID, PARENTID, FROMSTATEID
 
             final long rfTransitionId = ((Number) info.get("TRANSITIONID")).longValue();
+            final long parentTrackingId = ((Number) info.get("PARENTID")).longValue();
             final Long fromStateId = info.get("FROMSTATEID") == null
                     ? null
                     : ((Number) info.get("FROMSTATEID")).longValue();
 
-            final Map<String, Object> rfTransition = RulesFrameworkUtility.getRfTransitionById(etk, rfTransitionId);
+            final CompiledRfTransition rfTransition = RfWorkflowCache.loadTransition(etk, workflowCode, rfTransitionId);
 
             //Update the parent
-            etk.createSQL(String.format(Utility.isSqlServer(etk) ? "UPDATE %s SET %s = ISNULL(:stateId, %s) WHERE id = (SELECT childObject.id_parent FROM %s childObject WHERE childObject.id = :childId)"
-                                                                   : "UPDATE %s parentObject SET parentObject.%s = NVL(:stateId, parentObject.%s) WHERE parentObject.id = (SELECT childObject.id_parent FROM %s childObject WHERE childObject.id = :childId)",
+            etk.createSQL(String.format(Utility.isSqlServer(etk) ? "UPDATE %s SET %s = ISNULL(:stateId, %s) WHERE id = :parentId"
+                                                                   : "UPDATE %s parentObject SET parentObject.%s = NVL(:stateId, parentObject.%s) WHERE parentObject.id = :parentId",
                                                                    parentTable,
                                                                    parentStateColumn,
-                                                                   parentStateColumn,
-                                                                   childTable))
-            .setParameter("stateId", rfTransition.get("STATEID"))
-            .setParameter("childId", trackingId)
+                                                                   parentStateColumn))
+            .setParameter("stateId", rfTransition.getToStateId())
+            .setParameter("parentId", parentTrackingId)
             .execute();
 
             final IDefaultParameters defaultParameters = new DefaultParameters(etk,
-                    workflowCode,
+                    rfWorkflow,
+                    rfTransition,
                     trackingId,
-                    fromStateId,
-                    rfTransitionId);
+                    parentTrackingId,
+                    fromStateId);
 
             /*Do the Effects*/
-            RulesFrameworkUtility.doTransitionEffects(etk, defaultParameters);
+            RulesFrameworkUtility.doTransitionEffects(etk, rfTransition, defaultParameters);
         } catch (final Exception e) {
             throw new RulesFrameworkException(String.format("Error updating workflow for workflowCode: %s, trackingId: %s", workflowCode, trackingId),
                     e);
@@ -209,35 +231,39 @@ public final class RulesFramework{
                     throws RulesFrameworkException{
 
         try {
-            final IRfWorkflow rfWorkflow = RfServiceFactory.getRfDaoService(etk).loadRfWorkflowByCode(workflowCode);
-            final String parentTable = rfWorkflow.getParentStateElement().getDataObject().getTableName();
-            final String childTable = rfWorkflow.getChildTransitionElement().getDataObject().getTableName();
-            final String childTransitionColumn = rfWorkflow.getChildTransitionElement().getColumnName();
-            final boolean parentIsBase =
-                    etk.getDataObjectService().getParent(rfWorkflow.getParentStateElement().getDataObject()) == null;
+            final CompiledRfWorkflow rfWorkflow = RfWorkflowCache.load(etk, workflowCode);
+            final String parentTable = rfWorkflow.getParentTable();
+            final String childTable = rfWorkflow.getChildTable();
+            final String childTransitionColumn = rfWorkflow.getChildTransitionColumn();
+            final boolean parentIsBase = rfWorkflow.isParentBase();
+
+            final CompiledRfTransition rfTransition = rfWorkflow.getTransitionByCode(rfTransitionCode);
+
+            if(rfTransition == null){
+                throw new RulesFrameworkException(String.format("Could not find RF Transition with code \"%s\"",
+                        rfTransitionCode));
+            }
 
             final long childTrackingId;
 
             if(Utility.isSqlServer(etk)){
-                childTrackingId = ((Number) etk.createSQL(String.format("INSERT INTO %s (id_base, id_parent, %s) VALUES((SELECT %s  FROM %s WHERE id = :idParent), :idParent, (SELECT rfTransition.id FROM t_rf_workflow workflow JOIN t_rf_transition rfTransition ON rfTransition.id_parent = workflow.id WHERE workflow.c_code = :workflowCode AND rfTransition.c_code = :transitionCode))",
+                childTrackingId = ((Number) etk.createSQL(String.format("INSERT INTO %s (id_base, id_parent, %s) VALUES((SELECT %s  FROM %s WHERE id = :idParent), :idParent, :transitionId)",
                         childTable,
                         childTransitionColumn,
                         parentIsBase ? "id" : "id_base",
                                      parentTable))
-                        .setParameter("transitionCode", rfTransitionCode)
-                        .setParameter("workflowCode", workflowCode)
+                        .setParameter("transitionId", rfTransition.getId())
                         .setParameter("idParent", parentTrackingId)
                         .executeForKey("id")).longValue();
             }else{
                 childTrackingId = ((Number) etk.createSQL("SELECT OBJECT_ID.NEXTVAL FROM DUAL").fetchObject()).longValue();
 
-                etk.createSQL(String.format("INSERT INTO %s (id, id_base, id_parent, %s) VALUES(:childTrackingId, (SELECT %s  FROM %s WHERE id = :idParent), :idParent, (SELECT rfTransition.id FROM t_rf_workflow workflow JOIN t_rf_transition rfTransition ON rfTransition.id_parent = workflow.id WHERE workflow.c_code = :workflowCode AND rfTransition.c_code = :transitionCode))",
+                etk.createSQL(String.format("INSERT INTO %s (id, id_base, id_parent, %s) VALUES(:childTrackingId, (SELECT %s  FROM %s WHERE id = :idParent), :idParent, :transitionId)",
                         childTable,
                         childTransitionColumn,
                         parentIsBase ? "id" : "id_base",
                                      parentTable))
-                .setParameter("transitionCode", rfTransitionCode)
-                .setParameter("workflowCode", workflowCode)
+                .setParameter("transitionId", rfTransition.getId())
                 .setParameter("idParent", parentTrackingId)
                 .setParameter("childTrackingId", childTrackingId)
                 .execute();
@@ -251,6 +277,395 @@ public final class RulesFramework{
                     e);
         }
     }
+
+    /**
+     * <p>
+     *  Batch version of {@link #updateWorkflow(ExecutionContext, String, long)} for jobs which need to fire the
+     *  transitions of many Child Objects at once.
+     *  The transition and from-state of the children are read with one query per 1000 children, the parents are
+     *  updated with one UPDATE per destination state and 1000 parents and the effects are fired grouped by transition.
+     * </p>
+     * <p>
+     *  A child which shares its Parent Object with an earlier child in the collection is processed individually,
+     *  in order, once the rest of the batch is done so that it sees the state left by the earlier child.
+     *  An error for one child does not stop the rest of the batch, it is reported in that child's result instead.
+     *  Rolling back the transaction on failures is left up to the caller.
+     * </p>
+     *
+     * @param etk The context to update the workflows in
+     * @param workflowCode The Code of the RF Workflow
+     * @param trackingIds the trackingIds of the Child Objects
+     * @return The result for each Child Object, keyed by trackingId in the order they were passed in
+     * @throws RulesFrameworkException If the RF Workflow itself could not be loaded
+     */
+    public static Map<Long, IWorkflowBatchResult> updateWorkflows(final ExecutionContext etk,
+            final String workflowCode,
+            final Collection<Long> trackingIds)
+                    throws RulesFrameworkException{
+        final Map<Long, IWorkflowBatchResult> results = new LinkedHashMap<>();
+        final List<Long> childIds = new ArrayList<>(new LinkedHashSet<>(trackingIds));
+
+        if(childIds.isEmpty()){
+            return results;
+        }
+
+        /* Reserve each child's position in the results so that they come back in the order they were passed in */
+        for(final Long childId : childIds){
+            results.put(childId, null);
+        }
+
+        final CompiledRfWorkflow rfWorkflow;
+        try {
+            rfWorkflow = RfWorkflowCache.load(etk, workflowCode);
+        } catch (final ApplicationException e) {
+            throw new RulesFrameworkException(String.format("Error loading workflow for workflowCode: %s", workflowCode),
+                    e);
+        }
+
+        final String parentTable = rfWorkflow.getParentTable();
+        final String parentStateColumn = rfWorkflow.getParentStateColumn();
+
+        final Map<Long, Map<String, Object>> infos = new HashMap<>();
+        for(int chunkStart = 0; chunkStart < childIds.size(); chunkStart += MAX_IDS_PER_STATEMENT){
+            final InClauseInfo childInClause = new InClauseInfo("childObject.id", "childIds",
+                    childIds.subList(chunkStart, Math.min(chunkStart + MAX_IDS_PER_STATEMENT, childIds.size())));
+
+            for(final Map<String, Object> info : etk.createSQL(String.format("SELECT childObject.id CHILDID, childObject.id_parent PARENTID, childObject.%s TRANSITIONID, parentObject.%s FROMSTATEID FROM %s childObject JOIN %s parentObject ON parentObject.id = childObject.id_parent WHERE %s",
+                    rfWorkflow.getChildTransitionColumn(),
+                    parentStateColumn,
+                    rfWorkflow.getChildTable(),
+                    parentTable,
+                    childInClause.getQueryFragment()))
+                    .setParameter(childInClause.getParameterMap())
+                    .fetchList()){ //CHILDID, PARENTID, TRANSITIONID, FROMSTATEID
+                infos.put(Coersion.toLong(info.get("CHILDID")), info);
+            }
+        }
+
+        final Set<Long> batchedParentIds = new HashSet<>();
+        final List<Long> deferredChildIds = new ArrayList<>();
+        final Map<Long, List<BatchChild>> childrenByTransition = new LinkedHashMap<>();
+        final Map<Long, List<BatchChild>> childrenByToState = new LinkedHashMap<>();
+
+        for(final Long childId : childIds){
+            final Map<String, Object> info = infos.get(childId);
+
+            if(info == null){
+                results.put(childId, WorkflowBatchResult.failure(childId, null,
+                        new RulesFrameworkException(String.format("Could not find Child Object with trackingId %s for workflowCode: %s",
+                                childId, workflowCode))));
+                continue;
+            }
+
+            final Long parentId = Coersion.toLong(info.get("PARENTID"));
+
+            if(!batchedParentIds.add(parentId)){
+                deferredChildIds.add(childId);
+                continue;
+            }
+
+            try {
+                final Long rfTransitionId = Coersion.toLong(info.get("TRANSITIONID"));
+
+                if(rfTransitionId == null){
+                    throw new RulesFrameworkException(String.format("Child Object with trackingId %s does not have an RF Transition",
+                            childId));
+                }
+
+                final CompiledRfTransition rfTransition =
+                        RfWorkflowCache.loadTransition(etk, workflowCode, rfTransitionId);
+                final BatchChild batchChild = new BatchChild(childId,
+                        parentId,
+                        Coersion.toLong(info.get("FROMSTATEID")),
+                        rfTransition);
+
+                childrenByTransition.computeIfAbsent(rfTransition.getId(), key -> new ArrayList<>()).add(batchChild);
+
+                if(rfTransition.getToStateId() != null){
+                    childrenByToState.computeIfAbsent(rfTransition.getToStateId(), key -> new ArrayList<>())
+                    .add(batchChild);
+                }
+            } catch (final Exception e) {
+                /* The parent was not touched, so a later child of the same parent can still be batched */
+                batchedParentIds.remove(parentId);
+                results.put(childId, WorkflowBatchResult.failure(childId, childId,
+                        new RulesFrameworkException(String.format("Error updating workflow for workflowCode: %s, trackingId: %s", workflowCode, childId),
+                                e)));
+            }
+        }
+
+        //Update the parents, one statement per state they are moving to and chunk of parents
+        for(final Entry<Long, List<BatchChild>> stateEntry : childrenByToState.entrySet()){
+            final List<BatchChild> stateChildren = stateEntry.getValue();
+
+            for(int chunkStart = 0; chunkStart < stateChildren.size(); chunkStart += MAX_IDS_PER_STATEMENT){
+                final List<BatchChild> chunk = stateChildren.subList(chunkStart,
+                        Math.min(chunkStart + MAX_IDS_PER_STATEMENT, stateChildren.size()));
+                final List<Long> parentIds = chunk
+                        .stream()
+                        .map(BatchChild::getParentTrackingId)
+                        .collect(Collectors.toList());
+                final InClauseInfo parentInClause = new InClauseInfo("id", "parentIds", parentIds);
+
+                try {
+                    etk.createSQL(String.format("UPDATE %s SET %s = :stateId WHERE %s",
+                            parentTable,
+                            parentStateColumn,
+                            parentInClause.getQueryFragment()))
+                    .setParameter("stateId", stateEntry.getKey())
+                    .setParameter(parentInClause.getParameterMap())
+                    .execute();
+                } catch (final Exception e) {
+                    for(final BatchChild batchChild : chunk){
+                        final long childId = batchChild.getChildTrackingId();
+                        results.put(childId, WorkflowBatchResult.failure(childId, childId,
+                                new RulesFrameworkException(String.format("Error updating parent for workflowCode: %s, trackingId: %s", workflowCode, childId),
+                                        e)));
+                    }
+                }
+            }
+        }
+
+        /*Do the Effects*/
+        for(final List<BatchChild> transitionChildren : childrenByTransition.values()){
+            for(final BatchChild batchChild : transitionChildren){
+                final long childId = batchChild.getChildTrackingId();
+
+                if(results.get(childId) != null){
+                    /* The parent update already failed */
+                    continue;
+                }
+
+                try {
+                    final IDefaultParameters defaultParameters = new DefaultParameters(etk,
+                            rfWorkflow,
+                            batchChild.getRfTransition(),
+                            childId,
+                            batchChild.getParentTrackingId(),
+                            batchChild.getFromStateId());
+
+                    RulesFrameworkUtility.doTransitionEffects(etk, batchChild.getRfTransition(), defaultParameters);
+                    results.put(childId, WorkflowBatchResult.success(childId, childId));
+                } catch (final Exception e) {
+                    results.put(childId, WorkflowBatchResult.failure(childId, childId,
+                            new RulesFrameworkException(String.format("Error updating workflow for workflowCode: %s, trackingId: %s", workflowCode, childId),
+                                    e)));
+                }
+            }
+        }
+
+        for(final Long childId : deferredChildIds){
+            try {
+                updateWorkflow(etk, workflowCode, childId);
+                results.put(childId, WorkflowBatchResult.success(childId, childId));
+            } catch (final RulesFrameworkException e) {
+                results.put(childId, WorkflowBatchResult.failure(childId, childId, e));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * <p>
+     *  Batch version of {@link #insertChildWorkflow(ExecutionContext, String, long, String)}.
+     *  It will insert a new Child Object under each of the Parent Objects and then call
+     *  {@link #updateWorkflows(ExecutionContext, String, Collection)} for all of the new children.
+     *  Only one Child Object is inserted for each distinct parent trackingId.
+     * </p>
+     *
+     * @param etk The context to use to insert the children
+     * @param workflowCode The Code of the RF Workflow
+     * @param parentTrackingIds The trackingIds of the Parent Objects which the children should be inserted under
+     * @param rfTransitionCode The Code of the RF Transition which the children represent
+     * @return The result for each Parent Object, keyed by parent trackingId in the order they were passed in.
+     *      {@link IWorkflowBatchResult#getChildTrackingId()} is the trackingId of the newly created Child Object.
+     * @throws RulesFrameworkException If the RF Workflow or RF Transition could not be found
+     */
+    public static Map<Long, IWorkflowBatchResult> insertChildWorkflows(final ExecutionContext etk,
+            final String workflowCode,
+            final Collection<Long> parentTrackingIds,
+            final String rfTransitionCode)
+                    throws RulesFrameworkException{
+        final Map<Long, IWorkflowBatchResult> results = new LinkedHashMap<>();
+        final List<Long> parentIds = new ArrayList<>(new LinkedHashSet<>(parentTrackingIds));
+
+        if(parentIds.isEmpty()){
+            return results;
+        }
+
+        for(final Long parentId : parentIds){
+            results.put(parentId, null);
+        }
+
+        final CompiledRfWorkflow rfWorkflow;
+        try {
+            rfWorkflow = RfWorkflowCache.load(etk, workflowCode);
+        } catch (final ApplicationException e) {
+            throw new RulesFrameworkException(String.format("Error loading workflow for workflowCode: %s", workflowCode),
+                    e);
+        }
+
+        final String childTable = rfWorkflow.getChildTable();
+        final String childTransitionColumn = rfWorkflow.getChildTransitionColumn();
+
+        final CompiledRfTransition rfTransition = rfWorkflow.getTransitionByCode(rfTransitionCode);
+
+        if(rfTransition == null){
+            throw new RulesFrameworkException(String.format("Could not find RF Transition with code \"%s\"",
+                    rfTransitionCode));
+        }
+
+        final Map<Long, Long> baseIds = new HashMap<>();
+        for(int chunkStart = 0; chunkStart < parentIds.size(); chunkStart += MAX_IDS_PER_STATEMENT){
+            final InClauseInfo parentInClause = new InClauseInfo("id", "parentIds",
+                    parentIds.subList(chunkStart, Math.min(chunkStart + MAX_IDS_PER_STATEMENT, parentIds.size())));
+
+            for(final Map<String, Object> parent : etk.createSQL(String.format("SELECT id PARENTID, %s BASEID FROM %s WHERE %s",
+                    rfWorkflow.isParentBase() ? "id" : "id_base",
+                    rfWorkflow.getParentTable(),
+                    parentInClause.getQueryFragment()))
+                    .setParameter(parentInClause.getParameterMap())
+                    .fetchList()){ //PARENTID, BASEID
+                baseIds.put(Coersion.toLong(parent.get("PARENTID")), Coersion.toLong(parent.get("BASEID")));
+            }
+        }
+
+        final boolean isSqlServer = Utility.isSqlServer(etk);
+
+        /* On Oracle the ids for all of the children are reserved with a single query */
+        final Iterator<Long> oracleChildIds = isSqlServer || baseIds.isEmpty()
+                ? null
+                : QueryUtility.mapsToLongs(etk.createSQL("SELECT OBJECT_ID.NEXTVAL FROM DUAL CONNECT BY LEVEL <= :childCount")
+                        .setParameter("childCount", baseIds.size())
+                        .fetchList())
+                .iterator();
+
+        final Map<Long, Long> parentIdsByChild = new LinkedHashMap<>();
+
+        for(final Long parentId : parentIds){
+            final Long baseId = baseIds.get(parentId);
+
+            if(baseId == null){
+                results.put(parentId, WorkflowBatchResult.failure(parentId, null,
+                        new RulesFrameworkException(String.format("Could not find Parent Object with trackingId %s for workflowCode: %s",
+                                parentId, workflowCode))));
+                continue;
+            }
+
+            try {
+                final long childTrackingId;
+
+                if(isSqlServer){
+                    childTrackingId = ((Number) etk.createSQL(String.format("INSERT INTO %s (id_base, id_parent, %s) VALUES(:baseId, :idParent, :transitionId)",
+                            childTable,
+                            childTransitionColumn))
+                            .setParameter("baseId", baseId)
+                            .setParameter("idParent", parentId)
+                            .setParameter("transitionId", rfTransition.getId())
+                            .executeForKey("id")).longValue();
+                }else{
+                    childTrackingId = oracleChildIds.next();
+
+                    etk.createSQL(String.format("INSERT INTO %s (id, id_base, id_parent, %s) VALUES(:childTrackingId, :baseId, :idParent, :transitionId)",
+                            childTable,
+                            childTransitionColumn))
+                    .setParameter("childTrackingId", childTrackingId)
+                    .setParameter("baseId", baseId)
+                    .setParameter("idParent", parentId)
+                    .setParameter("transitionId", rfTransition.getId())
+                    .execute();
+                }
+
+                parentIdsByChild.put(childTrackingId, parentId);
+            } catch (final Exception e) {
+                results.put(parentId, WorkflowBatchResult.failure(parentId, null,
+                        new RulesFrameworkException(String.format("Error inserting child workflow for workflowCode: %s, parentTrackinId: %s, transitionCode: %s",
+                                workflowCode, parentId, rfTransitionCode),
+                                e)));
+            }
+        }
+
+        for(final IWorkflowBatchResult childResult
+                : updateWorkflows(etk, workflowCode, parentIdsByChild.keySet()).values()){
+            final long childId = childResult.getTrackingId();
+            final long parentId = parentIdsByChild.get(childId);
+
+            results.put(parentId, childResult.isSuccessful()
+                    ? WorkflowBatchResult.success(parentId, childId)
+                    : WorkflowBatchResult.failure(parentId, childId, childResult.getError()));
+        }
+
+        return results;
+    }
+
+    /**
+     * Holds the information needed to fire the transition of a single Child Object within
+     * {@link RulesFramework#updateWorkflows(ExecutionContext, String, Collection)}.
+     *
+     * @author zmiller
+     */
+    private static final class BatchChild {
+
+        private final long childTrackingId;
+        private final long parentTrackingId;
+        private final Long fromStateId;
+        private final CompiledRfTransition rfTransition;
+
+        /**
+         * A simple constructor.
+         *
+         * @param theChildTrackingId trackingId of the Child Object
+         * @param theParentTrackingId trackingId of the Parent Object
+         * @param theFromStateId the state the parent was in before the transition, may be null
+         * @param theRfTransition the transition being taken
+         */
+        BatchChild(final long theChildTrackingId,
+                final long theParentTrackingId,
+                final Long theFromStateId,
+                final CompiledRfTransition theRfTransition){
+            childTrackingId = theChildTrackingId;
+            parentTrackingId = theParentTrackingId;
+            fromStateId = theFromStateId;
+            rfTransition = theRfTransition;
+        }
+
+        /**
+         * Get the trackingId of the Child Object.
+         *
+         * @return the trackingId of the Child Object
+         */
+        long getChildTrackingId(){
+            return childTrackingId;
+        }
+
+        /**
+         * Get the trackingId of the Parent Object.
+         *
+         * @return the trackingId of the Parent Object
+         */
+        long getParentTrackingId(){
+            return parentTrackingId;
+        }
+
+        /**
+         * Get the state the parent was in before the transition.
+         *
+         * @return the state the parent was in before the transition
+         */
+        Long getFromStateId(){
+            return fromStateId;
+        }
+
+        /**
+         * Get the transition being taken.
+         *
+         * @return the transition being taken
+         */
+        CompiledRfTransition getRfTransition(){
+            return rfTransition;
+        }
+    }
 }
 
 /**
@@ -265,62 +680,36 @@ final class RulesFrameworkUtility{
      */
     private RulesFrameworkUtility(){}
 
-    /**
-     * This method gets all necessary information regarding a particular Transition.
-     *
-     * @param etk The context to execute queries
-     * @param rfTransitionId the trackingId of the RF Transition
-     * @return a Map with the following keys: TRANSITIONID, TRANSITIONCODE, STATEID, STATECODE
-     */
-    public static Map<String, Object> getRfTransitionById(final ExecutionContext etk, final long rfTransitionId){
-        return etk.createSQL("SELECT transition.id transitionId, transition.c_code transitionCode, rfState.id stateId, rfState.c_code stateCode FROM t_rf_transition transition LEFT JOIN t_rf_state rfState ON rfState.id = transition.c_to_state WHERE transition.id = :transitionId")
-                .setParameter("transitionId", rfTransitionId)
-                .fetchList().get(0);
-    }
-
     /**
      * This will cause all the WorkflowEffects for a Transition to be fired off.
      *
      * @param etk The context to use for database queries
+     * @param rfTransition The compiled RF Transition whose effects should be fired
      * @param defaultParameters The Default Parameters which will be used for the effects.
      *
-     *  If there is an underlying core {@link IncorrectResultSizeDataAccessException}
-     * @throws RulesFrameworkException If any other problems occur
+     * @throws RulesFrameworkException If any problems occur
      */
-    public static void doTransitionEffects(final ExecutionContext etk, final IDefaultParameters defaultParameters)
+    public static void doTransitionEffects(final ExecutionContext etk,
+            final CompiledRfTransition rfTransition,
+            final IDefaultParameters defaultParameters)
             throws RulesFrameworkException{
-        final String workflowCode = defaultParameters.getRfWorkflow().getCode();
-
         try {
-
-            final ITransitionParameters transitionParameters =
-                    new TransitionParameters(etk, defaultParameters.getRfTransition().getId());
-
-            final IRfWorkflow rfWorkflow = RfServiceFactory.getRfDaoService(etk).loadRfWorkflowByCode(workflowCode);
-            final String childTable = rfWorkflow.getChildTransitionElement().getDataObject().getTableName();
-            final String childTransitionColumn = rfWorkflow.getChildTransitionElement().getColumnName();
-
-            final List<Map<String, Object>> rfTransitionEffects = etk.createSQL(String.format("SELECT workflowEffect.id workflowEffectId, script.c_script_object SCRIPTOBJECT FROM %s childObject JOIN t_rf_transition transition ON transition.id = childObject.%s JOIN m_rf_effect_transition effectTransition ON effectTransition.c_transition = transition.id JOIN t_rf_workflow_effect workflowEffect ON workflowEffect.id = effectTransition.id_owner JOIN t_rf_script script ON script.id = workflowEffect.c_script WHERE childObject.id = :trackingId ORDER BY workflowEffect.c_execution_order",
-                    childTable,
-                    childTransitionColumn))
-                    .setParameter("trackingId", defaultParameters.getChildTrackingId())
-                    .fetchList(); /*WORKFLOWEFFECTID, SCRIPTOBJECT*/
+            final ITransitionParameters transitionParameters = rfTransition.getTransitionParameters();
 
             //Do the transition effects
-            for(final Map<String, Object> rfTransitionEffect : rfTransitionEffects){
+            for(final CompiledRfWorkflowEffect rfTransitionEffect : rfTransition.getWorkflowEffects()){
                 final IRulesFrameworkParameters frameworkParameters =
-                        new RulesFrameworkParameters(etk,
-                                defaultParameters,
-                                transitionParameters,
-                                ((Number) rfTransitionEffect.get("WORKFLOWEFFECTID")).longValue());
+                        new RulesFrameworkParameters(defaultParameters,
+                                rfTransitionEffect.getCustomParameters(),
+                                transitionParameters);
 
-                final IScript script = (IScript) Class.forName((String) rfTransitionEffect.get("SCRIPTOBJECT")).newInstance();
+                final IScript script = RfScriptFactoryRegistry.getScript(rfTransitionEffect.getScriptObjectName());
 
                 script.doEffect(etk, frameworkParameters);
             }
         } catch (final Exception e) {
             throw new RulesFrameworkException(String.format("Error performing transition effects for workflowCode: %s, trackingId: %s",
-                    workflowCode, defaultParameters.getChildTrackingId()),
+                    defaultParameters.getWorkflowCode(), defaultParameters.getChildTrackingId()),
                     e);
         }
     }
@@ -5,6 +5,8 @@
  * {@link net.entellitrak.aea.rf.RulesFrameworkLookup} which contains default implementations for
  * Rules Framework related lookups, and
  * {@link net.entellitrak.aea.rf.IScript} which is the interface that your own Workflow Effects must implement.
+ * Workflow Effects which do not keep any state may implement {@link net.entellitrak.aea.rf.IStatelessScript} instead
+ * so that a single instance is reused.
  * */
 
 package net.entellitrak.aea.rf;
@@ -0,0 +1,145 @@
+package net.entellitrak.aea.tu;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ *  Immutable representation of a template String which has already been scanned by an {@link ITemplater}.
+ *  The template is broken up into a list of {@link Segment}s which are either literal text or variables which
+ *  are to be replaced.
+ * </p>
+ * <p>
+ *  Since a CompiledTemplate does not depend on the replacement variables (or on the execution context) it can be
+ *  rendered any number of times with {@link ITemplater#render(CompiledTemplate, java.util.Map, StringBuilder)}
+ *  and may be cached.
+ * </p>
+ *
+ * @author zmiller
+ * @see ITemplater#compile(String)
+ */
+public final class CompiledTemplate {
+
+    /** The template String which was compiled. */
+    private final String source;
+    /** The pieces of the template, in order. */
+    private final List<Segment> segments;
+
+    /**
+     * Constructor.
+     *
+     * @param templateSource the template String which was compiled
+     * @param templateSegments the pieces of the template, in order
+     */
+    public CompiledTemplate(final String templateSource, final List<Segment> templateSegments){
+        source = templateSource;
+        segments = Collections.unmodifiableList(new ArrayList<>(templateSegments));
+    }
+
+    /**
+     * Gets the template String which was compiled.
+     *
+     * @return the template String
+     */
+    public String getSource(){
+        return source;
+    }
+
+    /**
+     * Gets the pieces of the template.
+     *
+     * @return the segments, in order
+     */
+    public List<Segment> getSegments(){
+        return segments;
+    }
+
+    /**
+     * A single piece of a {@link CompiledTemplate}. A segment either contains literal text which is to be output as-is
+     * or a dispatch character and variable name which are to be handed to an {@link IReplacer}.
+     *
+     * @author zmiller
+     */
+    public static final class Segment {
+
+        /** Literal text, or null if this is a variable. */
+        private final String text;
+        /** The character used to choose an {@link IReplacer}, or null if this is literal text. */
+        private final Character dispatchCharacter;
+        /** The variable name which is passed to the {@link IReplacer}, or null if this is literal text. */
+        private final String variableName;
+
+        /**
+         * Constructor.
+         *
+         * @param segmentText literal text
+         * @param segmentDispatchCharacter character used to choose an {@link IReplacer}
+         * @param segmentVariableName variable name which is passed to the {@link IReplacer}
+         */
+        private Segment(final String segmentText,
+                final Character segmentDispatchCharacter,
+                final String segmentVariableName){
+            text = segmentText;
+            dispatchCharacter = segmentDispatchCharacter;
+            variableName = segmentVariableName;
+        }
+
+        /**
+         * Creates a segment of literal text.
+         *
+         * @param text the text
+         * @return the segment
+         */
+        public static Segment text(final String text){
+            return new Segment(text, null, null);
+        }
+
+        /**
+         * Creates a segment which is a variable to be replaced.
+         *
+         * @param dispatchCharacter character used to choose an {@link IReplacer}
+         * @param variableName variable name which is passed to the {@link IReplacer}
+         * @return the segment
+         */
+        public static Segment variable(final char dispatchCharacter, final String variableName){
+            return new Segment(null, dispatchCharacter, variableName);
+        }
+
+        /**
+         * Determines whether this segment is a variable as opposed to literal text.
+         *
+         * @return whether this segment is a variable
+         */
+        public boolean isVariable(){
+            return dispatchCharacter != null;
+        }
+
+        /**
+         * Gets the literal text.
+         *
+         * @return the literal text, or null if this is a variable
+         */
+        public String getText(){
+            return text;
+        }
+
+        /**
+         * Gets the character used to choose an {@link IReplacer}.
+         *
+         * @return the dispatch character, or null if this is literal text
+         */
+        public Character getDispatchCharacter(){
+            return dispatchCharacter;
+        }
+
+        /**
+         * Gets the variable name which is passed to the {@link IReplacer}.
+         *
+         * @return the variable name, or null if this is literal text
+         */
+        public String getVariableName(){
+            return variableName;
+        }
+    }
+}
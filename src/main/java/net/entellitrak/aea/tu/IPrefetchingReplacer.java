@@ -0,0 +1,36 @@
+package net.entellitrak.aea.tu;
+
+import java.util.Collection;
+import java.util.Map;
+
+import net.entellitrak.aea.exception.TemplateException;
+
+/**
+ * <p>
+ *  An {@link IReplacer} which is able to do its work more efficiently when it knows about all of the variables in a
+ *  template ahead of time. For instance, a replacer which reads values from the database can fetch all of the values
+ *  it will need with a single query instead of running one query per variable.
+ * </p>
+ * <p>
+ *  Before an {@link ITemplater} renders a template, it calls {@link #prefetch(ITemplater, Collection, Map)} with the
+ *  names of all of the variables in the template which are dispatched to this replacer, and then uses the returned
+ *  {@link IReplacer} for the rest of that rendering.
+ * </p>
+ *
+ * @author zmiller
+ */
+public interface IPrefetchingReplacer extends IReplacer {
+
+    /**
+     * Prepares for the replacement of a number of variables.
+     *
+     * @param templater The ITemplater that is doing the replacement
+     * @param variableNames The names of the variables which will be replaced
+     * @param replacementVariables This is information that should be used to help map the names to their values
+     * @return The {@link IReplacer} which should be used for the variables while the template is rendered.
+     *  Implementations should fall back to their normal behavior for variables which were not prefetched.
+     * @throws TemplateException If there is any problem preparing the replacement.
+     */
+    IReplacer prefetch(ITemplater templater, Collection<String> variableNames, Map<String, Object> replacementVariables)
+            throws TemplateException;
+}
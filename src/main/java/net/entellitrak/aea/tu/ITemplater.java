@@ -1,5 +1,6 @@
 package net.entellitrak.aea.tu;
 
+import java.util.Collections;
 import java.util.Map;
 
 import net.entellitrak.aea.exception.TemplateException;
@@ -48,4 +49,43 @@ public interface ITemplater{
      *     Almost any underlying problem could cause a TemplateException to be thrown.
      */
     String parse(String templateString, Map<String, Object> replacementVariables) throws TemplateException;
+
+    /**
+     * This method scans a template String once so that it can be rendered many times without being scanned again.
+     *
+     * <p>
+     *  The default implementation does not scan the template. It returns a template consisting of the whole String
+     *  which the default {@link #render(CompiledTemplate, Map, StringBuilder)} passes to
+     *  {@link #parse(String, Map)}, so implementations written before this method existed keep working.
+     * </p>
+     *
+     * @param templateString This is the String which is the template text
+     * @return The compiled template
+     * @throws TemplateException If the template is not well-formed
+     */
+    default CompiledTemplate compile(final String templateString) throws TemplateException {
+        return new CompiledTemplate(templateString,
+                Collections.singletonList(CompiledTemplate.Segment.text(templateString)));
+    }
+
+    /**
+     * This method performs the template replacement on a template which has already been compiled.
+     * The result is appended to output so that the same StringBuilder can be reused for many renderings.
+     *
+     * <p>
+     *  The default implementation calls {@link #parse(String, Map)} with the source of the template.
+     * </p>
+     *
+     * @param template A template which was returned by {@link #compile(String)}
+     * @param replacementVariables This Map contains the information that should be used for the templater
+     *     to determine what the values it needs to replace are.
+     * @param output The StringBuilder which the reified template will be appended to
+     * @throws TemplateException If there is any problem performing the replacement.
+     */
+    default void render(final CompiledTemplate template,
+            final Map<String, Object> replacementVariables,
+            final StringBuilder output)
+            throws TemplateException {
+        output.append(parse(template.getSource(), replacementVariables));
+    }
 }
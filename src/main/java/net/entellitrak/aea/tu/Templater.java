@@ -1,10 +1,14 @@
 package net.entellitrak.aea.tu;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.entellitrak.ExecutionContext;
 
 import net.entellitrak.aea.exception.TemplateException;
+import net.entellitrak.aea.tu.CompiledTemplate.Segment;
 import net.entellitrak.aea.tu.replacers.DataElementReplacer;
 import net.entellitrak.aea.tu.replacers.DispatchingReplacer;
 import net.entellitrak.aea.tu.replacers.HtmlEscapeReplacer;
@@ -40,12 +44,21 @@ import net.micropact.aea.utility.Utility;
  */
 public final class Templater implements ITemplater{
 
+    /** The maximum number of templates which a single Templater will remember. */
+    private static final int MAX_COMPILED_TEMPLATES = 1000;
+
     /** This is the character that will indicate the start of replacements. */
     private final Character startCharacter;
     /** This is the character that will indicate the end of replacements. */
     private final Character endCharacter;
     /** Contains the mapping from dispatch-characters to IReplacers. */
     private final Map<Character, IReplacer> replacers;
+    /**
+     * Templates which this Templater has already compiled, keyed by their source.
+     * Replacers such as {@link HtmlEscapeReplacer} call {@link #parse(String, Map)} on small templates once per
+     * variable, so this keeps them from being scanned repeatedly.
+     */
+    private final Map<String, CompiledTemplate> compiledTemplates = new HashMap<>();
 
     /**
      * This function is used to create a new Templater.
@@ -85,8 +98,37 @@ public final class Templater implements ITemplater{
     @Override
     public String parse(final String string, final Map<String, Object> replacementVariables)
             throws TemplateException{
-
         final StringBuilder outputString = new StringBuilder();
+        render(compile(string), replacementVariables, outputString);
+        return outputString.toString();
+    }
+
+    @Override
+    public CompiledTemplate compile(final String string) throws TemplateException{
+        CompiledTemplate compiledTemplate = compiledTemplates.get(string);
+
+        if(compiledTemplate == null){
+            compiledTemplate = compileUncached(string);
+
+            if(compiledTemplates.size() >= MAX_COMPILED_TEMPLATES){
+                compiledTemplates.clear();
+            }
+            compiledTemplates.put(string, compiledTemplate);
+        }
+
+        return compiledTemplate;
+    }
+
+    /**
+     * Scans a template String and breaks it up into literal text and variables.
+     *
+     * @param string the template String
+     * @return the compiled template
+     * @throws TemplateException If the template is not well-formed
+     */
+    private CompiledTemplate compileUncached(final String string) throws TemplateException{
+        final List<Segment> segments = new ArrayList<>();
+        final StringBuilder text = new StringBuilder();
 
         int index = 0; //This is not a for loop because index will not always be incremented by exactly one
         while(index < string.length()){
@@ -101,38 +143,110 @@ public final class Templater implements ITemplater{
                 }else{
                     index++;
                     //The next character determines which type of replacement we are going to do
-                    final Character dispatchCharacter = string.charAt(index);
+                    final char dispatchCharacter = string.charAt(index);
                     if(endCharacter.equals(dispatchCharacter)){
                         // The end character escapes the start character,
-                        // so we add it and continue replacing the rest of the string
-                        outputString.append(startCharacter);
+                        // so we add it and continue scanning the rest of the string
+                        text.append(startCharacter);
                         index++;
                     }else{
-                        //We're actually going to attempt to do an interesting replacement
-                        final IReplacer replacer = replacers.get(dispatchCharacter);
-                        if(replacer == null){
-                            //No replacer was configured for this character
+                        final int closingLocation = string.indexOf(endCharacter, index);
+                        if(closingLocation == -1){
                             throw new TemplateException(
-                                    String.format("Unknown Dispatch Character %s encountered while replacing",
-                                            new Object[]{dispatchCharacter}));
-                        }else{
-                            //Now we actually get to do the replacement
-                            final int closingLocation = string.indexOf(endCharacter, index);
-                            final String variableName = string.substring(index + 1, closingLocation);
-                            outputString.append(replacer.replace(this, variableName, replacementVariables));
-                            //Skip over the rest of the name and closing special character
-                            index = closingLocation + 1;
+                                    String.format("Ending %s not found for variable starting at position %s",
+                                            endCharacter, index - 1));
                         }
+
+                        if(text.length() > 0){
+                            segments.add(Segment.text(text.toString()));
+                            text.setLength(0);
+                        }
+                        segments.add(Segment.variable(dispatchCharacter,
+                                string.substring(index + 1, closingLocation)));
+                        //Skip over the rest of the name and closing special character
+                        index = closingLocation + 1;
                     }
                 }
             }else{
-                //just append the character and continue our replacement
-                outputString.append(currentCharacter);
+                //just append the character and continue scanning
+                text.append(currentCharacter);
                 index ++;
             }
         }
 
-        return outputString.toString();
+        if(text.length() > 0){
+            segments.add(Segment.text(text.toString()));
+        }
+
+        return new CompiledTemplate(string, segments);
+    }
+
+    @Override
+    public void render(final CompiledTemplate template,
+            final Map<String, Object> replacementVariables,
+            final StringBuilder output) throws TemplateException{
+        final Map<Character, IReplacer> renderReplacers = prefetch(template, replacementVariables);
+
+        /* A variable which appears several times within the template is only replaced once */
+        final Map<String, String> replacedVariables = new HashMap<>();
+
+        for(final Segment segment : template.getSegments()){
+            if(segment.isVariable()){
+                final String variableKey = segment.getDispatchCharacter() + segment.getVariableName();
+                String replacement = replacedVariables.get(variableKey);
+
+                if(replacement == null){
+                    final IReplacer replacer = renderReplacers.get(segment.getDispatchCharacter());
+                    if(replacer == null){
+                        //No replacer was configured for this character
+                        throw new TemplateException(
+                                String.format("Unknown Dispatch Character %s encountered while replacing",
+                                        new Object[]{segment.getDispatchCharacter()}));
+                    }else{
+                        replacement = replacer.replace(this, segment.getVariableName(), replacementVariables);
+                        replacedVariables.put(variableKey, replacement);
+                    }
+                }
+
+                output.append(replacement);
+            }else{
+                output.append(segment.getText());
+            }
+        }
+    }
+
+    /**
+     * Gives each {@link IPrefetchingReplacer} the chance to prepare for all of the variables in the template which are
+     * dispatched to it.
+     *
+     * @param template the template which is about to be rendered
+     * @param replacementVariables the replacement variables
+     * @return the replacers which should be used for this rendering of the template
+     * @throws TemplateException If a replacer could not prefetch its variables
+     */
+    private Map<Character, IReplacer> prefetch(final CompiledTemplate template,
+            final Map<String, Object> replacementVariables) throws TemplateException{
+        final Map<Character, List<String>> prefetchVariables = new HashMap<>();
+
+        for(final Segment segment : template.getSegments()){
+            if(segment.isVariable() && replacers.get(segment.getDispatchCharacter()) instanceof IPrefetchingReplacer){
+                prefetchVariables.computeIfAbsent(segment.getDispatchCharacter(), key -> new ArrayList<>())
+                .add(segment.getVariableName());
+            }
+        }
+
+        if(prefetchVariables.isEmpty()){
+            return replacers;
+        }else{
+            final Map<Character, IReplacer> renderReplacers = new HashMap<>(replacers);
+            for(final Map.Entry<Character, List<String>> entry : prefetchVariables.entrySet()){
+                renderReplacers.put(entry.getKey(),
+                        ((IPrefetchingReplacer) replacers.get(entry.getKey())).prefetch(this,
+                                entry.getValue(),
+                                replacementVariables));
+            }
+            return renderReplacers;
+        }
     }
 
     /**
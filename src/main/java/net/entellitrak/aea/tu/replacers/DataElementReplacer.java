@@ -1,16 +1,25 @@
 package net.entellitrak.aea.tu.replacers;
 
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import com.entellitrak.ExecutionContext;
 import com.entellitrak.localization.Localizations;
 
 import net.entellitrak.aea.exception.TemplateException;
+import net.entellitrak.aea.tu.IPrefetchingReplacer;
 import net.entellitrak.aea.tu.IReplacer;
 import net.entellitrak.aea.tu.ITemplater;
+import net.micropact.aea.tu.cache.DataElementMetadata;
+import net.micropact.aea.tu.cache.TemplateCache;
 import net.micropact.aea.utility.DataElementType;
 import net.micropact.aea.utility.Utility;
 
@@ -33,13 +42,21 @@ import net.micropact.aea.utility.Utility;
  *  If this choice becomes a problem we can introduce a new replacer for TimeStamps which requires
  *  additional replacementVariables such as a {@link com.entellitrak.localization.TimeZonePreferenceInfo}.
  * </p>
+ * <p>
+ *  The data element metadata is cached per tracking configuration. When used by a templater which supports
+ *  {@link IPrefetchingReplacer}, all of the variables within a template which come from the same record are
+ *  fetched with a single query.
+ * </p>
  *
  * @author zmiller
  */
-public final class DataElementReplacer implements IReplacer {
+public final class DataElementReplacer implements IPrefetchingReplacer {
 
     private final ExecutionContext etk;
 
+    /** Format used for currency values. This replacer is only used by a single thread. */
+    private final DecimalFormat currencyFormat = new DecimalFormat("0.00");
+
     /**
      * This generates a new DataElementReplacer.
      *
@@ -53,125 +70,263 @@ public final class DataElementReplacer implements IReplacer {
     public String replace(final ITemplater templater, final String variableName,
             final Map<String, Object> replacementVariables) throws TemplateException {
         try {
+            final DataElementMetadata dataElement = getDataElement(TemplateCache.getDataElementMetadata(etk),
+                    variableName);
+            final Object trackingId = getTrackingId(variableName, replacementVariables);
 
-            final String[] split = variableName.split("_");
-            if(split.length != 2){
-                throw new TemplateException(
-                        String.format("Error encountered while trying to split replacement variable %s. The variable should have the form DataObjectName_dataElementName but instead of the expected 1 _ character there are %d",
-                                variableName, split.length - 1));
-            }
+            final List<Map<String, Object>> results = etk.createSQL("SELECT "+dataElement.getColumnName()+" VALUE FROM "+dataElement.getTableName()+" WHERE id = :trackingId")
+                    .setParameter("trackingId", trackingId)
+                    .fetchList();
 
-            final String dataObjectName = split[0];
-            final String dataElementName = split[1];
-            final String expectedTrackingIdFormat = dataObjectName + "Id";
+            return results.size() == 0
+                    ? ""
+                      : format(variableName, dataElement, trackingId, results.get(0).get("VALUE"));
+        } catch (final Exception e) {
+            throw new TemplateException(
+                    String.format("Error performing Data Element replacement for %s", variableName), e);
+        }
+    }
 
-            final List<Map<String, Object>> matchingDataElements = etk.createSQL("SELECT do.TABLE_NAME, de.COLUMN_NAME, de.DATA_TYPE, de.BUSINESS_KEY FROM etk_data_object DO JOIN etk_data_element de ON de.data_object_id = do.data_object_id WHERE do.tracking_config_id = ( SELECT MAX (tracking_config_id) FROM etk_tracking_config_archive ) AND do.object_name = :dataObjectName AND de.element_name = :dataElementName")
-                    .setParameter("dataObjectName", dataObjectName)
-                    .setParameter("dataElementName", dataElementName)
-                    .fetchList();
+    /**
+     * Fetches the values of all of the variables which belong to the same record with a single query per record.
+     * Variables which cannot be prefetched (for instance because they are not valid) are left for
+     * {@link #replace(ITemplater, String, Map)} so that the error is reported the same way it would be otherwise.
+     */
+    @Override
+    public IReplacer prefetch(final ITemplater templater,
+            final Collection<String> variableNames,
+            final Map<String, Object> replacementVariables) throws TemplateException {
+        final Map<String, DataElementMetadata> metadata = TemplateCache.getDataElementMetadata(etk);
 
-            if(matchingDataElements.size() == 0){
-                throw new TemplateException(String.format("Error encountered while trying to perform replacement on %s. The query to find the dataObject/dataElement information from etk_data_object and etk_data_element returned 0 rows"
-                        , variableName));
+        /* Group the variables by the record they come from */
+        final Map<List<Object>, Map<String, DataElementMetadata>> variablesByRecord = new LinkedHashMap<>();
+        for(final String variableName : new LinkedHashSet<>(variableNames)){
+            try {
+                final DataElementMetadata dataElement = getDataElement(metadata, variableName);
+                final Object trackingId = getTrackingId(variableName, replacementVariables);
+
+                variablesByRecord.computeIfAbsent(Arrays.asList(dataElement.getTableName(), trackingId),
+                        key -> new LinkedHashMap<>())
+                .put(variableName, dataElement);
+            } catch (final TemplateException e) {
+                /* This variable will be reported when it is replaced */
             }
+        }
+
+        final Map<String, String> replacements = new HashMap<>();
+
+        for(final Entry<List<Object>, Map<String, DataElementMetadata>> record : variablesByRecord.entrySet()){
+            final String tableName = (String) record.getKey().get(0);
+            final Object trackingId = record.getKey().get(1);
+            final List<Entry<String, DataElementMetadata>> variables = new ArrayList<>(record.getValue().entrySet());
 
-            if(!replacementVariables.containsKey(expectedTrackingIdFormat)){
-                throw new TemplateException(String.format("Could not perform the DataElementReplacement of \"%s\" because the key \"%s\" was not found",
-                        variableName, expectedTrackingIdFormat));
+            final StringBuilder columns = new StringBuilder();
+            for(int i = 0; i < variables.size(); i++){
+                columns.append(i == 0 ? "" : ", ")
+                .append(variables.get(i).getValue().getColumnName())
+                .append(" VALUE")
+                .append(i);
             }
 
-            final Map<String, Object> matchingDataElement = matchingDataElements.get(0);
-            final List<Map<String, Object>> results = etk.createSQL("SELECT "+matchingDataElement.get("COLUMN_NAME")+" VALUE FROM "+matchingDataElement.get("TABLE_NAME")+" WHERE id = :trackingId")
-                    .setParameter("trackingId", replacementVariables.get(expectedTrackingIdFormat))
-                    .fetchList();
+            final List<Map<String, Object>> results;
+            try {
+                results = etk.createSQL("SELECT "+columns+" FROM "+tableName+" WHERE id = :trackingId")
+                        .setParameter("trackingId", trackingId)
+                        .fetchList();
+            } catch (final Exception e) {
+                /* These variables will be reported when they are replaced */
+                continue;
+            }
 
-            final String result;
-            if(results.size() == 0){
-                result = "";
-            }else{
-                final Object value = results.get(0).get("VALUE");
-
-                switch(DataElementType.getDataElementType(((Number) matchingDataElement.get("DATA_TYPE")).longValue())){
-                    case TEXT:
-                        result = Utility.nvl((String) value, "");
-                        break;
-                    case NUMBER:
-                        result = value == null ? "" : ((Number) value).longValue() + "";
-                        break;
-                    case LONG:
-                        result = value == null ? "" : ((Number) value).longValue() + "";
-                        break;
-                    case DATE:
-                        result = value == null
+            for(int i = 0; i < variables.size(); i++){
+                final String variableName = variables.get(i).getKey();
+                try {
+                    replacements.put(variableName, results.size() == 0
                             ? ""
-                            : Localizations.toLocalTimestamp(etk.getLocalization().getDefaultTimeZonePreference(),
-                                    (java.sql.Timestamp) value)
-                                    .getDateString();
-                        break;
-                    case CURRENCY:
-                        result = value == null ? "" : new DecimalFormat("0.00").format(value);
-                        break;
-                    case YES_NO:
-                        result = value == null ? ""
-                                : ((Number) value).intValue() == 0 ? "No"
-                                        : ((Number) value).intValue() == 1 ? "Yes"
-                                                : value + "";
-                        break;
-                    case FILE:
-                        result = etk.createSQL("SELECT file_name FROM etk_file WHERE id = :fileId")
-                        .setParameter("fileId", value)
-                        .returnEmptyResultSetAs("")
-                        .fetchString();
-                        break;
-                    case STATE:
-                        result = etk.createSQL("SELECT node.name_  FROM jbpm_processinstance processInstance JOIN jbpm_token token ON token.id_ = processInstance.roottoken_ JOIN jbpm_node node ON node.id_ = token.node_ WHERE processInstance.id_ = :processInstanceId")
-                        .setParameter("processInstanceId", value)
-                        .returnEmptyResultSetAs("")
-                        .fetchString();
-                        break;
-                    case PASSWORD:
-                        if(value == null || "".equals(value)){
-                            result = "";
-                        }else{
-                            final Map<String, Object> userInfo = etk.createSQL("SELECT p.last_name LASTNAME, p.first_name FIRSTANME, u.username USERNAME FROM "+matchingDataElement.get("TABLE_NAME")+" obj LEFT JOIN etk_user u ON u.user_id = obj."+matchingDataElement.get("COLUMN_NAME")+"_uid LEFT JOIN etk_person p ON p.person_id = u.person_id WHERE obj.id = :trackingId")
-                                    .setParameter("trackingId", replacementVariables.get(dataObjectName+"Id"))
-                                    .returnEmptyResultSetAs(new HashMap<String, Object>())
-                                    .fetchMap();
-
-                            result = Utility.nvl(userInfo.get("LASTNAME"), "")
-                                    + ", "
-                                    + Utility.nvl(userInfo.get("FIRSTANME"), "")
-                                    + " ("
-                                    + Utility.nvl(userInfo.get("USERNAME"), "")
-                                    + ")";
-                        }
-                        break;
-                    case LONG_TEXT:
-                        result = Utility.nvl((String) value, "");
-                        break;
-                    case TIMESTAMP:
-                        result = value == null
-                        ? ""
-                        : Localizations.toLocalTimestamp(etk.getLocalization().getDefaultTimeZonePreference(),
-                                (java.sql.Timestamp) value)
-                                .getTimestampString();
-                        break;
-//                    case NONE:
-//                        result = value == null
-//                        ? ""
-//                          : DataTypePluginClassUtility.getDataTypePluginDisplayFromStringValue(etk,
-//                                  matchingDataElement.get("BUSINESS_KEY").toString(), value.toString());
-//                        break;
-                    default:
-                        throw new TemplateException(
-                                String.format("Unsupported data type \"%s\" encountered while trying to replace variable \"%s\"",
-                                        matchingDataElement.get("DATA_TYPE"), variableName));
+                              : format(variableName,
+                                      variables.get(i).getValue(),
+                                      trackingId,
+                                      results.get(0).get("VALUE" + i)));
+                } catch (final Exception e) {
+                    /* This variable will be reported when it is replaced */
                 }
             }
-            return result;
-        } catch (final Exception e) {
+        }
+
+        return new PrefetchedDataElementReplacer(this, replacements);
+    }
+
+    /**
+     * Looks up the metadata of the data element which a variable refers to.
+     *
+     * @param metadata the metadata of all data elements
+     * @param variableName variable of the form DataObjectName_dataElementName
+     * @return the metadata of the data element
+     * @throws TemplateException If the variable is not valid
+     */
+    private static DataElementMetadata getDataElement(final Map<String, DataElementMetadata> metadata,
+            final String variableName) throws TemplateException{
+        final String[] split = variableName.split("_");
+        if(split.length != 2){
             throw new TemplateException(
-                    String.format("Error performing Data Element replacement for %s", variableName), e);
+                    String.format("Error encountered while trying to split replacement variable %s. The variable should have the form DataObjectName_dataElementName but instead of the expected 1 _ character there are %d",
+                            variableName, split.length - 1));
+        }
+
+        final DataElementMetadata dataElement = metadata.get(variableName);
+
+        if(dataElement == null){
+            throw new TemplateException(String.format("Error encountered while trying to perform replacement on %s. The dataObject/dataElement information could not be found in etk_data_object and etk_data_element"
+                    , variableName));
+        }
+        return dataElement;
+    }
+
+    /**
+     * Gets the tracking id of the record which a variable refers to out of the replacement variables.
+     *
+     * @param variableName variable of the form DataObjectName_dataElementName
+     * @param replacementVariables the replacement variables
+     * @return the tracking id
+     * @throws TemplateException If the replacement variables do not contain the tracking id
+     */
+    private static Object getTrackingId(final String variableName, final Map<String, Object> replacementVariables)
+            throws TemplateException{
+        final String expectedTrackingIdFormat = variableName.split("_")[0] + "Id";
+
+        if(!replacementVariables.containsKey(expectedTrackingIdFormat)){
+            throw new TemplateException(String.format("Could not perform the DataElementReplacement of \"%s\" because the key \"%s\" was not found",
+                    variableName, expectedTrackingIdFormat));
+        }
+        return replacementVariables.get(expectedTrackingIdFormat);
+    }
+
+    /**
+     * Converts the value of a data element to the String which should be placed in the template.
+     *
+     * @param variableName variable of the form DataObjectName_dataElementName
+     * @param dataElement metadata of the data element
+     * @param trackingId tracking id of the record
+     * @param value the value stored in the data element's column
+     * @return the replacement
+     * @throws Exception If anything goes wrong
+     */
+    private String format(final String variableName,
+            final DataElementMetadata dataElement,
+            final Object trackingId,
+            final Object value) throws Exception{
+        final String result;
+
+        switch(DataElementType.getDataElementType(dataElement.getDataType())){
+            case TEXT:
+                result = Utility.nvl((String) value, "");
+                break;
+            case NUMBER:
+                result = value == null ? "" : ((Number) value).longValue() + "";
+                break;
+            case LONG:
+                result = value == null ? "" : ((Number) value).longValue() + "";
+                break;
+            case DATE:
+                result = value == null
+                    ? ""
+                    : Localizations.toLocalTimestamp(etk.getLocalization().getDefaultTimeZonePreference(),
+                            (java.sql.Timestamp) value)
+                            .getDateString();
+                break;
+            case CURRENCY:
+                result = value == null ? "" : currencyFormat.format(value);
+                break;
+            case YES_NO:
+                result = value == null ? ""
+                        : ((Number) value).intValue() == 0 ? "No"
+                                : ((Number) value).intValue() == 1 ? "Yes"
+                                        : value + "";
+                break;
+            case FILE:
+                result = etk.createSQL("SELECT file_name FROM etk_file WHERE id = :fileId")
+                .setParameter("fileId", value)
+                .returnEmptyResultSetAs("")
+                .fetchString();
+                break;
+            case STATE:
+                result = etk.createSQL("SELECT node.name_  FROM jbpm_processinstance processInstance JOIN jbpm_token token ON token.id_ = processInstance.roottoken_ JOIN jbpm_node node ON node.id_ = token.node_ WHERE processInstance.id_ = :processInstanceId")
+                .setParameter("processInstanceId", value)
+                .returnEmptyResultSetAs("")
+                .fetchString();
+                break;
+            case PASSWORD:
+                if(value == null || "".equals(value)){
+                    result = "";
+                }else{
+                    final Map<String, Object> userInfo = etk.createSQL("SELECT p.last_name LASTNAME, p.first_name FIRSTANME, u.username USERNAME FROM "+dataElement.getTableName()+" obj LEFT JOIN etk_user u ON u.user_id = obj."+dataElement.getColumnName()+"_uid LEFT JOIN etk_person p ON p.person_id = u.person_id WHERE obj.id = :trackingId")
+                            .setParameter("trackingId", trackingId)
+                            .returnEmptyResultSetAs(new HashMap<String, Object>())
+                            .fetchMap();
+
+                    result = Utility.nvl(userInfo.get("LASTNAME"), "")
+                            + ", "
+                            + Utility.nvl(userInfo.get("FIRSTANME"), "")
+                            + " ("
+                            + Utility.nvl(userInfo.get("USERNAME"), "")
+                            + ")";
+                }
+                break;
+            case LONG_TEXT:
+                result = Utility.nvl((String) value, "");
+                break;
+            case TIMESTAMP:
+                result = value == null
+                ? ""
+                : Localizations.toLocalTimestamp(etk.getLocalization().getDefaultTimeZonePreference(),
+                        (java.sql.Timestamp) value)
+                        .getTimestampString();
+                break;
+//            case NONE:
+//                result = value == null
+//                ? ""
+//                  : DataTypePluginClassUtility.getDataTypePluginDisplayFromStringValue(etk,
+//                          dataElement.getBusinessKey(), value.toString());
+//                break;
+            default:
+                throw new TemplateException(
+                        String.format("Unsupported data type \"%s\" encountered while trying to replace variable \"%s\"",
+                                dataElement.getDataType(), variableName));
+        }
+
+        return result;
+    }
+
+    /**
+     * {@link IReplacer} which is used for a single rendering of a template after
+     * {@link DataElementReplacer#prefetch(ITemplater, Collection, Map)} has fetched the values.
+     *
+     * @author zmiller
+     */
+    private static final class PrefetchedDataElementReplacer implements IReplacer {
+
+        private final DataElementReplacer dataElementReplacer;
+        private final Map<String, String> replacements;
+
+        /**
+         * Constructor.
+         *
+         * @param theDataElementReplacer replacer used for variables which were not prefetched
+         * @param theReplacements the prefetched replacements, keyed by variable name
+         */
+        PrefetchedDataElementReplacer(final DataElementReplacer theDataElementReplacer,
+                final Map<String, String> theReplacements){
+            dataElementReplacer = theDataElementReplacer;
+            replacements = theReplacements;
+        }
+
+        @Override
+        public String replace(final ITemplater templater, final String variableName,
+                final Map<String, Object> replacementVariables) throws TemplateException {
+            final String replacement = replacements.get(variableName);
+            return replacement == null
+                    ? dataElementReplacer.replace(templater, variableName, replacementVariables)
+                      : replacement;
         }
     }
 }
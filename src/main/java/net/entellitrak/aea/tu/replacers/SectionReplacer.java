@@ -1,5 +1,4 @@
 package net.entellitrak.aea.tu.replacers;
-import java.util.List;
 import java.util.Map;
 
 import com.entellitrak.DataAccessException;
@@ -8,6 +7,8 @@ import com.entellitrak.ExecutionContext;
 import net.entellitrak.aea.exception.TemplateException;
 import net.entellitrak.aea.tu.IReplacer;
 import net.entellitrak.aea.tu.ITemplater;
+import net.micropact.aea.tu.cache.ReplacementSection;
+import net.micropact.aea.tu.cache.TemplateCache;
 
 /**
  * <p>
@@ -36,15 +37,21 @@ public final class SectionReplacer implements IReplacer{
             final Map<String, Object> replacementVariables) throws TemplateException{
 
         try {
-            List<Map<String, Object>> sections;
-            sections = etk.createSQL("SELECT C_TEXT FROM t_tu_replacement_section WHERE c_name = :name")
-                    .setParameter("name", variableName)
-                    .fetchList();
+            final ReplacementSection section = TemplateCache.getReplacementSection(etk, variableName);
 
-            if(sections.size() == 0){
+            if(section == null){
                 throw new TemplateException(String.format("Replacement Section not found: \"%s\"", variableName));
             }else{
-                return templater.parse(sections.get(0).get("C_TEXT").toString(), replacementVariables);
+                final StringBuilder output = new StringBuilder();
+                templater.render(TemplateCache.load(etk,
+                        templater,
+                        "T_TU_REPLACEMENT_SECTION",
+                        "C_TEXT",
+                        section.getId(),
+                        section.getText()),
+                        replacementVariables,
+                        output);
+                return output.toString();
             }
         } catch (final DataAccessException e) {
             throw new TemplateException(
@@ -8,6 +8,7 @@ import com.entellitrak.ExecutionContext;
 import net.entellitrak.aea.exception.TemplateException;
 import net.entellitrak.aea.tu.IReplacer;
 import net.entellitrak.aea.tu.ITemplater;
+import net.micropact.aea.tu.cache.TemplateCache;
 
 
 /**
@@ -17,6 +18,7 @@ import net.entellitrak.aea.tu.ITemplater;
  *  The query will have access to bind variables which the user may pass into the query
  *  through the replacementVariables parameter.
  *  The names of bind variables in the SQL query must match names of the keys in the replacementVariables Map.
+ *  The queries themselves are cached, see {@link TemplateCache}.
  * </p>
  *
  * @author zmiller
@@ -41,13 +43,10 @@ public final class SqlReplacer implements IReplacer{
         try{
             final String returnValue;
 
-            final List<Map<String, Object>> sqlQueries = etk.createSQL("SELECT C_SQL FROM t_tu_replacement_variable WHERE c_name = :variableName")
-                    .setParameter("variableName", variableName)
-                    .fetchList();
-            if(sqlQueries.size() == 0){
+            final String sqlQuery = TemplateCache.getReplacementVariableSql(etk, variableName);
+            if(sqlQuery == null){
                 throw new TemplateException(String.format("Replacement Variable not found: \"%s\".", variableName));
             }else{
-                final String sqlQuery = sqlQueries.get(0).get("C_SQL").toString();
                 final List<Map<String, Object>> values = etk.createSQL(sqlQuery)
                         .setParameter(replacementVariables)
                         .fetchList();
@@ -0,0 +1,72 @@
+package net.micropact.aea.auditLog.cache;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.ExecutionContext;
+import com.entellitrak.dynamic.DataObjectInstance;
+
+import net.entellitrak.aea.core.cache.CacheManager;
+import net.micropact.aea.core.cache.CurrentTrackingConfigIdCacheable;
+
+/**
+ * Entry point for the values which the AEA Audit Log keeps in the entellitrak cache.
+ *
+ * @author MicroPact
+ */
+public final class AuditLogCache {
+
+    /**
+     * Utility classes do not need public constructors.
+     */
+    private AuditLogCache() {}
+
+    /**
+     * Get the accessors for the data elements of a data object instance.
+     *
+     * @param etk entellitrak execution context
+     * @param dataObject the data object instance
+     * @return the accessors
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static DataObjectAccessors getDataObjectAccessors(final ExecutionContext etk,
+            final DataObjectInstance dataObject) throws ApplicationException {
+        final DataObjectAccessorsCacheable cacheable = new DataObjectAccessorsCacheable(dataObject.getClass(),
+                dataObject.configuration().getBusinessKey(),
+                dataObject.configuration().getElements());
+
+        final DataObjectAccessors accessors = CacheManager.load(etk, cacheable);
+
+        /* Guards against two different classes which happen to have the same identity hash code. */
+        return accessors.getTargetClass() == dataObject.getClass() ? accessors : cacheable.getValue();
+    }
+
+    /**
+     * Get the cache of lookup display values.
+     *
+     * @param etk entellitrak execution context
+     * @param timeToLiveMillis how long an entry may be used after it was stored
+     * @param maxSize the maximum number of entries
+     * @return the cache
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static LookupDisplayCache getLookupDisplayCache(final ExecutionContext etk,
+            final long timeToLiveMillis,
+            final int maxSize) throws ApplicationException {
+        return CacheManager.load(etk, new LookupDisplayCacheCacheable(timeToLiveMillis, maxSize));
+    }
+
+    /**
+     * Get the lookup information of the data elements of a data object in the currently deployed tracking
+     * configuration.
+     *
+     * @param etk entellitrak execution context
+     * @param dataObjectBusinessKey business key of the data object
+     * @return the lookup information
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static DataObjectLookupMetadata getDataObjectLookupMetadata(final ExecutionContext etk,
+            final String dataObjectBusinessKey) throws ApplicationException {
+        final long trackingConfigId = CacheManager.load(etk, new CurrentTrackingConfigIdCacheable(etk));
+
+        return CacheManager.load(etk, new DataObjectLookupMetadataCacheable(etk, dataObjectBusinessKey, trackingConfigId));
+    }
+}
@@ -0,0 +1,221 @@
+package net.micropact.aea.auditLog.cache;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.configuration.DataElement;
+
+/**
+ * <p>
+ *  The getters of a dynamic data object class, keyed by data element business key. This allows the AEA Audit Log to
+ *  read only the values of configured data elements instead of scanning and invoking every getter of the class
+ *  reflectively on every save.
+ * </p>
+ * <p>
+ *  Instances are immutable and are cached per class by {@link DataObjectAccessorsCacheable}.
+ * </p>
+ *
+ * @author MicroPact
+ */
+public final class DataObjectAccessors {
+
+    /** The position of the field name within a data element business key. */
+    private static final int FIELD_NAME_POSITION = 3;
+
+    /** Type which every getter is adapted to so that it can be invoked with invokeExact. */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> targetClass;
+    private final Map<String, ElementAccessor> accessors;
+
+    /**
+     * Build the accessors for a class.
+     *
+     * @param theTargetClass the dynamic data object class
+     * @param dataElements the data elements of the data object
+     */
+    public DataObjectAccessors(final Class<?> theTargetClass, final Collection<DataElement> dataElements) {
+        targetClass = theTargetClass;
+
+        final Map<String, ElementAccessor> theAccessors = new LinkedHashMap<>();
+        for (final DataElement dataElement : dataElements) {
+            final String fieldName = dataElement.getBusinessKey().split("\\.")[FIELD_NAME_POSITION];
+            final String getterName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+
+            theAccessors.put(dataElement.getBusinessKey(),
+                    new ElementAccessor(fieldName, getterName, findGetter(theTargetClass, getterName)));
+        }
+        accessors = Collections.unmodifiableMap(theAccessors);
+    }
+
+    /**
+     * Get the class which these accessors were built for.
+     *
+     * @return the dynamic data object class
+     */
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+
+    /**
+     * Get the field name of a data element (the last part of its business key).
+     *
+     * @param dataElementBusinessKey business key of the data element
+     * @return the field name
+     */
+    public String getFieldName(final String dataElementBusinessKey) {
+        return accessors.get(dataElementBusinessKey).getFieldName();
+    }
+
+    /**
+     * Get the name of the getter of a data element. This is the key used in the maps returned by
+     * {@link #readValues(Object)}.
+     *
+     * @param dataElementBusinessKey business key of the data element
+     * @return the getter name
+     */
+    public String getGetterName(final String dataElementBusinessKey) {
+        return accessors.get(dataElementBusinessKey).getGetterName();
+    }
+
+    /**
+     * Read the values of all of the data elements of an object.
+     *
+     * @param instance an instance of the target class
+     * @return the values keyed by getter name
+     * @throws ApplicationException If a getter throws an exception
+     */
+    public Map<String, Object> readValues(final Object instance) throws ApplicationException {
+        final Map<String, Object> values = new HashMap<>();
+
+        for (final ElementAccessor accessor : accessors.values()) {
+            if (accessor.getGetter() != null) {
+                values.put(accessor.getGetterName(), accessor.read(instance));
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Find the public no-argument getter of a class.
+     *
+     * @param theTargetClass the class
+     * @param getterName the name of the getter
+     * @return the getter, or null if the class does not have it
+     */
+    private static Getter findGetter(final Class<?> theTargetClass, final String getterName) {
+        final Method method;
+        try {
+            method = theTargetClass.getMethod(getterName);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+
+        try {
+            return new Getter(MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE), null);
+        } catch (final IllegalAccessException e) {
+            /* The method is public but is declared by a class which is not, so it can only be invoked reflectively. */
+            return new Getter(null, method);
+        }
+    }
+
+    /**
+     * The getter of a single data element.
+     *
+     * @author MicroPact
+     */
+    private static final class ElementAccessor {
+
+        private final String fieldName;
+        private final String getterName;
+        private final Getter getter;
+
+        /**
+         * Simple constructor.
+         *
+         * @param theFieldName the field name of the data element
+         * @param theGetterName the name of the getter
+         * @param theGetter the getter, or null if the class does not have it
+         */
+        ElementAccessor(final String theFieldName, final String theGetterName, final Getter theGetter) {
+            fieldName = theFieldName;
+            getterName = theGetterName;
+            getter = theGetter;
+        }
+
+        /**
+         * Get the field name of the data element.
+         *
+         * @return the field name
+         */
+        String getFieldName() {
+            return fieldName;
+        }
+
+        /**
+         * Get the name of the getter.
+         *
+         * @return the getter name
+         */
+        String getGetterName() {
+            return getterName;
+        }
+
+        /**
+         * Get the getter.
+         *
+         * @return the getter, or null if the class does not have it
+         */
+        Getter getGetter() {
+            return getter;
+        }
+
+        /**
+         * Read the value of the data element.
+         *
+         * @param instance an instance of the target class
+         * @return the value
+         * @throws ApplicationException If the getter throws an exception
+         */
+        Object read(final Object instance) throws ApplicationException {
+            try {
+                return getter.methodHandle != null
+                        ? (Object) getter.methodHandle.invokeExact(instance)
+                        : getter.method.invoke(instance);
+            } catch (final Throwable t) {
+                throw new ApplicationException(String.format("Error reading %s", getterName), t);
+            }
+        }
+    }
+
+    /**
+     * A getter which is either a {@link MethodHandle} (preferred) or a {@link Method}.
+     *
+     * @author MicroPact
+     */
+    private static final class Getter {
+
+        private final MethodHandle methodHandle;
+        private final Method method;
+
+        /**
+         * Simple constructor.
+         *
+         * @param theMethodHandle the method handle, adapted to {@link DataObjectAccessors#GETTER_TYPE}
+         * @param theMethod the method, only used if there is no method handle
+         */
+        Getter(final MethodHandle theMethodHandle, final Method theMethod) {
+            methodHandle = theMethodHandle;
+            method = theMethod;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package net.micropact.aea.auditLog.cache;
+
+import java.util.Collection;
+
+import com.entellitrak.configuration.DataElement;
+
+import net.entellitrak.aea.core.cache.ICacheable;
+
+/**
+ * {@link ICacheable} which stores the {@link DataObjectAccessors} of a dynamic data object class.
+ * The key includes the identity of the class, so a class which is reloaded by a new deployment gets new accessors.
+ *
+ * @author MicroPact
+ * @see AuditLogCache
+ */
+public class DataObjectAccessorsCacheable implements ICacheable<DataObjectAccessors> {
+
+    private final Class<?> targetClass;
+    private final String dataObjectBusinessKey;
+    private final Collection<DataElement> dataElements;
+
+    /**
+     * Constructor.
+     *
+     * @param theTargetClass the dynamic data object class
+     * @param theDataObjectBusinessKey business key of the data object
+     * @param theDataElements the data elements of the data object
+     */
+    public DataObjectAccessorsCacheable(final Class<?> theTargetClass,
+            final String theDataObjectBusinessKey,
+            final Collection<DataElement> theDataElements) {
+        targetClass = theTargetClass;
+        dataObjectBusinessKey = theDataObjectBusinessKey;
+        dataElements = theDataElements;
+    }
+
+    @Override
+    public String getKey() {
+        return String.format("%s.%s.%s.%s",
+                getClass().getName(),
+                dataObjectBusinessKey,
+                targetClass.getName(),
+                System.identityHashCode(targetClass));
+    }
+
+    @Override
+    public DataObjectAccessors getValue() {
+        return new DataObjectAccessors(targetClass, dataElements);
+    }
+}
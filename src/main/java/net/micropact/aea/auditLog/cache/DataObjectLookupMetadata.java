@@ -0,0 +1,50 @@
+package net.micropact.aea.auditLog.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The lookup information of the data elements of a single data object which the AEA Audit Log needs in order to
+ * resolve lookup display values.
+ *
+ * @author MicroPact
+ * @see DataObjectLookupMetadataCacheable
+ */
+public final class DataObjectLookupMetadata {
+
+    private final Map<String, String> lookupBusinessKeys;
+    private final Map<String, Number> valueTypes;
+
+    /**
+     * Simple constructor.
+     *
+     * @param theLookupBusinessKeys lookup definition business key keyed by data element business key.
+     *          Data elements which are not bound to a lookup map to null.
+     * @param theValueTypes lookup value return type keyed by data element business key
+     */
+    public DataObjectLookupMetadata(final Map<String, String> theLookupBusinessKeys,
+            final Map<String, Number> theValueTypes) {
+        lookupBusinessKeys = Collections.unmodifiableMap(new HashMap<>(theLookupBusinessKeys));
+        valueTypes = Collections.unmodifiableMap(new HashMap<>(theValueTypes));
+    }
+
+    /**
+     * Get the lookup definition business keys.
+     *
+     * @return lookup definition business key keyed by data element business key
+     */
+    public Map<String, String> getLookupBusinessKeys() {
+        return lookupBusinessKeys;
+    }
+
+    /**
+     * Get the lookup value return types. Data elements which are not bound to a lookup have the type of a
+     * text value.
+     *
+     * @return lookup value return type keyed by data element business key
+     */
+    public Map<String, Number> getValueTypes() {
+        return valueTypes;
+    }
+}
@@ -0,0 +1,70 @@
+package net.micropact.aea.auditLog.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.entellitrak.ExecutionContext;
+
+import net.entellitrak.aea.core.cache.ICacheable;
+
+/**
+ * {@link ICacheable} which stores the {@link DataObjectLookupMetadata} of a data object.
+ * Since the tracking configuration id is part of the key, applying changes automatically causes new metadata to be
+ * loaded.
+ *
+ * @author MicroPact
+ * @see AuditLogCache
+ */
+public class DataObjectLookupMetadataCacheable implements ICacheable<DataObjectLookupMetadata> {
+
+    private final ExecutionContext etk;
+    private final String dataObjectBusinessKey;
+    private final long trackingConfigId;
+
+    /**
+     * Constructor.
+     *
+     * @param executionContext entellitrak execution context
+     * @param theDataObjectBusinessKey business key of the data object
+     * @param theTrackingConfigId the tracking configuration id
+     */
+    public DataObjectLookupMetadataCacheable(final ExecutionContext executionContext,
+            final String theDataObjectBusinessKey,
+            final long theTrackingConfigId) {
+        etk = executionContext;
+        dataObjectBusinessKey = theDataObjectBusinessKey;
+        trackingConfigId = theTrackingConfigId;
+    }
+
+    @Override
+    public String getKey() {
+        return String.format("%s.%s.%s", getClass().getName(), trackingConfigId, dataObjectBusinessKey);
+    }
+
+    @Override
+    public DataObjectLookupMetadata getValue() {
+        final Map<String, String> lookupBusinessKeys = new HashMap<>();
+        final Map<String, Number> valueTypes = new HashMap<>();
+
+        //TODO Refactor this once core APIs become available to tell if a data element is bound to a lookup.
+        for (final Map<String, Object> record : etk.createSQL(
+                "select de.business_key as BUSINESS_KEY, ld.business_key as LOOKUP_BUSINESS_KEY, "
+                + "(case when ld.value_return_type is null then 2 else ld.value_return_type end) as VALUE_TYPE "
+                + "from etk_data_element de "
+                + "join etk_data_object do on do.data_object_id = de.data_object_id "
+                + "left join etk_lookup_definition ld on ld.lookup_definition_id = de.lookup_definition_id "
+                + "where do.business_key = :dataObjectKey "
+                + "and do.tracking_config_id = :trackingConfigId")
+                .setParameter("dataObjectKey", dataObjectBusinessKey)
+                .setParameter("trackingConfigId", trackingConfigId)
+                .returnEmptyResultSetAs(new ArrayList<Map<String, Object>>())
+                .fetchList()) {
+            lookupBusinessKeys.put((String) record.get("BUSINESS_KEY"), (String) record.get("LOOKUP_BUSINESS_KEY"));
+            valueTypes.put((String) record.get("BUSINESS_KEY"), (Number) record.get("VALUE_TYPE"));
+        }
+
+        return new DataObjectLookupMetadata(lookupBusinessKeys, valueTypes);
+    }
+}
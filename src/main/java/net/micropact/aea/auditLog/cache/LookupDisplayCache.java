@@ -0,0 +1,95 @@
+package net.micropact.aea.auditLog.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ *  A bounded, time limited cache of the display values of lookup values which have been written to the AEA Audit Log.
+ *  Entries expire after a fixed time so that changes to lookup data are picked up, and the least recently used
+ *  entries are discarded once the cache is full.
+ * </p>
+ * <p>
+ *  Instances are thread safe and are shared through the entellitrak cache by {@link LookupDisplayCacheCacheable}.
+ * </p>
+ *
+ * @author MicroPact
+ */
+public final class LookupDisplayCache {
+
+    private final long timeToLiveMillis;
+    private final int maxSize;
+    private final Map<LookupDisplayKey, Entry> entries;
+
+    /**
+     * Constructor.
+     *
+     * @param theTimeToLiveMillis how long an entry may be used after it was stored
+     * @param theMaxSize the maximum number of entries
+     */
+    public LookupDisplayCache(final long theTimeToLiveMillis, final int theMaxSize) {
+        timeToLiveMillis = theTimeToLiveMillis;
+        maxSize = theMaxSize;
+        entries = new LinkedHashMap<LookupDisplayKey, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<LookupDisplayKey, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get a display value.
+     *
+     * @param key the lookup query and value
+     * @return the display value, or null if it is not cached or has expired
+     */
+    public synchronized String get(final LookupDisplayKey key) {
+        final Entry entry = entries.get(key);
+
+        if (entry == null) {
+            return null;
+        } else if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        } else {
+            return entry.display;
+        }
+    }
+
+    /**
+     * Store a display value.
+     *
+     * @param key the lookup query and value
+     * @param display the display value
+     */
+    public synchronized void put(final LookupDisplayKey key, final String display) {
+        if (maxSize > 0 && timeToLiveMillis > 0) {
+            entries.put(key, new Entry(display, System.currentTimeMillis() + timeToLiveMillis));
+        }
+    }
+
+    /**
+     * A cached display value.
+     *
+     * @author MicroPact
+     */
+    private static final class Entry {
+
+        private final String display;
+        private final long expiresAt;
+
+        /**
+         * Simple constructor.
+         *
+         * @param theDisplay the display value
+         * @param theExpiresAt when the entry expires, in milliseconds since the epoch
+         */
+        Entry(final String theDisplay, final long theExpiresAt) {
+            display = theDisplay;
+            expiresAt = theExpiresAt;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package net.micropact.aea.auditLog.cache;
+
+import net.entellitrak.aea.core.cache.ICacheable;
+
+/**
+ * {@link ICacheable} which stores the {@link LookupDisplayCache}. The time to live and size are part of the key so
+ * that audit logs with different configurations do not share a cache.
+ *
+ * @author MicroPact
+ * @see AuditLogCache
+ */
+public class LookupDisplayCacheCacheable implements ICacheable<LookupDisplayCache> {
+
+    private final long timeToLiveMillis;
+    private final int maxSize;
+
+    /**
+     * Constructor.
+     *
+     * @param theTimeToLiveMillis how long an entry may be used after it was stored
+     * @param theMaxSize the maximum number of entries
+     */
+    public LookupDisplayCacheCacheable(final long theTimeToLiveMillis, final int theMaxSize) {
+        timeToLiveMillis = theTimeToLiveMillis;
+        maxSize = theMaxSize;
+    }
+
+    @Override
+    public String getKey() {
+        return String.format("%s.%s.%s", getClass().getName(), timeToLiveMillis, maxSize);
+    }
+
+    @Override
+    public LookupDisplayCache getValue() {
+        return new LookupDisplayCache(timeToLiveMillis, maxSize);
+    }
+}
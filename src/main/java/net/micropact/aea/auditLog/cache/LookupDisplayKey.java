@@ -0,0 +1,49 @@
+package net.micropact.aea.auditLog.cache;
+
+import java.util.Objects;
+
+/**
+ * Key of a {@link LookupDisplayCache} entry. The resolved lookup query is part of the key because it already contains
+ * the lookup context (for instance the query returned by a script lookup for a particular record), and the value is
+ * normalized so that numbers of different types compare equal.
+ *
+ * @author MicroPact
+ */
+public final class LookupDisplayKey {
+
+    private final String lookupBusinessKey;
+    private final String lookupQuery;
+    private final String value;
+
+    /**
+     * Constructor.
+     *
+     * @param theLookupBusinessKey business key of the lookup definition
+     * @param theLookupQuery the resolved lookup query
+     * @param theValue the normalized value (or values) of the data element
+     */
+    public LookupDisplayKey(final String theLookupBusinessKey, final String theLookupQuery, final String theValue) {
+        lookupBusinessKey = theLookupBusinessKey;
+        lookupQuery = theLookupQuery;
+        value = theValue;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (!(obj instanceof LookupDisplayKey)) {
+            return false;
+        } else {
+            final LookupDisplayKey other = (LookupDisplayKey) obj;
+            return Objects.equals(lookupBusinessKey, other.lookupBusinessKey)
+                    && Objects.equals(value, other.value)
+                    && Objects.equals(lookupQuery, other.lookupQuery);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lookupBusinessKey, lookupQuery, value);
+    }
+}
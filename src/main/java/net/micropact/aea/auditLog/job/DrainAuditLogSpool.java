@@ -0,0 +1,59 @@
+package net.micropact.aea.auditLog.job;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.WorkExecutionException;
+import com.entellitrak.scheduler.JobHandler;
+import com.entellitrak.scheduler.SchedulerExecutionContext;
+
+import net.micropact.aea.auditLog.spool.AuditLogSpool;
+import net.micropact.aea.core.cache.AeaCoreConfiguration;
+
+/**
+ * This job writes AEA Audit Log entries which were queued by an asynchronous
+ * {@link net.entellitrak.aea.auditLog.AeaAuditLog} to the log table. Entries are written in batches, each in its own
+ * transaction, until the queue is empty. It also writes the entries of spool files which were left behind in the
+ * default spool directory and the directories listed in the al.asyncSpoolDirectories configuration item.
+ *
+ * @author MicroPact
+ * @see net.entellitrak.aea.auditLog.IAeaAuditLogConfig#isAsynchronous()
+ */
+public class DrainAuditLogSpool implements JobHandler {
+
+    /** The maximum number of entries which are written in a single transaction. */
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void execute(final SchedulerExecutionContext etk)
+            throws ApplicationException {
+        try {
+            final Set<String> directories = new LinkedHashSet<>();
+            directories.add(AuditLogSpool.DEFAULT_DIRECTORY);
+            directories.addAll(AeaCoreConfiguration.getAuditLogAsyncSpoolDirectories(etk));
+
+            for (final AuditLogSpool spool : AuditLogSpool.getSpools()) {
+                while (spool.drain(etk, BATCH_SIZE) == BATCH_SIZE) {
+                    /* Keep going until the queue has been emptied */
+                }
+
+                etk.getLogger().info(spool.getMetrics().toString());
+                directories.add(spool.getMetrics().getDirectory());
+            }
+
+            for (final String directory : directories) {
+                final long recovered = AuditLogSpool.drainAbandoned(etk, directory, BATCH_SIZE);
+
+                if (recovered > 0) {
+                    etk.getLogger().info(String.format("Recovered %s AEA Audit Log entries from left behind spool files in %s",
+                            recovered,
+                            directory));
+                }
+            }
+        } catch (final WorkExecutionException | IOException e) {
+            throw new ApplicationException(e);
+        }
+    }
+}
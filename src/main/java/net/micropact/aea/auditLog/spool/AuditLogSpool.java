@@ -0,0 +1,598 @@
+package net.micropact.aea.auditLog.spool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.entellitrak.ExecutionContext;
+import com.entellitrak.WorkExecutionException;
+
+import net.micropact.aea.auditLog.utility.AuditLogWriter;
+import net.micropact.aea.core.ioUtility.IOUtility;
+
+/**
+ * <p>
+ *  A bounded, in-memory queue of AEA Audit Log entries which is backed by an append-only spool file on the local
+ *  disk. Entries are added by {@link net.entellitrak.aea.auditLog.AeaAuditLog} when it is configured to be
+ *  asynchronous and are written to the log table in batches by
+ *  {@link net.micropact.aea.auditLog.job.DrainAuditLogSpool}.
+ * </p>
+ * <p>
+ *  Every entry is given an increasing sequence number. After a batch has been written to the database, the sequence
+ *  number of its last entry is recorded in a checkpoint file, and once the queue is empty the spool file is truncated.
+ * </p>
+ * <p>
+ *  Each spool has its own uniquely named spool and checkpoint files within its directory and holds an exclusive lock
+ *  on its spool file for as long as it is open, so two spools (for instance one from before and one from after
+ *  the script classes were reloaded) never write to the same file. Spool files from an earlier run of the JVM which
+ *  are no longer locked were left behind by a spool which did not finish writing its entries, and are written to the
+ *  database by {@link #drainAbandoned(ExecutionContext, String, int)}. This means that entries are written at least once; an entry
+ *  may be written twice if the server stops between committing a batch and recording the checkpoint.
+ * </p>
+ * <p>
+ *  The queue and spool file are local to each application server, so the drain job must be able to run on every
+ *  server which creates asynchronous audit log entries.
+ * </p>
+ *
+ * @author MicroPact
+ */
+public final class AuditLogSpool {
+
+    /** The spool directory used when an audit log configuration does not specify one. */
+    public static final String DEFAULT_DIRECTORY =
+            System.getProperty("java.io.tmpdir") + File.separator + "aeaAuditLogSpool";
+
+    private static final String FILE_NAME_PREFIX = "auditLog-";
+    private static final String SPOOL_FILE_EXTENSION = ".spool";
+    private static final String CHECKPOINT_FILE_EXTENSION = ".checkpoint";
+
+    /**
+     * Identifies this run of the JVM. It is the same for every class loader, and is part of the name of every spool
+     * file so that {@link #drainAbandoned(ExecutionContext, String, int)} never tries to lock a file which this JVM
+     * has open. On some systems closing any channel to a file releases every lock this JVM holds on it.
+     */
+    private static final String JVM_ID = (ManagementFactory.getRuntimeMXBean().getName()
+            + "-" + ManagementFactory.getRuntimeMXBean().getStartTime()).replaceAll("[^A-Za-z0-9.-]", "_");
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_NUMBER = 2;
+
+    /** The spools which have been opened by this application server, keyed by directory. */
+    private static final Map<Path, AuditLogSpool> SPOOLS = new LinkedHashMap<>();
+
+    private final Path spoolFile;
+    private final Path checkpointFile;
+    private final FileChannel spoolChannel;
+    private final BlockingQueue<SpooledEntry> queue;
+
+    /**
+     * One permit for each free place in the queue. Callers wait for permits without holding the lock on this spool,
+     * so the time they wait is bounded by their own timeout.
+     */
+    private final Semaphore freePlaces;
+
+    /** Only one thread may write entries to the database at a time. */
+    private final Object drainLock = new Object();
+
+    /** Guarded by this. */
+    private DataOutputStream spoolStream;
+    /** Guarded by this. */
+    private long nextSequence;
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong drainedCount = new AtomicLong();
+    private final AtomicLong synchronousCount = new AtomicLong();
+    private final AtomicLong spoolWriteFailureCount = new AtomicLong();
+    private volatile long lastDrainTime;
+
+    /**
+     * Opens a new spool with its own spool file.
+     *
+     * @param directory directory containing the spool and checkpoint files
+     * @param capacity maximum number of entries which may be waiting in the queue
+     * @throws IOException If the spool file could not be created and locked
+     */
+    private AuditLogSpool(final Path directory, final int capacity) throws IOException {
+        Files.createDirectories(directory);
+
+        final String fileName = FILE_NAME_PREFIX + JVM_ID + "-" + UUID.randomUUID();
+        spoolFile = directory.resolve(fileName + SPOOL_FILE_EXTENSION);
+        checkpointFile = directory.resolve(fileName + CHECKPOINT_FILE_EXTENSION);
+
+        spoolChannel = FileChannel.open(spoolFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            /* The lock is released when the channel is closed, which at the latest is when the JVM stops. */
+            if (spoolChannel.tryLock() == null) {
+                throw new IOException(String.format("Could not lock the audit log spool file %s", spoolFile));
+            }
+        } catch (final IOException | RuntimeException e) {
+            IOUtility.closeQuietly(spoolChannel);
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+
+        queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        freePlaces = new Semaphore(queue.remainingCapacity());
+        nextSequence = 1;
+        spoolStream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(spoolChannel)));
+    }
+
+    /**
+     * Gets the spool for a directory, opening it if this application server has not used it yet.
+     *
+     * @param directory directory containing the spool and checkpoint files
+     * @param capacity maximum number of entries which may be waiting in the queue.
+     *          Only used if the spool has not already been opened.
+     * @return the spool
+     * @throws IOException If the spool could not be opened
+     */
+    public static AuditLogSpool getInstance(final String directory, final int capacity) throws IOException {
+        final Path path = Paths.get(directory).toAbsolutePath().normalize();
+
+        synchronized (SPOOLS) {
+            AuditLogSpool spool = SPOOLS.get(path);
+            if (spool == null) {
+                spool = new AuditLogSpool(path, capacity);
+                SPOOLS.put(path, spool);
+            }
+            return spool;
+        }
+    }
+
+    /**
+     * Gets all of the spools which have been opened by this application server since the script classes were
+     * last loaded.
+     *
+     * @return the spools
+     */
+    public static Collection<AuditLogSpool> getSpools() {
+        synchronized (SPOOLS) {
+            return new ArrayList<>(SPOOLS.values());
+        }
+    }
+
+    /**
+     * Adds log entries to the queue and the spool file. If the queue is full, waits up to timeoutMillis in total for
+     * room to become available. Entries which still do not fit are returned so that the caller can write them
+     * synchronously.
+     *
+     * @param logTable the log table which the entries belong in
+     * @param entries the values of the entries, in the order expected by {@link AuditLogWriter}
+     * @param timeoutMillis how long to wait for room in the queue
+     * @return the entries which could not be queued
+     */
+    public List<Object[]> enqueue(final String logTable,
+            final List<Object[]> entries,
+            final long timeoutMillis) {
+        final List<Object[]> accepted = new ArrayList<>();
+        final List<Object[]> rejected = new ArrayList<>();
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        for (final Object[] values : entries) {
+            boolean hasPlace;
+            try {
+                hasPlace = freePlaces.tryAcquire(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                hasPlace = false;
+            }
+
+            if (hasPlace) {
+                accepted.add(values);
+            } else {
+                rejected.add(values);
+                synchronousCount.incrementAndGet();
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            append(logTable, accepted);
+        }
+
+        return rejected;
+    }
+
+    /**
+     * Adds log entries, which a place in the queue has already been reserved for, to the queue and the spool file.
+     * Sequence numbers are assigned while holding the lock so that the queue is always in sequence order.
+     *
+     * @param logTable the log table which the entries belong in
+     * @param entries the values of the entries
+     */
+    private synchronized void append(final String logTable, final List<Object[]> entries) {
+        for (final Object[] values : entries) {
+            final SpooledEntry entry = new SpooledEntry(nextSequence++, System.currentTimeMillis(), logTable, values);
+
+            queue.add(entry);
+            enqueuedCount.incrementAndGet();
+            try {
+                writeEntry(spoolStream, entry);
+            } catch (final IOException e) {
+                /* The entry is still in memory, it just will not survive a restart. */
+                spoolWriteFailureCount.incrementAndGet();
+            }
+        }
+
+        try {
+            spoolStream.flush();
+        } catch (final IOException e) {
+            spoolWriteFailureCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes up to maxEntries entries from the head of the queue to the database in their own transaction. The entries
+     * are only removed from the queue once the transaction has been committed.
+     *
+     * @param etk entellitrak execution context
+     * @param maxEntries maximum number of entries to write
+     * @return the number of entries which were written
+     * @throws WorkExecutionException If the entries could not be written
+     * @throws IOException If the checkpoint could not be recorded
+     */
+    public int drain(final ExecutionContext etk, final int maxEntries) throws WorkExecutionException, IOException {
+        synchronized (drainLock) {
+            final List<SpooledEntry> batch = new ArrayList<>();
+            final Iterator<SpooledEntry> iterator = queue.iterator();
+            while (iterator.hasNext() && batch.size() < maxEntries) {
+                batch.add(iterator.next());
+            }
+
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            etk.doWork(workEtk -> insert(workEtk, batch));
+
+            for (int i = 0; i < batch.size(); i++) {
+                queue.poll();
+            }
+            freePlaces.release(batch.size());
+            drainedCount.addAndGet(batch.size());
+            lastDrainTime = System.currentTimeMillis();
+
+            checkpoint(batch.get(batch.size() - 1).sequence);
+
+            return batch.size();
+        }
+    }
+
+    /**
+     * Gets the current metrics of this spool.
+     *
+     * @return the metrics
+     */
+    public AuditLogSpoolMetrics getMetrics() {
+        final SpooledEntry oldest = queue.peek();
+
+        return new AuditLogSpoolMetrics(spoolFile.getParent().toString(),
+                queue.size(),
+                queue.size() + queue.remainingCapacity(),
+                oldest == null ? 0 : System.currentTimeMillis() - oldest.enqueuedTime,
+                enqueuedCount.get(),
+                drainedCount.get(),
+                synchronousCount.get(),
+                spoolWriteFailureCount.get(),
+                lastDrainTime);
+    }
+
+    /**
+     * Records that every entry up to and including a sequence number has been written to the database.
+     * If the queue is empty, the spool file is truncated.
+     *
+     * @param sequence the sequence number of the last entry which was written
+     * @throws IOException If the checkpoint could not be recorded
+     */
+    private synchronized void checkpoint(final long sequence) throws IOException {
+        writeCheckpoint(checkpointFile, sequence);
+
+        /* Entries are added to the queue and the spool while holding this lock, so an empty queue means that
+         * everything in the spool has been written. The stream is flushed after every append, so truncating the
+         * channel also moves its position back to the start of the file. */
+        if (queue.isEmpty()) {
+            spoolStream.flush();
+            spoolChannel.truncate(0);
+        }
+    }
+
+    /**
+     * Writes the entries of the spool files in a directory which were created by an earlier run of the JVM (or by
+     * another JVM) and are no longer locked by an open spool to the database, and then deletes those files. Such
+     * files were left behind when the application server stopped before all of their entries had been written. The
+     * entries of each file are written in batches, each in its own transaction, and the checkpoint is recorded after
+     * every batch. Files created by this run of the JVM, including those of spools from before the script classes
+     * were reloaded, are recovered after the next restart.
+     *
+     * @param etk entellitrak execution context
+     * @param directory directory containing the spool and checkpoint files
+     * @param maxEntries maximum number of entries to write in a single transaction
+     * @return the number of entries which were written
+     * @throws WorkExecutionException If the entries could not be written
+     * @throws IOException If a spool file could not be read or a checkpoint could not be recorded
+     */
+    public static long drainAbandoned(final ExecutionContext etk, final String directory, final int maxEntries)
+            throws WorkExecutionException, IOException {
+        final Path path = Paths.get(directory).toAbsolutePath().normalize();
+
+        if (!Files.isDirectory(path)) {
+            return 0;
+        }
+
+        final List<Path> spoolFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path, FILE_NAME_PREFIX + "*" + SPOOL_FILE_EXTENSION)) {
+            for (final Path file : files) {
+                spoolFiles.add(file);
+            }
+        }
+
+        long drained = 0;
+
+        for (final Path file : spoolFiles) {
+            final String fileName = file.getFileName().toString();
+
+            if (fileName.startsWith(FILE_NAME_PREFIX + JVM_ID + "-")) {
+                continue;
+            }
+            final Path checkpointFile = file.resolveSibling(
+                    fileName.substring(0, fileName.length() - SPOOL_FILE_EXTENSION.length()) + CHECKPOINT_FILE_EXTENSION);
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final FileLock lock;
+                try {
+                    lock = channel.tryLock();
+                } catch (final OverlappingFileLockException e) {
+                    /* Another job in this JVM is draining the file */
+                    continue;
+                }
+
+                if (lock == null) {
+                    /* The file belongs to a spool which is open in another process */
+                    continue;
+                }
+
+                final List<SpooledEntry> entries = readSpool(channel, readCheckpoint(checkpointFile));
+
+                for (int start = 0; start < entries.size(); start += maxEntries) {
+                    final List<SpooledEntry> batch = entries.subList(start, Math.min(start + maxEntries, entries.size()));
+
+                    etk.doWork(workEtk -> insert(workEtk, batch));
+
+                    writeCheckpoint(checkpointFile, batch.get(batch.size() - 1).sequence);
+                    drained += batch.size();
+                }
+            } catch (final NoSuchFileException e) {
+                /* Another job has already drained and deleted the file */
+                continue;
+            }
+
+            /* Any other job which opens the file before it is deleted finds that the checkpoint covers all of it. */
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(checkpointFile);
+        }
+
+        return drained;
+    }
+
+    /**
+     * Writes log entries to their log tables.
+     *
+     * @param etk entellitrak execution context
+     * @param entries the entries
+     */
+    private static void insert(final ExecutionContext etk, final List<SpooledEntry> entries) {
+        final Map<String, List<SpooledEntry>> entriesByTable = new LinkedHashMap<>();
+        for (final SpooledEntry entry : entries) {
+            entriesByTable.computeIfAbsent(entry.logTable, key -> new ArrayList<>()).add(entry);
+        }
+
+        /* Entries keep the time that they were queued, not the time that they are written. */
+        for (final Map.Entry<String, List<SpooledEntry>> tableEntries : entriesByTable.entrySet()) {
+            final List<Object[]> values = new ArrayList<>();
+            final List<Long> timestamps = new ArrayList<>();
+            for (final SpooledEntry entry : tableEntries.getValue()) {
+                values.add(entry.values);
+                timestamps.add(entry.enqueuedTime);
+            }
+            AuditLogWriter.insert(etk, tableEntries.getKey(), values, timestamps);
+        }
+    }
+
+    /**
+     * Records the sequence number of the last entry of a spool file which is known to have been written to the
+     * database.
+     *
+     * @param checkpointFile the checkpoint file
+     * @param sequence the sequence number
+     * @throws IOException If the checkpoint could not be recorded
+     */
+    private static void writeCheckpoint(final Path checkpointFile, final long sequence) throws IOException {
+        final Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.write(temporaryFile, Long.toString(sequence).getBytes(StandardCharsets.UTF_8));
+        Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the sequence number of the last entry of a spool file which is known to have been written to the
+     * database.
+     *
+     * @param checkpointFile the checkpoint file
+     * @return the sequence number, or 0 if there is no checkpoint
+     * @throws IOException If the checkpoint could not be read
+     */
+    private static long readCheckpoint(final Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+
+        final String checkpoint = new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8).trim();
+        return checkpoint.isEmpty() ? 0 : Long.parseLong(checkpoint);
+    }
+
+    /**
+     * Reads the entries in a spool file which come after the checkpoint. Reading stops at the first incomplete entry.
+     *
+     * @param channel the spool file
+     * @param checkpoint the sequence number of the last entry which is known to have been written
+     * @return the entries which have not been written
+     * @throws IOException If the spool file could not be read
+     */
+    private static List<SpooledEntry> readSpool(final FileChannel channel, final long checkpoint) throws IOException {
+        final List<SpooledEntry> entries = new ArrayList<>();
+
+        /* The stream is not closed because closing it would close the channel and release its lock. */
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        try {
+            while (true) {
+                final SpooledEntry entry = readEntry(input);
+                if (entry.sequence > checkpoint) {
+                    entries.add(entry);
+                }
+            }
+        } catch (final EOFException e) {
+            /* We have reached the end of the spool (or an entry which was not completely written) */
+        }
+
+        return entries;
+    }
+
+    /**
+     * Writes an entry to the spool.
+     *
+     * @param output the spool
+     * @param entry the entry
+     * @throws IOException If the entry could not be written
+     */
+    private static void writeEntry(final DataOutputStream output, final SpooledEntry entry) throws IOException {
+        output.writeLong(entry.sequence);
+        output.writeLong(entry.enqueuedTime);
+        writeValue(output, entry.logTable);
+        output.writeInt(entry.values.length);
+        for (final Object value : entry.values) {
+            writeValue(output, value);
+        }
+    }
+
+    /**
+     * Reads an entry from the spool.
+     *
+     * @param input the spool
+     * @return the entry
+     * @throws IOException If the entry could not be read
+     */
+    private static SpooledEntry readEntry(final DataInputStream input) throws IOException {
+        final long sequence = input.readLong();
+        final long enqueuedTime = input.readLong();
+        final String logTable = (String) readValue(input);
+        final Object[] values = new Object[input.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readValue(input);
+        }
+        return new SpooledEntry(sequence, enqueuedTime, logTable, values);
+    }
+
+    /**
+     * Writes a single value of an entry. Numbers are stored as longs and anything else is stored as a String.
+     *
+     * @param output the spool
+     * @param value the value
+     * @throws IOException If the value could not be written
+     */
+    private static void writeValue(final DataOutputStream output, final Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(TYPE_NULL);
+        } else if (value instanceof Number) {
+            output.writeByte(TYPE_NUMBER);
+            output.writeLong(((Number) value).longValue());
+        } else {
+            final byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            output.writeByte(TYPE_STRING);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a single value of an entry.
+     *
+     * @param input the spool
+     * @return the value
+     * @throws IOException If the value could not be read
+     */
+    private static Object readValue(final DataInputStream input) throws IOException {
+        final byte type = input.readByte();
+
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_NUMBER:
+                return input.readLong();
+            case TYPE_STRING:
+                final byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            default:
+                throw new IOException(String.format("Unknown value type %s found in the audit log spool", type));
+        }
+    }
+
+    /**
+     * A log entry which is waiting to be written to the database.
+     *
+     * @author MicroPact
+     */
+    private static final class SpooledEntry {
+
+        private final long sequence;
+        private final long enqueuedTime;
+        private final String logTable;
+        private final Object[] values;
+
+        /**
+         * Simple constructor.
+         *
+         * @param theSequence the sequence number of the entry
+         * @param theEnqueuedTime when the entry was added to the queue
+         * @param theLogTable the log table which the entry belongs in
+         * @param theValues the values of the entry
+         */
+        SpooledEntry(final long theSequence,
+                final long theEnqueuedTime,
+                final String theLogTable,
+                final Object[] theValues) {
+            sequence = theSequence;
+            enqueuedTime = theEnqueuedTime;
+            logTable = theLogTable;
+            values = theValues;
+        }
+    }
+}
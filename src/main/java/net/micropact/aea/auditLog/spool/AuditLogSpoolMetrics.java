@@ -0,0 +1,148 @@
+package net.micropact.aea.auditLog.spool;
+
+/**
+ * An immutable snapshot of the state of an {@link AuditLogSpool}.
+ *
+ * @author MicroPact
+ */
+public final class AuditLogSpoolMetrics {
+
+    private final String directory;
+    private final int queueDepth;
+    private final int capacity;
+    private final long lagMillis;
+    private final long enqueuedCount;
+    private final long drainedCount;
+    private final long synchronousCount;
+    private final long spoolWriteFailureCount;
+    private final long lastDrainTime;
+
+    /**
+     * Simple constructor.
+     *
+     * @param theDirectory directory containing the spool
+     * @param theQueueDepth number of entries waiting to be written
+     * @param theCapacity maximum number of entries which may be waiting to be written
+     * @param theLagMillis how long the oldest waiting entry has been waiting
+     * @param theEnqueuedCount number of entries which have been queued
+     * @param theDrainedCount number of queued entries which have been written
+     * @param theSynchronousCount number of entries which were written synchronously because the queue was full
+     * @param theSpoolWriteFailureCount number of entries which could not be written to the spool file
+     * @param theLastDrainTime when entries were last written, or 0 if they never have been
+     */
+    AuditLogSpoolMetrics(final String theDirectory,
+            final int theQueueDepth,
+            final int theCapacity,
+            final long theLagMillis,
+            final long theEnqueuedCount,
+            final long theDrainedCount,
+            final long theSynchronousCount,
+            final long theSpoolWriteFailureCount,
+            final long theLastDrainTime) {
+        directory = theDirectory;
+        queueDepth = theQueueDepth;
+        capacity = theCapacity;
+        lagMillis = theLagMillis;
+        enqueuedCount = theEnqueuedCount;
+        drainedCount = theDrainedCount;
+        synchronousCount = theSynchronousCount;
+        spoolWriteFailureCount = theSpoolWriteFailureCount;
+        lastDrainTime = theLastDrainTime;
+    }
+
+    /**
+     * Get the directory containing the spool.
+     *
+     * @return the directory
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the number of entries waiting to be written.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Get the maximum number of entries which may be waiting to be written.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get how long the oldest waiting entry has been waiting.
+     *
+     * @return the lag in milliseconds
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Get the number of entries which have been queued since the spool was opened.
+     *
+     * @return the number of queued entries
+     */
+    public long getEnqueuedCount() {
+        return enqueuedCount;
+    }
+
+    /**
+     * Get the number of queued entries which have been written since the spool was opened.
+     *
+     * @return the number of written entries
+     */
+    public long getDrainedCount() {
+        return drainedCount;
+    }
+
+    /**
+     * Get the number of entries which were written synchronously because the queue was full.
+     *
+     * @return the number of synchronous entries
+     */
+    public long getSynchronousCount() {
+        return synchronousCount;
+    }
+
+    /**
+     * Get the number of entries which could not be written to the spool file.
+     * These entries were still queued but would be lost if the application server stopped before they were written.
+     *
+     * @return the number of spool write failures
+     */
+    public long getSpoolWriteFailureCount() {
+        return spoolWriteFailureCount;
+    }
+
+    /**
+     * Get when entries were last written.
+     *
+     * @return the time in milliseconds since the epoch, or 0 if entries have never been written
+     */
+    public long getLastDrainTime() {
+        return lastDrainTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AEA Audit Log spool %s: queueDepth=%s, capacity=%s, lagMillis=%s, enqueued=%s, drained=%s, synchronous=%s, spoolWriteFailures=%s, lastDrainTime=%s",
+                directory,
+                queueDepth,
+                capacity,
+                lagMillis,
+                enqueuedCount,
+                drainedCount,
+                synchronousCount,
+                spoolWriteFailureCount,
+                lastDrainTime);
+    }
+}
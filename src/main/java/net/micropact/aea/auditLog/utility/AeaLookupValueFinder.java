@@ -11,15 +11,21 @@ package net.micropact.aea.auditLog.utility;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 
+import net.micropact.aea.auditLog.cache.LookupDisplayCache;
+import net.micropact.aea.auditLog.cache.LookupDisplayKey;
 import net.micropact.aea.core.dataTypePlugin.DataTypePluginClassUtility;
 import net.micropact.aea.core.utility.StringUtils;
 import net.micropact.aea.utility.Utility;
@@ -44,16 +50,37 @@ import com.entellitrak.lookup.For;
  */
 public class AeaLookupValueFinder {
 
+	/** Default number of milliseconds that a lookup display value is cached for. */
+	public static final long DEFAULT_DISPLAY_CACHE_TIME_TO_LIVE_MILLIS = 60000;
+	/** Default maximum number of lookup display values which are cached. */
+	public static final int DEFAULT_DISPLAY_CACHE_MAX_SIZE = 5000;
+
+	private static final Pattern SELECT_PATTERN = Pattern.compile("(select)(\\s)+(?!top)", Pattern.CASE_INSENSITIVE);
+
 	private ExecutionContext etk = null;
 	private static final int FIELD_NAME_POSITION = 3;
+	private final LookupDisplayCache displayCache;
+	/** Lookup queries which have already been resolved, keyed by data element and record. */
+	private final Map<String, String> lookupQueries = new HashMap<>();
 
 	/**
-	 * Default constructor.
+	 * Default constructor. Lookup display values are not cached.
 	 *
 	 * @param etkTmp The Execution Context.
 	 */
 	public AeaLookupValueFinder(ExecutionContext etkTmp) {
+		this(etkTmp, null);
+	}
+
+	/**
+	 * Constructor which caches lookup display values.
+	 *
+	 * @param etkTmp The Execution Context.
+	 * @param theDisplayCache Cache of lookup display values, or null to not cache them.
+	 */
+	public AeaLookupValueFinder(ExecutionContext etkTmp, LookupDisplayCache theDisplayCache) {
 		this.etk = etkTmp;
+		this.displayCache = theDisplayCache;
 	}
 
 	/**
@@ -71,46 +98,180 @@ public class AeaLookupValueFinder {
                return null;
             }
 
-            final Pattern p = Pattern.compile("(select)(\\s)+(?!top)", Pattern.CASE_INSENSITIVE);
-            final Matcher m = p.matcher(aString);
-
-            return m.replaceAll("SELECT TOP 2147483647 ");
+            return SELECT_PATTERN.matcher(aString).replaceAll("SELECT TOP 2147483647 ");
         } else {
             return aString;
         }
     }
 
-    /**
-     * Returns a data element's value.
-     *
-     * @param tde The data element to get the value for.
-     * @param isLookupMap Map to indicate whether or not the data element is a lookup.
-     * @param values Map containing all of the form's values, key is get element name.
-     * @param parameterMap Map containing all the forms's parameters for inclusion in the query.
-     * @return A data element's value.
-     * @throws ApplicationException ETK fatal exception.
-     */
-	@SuppressWarnings("rawtypes")
+	/**
+	 * Returns a data element's value.
+	 *
+	 * @param tde The data element to get the value for.
+	 * @param isLookupMap Map to indicate whether or not the data element is a lookup.
+	 * @param values Map containing all of the form's values, key is get element name.
+	 * @param parameterMap Map containing all the forms's parameters for inclusion in the query.
+	 * @return A data element's value.
+	 * @throws ApplicationException ETK fatal exception.
+	 */
 	public String getValue(DataElement tde,
 			               Map<String, String> isLookupMap,
 			               Map<String, Object> values,
 			               Map<String, Object> parameterMap) throws ApplicationException {
+		if (isLookup(tde, isLookupMap)) {
+			return getLookupDisplays(tde, isLookupMap, Collections.singletonList(parameterMap)).get(0);
+		} else {
+			return getNonLookupValue(tde, values);
+		}
+	}
 
+	/**
+	 * Returns a data element's previous and new values. For lookups both display values are fetched with
+	 * a single query.
+	 *
+	 * @param tde The data element to get the values for.
+	 * @param isLookupMap Map to indicate whether or not the data element is a lookup.
+	 * @param oldValues Map containing all of the old form's values, key is get element name.
+	 * @param oldParameterMap Map containing all the old form's parameters for inclusion in the query.
+	 * @param newValues Map containing all of the new form's values, key is get element name.
+	 * @param newParameterMap Map containing all the new form's parameters for inclusion in the query.
+	 * @return An array containing the previous value followed by the new value.
+	 * @throws ApplicationException ETK fatal exception.
+	 */
+	public String[] getValues(DataElement tde,
+			                  Map<String, String> isLookupMap,
+			                  Map<String, Object> oldValues,
+			                  Map<String, Object> oldParameterMap,
+			                  Map<String, Object> newValues,
+			                  Map<String, Object> newParameterMap) throws ApplicationException {
+		if (isLookup(tde, isLookupMap)) {
+			final List<String> displays = getLookupDisplays(tde, isLookupMap,
+					Arrays.asList(oldParameterMap, newParameterMap));
+			return new String[] {displays.get(0), displays.get(1)};
+		} else {
+			return new String[] {getNonLookupValue(tde, oldValues), getNonLookupValue(tde, newValues)};
+		}
+	}
 
-		Boolean isLookup = StringUtility.isNotBlank(isLookupMap.get(tde.getBusinessKey()));
-		String fieldName = tde.getBusinessKey().split("\\.")[FIELD_NAME_POSITION];
-		String value = "";
+	/**
+	 * Returns whether a data element is bound to a lookup.
+	 *
+	 * @param tde The data element.
+	 * @param isLookupMap Map to indicate whether or not the data element is a lookup.
+	 * @return Whether the data element is bound to a lookup.
+	 */
+	private static boolean isLookup(DataElement tde, Map<String, String> isLookupMap) {
+		return StringUtility.isNotBlank(isLookupMap.get(tde.getBusinessKey()));
+	}
+
+	/**
+	 * Returns the lookup display values for one or more sets of form parameters. Display values are taken from the
+	 * lookup display cache when possible, and all of the remaining values are fetched with a single query.
+	 *
+	 * @param tde The lookup data element.
+	 * @param isLookupMap Map to indicate whether or not the data element is a lookup.
+	 * @param parameterMaps The form parameters. The trackingId, baseId and parentId must be the same in each.
+	 * @return The display values, in the same order as parameterMaps.
+	 * @throws ApplicationException ETK fatal exception.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private List<String> getLookupDisplays(DataElement tde,
+			                               Map<String, String> isLookupMap,
+			                               List<Map<String, Object>> parameterMaps) throws ApplicationException {
+		final String lookupBusinessKey = isLookupMap.get(tde.getBusinessKey());
+		final String fieldName = tde.getBusinessKey().split("\\.")[FIELD_NAME_POSITION];
+		final String inClauseQuery = getInClauseQuery(tde, parameterMaps.get(0));
+
+		final List<String> displays = new ArrayList<>();
+		final List<List<Object>> lookupValues = new ArrayList<>();
+		final List<LookupDisplayKey> keys = new ArrayList<>();
+
+		//Values which need to be fetched, keyed by normalized value. The original objects are bound to the query.
+		final Map<String, Object> missingValues = new LinkedHashMap<>();
+
+		for (final Map<String, Object> parameterMap : parameterMaps) {
+			final List<Object> theLookupValues;
+			if (tde.isMultiValued()) {
+				final List valueList = (List) parameterMap.get(fieldName);
+				theLookupValues = valueList == null ? Collections.emptyList() : valueList;
+			} else {
+				theLookupValues = Collections.singletonList(parameterMap.get(fieldName));
+			}
 
-		if (isLookup) {
+			final LookupDisplayKey key = new LookupDisplayKey(lookupBusinessKey, inClauseQuery,
+					normalizeValues(theLookupValues));
+			final String display = displayCache == null ? null : displayCache.get(key);
 
+			if (display == null) {
+				for (final Object lookupValue : theLookupValues) {
+					if (lookupValue != null) {
+						missingValues.putIfAbsent(normalizeValue(lookupValue), lookupValue);
+					}
+				}
+			}
+
+			displays.add(display);
+			lookupValues.add(theLookupValues);
+			keys.add(key);
+		}
+
+		if (displays.contains(null)) {
+			final List<Map<String, Object>> rows = missingValues.isEmpty()
+					? Collections.<Map<String, Object>>emptyList()
+					: fetchLookupRows(tde, inClauseQuery, new ArrayList<>(missingValues.values()));
+
+			for (int i = 0; i < displays.size(); i++) {
+				if (displays.get(i) == null) {
+					final Set<String> valueSet = new HashSet<>();
+					for (final Object lookupValue : lookupValues.get(i)) {
+						valueSet.add(normalizeValue(lookupValue));
+					}
+
+					final List<String> valueList = new ArrayList<>();
+					for (final Map<String, Object> aRow : rows) {
+						if (valueSet.contains(normalizeValue(aRow.get("VALUE")))) {
+							valueList.add(String.valueOf(aRow.get("DISPLAY")));
+						}
+					}
+
+					final String display = StringUtils.join(valueList, ", ");
+					displays.set(i, display);
+
+					if (displayCache != null) {
+						displayCache.put(keys.get(i), display);
+					}
+				}
+			}
+		}
+
+		return displays;
+	}
+
+	/**
+	 * Returns the lookup query of a data element with its replacement parameters converted to bind parameters.
+	 * The query is only resolved once per data element and record.
+	 *
+	 * @param tde The lookup data element.
+	 * @param parameterMap Map containing the form's trackingId, baseId and parentId.
+	 * @return The lookup query.
+	 * @throws ApplicationException ETK fatal exception.
+	 */
+	private String getInClauseQuery(DataElement tde, Map<String, Object> parameterMap) throws ApplicationException {
+		final String cacheKey = tde.getBusinessKey()
+				+ "&trackingId=" + parameterMap.get("trackingId")
+				+ "&baseId=" + parameterMap.get("baseId")
+				+ "&parentId=" + parameterMap.get("parentId");
+
+		String inClauseQuery = lookupQueries.get(cacheKey);
+
+		if (inClauseQuery == null) {
 			final LookupDataUtility lsu = new LookupDataUtility(etk);
-		    String lookupQuery = null;
 
 			try {
-				lookupQuery = lsu.getLookupQuery(tde.getBusinessKey(),
+				inClauseQuery = lsu.getBoundLookupQuery(tde.getBusinessKey(),
 					          	new AeaLookupExecutionContextImpl(etk, For.VIEW, (Long) parameterMap.get("trackingId"),
 					          			(Long) parameterMap.get("baseId"), (Long) parameterMap.get("parentId"),
-					          			tde.getDataObject().getBusinessKey(), tde.getDataObject().getTableName()));
+					          			tde.getDataObject().getBusinessKey(), tde.getDataObject().getTableName())).getSql();
 			} catch (DataAccessException e1) {
 				throw new ApplicationException(e1);
 			} catch (InstantiationException e1) {
@@ -123,100 +284,125 @@ public class AeaLookupValueFinder {
 				throw new ApplicationException(e1);
 			}
 
-			final StringBuffer modifiedQuery = new StringBuffer();
-
-			final Pattern p = Pattern.compile("\\{\\?.*?\\}");
-			final Matcher m = p.matcher(lookupQuery);
+			lookupQueries.put(cacheKey, inClauseQuery);
+		}
 
-			//Find all replacement parameters and bind the replacementParams passed from the form
-			//to the query.
-			while(m.find()) {
-				final String tmp = m.group();
-				final String stripped = tmp.substring(2, tmp.length() - 1);
-				m.appendReplacement(modifiedQuery, Matcher.quoteReplacement(":" + stripped));
-			}
+		return inClauseQuery;
+	}
 
-			m.appendTail(modifiedQuery);
+	/**
+	 * Runs a lookup query restricted to a list of values.
+	 *
+	 * @param tde The lookup data element.
+	 * @param inClauseQuery The lookup query.
+	 * @param lookupValues The values to fetch the display values of.
+	 * @return The DISPLAY and VALUE of each matching row, in the order of the lookup query.
+	 * @throws ApplicationException ETK fatal exception.
+	 */
+	private List<Map<String, Object>> fetchLookupRows(DataElement tde,
+			                                          String inClauseQuery,
+			                                          List<Object> lookupValues) throws ApplicationException {
+		//Wrap the query in an outer select, replace all wild card variables.
+		final Map<String, Object> queryParamMap = new HashMap<>();
+		final StringBuilder finalQuery = new StringBuilder();
+		finalQuery.append("select ");
+		finalQuery.append(" DISPLAY, VALUE from (");
+		finalQuery.append(inClauseQuery);
+		finalQuery.append(") TEMP_QUERY WHERE ");
+		Utility.addLargeInClause("VALUE", finalQuery, queryParamMap, lookupValues);
+
+		try {
+			return etk.createSQL (peformSelectReplacements(finalQuery.toString()))
+					.setParameter(queryParamMap)
+					.fetchList();
+		} catch (Exception e) {
+			String errorMessage =
+					"AEA Audit Log - Error executing query for resolving value for lookup on element \""
+					+ tde.getBusinessKey()
+					+ "\"\n\n. Query as executed = \"" + finalQuery.toString()
+					+ "\"\n\n. Parameter Map = \"" + ReflectionToStringBuilder.toString(queryParamMap);
+
+			throw new ApplicationException(errorMessage, e);
+		}
+	}
 
-			final String inClauseQuery = modifiedQuery.toString();
+	/**
+	 * Normalizes a lookup value so that numbers of different types compare equal.
+	 *
+	 * @param lookupValue The value.
+	 * @return The normalized value.
+	 */
+	private static String normalizeValue(Object lookupValue) {
+		if (lookupValue == null) {
+			return null;
+		} else if (lookupValue instanceof Number) {
+			return new BigDecimal(lookupValue.toString()).stripTrailingZeros().toPlainString();
+		} else {
+			return lookupValue.toString();
+		}
+	}
 
-			//Wrap the query in an outer select, replace all wild card variables.
-			final Map<String, Object> queryParamMap = new HashMap<>();
-			final StringBuilder finalQuery = new StringBuilder();
-			finalQuery.append("select ");
-			finalQuery.append(" DISPLAY from (");
-			finalQuery.append(inClauseQuery);
-			finalQuery.append(") TEMP_QUERY WHERE ");
+	/**
+	 * Normalizes a list of lookup values for use in a {@link LookupDisplayKey}.
+	 *
+	 * @param lookupValues The values.
+	 * @return The normalized values.
+	 */
+	private static String normalizeValues(List<Object> lookupValues) {
+		final StringBuilder normalized = new StringBuilder();
+		for (final Object lookupValue : lookupValues) {
+			normalized.append(normalizeValue(lookupValue)).append('\u0000');
+		}
+		return normalized.toString();
+	}
 
-			if (tde.isMultiValued()) {
-				Utility.addLargeInClause("VALUE", finalQuery, queryParamMap,
-						(List) parameterMap.get(tde.getBusinessKey().split("\\.")[FIELD_NAME_POSITION]));
-			} else {
-				finalQuery.append("VALUE = :" + fieldName);
-				queryParamMap.put(fieldName, parameterMap.get(fieldName));
-			}
+	/**
+	 * Returns the value of a data element which is not bound to a lookup.
+	 *
+	 * @param tde The data element to get the value for.
+	 * @param values Map containing all of the form's values, key is get element name.
+	 * @return The data element's value.
+	 * @throws ApplicationException ETK fatal exception.
+	 */
+	private String getNonLookupValue(DataElement tde, Map<String, Object> values) throws ApplicationException {
+		String fieldName = tde.getBusinessKey().split("\\.")[FIELD_NAME_POSITION];
+		String value = "";
 
-			List<String> valueList = new ArrayList<>();
+		Object tmpVal = values.get("get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1));
 
+		if (tmpVal == null) {
+			value = "";
+		} else if (tde.getDataType() == DataType.CURRENCY) {
+			value = ((BigDecimal) tmpVal).toString();
+		} else if (tde.getDataType() == DataType.DATE) {
+			value = DateUtility.getFormattedDate(((Date) tmpVal));
+		} else if (tde.getDataType() == DataType.FILE) {
 			try {
-				final List<Map<String, Object>> rowsToWrite =
-						etk.createSQL (peformSelectReplacements(finalQuery.toString()))
-						.setParameter(queryParamMap)
-						.fetchList();
-
-				for (Map<String, Object> aRow : rowsToWrite) {
-					valueList.add(String.valueOf(aRow.get("DISPLAY")));
-				}
-			} catch (Exception e) {
-				String errorMessage =
-						"AEA Audit Log - Error executing query for resolving value for lookup on element \""
-						+ tde.getBusinessKey()
-						+ "\"\n\n. Query as executed = \"" + finalQuery.toString()
-						+ "\"\n\n. Parameter Map = \"" + ReflectionToStringBuilder.toString(queryParamMap);
-
-				throw new ApplicationException(errorMessage, e);
-			}
-
-			value = StringUtils.join(valueList, ", ");
-
-		} else {
-
-			Object tmpVal = values.get("get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1));
-
-			if (tmpVal == null) {
-				value = "";
-			} else if (tde.getDataType() == DataType.CURRENCY) {
-				value = ((BigDecimal) tmpVal).toString();
-			} else if (tde.getDataType() == DataType.DATE) {
-				value = DateUtility.getFormattedDate(((Date) tmpVal));
-			} else if (tde.getDataType() == DataType.FILE) {
-				try {
-					value = etk.createSQL("SELECT FILE_NAME FROM etk_file WHERE id = :fileId")
+				value = etk.createSQL("SELECT FILE_NAME FROM etk_file WHERE id = :fileId")
     				            .setParameter("fileId", tmpVal)
-					            .returnEmptyResultSetAs(tmpVal.toString())
-					            .fetchString();
-				} catch (Exception e) {
-					Utility.aeaLog(etk, e);
-					value = tmpVal + "";
-				}
-			} else if (tde.getDataType() == DataType.LONG_TEXT) {
-				value = (String) tmpVal;
-			} else if (tde.getDataType() == DataType.NUMBER) {
+				            .returnEmptyResultSetAs(tmpVal.toString())
+				            .fetchString();
+			} catch (Exception e) {
+				Utility.aeaLog(etk, e);
 				value = tmpVal + "";
-			} else if (tde.getDataType() == DataType.PASSWORD) {
-				value = "*****";
-			} else if (tde.getDataType() == DataType.TEXT) {
-				value = (String) tmpVal;
-			} else if (tde.getDataType() == DataType.TIMESTAMP) {
-				value = DateUtility.getFormattedDateTime(((Date) tmpVal));
-			} else if (tde.getDataType() == DataType.YES_NO) {
-				value = (Boolean) tmpVal ? "Yes" : "No";
-			} else if (tde.getDataType() == DataType.NONE){
-				value = getDataTypePluginDisplay(etk, tde.getBusinessKey(), tmpVal);
-				value = StringUtility.isBlank(value) ? "" : value;
-			} else {
-				value = tmpVal.toString();
 			}
+		} else if (tde.getDataType() == DataType.LONG_TEXT) {
+			value = (String) tmpVal;
+		} else if (tde.getDataType() == DataType.NUMBER) {
+			value = tmpVal + "";
+		} else if (tde.getDataType() == DataType.PASSWORD) {
+			value = "*****";
+		} else if (tde.getDataType() == DataType.TEXT) {
+			value = (String) tmpVal;
+		} else if (tde.getDataType() == DataType.TIMESTAMP) {
+			value = DateUtility.getFormattedDateTime(((Date) tmpVal));
+		} else if (tde.getDataType() == DataType.YES_NO) {
+			value = (Boolean) tmpVal ? "Yes" : "No";
+		} else if (tde.getDataType() == DataType.NONE){
+			value = getDataTypePluginDisplay(etk, tde.getBusinessKey(), tmpVal);
+			value = StringUtility.isBlank(value) ? "" : value;
+		} else {
+			value = tmpVal.toString();
 		}
 
 		return value;
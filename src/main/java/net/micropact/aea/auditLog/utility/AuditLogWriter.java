@@ -0,0 +1,121 @@
+package net.micropact.aea.auditLog.utility;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.entellitrak.ExecutionContext;
+
+import net.micropact.aea.core.query.QueryUtility;
+import net.micropact.aea.utility.Utility;
+
+/**
+ * Writes AEA Audit Log entries to a log table using multi-row inserts.
+ * Each entry is an array of values in the order of {@link #LOG_COLUMNS}.
+ *
+ * @author MicroPact
+ */
+public final class AuditLogWriter {
+
+    /**
+     * The columns of the log table which are populated from an AeaLogEntry, in the order that entries must list
+     * their values. ID and C_TIMESTAMP are populated by the insert itself.
+     */
+    private static final String[] LOG_COLUMNS = {"C_COLUMN", "C_DATA_OBJECT_NAME",
+            "C_TRACKING_ID", "C_EVENT_TYPE", "C_DATA_ELEMENT_NAME", "C_NEW_VALUE",
+            "C_PREVIOUS_VALUE", "C_USER_ACCOUNT_NAME", "C_EVENT_MESSAGE",
+            "C_ORGANIZATION", "C_TABLE_NAME", "C_EVENT_ACTOR", "C_USER_ID",
+            "C_DATA_OBJECT_KEY", "C_DATA_OBJECT_LABEL", "C_ORGANIZATION_ID",
+            "C_USER_ROLE_ID", "C_USER_ROLE_NAME", "C_PARENT_ID", "C_BASE_ID",
+            "C_APP_SERVER_HOSTNAME", "C_APP_SERVER_IP_ADDRESS"};
+
+    /**
+     * Maximum number of log entries written by a single multi-row insert. Oracle does not allow an INSERT ALL
+     * statement to have more than 999 columns in total, and SQL Server does not allow more than 2100 parameters.
+     */
+    private static final int MAX_ENTRIES_PER_INSERT = 40;
+
+    /**
+     * Utility classes do not need constructors.
+     */
+    private AuditLogWriter() {}
+
+    /**
+     * Writes log entries to a log table. On Oracle the ids of the entries are reserved with a single query per insert.
+     *
+     * @param etk entellitrak execution context
+     * @param logTable the log table
+     * @param entries the values of the entries, in the order of LOG_COLUMNS
+     */
+    public static void insert(final ExecutionContext etk, final String logTable, final List<Object[]> entries) {
+        insert(etk, logTable, entries, null);
+    }
+
+    /**
+     * Writes log entries to a log table, using the given timestamps instead of the current database time.
+     * This is used when entries are written some time after the events which they describe.
+     *
+     * @param etk entellitrak execution context
+     * @param logTable the log table
+     * @param entries the values of the entries, in the order of LOG_COLUMNS
+     * @param timestamps the time of each entry in milliseconds since the epoch, or null to use the current
+     *          database time
+     */
+    public static void insert(final ExecutionContext etk,
+            final String logTable,
+            final List<Object[]> entries,
+            final List<Long> timestamps) {
+        final boolean isSqlServer = Utility.isSqlServer(etk);
+        final String columns = String.join(", ", LOG_COLUMNS);
+
+        for (int chunkStart = 0; chunkStart < entries.size(); chunkStart += MAX_ENTRIES_PER_INSERT) {
+            final List<Object[]> chunk = entries.subList(chunkStart,
+                    Math.min(chunkStart + MAX_ENTRIES_PER_INSERT, entries.size()));
+
+            final List<Long> ids = isSqlServer ? null
+                    : QueryUtility.mapsToLongs(etk.createSQL("SELECT OBJECT_ID.NEXTVAL FROM DUAL CONNECT BY LEVEL <= :entryCount")
+                            .setParameter("entryCount", chunk.size())
+                            .fetchList());
+
+            final Map<String, Object> parameters = new HashMap<>();
+            final StringBuilder query = new StringBuilder(isSqlServer
+                    ? "insert into " + logTable + " (C_TIMESTAMP, " + columns + ") values "
+                    : "insert all");
+
+            for (int row = 0; row < chunk.size(); row++) {
+                final String timestamp;
+                if (timestamps == null) {
+                    timestamp = isSqlServer ? "dbo.ETKF_getServerTime()" : "ETKF_GETSERVERTIME()";
+                } else {
+                    timestamp = ":timestamp_" + row;
+                    parameters.put("timestamp_" + row, new Timestamp(timestamps.get(chunkStart + row)));
+                }
+
+                if (isSqlServer) {
+                    query.append(row == 0 ? "" : ", ");
+                    query.append("(" + timestamp);
+                } else {
+                    query.append(" into " + logTable + " (ID, C_TIMESTAMP, " + columns + ") values (");
+                    query.append(":id_" + row + ", " + timestamp);
+                    parameters.put("id_" + row, ids.get(row));
+                }
+
+                final Object[] values = chunk.get(row);
+                for (int column = 0; column < LOG_COLUMNS.length; column++) {
+                    query.append(", :v" + column + "_" + row);
+                    parameters.put("v" + column + "_" + row, values[column]);
+                }
+                query.append(")");
+            }
+
+            if (!isSqlServer) {
+                query.append(" select * from dual");
+            }
+
+            etk.createSQL(query.toString())
+            .setParameter(parameters)
+            .execute();
+        }
+    }
+}
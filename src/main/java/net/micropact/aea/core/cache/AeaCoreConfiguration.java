@@ -96,6 +96,132 @@ public final class AeaCoreConfiguration{
         return (Long) getCacheValue(etk, AeaCoreConfigurationItem.EU_MINUTES_UNTIL_ABORT_RESENDING_ERRORS);
     }
 
+    /**
+     * Returns the maximum number of emails which the Email Queue will claim and send in a single transaction.
+     *
+     * @param etk entellitrak execution context
+     * @return the maximum number of emails which will be sent in a single transaction.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static long getEuSendEmailsBatchSize(final ExecutionContext etk)
+            throws ApplicationException{
+        return (Long) getCacheValue(etk, AeaCoreConfigurationItem.EU_SEND_EMAILS_BATCH_SIZE);
+    }
+
+    /**
+     * Returns the maximum number of RDO ZIP exports which may be written at the same time.
+     *
+     * @param etk entellitrak execution context
+     * @return the maximum number of RDO ZIP exports which may be written at the same time.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static long getRdoExportMaxConcurrentExports(final ExecutionContext etk)
+            throws ApplicationException{
+        return (Long) getCacheValue(etk, AeaCoreConfigurationItem.DBUTILS_RDO_EXPORT_MAX_CONCURRENT_EXPORTS);
+    }
+
+    /**
+     * Returns the number of ETK_FILE records each RDO ZIP export may read ahead of writing them to the ZIP.
+     *
+     * @param etk entellitrak execution context
+     * @return the number of ETK_FILE records each RDO ZIP export may read ahead of writing them.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static long getRdoExportFilePrefetchConcurrency(final ExecutionContext etk)
+            throws ApplicationException{
+        return (Long) getCacheValue(etk, AeaCoreConfigurationItem.DBUTILS_RDO_EXPORT_FILE_PREFETCH_CONCURRENCY);
+    }
+
+    /**
+     * Returns the spool directories of asynchronous AEA Audit Logs, in addition to the default directory, which the
+     * drain job recovers left behind spool files from.
+     *
+     * @param etk entellitrak execution context
+     * @return the additional spool directories.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static List<String> getAuditLogAsyncSpoolDirectories(final ExecutionContext etk)
+            throws ApplicationException{
+        @SuppressWarnings("unchecked")
+        final List<String> typedValue = (List<String>) getCacheValue(etk,
+                AeaCoreConfigurationItem.AL_ASYNC_SPOOL_DIRECTORIES);
+        return typedValue;
+    }
+
+    /**
+     * Returns the number of ETK_FILE records an RDO import commits at a time. 0 means the files are imported in the
+     * same transaction as the rest of the import.
+     *
+     * @param etk entellitrak execution context
+     * @return the number of ETK_FILE records an RDO import commits at a time.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static long getRdoImportFileCommitBatchSize(final ExecutionContext etk)
+            throws ApplicationException{
+        return (Long) getCacheValue(etk, AeaCoreConfigurationItem.DBUTILS_RDO_IMPORT_FILE_COMMIT_BATCH_SIZE);
+    }
+
+    /**
+     * Returns the number of seconds Live Search keeps the candidates of a lookup in memory.
+     *
+     * @param etk entellitrak execution context
+     * @return the number of seconds Live Search keeps the candidates of a lookup in memory.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static long getLsCandidateCacheTimeToLiveSeconds(final ExecutionContext etk)
+            throws ApplicationException{
+        return (Long) getCacheValue(etk, AeaCoreConfigurationItem.LS_CANDIDATE_CACHE_TIME_TO_LIVE_SECONDS);
+    }
+
+    /**
+     * Returns the maximum number of lookups Live Search keeps the candidates of in memory.
+     *
+     * @param etk entellitrak execution context
+     * @return the maximum number of lookups Live Search keeps the candidates of in memory.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static long getLsCandidateCacheMaxEntries(final ExecutionContext etk)
+            throws ApplicationException{
+        return (Long) getCacheValue(etk, AeaCoreConfigurationItem.LS_CANDIDATE_CACHE_MAX_ENTRIES);
+    }
+
+    /**
+     * Returns the maximum number of rows a lookup may have for Live Search to keep its rows in memory.
+     *
+     * @param etk entellitrak execution context
+     * @return the maximum number of rows a lookup may have for Live Search to keep its rows in memory.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static long getLsCandidateCacheMaxRows(final ExecutionContext etk)
+            throws ApplicationException{
+        return (Long) getCacheValue(etk, AeaCoreConfigurationItem.LS_CANDIDATE_CACHE_MAX_ROWS);
+    }
+
+    /**
+     * Returns the maximum number of large lookups Live Search keeps a trigram index of. 0 means no lookups are indexed.
+     *
+     * @param etk entellitrak execution context
+     * @return the maximum number of large lookups Live Search keeps a trigram index of.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static long getLsTrigramIndexMaxIndexes(final ExecutionContext etk)
+            throws ApplicationException{
+        return (Long) getCacheValue(etk, AeaCoreConfigurationItem.LS_TRIGRAM_INDEX_MAX_INDEXES);
+    }
+
+    /**
+     * Returns the number of seconds after which Live Search rebuilds a trigram index the next time it is used.
+     * 0 means indexes are only rebuilt when they are known to be stale.
+     *
+     * @param etk entellitrak execution context
+     * @return the number of seconds after which Live Search rebuilds a trigram index.
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static long getLsTrigramIndexTimeToLiveSeconds(final ExecutionContext etk)
+            throws ApplicationException{
+        return (Long) getCacheValue(etk, AeaCoreConfigurationItem.LS_TRIGRAM_INDEX_TIME_TO_LIVE_SECONDS);
+    }
+
     /**
      * Returns whether or not Enhanced Inbox is enabled.
      *
@@ -0,0 +1,33 @@
+package net.micropact.aea.core.cache;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.ExecutionContext;
+
+import net.entellitrak.aea.core.cache.AClassKeyCacheable;
+import net.micropact.aea.utility.Utility;
+
+/**
+ * {@link net.entellitrak.aea.core.cache.ICacheable} which stores the id of the tracking configuration which is
+ * currently deployed, so that code which runs on every save does not need to query it. The cache is cleared when
+ * changes are applied.
+ *
+ * @author MicroPact
+ */
+public class CurrentTrackingConfigIdCacheable extends AClassKeyCacheable<Long> {
+
+    private final ExecutionContext etk;
+
+    /**
+     * Constructor.
+     *
+     * @param executionContext entellitrak execution context
+     */
+    public CurrentTrackingConfigIdCacheable(final ExecutionContext executionContext) {
+        etk = executionContext;
+    }
+
+    @Override
+    public Long getValue() throws ApplicationException {
+        return Utility.getTrackingConfigIdCurrent(etk);
+    }
+}
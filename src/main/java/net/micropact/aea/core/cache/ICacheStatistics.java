@@ -0,0 +1,19 @@
+package net.micropact.aea.core.cache;
+
+import java.util.Map;
+
+/**
+ * This interface represents values stored in the entellitrak cache which keep statistics about their own use.
+ * The cache manager page displays these statistics instead of the value itself.
+ *
+ * @author MicroPact
+ */
+public interface ICacheStatistics {
+
+    /**
+     * Get the statistics of the value, such as its size and hit ratio.
+     *
+     * @return the statistics keyed by name
+     */
+    Map<String, Object> getStatistics();
+}
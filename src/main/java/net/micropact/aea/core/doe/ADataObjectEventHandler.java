@@ -16,6 +16,7 @@ public abstract class ADataObjectEventHandler implements DataObjectEventHandler
         try {
             BaseObjectEventHandlerUtility.executeCommonCode(etk);
             executeObject(etk);
+            BaseObjectEventHandlerUtility.executeCommonCodeAfterObject(etk);
         } catch (final Exception e) {
             throw new ApplicationException(e);
         }
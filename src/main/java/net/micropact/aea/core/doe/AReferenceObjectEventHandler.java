@@ -17,6 +17,7 @@ public abstract class AReferenceObjectEventHandler implements ReferenceObjectEve
         try {
             BaseObjectEventHandlerUtility.executeCommonCode(etk);
             executeObject(etk);
+            BaseObjectEventHandlerUtility.executeCommonCodeAfterObject(etk);
         } catch (final Exception e) {
             throw new ApplicationException(e);
         }
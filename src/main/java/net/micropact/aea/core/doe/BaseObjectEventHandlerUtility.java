@@ -4,6 +4,7 @@ import com.entellitrak.ApplicationException;
 import com.entellitrak.BaseObjectEventContext;
 import com.entellitrak.IncorrectResultSizeDataAccessException;
 
+import net.entellitrak.aea.lookup.LiveSearchUtility;
 import net.micropact.aea.core.validation.ValidationUtility;
 
 /**
@@ -31,4 +32,15 @@ public final class BaseObjectEventHandlerUtility {
             throw new ApplicationException(e);
         }
     }
+
+    /**
+     * Executes common code which should fire for all objects after the object-specific code has made its changes.
+     *
+     * @param etk entellitrak execution context
+     * @throws ApplicationException If there is an underlying {@link ApplicationException}
+     */
+    public static void executeCommonCodeAfterObject(final BaseObjectEventContext etk) throws ApplicationException{
+        // Live Search lookups are usually built on reference data
+        LiveSearchUtility.referenceDataChanged(etk);
+    }
 }
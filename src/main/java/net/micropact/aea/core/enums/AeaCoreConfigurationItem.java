@@ -17,6 +17,9 @@ public enum AeaCoreConfigurationItem{
     EU_DAYS_UNTIL_DELETE_EMAILS_FROM_QUEUE("eu.daysUntilDeleteEmailsFromQueue", true, new LongDeserializer(null)),
     EU_MINUTES_UNTIL_ABORT_RESENDING_ERRORS("eu.minutesUntilAbortResendingErrors", true, new LongDeserializer(null)),
     EU_ENABLE_EMAIL("eu.enableEmail", true, new NotZeroDeserializer()),
+    EU_SEND_EMAILS_BATCH_SIZE("eu.sendEmailsBatchSize", true, new LongDeserializer(100L)),
+
+    AL_ASYNC_SPOOL_DIRECTORIES("al.asyncSpoolDirectories", true, new NewlineTrimmedNoBlanksDeserializer()),
 
     AEA_CORE_CACHE_STATIC_CONTENT("aea.core.cacheStaticContent", true, new NotZeroDeserializer()),
     AEA_CORE_WRITE_DEBUG_TO_LOG("writeDebugToLog", true, new TrueDeserializer()),
@@ -26,6 +29,20 @@ public enum AeaCoreConfigurationItem{
             true, new
             NewlineTrimmedNoBlanksDeserializer()),
 
+    DBUTILS_RDO_EXPORT_MAX_CONCURRENT_EXPORTS("dbutils.rdoExport.maxConcurrentExports", true, new LongDeserializer(2L)),
+    DBUTILS_RDO_EXPORT_FILE_PREFETCH_CONCURRENCY("dbutils.rdoExport.filePrefetchConcurrency",
+            true,
+            new LongDeserializer(4L)),
+    DBUTILS_RDO_IMPORT_FILE_COMMIT_BATCH_SIZE("dbutils.rdoImport.fileCommitBatchSize",
+            true,
+            new LongDeserializer(0L)),
+
+    LS_CANDIDATE_CACHE_TIME_TO_LIVE_SECONDS("ls.candidateCacheTimeToLiveSeconds", true, new LongDeserializer(60L)),
+    LS_CANDIDATE_CACHE_MAX_ENTRIES("ls.candidateCacheMaxEntries", true, new LongDeserializer(500L)),
+    LS_CANDIDATE_CACHE_MAX_ROWS("ls.candidateCacheMaxRows", true, new LongDeserializer(2000L)),
+    LS_TRIGRAM_INDEX_MAX_INDEXES("ls.trigramIndexMaxIndexes", true, new LongDeserializer(0L)),
+    LS_TRIGRAM_INDEX_TIME_TO_LIVE_SECONDS("ls.trigramIndexTimeToLiveSeconds", true, new LongDeserializer(900L)),
+
     DASHBOARD_TOOLS_ENHANCED_INBOX_ENABLED("dt.enhancedInboxEnabled", true, new TrueDeserializer()),
     DASHBOARD_TOOLS_SWB_ENABLED("dt.systemWideBroadcastEnabled", true, new TrueDeserializer()),
     DASHBOARD_TOOLS_CALENDAR_ENABLED("dt.calendarEnabled", true, new TrueDeserializer()),
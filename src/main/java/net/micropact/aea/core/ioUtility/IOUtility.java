@@ -4,6 +4,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import com.entellitrak.ExecutionContext;
 
@@ -77,4 +79,31 @@ public final class IOUtility {
     public static void copy(final InputStream inputStream, final OutputStream outputStream) throws IOException{
         IOUtilsWrapper.copy(inputStream, outputStream);
     }
+
+    /**
+     * Writes an {@link InputStream} of any size to an {@link OutputStream}, returning the number of bytes written.
+     *
+     * @param inputStream stream to read from
+     * @param outputStream stream to write to
+     * @return the number of bytes copied
+     * @throws IOException If there was an underlying {@link IOException}
+     */
+    public static long copyLarge(final InputStream inputStream, final OutputStream outputStream) throws IOException{
+        return IOUtilsWrapper.copyLarge(inputStream, outputStream);
+    }
+
+    /**
+     * Deletes a file, swallowing any exceptions which occur.
+     *
+     * @param path the file to be deleted, may be null
+     */
+    public static void deleteQuietly(final Path path){
+        if(path != null){
+            try{
+                Files.deleteIfExists(path);
+            }catch(final IOException e){
+                /* Deleting quietly means not throwing a new exception here */
+            }
+        }
+    }
 }
@@ -88,6 +88,7 @@ public class DeploymentService implements IDeploymentService {
         configureDbUtils(etk, deploymentResult);
         configureAeaCoreConfiguration(etk, deploymentResult);
         configureAeaAuditLog(etk, deploymentResult);
+        configureEmailUtility(etk, deploymentResult);
         configureDashboardTools(etk, deploymentResult);
     }
 
@@ -854,7 +855,17 @@ public class DeploymentService implements IDeploymentService {
             {"eu.daysUntilDeleteEmailsFromQueue", "7", "Email Utility - This is the Number of days that an item needs to be in the \"EU Email Queue\" list (by \"Created Time\") before it will be deleted from the system.\r\n\r\nIf you leave it blank, items will never be deleted."},
             {"eu.enableEmail", "1", "Email Utility - If this value is set to 1, then emails are enabled and will be sent to the email server normally. If this value is set to 0, then emails will not be sent to the email server. \r\n\r\nEmails in EU Email Queue will still change their status to sent, however they will not be sent to the Email Server."},
             {"eu.minutesUntilAbortResendingErrors", "20", "Email Utility - The Email Utility will try to resend emails which have encountered an error automatically, however this is a not good if the problem emails are never corrected. This value puts a limit on how long ago an email must have been created before the Email Queue will stop trying to send it.\r\n\r\nIf this value is blank, the system will never give up trying to resend emails."},
-            {"dbutils.rdoExport.rdoExportMaxLines", "1000", "Defines the ideal maximum total size (in number of lines) of the database_inserts_X.sql inside of the rdo_export_XXX.zip. If the header / footer / errors exceed the limit, 1 statement will be included per file. A value of 0 will print all statements in a single file reguardless of size. A size of 1 is recommended for debugging."}
+            {"eu.sendEmailsBatchSize", "100", "Email Utility - The maximum number of emails the Email Queue will claim and send at a time. The status of each batch is committed before the next batch is claimed, so smaller values hold database locks for less time. Emails are handed to the email server before their status is committed, so if that commit fails the emails of the batch are sent again by the next run.\r\n\r\nIf this value is blank, 100 will be used."},
+            {"dbutils.rdoExport.rdoExportMaxLines", "1000", "Defines the ideal maximum total size (in number of lines) of the database_inserts_X.sql inside of the rdo_export_XXX.zip. If the header / footer / errors exceed the limit, 1 statement will be included per file. A value of 0 will print all statements in a single file reguardless of size. A size of 1 is recommended for debugging."},
+            {"dbutils.rdoExport.maxConcurrentExports", "2", "The maximum number of RDO ZIP exports which may be written at the same time. Additional exports will fail until one of the running exports finishes.\r\n\r\nIf this value is blank, 2 will be used."},
+            {"dbutils.rdoExport.filePrefetchConcurrency", "4", "The number of ETK_FILE records each RDO ZIP export may read ahead while earlier files are being written to the ZIP. Files are read one at a time and written by a single background thread.\r\n\r\nIf this value is blank, 4 will be used."},
+            {"dbutils.rdoImport.fileCommitBatchSize", "0", "The number of files attached to RDO records which an RDO import commits at a time. A value of 0 imports all of the files in the same transaction as the rest of the import. Any other value commits the files in batches of that size, so a failed import can leave behind the files which were already committed.\r\n\r\nIf this value is blank, 0 will be used."},
+            {"al.asyncSpoolDirectories", "", "AEA Audit Log - The spool directories of asynchronous audit logs which do not use the default directory (aeaAuditLogSpool within java.io.tmpdir), one per line. The Drain Audit Log Spool job writes the entries of spool files which were left behind in these directories and in the default directory when an application server stopped."},
+            {"ls.candidateCacheTimeToLiveSeconds", "60", "The number of seconds Live Search keeps the results of a lookup in memory so that each keystroke does not need to query the database. This is the longest time that changes to reference data take to show up in Live Search: saving a record of an AEA reference data object clears the results right away, but other reference data only does so if its event handler calls net.entellitrak.aea.lookup.LiveSearchUtility.referenceDataChanged. A value of 0 disables the cache.\r\n\r\nIf this value is blank, 60 will be used."},
+            {"ls.candidateCacheMaxEntries", "500", "The maximum number of lookups which Live Search keeps the results of in memory. Records and users share the results of a lookup unless its query uses the record or the user. A value of 0 disables the cache.\r\n\r\nIf this value is blank, 500 will be used."},
+            {"ls.candidateCacheMaxRows", "2000", "The maximum number of rows a lookup may return for Live Search to keep all of its rows in memory. Larger lookups are still searched in the database.\r\n\r\nIf this value is blank, 2000 will be used."},
+            {"ls.trigramIndexMaxIndexes", "0", "The maximum number of lookups which are too large for ls.candidateCacheMaxRows that Live Search keeps an in-memory trigram index of. An index is built the first time its lookup is searched and is rebuilt once it is older than ls.trigramIndexTimeToLiveSeconds or by the Rebuild Live Search Indexes job. Saving a record of an AEA reference data object updates the indexes right away; other reference data only does so if its event handler calls net.entellitrak.aea.lookup.LiveSearchUtility.referenceDataChanged. A value of 0 searches large lookups in the database.\r\n\r\nIf this value is blank, 0 will be used."},
+            {"ls.trigramIndexTimeToLiveSeconds", "900", "The number of seconds after which a Live Search trigram index is rebuilt the next time its lookup is searched. This is the longest time that changes to reference data which are not applied to the indexes as they are saved take to show up. A value of 0 only rebuilds indexes when they are known to be stale or by the Rebuild Live Search Indexes job.\r\n\r\nIf this value is blank, 900 will be used."}
         };
         String newResult = NEWLINE;
 
@@ -1140,6 +1151,55 @@ public class DeploymentService implements IDeploymentService {
         }
     }
 
+    /**
+     * Configure the Email Utility component.
+     *
+     * @param etk entellitrak execution context
+     * @param deploymentResult deployment result
+     */
+    private static void configureEmailUtility(final ExecutionContext etk, final DeploymentResult deploymentResult) {
+        try {
+            //This will blow up if the table doesnt exist.
+            etk.createSQL("select count(*) from t_eu_queue_attachment").fetchString();
+
+            final List<Map<String, Object>> existingIndexes;
+
+            if (Utility.isSqlServer(etk)) {
+                existingIndexes =
+                        etk.createSQL( " select si.name as INDEX_NAME " +
+                                " from sys.indexes si " +
+                                " JOIN sys.objects so ON si.object_id = so.object_id " +
+                                " where si.name like 'AEA_%' " +
+                                " and so.name = 'T_EU_QUEUE_ATTACHMENT' "
+                                ).returnEmptyResultSetAs(new ArrayList<Map<String, Object>>())
+                        .fetchList();
+            } else {
+                existingIndexes =
+                        etk.createSQL( "select INDEX_NAME from all_indexes "
+                                + "where table_name = 'T_EU_QUEUE_ATTACHMENT' and INDEX_NAME LIKE ('AEA_%')"
+                                ).returnEmptyResultSetAs(new ArrayList<Map<String, Object>>())
+                        .fetchList();
+            }
+
+            final HashMap<String, String> indexMap = new HashMap<>();
+
+            for (final Map<String, Object> anIndex : existingIndexes) {
+                indexMap.put((String) anIndex.get("INDEX_NAME"), null);
+
+                deploymentResult.addMessage(String.format("Index T_EU_QUEUE_ATTACHMENT. %s already exists, skipping.",
+                        anIndex.get("INDEX_NAME")));
+            }
+
+            // Queued attachments are de-duplicated by content hash, see EmailQueue.queueAttachment
+            if (!indexMap.containsKey("AEA_EU_QA_C_CONTENT_HASH")) {
+                etk.createSQL("CREATE INDEX AEA_EU_QA_C_CONTENT_HASH ON T_EU_QUEUE_ATTACHMENT (C_CONTENT_HASH)").execute();
+                deploymentResult.addMessage("Created new index T_EU_QUEUE_ATTACHMENT.AEA_EU_QA_C_CONTENT_HASH");
+            }
+        } catch (final Exception e) {
+            deploymentResult.addMessage("Error configuring T_EU_QUEUE_ATTACHMENT - ignore if Email Utility component is not installed.");
+        }
+    }
+
     /**
      * Configure the Dashboard Tools component.
      *
@@ -39,4 +39,16 @@ public final class IOUtilsWrapper {
     public static void copy(final InputStream inputStream, final OutputStream outputStream) throws IOException{
         IOUtils.copy(inputStream, outputStream);
     }
+
+    /**
+     * Writes an {@link InputStream} of any size to an {@link OutputStream}.
+     *
+     * @param inputStream stream to read from
+     * @param outputStream stream to write to
+     * @return the number of bytes copied
+     * @throws IOException If there was an underlying {@link IOException}
+     */
+    public static long copyLarge(final InputStream inputStream, final OutputStream outputStream) throws IOException{
+        return IOUtils.copyLarge(inputStream, outputStream);
+    }
 }
@@ -0,0 +1,82 @@
+package net.micropact.aea.dbUtils.service;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.entellitrak.ApplicationException;
+
+/**
+ * <p>
+ *  The threads which write RDO ZIP exports in the background. Previously every export started its own thread, so
+ *  there was no limit on the number of exports being written at once.
+ * </p>
+ * <p>
+ *  Exports are not queued: if the maximum number of exports are already being written, the new export fails
+ *  immediately instead of leaving the user waiting for a download which has not started.
+ * </p>
+ *
+ * @author MicroPact
+ */
+final class RdoExportExecutor {
+
+    /** How long an idle thread is kept before it is stopped. */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(1,
+            1,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger();
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "aea-rdo-export-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Utility classes do not need public constructors.
+     */
+    private RdoExportExecutor() {}
+
+    /**
+     * Start writing an export in the background.
+     *
+     * @param maxConcurrentExports the maximum number of exports which may be written at the same time
+     * @param export writes the export
+     * @return the background task
+     * @throws ApplicationException If the maximum number of exports are already being written
+     */
+    static synchronized Future<?> submit(final int maxConcurrentExports, final Runnable export)
+            throws ApplicationException {
+        final int poolSize = Math.max(1, maxConcurrentExports);
+
+        if (poolSize > EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setMaximumPoolSize(poolSize);
+            EXECUTOR.setCorePoolSize(poolSize);
+        } else if (poolSize < EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setCorePoolSize(poolSize);
+            EXECUTOR.setMaximumPoolSize(poolSize);
+        }
+
+        try {
+            return EXECUTOR.submit(export);
+        } catch (final RejectedExecutionException e) {
+            throw new ApplicationException(String.format("%s RDO exports are already being written. "
+                    + "Please try again once one of them has finished.", poolSize), e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package net.micropact.aea.dbUtils.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.entellitrak.ExecutionContext;
+
+import net.micropact.aea.core.ioUtility.IOUtility;
+
+/**
+ * <p>
+ *  Writes the content of ETK_FILE records to an RDO export ZIP on a background thread so that the export thread can
+ *  read the following files while earlier ones are being compressed.
+ * </p>
+ * <p>
+ *  The content is always read on the thread which calls {@link #read(ExecutionContext, long)} because the
+ *  {@link ExecutionContext} must not be used by several threads. Writes are run one at a time in the order they were
+ *  submitted, and at most a fixed number of files wait to be written, so the disk space used is bounded regardless of
+ *  how many files are exported.
+ * </p>
+ *
+ * @author MicroPact
+ */
+class RdoExportFileWriter implements Closeable {
+
+    /** How long to wait for a write which is in progress to stop when the writer is closed. */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final int maxPendingWrites;
+    private final ExecutorService executor;
+    private final Path directory;
+    private final Deque<Future<?>> pendingWrites = new ArrayDeque<>();
+
+    private int filesRead;
+
+    /**
+     * Constructor.
+     *
+     * @param theMaxPendingWrites the number of files which may have been read but not yet written
+     * @throws IOException If the temporary directory could not be created
+     */
+    RdoExportFileWriter(final int theMaxPendingWrites) throws IOException {
+        maxPendingWrites = Math.max(1, theMaxPendingWrites);
+        directory = Files.createTempDirectory("rdoExportFiles");
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Read the content of a file into a temporary file.
+     *
+     * @param etk entellitrak execution context
+     * @param fileId the id of the ETK_FILE record
+     * @return a temporary file containing the content
+     * @throws IOException If the content could not be read
+     */
+    public Path read(final ExecutionContext etk, final long fileId) throws IOException {
+        final Path file = directory.resolve(filesRead++ + ".dat");
+
+        InputStream content = null;
+        try {
+            content = etk.getFileService().get(fileId).getContent();
+            Files.copy(content, file);
+            return file;
+        } finally {
+            IOUtility.closeQuietly(content);
+        }
+    }
+
+    /**
+     * Write a file which was returned by {@link #read(ExecutionContext, long)} on the background thread. The temporary
+     * file is deleted once it has been written. Blocks while the maximum number of files are waiting to be written.
+     *
+     * @param content the temporary file
+     * @param write writes the content to the ZIP
+     * @throws IOException If an earlier write failed
+     * @throws InterruptedException If the thread was interrupted while waiting for an earlier write
+     */
+    public void write(final Path content, final FileWrite write) throws IOException, InterruptedException {
+        while (pendingWrites.size() >= maxPendingWrites) {
+            await(pendingWrites.removeFirst());
+        }
+
+        pendingWrites.addLast(executor.submit(() -> {
+            try {
+                write.write(content);
+                return null;
+            } finally {
+                IOUtility.deleteQuietly(content);
+            }
+        }));
+    }
+
+    /**
+     * Wait for all of the files to be written.
+     *
+     * @throws IOException If a write failed
+     * @throws InterruptedException If the thread was interrupted while waiting
+     */
+    public void finish() throws IOException, InterruptedException {
+        while (!pendingWrites.isEmpty()) {
+            await(pendingWrites.removeFirst());
+        }
+    }
+
+    @Override
+    public void close() {
+        for (final Future<?> pendingWrite : pendingWrites) {
+            pendingWrite.cancel(true);
+        }
+        executor.shutdownNow();
+
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(IOUtility::deleteQuietly);
+        } catch (final IOException e) {
+            // Nothing can be done, the files will be left in the temporary directory.
+        }
+        IOUtility.deleteQuietly(directory);
+    }
+
+    /**
+     * Wait for a write to complete.
+     *
+     * @param pendingWrite the write
+     * @throws IOException If the write failed
+     * @throws InterruptedException If the thread was interrupted while waiting
+     */
+    private static void await(final Future<?> pendingWrite) throws IOException, InterruptedException {
+        try {
+            pendingWrite.get();
+        } catch (final ExecutionException e) {
+            throw new IOException("Error writing ETK_FILE content", e.getCause());
+        }
+    }
+
+    /**
+     * Writes the content of a single file to the ZIP.
+     *
+     * @author MicroPact
+     */
+    @FunctionalInterface
+    interface FileWrite {
+
+        /**
+         * Write the content.
+         *
+         * @param content a temporary file containing the content
+         * @throws Exception If the content could not be written
+         */
+        void write(Path content) throws Exception;
+    }
+}
@@ -0,0 +1,67 @@
+package net.micropact.aea.dbUtils.service;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+
+/**
+ * The stream which an RDO ZIP export is read from while it is being written in the background.
+ * Unlike a plain {@link PipedInputStream}, a reader reaching the end of the stream receives an {@link IOException}
+ * if the export failed or was cancelled instead of silently receiving a truncated ZIP. Closing the stream before the
+ * export is complete cancels it.
+ *
+ * @author MicroPact
+ */
+public class RdoExportInputStream extends PipedInputStream {
+
+    private final RdoExportProgress progress;
+
+    /**
+     * Constructor.
+     *
+     * @param theProgress the progress of the export which writes to this stream
+     */
+    RdoExportInputStream(final RdoExportProgress theProgress) {
+        progress = theProgress;
+    }
+
+    /**
+     * Get the progress of the export.
+     *
+     * @return the progress of the export
+     */
+    public RdoExportProgress getProgress() {
+        return progress;
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+        return checkEnd(super.read());
+    }
+
+    @Override
+    public synchronized int read(final byte[] b, final int off, final int len) throws IOException {
+        return checkEnd(super.read(b, off, len));
+    }
+
+    @Override
+    public void close() throws IOException {
+        progress.cancel();
+        super.close();
+    }
+
+    /**
+     * Throw an exception when the end of the stream is reached if the export did not complete successfully.
+     *
+     * @param result the result of reading from the pipe
+     * @return the result of reading from the pipe
+     * @throws IOException If the end of the stream was reached and the export did not complete
+     */
+    private int checkEnd(final int result) throws IOException {
+        if (result == -1 && !progress.isComplete()) {
+            throw new IOException(progress.isCancelled() ? "RDO export was cancelled" : "RDO export failed",
+                    progress.getFailure());
+        }
+
+        return result;
+    }
+}
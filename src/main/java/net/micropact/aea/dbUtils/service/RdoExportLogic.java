@@ -11,15 +11,16 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -30,6 +31,7 @@ import com.entellitrak.IncorrectResultSizeDataAccessException;
 import com.entellitrak.legacy.util.StringUtility;
 import com.entellitrak.platform.DatabasePlatform;
 
+import net.micropact.aea.core.cache.AeaCoreConfiguration;
 import net.micropact.aea.core.ioUtility.Base64;
 import net.micropact.aea.core.ioUtility.Hex;
 import net.micropact.aea.core.ioUtility.IOUtility;
@@ -52,12 +54,13 @@ import net.micropact.aea.utility.lookup.LookupDataUtility;
  */
 public class RdoExportLogic {
 	private static final String NEWLINE_CHAR = "\n";
-	private static final String STATEMENT_SEPERATOR_UUID = UUID.randomUUID().toString();
-	private static final String STATEMENT_SEPERATOR =
-			NEWLINE_CHAR + STATEMENT_SEPERATOR_UUID + NEWLINE_CHAR;
+	/** The line which separates statements in exported SQL. Used by {@link RdoImportSqlExecutor} to split files. */
+	static final String STATEMENT_SEPERATOR_LINE = "-----------------------------------------------";
 	private static final String PRINTED_STATEMENT_SEPERATOR =
-			NEWLINE_CHAR + "-----------------------------------------------" + NEWLINE_CHAR;
+			NEWLINE_CHAR + STATEMENT_SEPERATOR_LINE + NEWLINE_CHAR;
 	private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+	/** Number of rows of a reference data table which are read from the database at a time. */
+	private static final int ROW_FETCH_SIZE = 500;
 	private final ExecutionContext etk;
 
     private final DatabasePlatform databasePlatform;
@@ -67,6 +70,9 @@ public class RdoExportLogic {
     private Map <Long, String> fullyQualifiedScriptNames = new HashMap<Long, String>();
     private final StringBuilder errorMessages = new StringBuilder();
     private List<Number> filesToTransfer = new ArrayList<Number>();
+    private int fileCounter = 0;
+    private RdoExportProgress exportProgress;
+    private RdoLookupTranslationCache lookupTranslationCache = new RdoLookupTranslationCache();
 
 
     /**
@@ -91,19 +97,18 @@ public class RdoExportLogic {
      * Helper method to return files attached to RDOs in ZIP file along with the SQL to perform the export.
      * Main method to generate a "2-part" export bundle.
      *
-     * @param sqlRdoExportData SQL containing RDO data records to insert into target system.
+     * @param sqlSpool SQL containing RDO data records to insert into target system. Deleted once it has been written.
+     * @param sqlHeader The header of each SQL file.
      *
-     * @return ZIP file containing all files attached to RDOs, SQL and instructions in ZIP file.
+     * @return ZIP file containing all files attached to RDOs, SQL and instructions in ZIP file. Reading it throws an
+     * {@link IOException} if the ZIP could not be completely written.
      *
      * @throws IOException Unexpected IOException.
      * @throws ApplicationException Unexpected ApplicationException.
      */
-    private InputStream handleSeperateFileExport (final List<String> sqlRdoExportData)
+    private InputStream handleSeperateFileExport (final RdoExportSqlSpool sqlSpool, final String sqlHeader)
     		throws IOException, ApplicationException {
-        final PipedInputStream inputStream = new PipedInputStream();
         final ExecutionContext localEtk = etk;
-        final PipedOutputStream pos = new PipedOutputStream(inputStream);
-        final ZipOutputStream outputStream = new ZipOutputStream(pos);
 
         List<Map<String, Object>> allFiles = new ArrayList<Map<String, Object>>();
 
@@ -122,16 +127,34 @@ public class RdoExportLogic {
                         .fetchList();
             } catch (DataAccessException e) {
                 Utility.aeaLog(localEtk, e);
+                sqlSpool.delete();
                 throw new ApplicationException("Error retrieving metadata from etk_file", e);
             }
         }
 
         final List<Map<String, Object>> allFilesNM = allFiles;
 
-        new Thread(new Runnable(){
+        final int maxConcurrentExports;
+        final int filePrefetchConcurrency;
+        try {
+            maxConcurrentExports = (int) AeaCoreConfiguration.getRdoExportMaxConcurrentExports(localEtk);
+            filePrefetchConcurrency = (int) AeaCoreConfiguration.getRdoExportFilePrefetchConcurrency(localEtk);
+        } catch (ApplicationException e) {
+            sqlSpool.delete();
+            throw e;
+        }
+
+        final RdoExportProgress progress = new RdoExportProgress(allFilesNM.size());
+        final RdoExportInputStream inputStream = new RdoExportInputStream(progress);
+        final PipedOutputStream pos = new PipedOutputStream(inputStream);
+        final ZipOutputStream outputStream = new ZipOutputStream(pos);
+
+        final Runnable export = new Runnable(){
 
             @Override
             public void run() {
+                RdoExportFileWriter fileWriter = null;
+
                 try {
                     outputStream.putNextEntry(new ZipEntry("README.txt"));
                     outputStream.write(("To perform RDO data import, perform the following steps.\n\n"
@@ -157,11 +180,7 @@ public class RdoExportLogic {
                     		).getBytes());
                     outputStream.closeEntry();
 
-                    for (int i = 0; i < sqlRdoExportData.size(); i++) {
-	                    outputStream.putNextEntry(new ZipEntry("database_inserts_" + i + ".sql"));
-	                    outputStream.write(sqlRdoExportData.get(i).getBytes());
-	                    outputStream.closeEntry();
-                    }
+                    sqlSpool.writeEntries(outputStream, sqlHeader, printSQLFooter(false), printSQLFooter(true));
 
                     if (allFilesNM.size() > 0) {
                         outputStream.putNextEntry(new ZipEntry("ETK_FILE_DATA.zip"));
@@ -169,20 +188,17 @@ public class RdoExportLogic {
                         final ZipOutputStream etkFilesZip = new ZipOutputStream(outputStream);
 
 
-                        String fileName = "";
-                        Long fileId = null;
+                        //Compress each file while the following one is being read.
+                        fileWriter = new RdoExportFileWriter(filePrefetchConcurrency);
 
                         for (Map<String, Object> aFile : allFilesNM) {
 
-                            InputStream etkFileStream = null;
-
-                            try{
-
-                                fileName = (String) aFile.get("FILE_NAME");
-                                fileId = ((Number) aFile.get("ID")).longValue();
+                            final String fileName = (String) aFile.get("FILE_NAME");
+                            final Long fileId = ((Number) aFile.get("ID")).longValue();
 
-                                etkFileStream = etk.getFileService().get(fileId).getContent();
+                            final Path etkFileContent = fileWriter.read(localEtk, fileId);
 
+                            fileWriter.write(etkFileContent, content -> {
                                 etkFilesZip.putNextEntry(new ZipEntry(fileId + "_(" + fileName + ").zip"));
 
                                 final ZipOutputStream fileDataZip = new ZipOutputStream(etkFilesZip);
@@ -192,16 +208,18 @@ public class RdoExportLogic {
                                 fileDataZip.closeEntry();
 
                                 fileDataZip.putNextEntry(new ZipEntry(fileName));
-                                IOUtility.copy(etkFileStream, fileDataZip);
+                                Files.copy(content, fileDataZip);
                                 fileDataZip.closeEntry();
                                 fileDataZip.finish();
 
                                 etkFilesZip.closeEntry();
-                            }finally{
-                                IOUtility.closeQuietly(etkFileStream);
-                            }
+
+                                progress.fileExported();
+                            });
                         }
 
+                        fileWriter.finish();
+
                         etkFilesZip.finish();
                         outputStream.closeEntry();
                     } else {
@@ -212,18 +230,41 @@ public class RdoExportLogic {
 
                     outputStream.finish();
                     outputStream.flush();
+
+                    //The reader must see that the export is complete before it sees the end of the stream.
+                    progress.completed();
+
                     outputStream.close();
 
                     pos.flush();
                     pos.close();
                 } catch (Exception e) {
+                	progress.failed(e);
+
+                	//Stop any write which is in progress before the streams are closed.
+                	IOUtility.closeQuietly(fileWriter);
                 	IOUtility.closeQuietly(outputStream);
                 	IOUtility.closeQuietly(pos);
 
-                    Utility.aeaLog(localEtk, e);
+                	if (!progress.isCancelled()) {
+                		Utility.aeaLog(localEtk, e);
+                	}
+                } finally {
+                	IOUtility.closeQuietly(fileWriter);
+                	sqlSpool.delete();
                 }
             }
-        }).start();
+        };
+
+        try {
+            progress.setFuture(RdoExportExecutor.submit(maxConcurrentExports, export));
+        } catch (ApplicationException e) {
+            IOUtility.closeQuietly(pos);
+            sqlSpool.delete();
+            throw e;
+        }
+
+        exportProgress = progress;
 
         return inputStream;
     }
@@ -326,6 +367,125 @@ public class RdoExportLogic {
     }
 
 
+    /**
+     * Returns the UID columns of the row of a reference data table which a lookup value refers to. The value is
+     * translated using the lookup translation cache when possible, otherwise the row is queried.
+     *
+     * @param lookupTable The reference data table.
+     * @param rDataValueColumn The name of the column in the r-data table which the lookup value refers to.
+     * @param rawValue The lookup value.
+     *
+     * @return The UID columns of the row of the r-data table.
+     */
+    private Map<String, Object> getLookupTableRow (final RdoLookupTranslationCache.LookupTable lookupTable,
+            final String rDataValueColumn,
+            final Object rawValue) {
+        final Map<String, Object> uidValues =
+                lookupTranslationCache.getUidValues(etk, lookupTable, rDataValueColumn, rawValue);
+
+        if (uidValues != null) {
+            return uidValues;
+        }
+
+        return getLookupTableRow(lookupTable.getTableName(),
+                rDataValueColumn,
+                rawValue,
+                lookupTable.getAdditionalFilterCriteria());
+    }
+
+    /**
+     * Returns the reference data table and value column which a lookup definition points to.
+     * These are only determined once per lookup definition per export.
+     *
+     * @param lookupDef The lookup definition.
+     * @return The R_DATA_TABLE and R_DATA_VALUE_COLUMN of the lookup.
+     * @throws ClassNotFoundException If there is an underlying {@link ClassNotFoundException}
+     * @throws IllegalAccessException If there is an underlying {@link IllegalAccessException}
+     * @throws InstantiationException If there is an underlying {@link InstantiationException}
+     * @throws ApplicationException If a problem is encountered
+     */
+    private Map<String, String> getLookupTarget (final AeaEtkLookupDefinition lookupDef)
+            throws ApplicationException, InstantiationException, IllegalAccessException, ClassNotFoundException {
+        final String lookupKey = lookupDef.getBusiness_key();
+
+        Map<String, String> rDataTableAndValueColumn =
+                lookupKey == null ? null : lookupTranslationCache.getLookupTarget(lookupKey);
+
+        if (rDataTableAndValueColumn == null) {
+            rDataTableAndValueColumn =
+                    RdoDataExportUtility.getRDataTableAndValueColumn (fullyQualifiedScriptNames, etk, lookupDef);
+
+            if (lookupKey != null) {
+                lookupTranslationCache.putLookupTarget(lookupKey, rDataTableAndValueColumn);
+            }
+        }
+
+        return rDataTableAndValueColumn;
+    }
+
+    /**
+     * Returns the additional filter criteria and UID columns of a reference data table which is used by a lookup.
+     * If no UID columns are configured in T_AEA_RDO_DATA_EXPORT_CONFIG, C_CODE is used if the table has it.
+     * These are only determined once per table per export.
+     *
+     * @param rDataTableName The name of the reference data table.
+     * @return The reference data table. It has no UID columns if neither are available.
+     */
+    private RdoLookupTranslationCache.LookupTable getLookupTable (final String rDataTableName) {
+        RdoLookupTranslationCache.LookupTable lookupTable = lookupTranslationCache.getLookupTable(rDataTableName);
+
+        if (lookupTable == null) {
+            //Determine if there is a filter for this R-Data data set in RDO Table
+            //"AEA RDO Data Export Config". This is necessary for things like ETK_DATA_OBJECT
+            //where you need to filter by max(trackingConfigId)
+            final String additonalFilterCriteria = getAdditionalFilterCriteria(rDataTableName);
+
+            //Determine if there is a set of UID columns for this R-Data data set in RDO Table
+            //"AEA RDO Data Export Config". This is necessary for things like ETK_DATA_OBJECT
+            //where you need to get values by BUSINESS_KEY, not by C_CODE.
+            final List<Map<String, Object>> lookupTableUIDColumns = getLookupTableUIDColumns
+                    (rDataTableName);
+
+            //Try and see if there were any configured values for this lookup in
+            //AEA RDO Data Export Config. If not, see if the c_code column exists in the
+            //table.
+            if (lookupTableUIDColumns.size() == 0) {
+                try {
+                    if (Utility.isSqlServer(etk)) {
+                        etk.createSQL("select top 1 c_code from " +
+                                rDataTableName)
+                                .returnEmptyResultSetAs(null)
+                                .fetchObject();
+                    } else {
+                        etk.createSQL("select c_code from " +
+                                rDataTableName +
+                                " where rownum < 2")
+                                .returnEmptyResultSetAs(null)
+                                .fetchObject();
+                    }
+
+                    final HashMap<String, Object> tmpMap = new HashMap<String, Object>();
+                    tmpMap.put("COLUMN_NAME", "C_CODE");
+                    lookupTableUIDColumns.add(tmpMap);
+
+                } catch (final Exception e) {
+                    if (writeDebug) {
+                        Utility.aeaLog(etk, currentlyExportingRdo + " - Table " + rDataTableName
+                                + " does not have a C_CODE column or a configured value in "
+                                + " AEA RDO Data Export Config.", e);
+                    }
+                }
+            }
+
+            lookupTable = new RdoLookupTranslationCache.LookupTable(rDataTableName,
+                    additonalFilterCriteria,
+                    lookupTableUIDColumns);
+            lookupTranslationCache.putLookupTable(lookupTable);
+        }
+
+        return lookupTable;
+    }
+
     /**
      * Attempts to find any user defined "UID" columns for the table (the equivilant of C_CODE). This is necessary
      * for tables that are used in lookups but do not have C_CODE columns (ex.. etk tables). Stored in
@@ -393,9 +553,28 @@ public class RdoExportLogic {
      * @throws ApplicationException Unexpected exception.
      */
     public String exportToSqlOneStage(Map<String, Integer> tableExportList) throws ApplicationException {
-    	List<String> sqlScript = buildSql(tableExportList, true, 0);
+        final StringBuilder insertData = new StringBuilder();
+        final StringBuilder variableDeclares = getInitialVariableDeclares();
+        final StringBuilder variableInits = new StringBuilder();
+
+        //The files embedded in a one stage export are declared in the header, so the whole script is built in memory.
+        exportStatements(tableExportList, true, variableDeclares, variableInits, new RdoExportStatementWriter() {
+
+            @Override
+            public void writeText(final String text) {
+                insertData.append(text);
+            }
+
+            @Override
+            public void writeStatement(final String statement) {
+                insertData.append(statement);
+                insertData.append(PRINTED_STATEMENT_SEPERATOR);
+            }
+        });
 
-    	return sqlScript.get(0);
+        return printSQLHeader(getEscapedErrors(), variableDeclares.toString(), variableInits.toString())
+                + insertData
+                + printSQLFooter(true);
     }
 
 	/**
@@ -417,11 +596,38 @@ public class RdoExportLogic {
 	public InputStream exportToZipTwoStage(Map<String, Integer> tableExportList, int maxFileLength)
 			throws ApplicationException, IOException {
 
-		List<String> sqlScript = buildSql(tableExportList, false, maxFileLength);
+		final StringBuilder variableDeclares = getInitialVariableDeclares();
+		final StringBuilder variableInits = new StringBuilder();
 
-		return handleSeperateFileExport(sqlScript);
+		//Files are exported separately in a ZIP, so the header does not depend on the rows which are exported.
+		final int headerLength = getLineCount(printSQLHeader("", variableDeclares.toString(), variableInits.toString()));
+		final int footerLength = getLineCount(printSQLFooter(true));
+		final int insertSplitSize = maxFileLength == 0 ? 0 : Math.max(1, maxFileLength - (headerLength + footerLength));
+
+		final RdoExportSqlSpool sqlSpool = new RdoExportSqlSpool(PRINTED_STATEMENT_SEPERATOR, insertSplitSize);
+
+		try {
+			exportStatements(tableExportList, false, variableDeclares, variableInits, sqlSpool);
+			sqlSpool.finish();
+		} catch (final ApplicationException | IOException | RuntimeException e) {
+			sqlSpool.delete();
+			throw e;
+		}
+
+		return handleSeperateFileExport(sqlSpool,
+				printSQLHeader(getEscapedErrors(), variableDeclares.toString(), variableInits.toString()));
 	}
 
+    /**
+     * Returns the progress of the last ZIP export, which continues to be written in the background after
+     * {@link #exportToZipTwoStage(Map, int)} returns. It can also be used to cancel the export.
+     *
+     * @return The progress of the last ZIP export, or null if no ZIP export has been started.
+     */
+    public RdoExportProgress getExportProgress() {
+        return exportProgress;
+    }
+
     /**
      * Returns a Map of table names and orders to export.
      *
@@ -517,20 +723,22 @@ public class RdoExportLogic {
 
     /**
      * This is the main monster method that actually performs the RDO export logic. Takes a list of
-     * all ETK data objects in the system and returns a String of PLSQL that gets written to an SQL file to perform
-     * the data inserts.
+     * all ETK data objects in the system and hands the PLSQL for each exported row to a statement writer as it is
+     * generated. Rows are read one page at a time so that large tables are never held in memory all at once.
      *
      * @param tableAndExportOrder Tables (and corresponding order of) to export.
      * @param exportAsSql Whether to export as SQL (true) or ZIP (false).
-     * @param maxSqlFileLength The maximum length of the output SQL file.
-     * @return PLSQL to insert RDO data into target environment.
+     * @param variableDeclares Variable declarations which must be written to the header of the SQL.
+     * @param variableInits Variable initializations which must be written to the header of the SQL.
+     * @param statementWriter Receives the PLSQL to insert RDO data into target environment.
      * @throws ApplicationException If a problem is encountered
      */
-    private List<String> buildSql
+    private void exportStatements
               (final Map<String, Integer> tableAndExportOrder,
                final boolean exportAsSql,
-               final int maxSqlFileLength) throws ApplicationException {
-    	final List<String> sqlFiles = new ArrayList<String>();
+               final StringBuilder variableDeclares,
+               final StringBuilder variableInits,
+               final RdoExportStatementWriter statementWriter) throws ApplicationException {
         final List<AeaEtkDataObject> allEtkDataObjects = LookupDataUtility.getAllEtkDataObjects(etk);
         this.fullyQualifiedScriptNames = RdoDataExportUtility.getFullyQualifiedScriptNames(etk);
 
@@ -558,24 +766,13 @@ public class RdoExportLogic {
             //Sort the RdoTable list by the user input order.
             Collections.sort(orderedTables);
 
-            String columnName;
-            Object value;
-
             AeaEtkDataObject matchingEtkDataObjct = null;
-            List<Map<String, Object>> tableDataRowList;
 
-            //Output writers.
+            fileCounter = 0;
+            lookupTranslationCache = new RdoLookupTranslationCache();
 
-            final StringBuilder insertData = new StringBuilder();
-            final StringBuilder variableDeclares = new StringBuilder();
-            final StringBuilder variableInits = new StringBuilder();
-
-            if (exportAsOracle()) {
-                variableDeclares.append(NEWLINE_CHAR + "rawTempVar RAW(32000); " + NEWLINE_CHAR);
-                variableDeclares.append(NEWLINE_CHAR + "longRawTempVar long raw; " + NEWLINE_CHAR);
-            }
-
-            int fileCounter = 0;
+            //Find the AeaEtkDataObject of each table that the user selected, in export order.
+            final Map<String, AeaEtkDataObject> tablesToExport = new LinkedHashMap<String, AeaEtkDataObject>();
 
             if ((tableAndExportOrder != null) && (tableAndExportOrder.keySet().size() > 0)) {
                 for (final RdoTable aRdoTable : orderedTables) {
@@ -587,372 +784,415 @@ public class RdoExportLogic {
                     if (!tableAndExportOrder.containsKey(rdoTableName)) {
                         continue;
                     }
-                    if (writeDebug) {
-                        Utility.aeaLog(etk, "RDO Export Beginning for Table " + rdoTableName);
-                    }
-                    insertData.append("------------------BEGIN TABLE = ");
-                    insertData.append(rdoTableName);
-                    insertData.append("---------------------------");
-
-                    insertData.append(NEWLINE_CHAR);
 
-                    //Find the AeaEtkDataObject for the table that the user selected.
                     for (final AeaEtkDataObject etkDataObject : allEtkDataObjects) {
 						if (rdoTableName.equalsIgnoreCase(etkDataObject.getTableName())) {
                             matchingEtkDataObjct = etkDataObject;
                             break;
                         }
                     }
-                    currentlyExportingRdo = matchingEtkDataObjct.getLabel()
-                    		               + "(" + matchingEtkDataObjct.getTableName() + ")";
-
-                    //Return all rows from the selected RDO table and loop through them
-                    tableDataRowList = etk.createSQL("select * from " + rdoTableName).fetchList();
-
-                    //Define row write buffers.
-                    StringBuilder plsqlStatement;
-                    StringBuilder sqlServerFileInsertStatements;
-                    StringBuilder insertStatement;
-                    StringBuilder updateStatement;
-                    StringBuilder mTableDeleteStatements;
-                    StringBuilder mTableInsertStatements;
-                    Object tableRowCCode;
-                    Object tableRowId;
-
-                    rowLoop:
-                        for (final Map<String, Object> aTableRow : tableDataRowList) {
-
-                            plsqlStatement = new StringBuilder();
-                            insertStatement = new StringBuilder();
-                            sqlServerFileInsertStatements = new StringBuilder();
-                            updateStatement = new StringBuilder();
-                            mTableDeleteStatements = new StringBuilder();
-                            mTableInsertStatements = new StringBuilder();
-
-                            //If the row of reference data being exported does not have a valid C_CODE value,
-                            //add an error to the top of the file and continue with the next row. ALL exported rows must
-                            //have a C_CODE value.
-                            tableRowCCode = aTableRow.get("C_CODE");
-                            tableRowId = aTableRow.get("ID");
-                            if (tableRowCCode == null ||
-                                    (
-                                            (tableRowCCode instanceof String) &&
-                                            (StringUtility.isBlank((String) tableRowCCode))
-                                            )) {
-
-
-                                errorMessages.append("--" + currentlyExportingRdo
-                                		+" - ERROR exporting record with ID = " + tableRowId
-                                		+ " from table " + rdoTableName
-                                        + " - C_CODE is null or blank, skipping record.");
-
-                                errorMessages.append(NEWLINE_CHAR);
-
-                                continue;
-                            }
 
-                            if (exportAsOracle()) {
-                                insertStatement.append("insert (");
-                            } else {
-                                insertStatement.append("insert into ");
-                                insertStatement.append(rdoTableName);
-                                insertStatement.append(" (");
-                            }
+                    tablesToExport.put(rdoTableName, matchingEtkDataObjct);
+                }
+            }
 
-                            for (final AeaEtkDataElement anElement : matchingEtkDataObjct.getDataElements()) {
+            for (final Map.Entry<String, AeaEtkDataObject> aTableToExport : tablesToExport.entrySet()) {
+                exportTable(aTableToExport.getKey(),
+                        aTableToExport.getValue(),
+                        exportAsSql,
+                        variableDeclares,
+                        variableInits,
+                        statementWriter);
+            }
+        } catch (final Exception e) {
+            throw new ApplicationException(e);
+        }
+    }
 
-                                //Only add column inserts for non-M data table elements.
-                                if (StringUtility.isBlank(anElement.getmTableName())) {
-                                    insertStatement.append(anElement.getColumnName());
-                                    insertStatement.append(",");
-                                }
-                            }
+    /**
+     * Exports all rows of a single reference data table.
+     *
+     * @param rdoTableName The name of the reference data table.
+     * @param matchingEtkDataObjct The data object of the reference data table.
+     * @param exportAsSql Whether to export as SQL (true) or ZIP (false).
+     * @param variableDeclares Variable declarations which must be written to the header of the SQL.
+     * @param variableInits Variable initializations which must be written to the header of the SQL.
+     * @param statementWriter Receives the PLSQL to insert RDO data into target environment.
+     * @throws ApplicationException If a problem is encountered
+     * @throws IOException If the PLSQL could not be written
+     * @throws ClassNotFoundException If a problem is encountered
+     * @throws IllegalAccessException If a problem is encountered
+     * @throws InstantiationException If a problem is encountered
+     */
+    private void exportTable(final String rdoTableName,
+            final AeaEtkDataObject matchingEtkDataObjct,
+            final boolean exportAsSql,
+            final StringBuilder variableDeclares,
+            final StringBuilder variableInits,
+            final RdoExportStatementWriter statementWriter)
+                    throws ApplicationException, IOException, InstantiationException, IllegalAccessException,
+                    ClassNotFoundException {
+        if (writeDebug) {
+            Utility.aeaLog(etk, "RDO Export Beginning for Table " + rdoTableName);
+        }
+        statementWriter.writeText("------------------BEGIN TABLE = "
+                + rdoTableName
+                + "---------------------------"
+                + NEWLINE_CHAR);
+
+        currentlyExportingRdo = matchingEtkDataObjct.getLabel()
+        		               + "(" + matchingEtkDataObjct.getTableName() + ")";
+
+        //Page through all rows of the selected RDO table in ID order and export them.
+        List<Map<String, Object>> tableDataRowList;
+        Object lastRowId = null;
+        do {
+            tableDataRowList = fetchTableRows(rdoTableName, lastRowId);
+
+            for (final Map<String, Object> aTableRow : tableDataRowList) {
+                final String plsqlStatement = exportRow(rdoTableName,
+                        matchingEtkDataObjct,
+                        aTableRow,
+                        exportAsSql,
+                        variableDeclares,
+                        variableInits);
+
+                if (plsqlStatement != null) {
+                    statementWriter.writeStatement(plsqlStatement);
+                }
 
-                            if (exportAsOracle()) {
-                                insertStatement.append("ID) values (");
-                            } else {
+                lastRowId = aTableRow.get("ID");
+            }
+        } while (tableDataRowList.size() == ROW_FETCH_SIZE);
+    }
 
-                                if ((insertStatement.length() > 0) && insertStatement.charAt(insertStatement.length() - 1) == ',') {
-                                    insertStatement.setLength(insertStatement.length() - 1);
-                                }
+    /**
+     * Returns the next page of rows of a reference data table, ordered by ID.
+     *
+     * @param rdoTableName The name of the reference data table.
+     * @param lastRowId The ID of the last row of the previous page, null for the first page.
+     * @return Up to {@link #ROW_FETCH_SIZE} rows.
+     */
+    private List<Map<String, Object>> fetchTableRows(final String rdoTableName, final Object lastRowId) {
+        final String whereClause = lastRowId == null ? "" : " where ID > :lastRowId";
 
-                                insertStatement.append(") values (");
-                            }
+        final String query;
+        if (Utility.isSqlServer(etk)) {
+            query = "select top " + ROW_FETCH_SIZE + " * from " + rdoTableName + whereClause + " order by ID";
+        } else {
+            query = "select * from (select * from " + rdoTableName + whereClause + " order by ID) "
+                    + "where rownum <= " + ROW_FETCH_SIZE;
+        }
 
-                            //Begin exporting columns (aka data element values) for each row of reference data.
-                            for (final AeaEtkDataElement anElement : matchingEtkDataObjct.getDataElements()) {
-
-                                columnName = anElement.getColumnName();
-                                value = aTableRow.get(columnName);
-
-                                if (writeDebug) {
-                                    Utility.aeaLog(etk, "Processing AeaEtkDataElement with columnName = "
-                                            + columnName + " || value = " + value);
-                                }
-
-                                if (!anElement.getIsBoundToLookup()) {
-                                    if (writeDebug) {
-                                        Utility.aeaLog(etk, columnName + " is not a lookup.");
-                                    }
-
-                                    if (value == null) {
-                                        value = "null";
-
-                                    } else if (DataElementType.NUMBER == anElement.getDataType() ||
-                                    		   DataElementType.LONG == anElement.getDataType()) {
-                                        value = ((Number) value).longValue();
-                                    } else if (DataElementType.DATE == anElement.getDataType() ||
-                                            DataElementType.TIMESTAMP == anElement.getDataType()) {
-
-                                    	SimpleDateFormat dateF = new SimpleDateFormat(DATE_FORMAT);
-
-                                        if (exportAsOracle()) {
-                                            value = (value != null) ? "to_date('"
-                                                    + dateF.format(value)
-                                                    + "','RRRR-MM-DD HH24:MI:SS')"
-                                                    : "null";
-                                        } else {
-                                            value = (value != null) ?
-                                                                     "CONVERT(varchar, '" + dateF.format(value) + "', 120 )" :
-                                                                         "null";
-                                        }
-                                    } else if (DataElementType.TEXT == anElement.getDataType()) {
-                                        value = "'" + StringEscapeUtils.escapeSql((String) value) + "'";
-                                    } else if (DataElementType.LONG_TEXT == anElement.getDataType()) {
-                                        value = RdoDataExportUtility.convertClobToSQLInsert(value, exportAsOracle());
-                                    } else if(DataElementType.FILE == anElement.getDataType()) {
-                                        try {
-                                            if (exportAsSql) {
-                                                value = handleFile (variableDeclares, variableInits,
-                                                        sqlServerFileInsertStatements,
-                                                        fileCounter, value);
-                                                fileCounter++;
-                                            } else {
-                                                filesToTransfer.add((Number) value);
-
-                                                if (this.exportAsOracle()) {
-                                                    value = "(select (select C_ETK_FILE_ID from T_AEA_RDO_FILE_STAGING where C_SOURCE_SYSTEM_ID = "
-                                                            + ((Number) value).longValue()
-                                                            + ") from dual)";
-                                                } else {
-                                                    value = "(select C_ETK_FILE_ID from T_AEA_RDO_FILE_STAGING where C_SOURCE_SYSTEM_ID = "
-                                                            + ((Number) value).longValue()
-                                                            + ")";
-                                                }
-                                            }
-                                        } catch (final Exception e) {
-                                        	Utility.aeaLog(etk,
-                                        			       "Error processing file with ID " + value + ", continuing.",
-                                        			       e);
-                                            continue rowLoop;
-                                        }
-                                    }
-
-                                    insertStatement.append(value);
-                                    insertStatement.append(",");
-
-                                    //If this is the c_code column, don't put an update statement in the record.
-                                    if (!"c_code".equalsIgnoreCase(columnName)) {
-                                        updateStatement.append(columnName);
-                                        updateStatement.append(" = ");
-                                        updateStatement.append(value);
-                                        updateStatement.append(",");
-                                    }
-                                } else { //Value is bound to a lookup.
-                                    final AeaEtkLookupDefinition lookupDef = anElement.getEtkLookupDefinition();
-                                    if (writeDebug) {
-                                        Utility.aeaLog(etk, columnName + " is a lookup of type " + lookupDef.getLookupType());
-                                    }
-
-                                    if (StringUtility.isBlank(anElement.getmTableName())) {
-                                        //Handle Single Value Lookup
-                                        handleSingleValueLookup (
-                                                anElement, value, insertStatement, updateStatement);
-                                    } else {
-                                        //Handle Multi Value Lookup
-                                        handleMDataLookup (anElement, rdoTableName, tableRowId, tableRowCCode,
-                                                 mTableDeleteStatements, mTableInsertStatements);
-                                    }
-                                }
-                            }
+        return etk.createSQL(query)
+                .setParameter("lastRowId", lastRowId)
+                .fetchList();
+    }
 
-                            if (exportAsOracle()) {
-                                insertStatement.append("object_id.nextval);");
-                            } else {
-                                if ((insertStatement.length() > 0) && insertStatement.charAt(insertStatement.length() - 1) == ',') {
-                                    insertStatement.setLength(insertStatement.length() - 1);
-                                }
+    /**
+     * Returns the PLSQL which inserts or updates a single row of a reference data table in the target environment.
+     *
+     * @param rdoTableName The name of the reference data table.
+     * @param matchingEtkDataObjct The data object of the reference data table.
+     * @param aTableRow The row.
+     * @param exportAsSql Whether to export as SQL (true) or ZIP (false).
+     * @param variableDeclares Variable declarations which must be written to the header of the SQL.
+     * @param variableInits Variable initializations which must be written to the header of the SQL.
+     * @return The PLSQL, or null if the row could not be exported.
+     * @throws ApplicationException If a problem is encountered
+     * @throws ClassNotFoundException If a problem is encountered
+     * @throws IllegalAccessException If a problem is encountered
+     * @throws InstantiationException If a problem is encountered
+     */
+    private String exportRow(final String rdoTableName,
+            final AeaEtkDataObject matchingEtkDataObjct,
+            final Map<String, Object> aTableRow,
+            final boolean exportAsSql,
+            final StringBuilder variableDeclares,
+            final StringBuilder variableInits)
+                    throws ApplicationException, InstantiationException, IllegalAccessException,
+                    ClassNotFoundException {
+        final StringBuilder plsqlStatement = new StringBuilder();
+        final StringBuilder insertStatement = new StringBuilder();
+        final StringBuilder sqlServerFileInsertStatements = new StringBuilder();
+        final StringBuilder updateStatement = new StringBuilder();
+        final StringBuilder mTableDeleteStatements = new StringBuilder();
+        final StringBuilder mTableInsertStatements = new StringBuilder();
+
+        //If the row of reference data being exported does not have a valid C_CODE value,
+        //add an error to the top of the file and continue with the next row. ALL exported rows must
+        //have a C_CODE value.
+        final Object tableRowCCode = aTableRow.get("C_CODE");
+        final Object tableRowId = aTableRow.get("ID");
+        if (tableRowCCode == null ||
+                (
+                        (tableRowCCode instanceof String) &&
+                        (StringUtility.isBlank((String) tableRowCCode))
+                        )) {
+
+
+            errorMessages.append("--" + currentlyExportingRdo
+            		+" - ERROR exporting record with ID = " + tableRowId
+            		+ " from table " + rdoTableName
+                    + " - C_CODE is null or blank, skipping record.");
 
-                                insertStatement.append(");");
-                            }
+            errorMessages.append(NEWLINE_CHAR);
 
+            return null;
+        }
 
-                            //Remove trailing , on update statement if one exists.
-                            if ((updateStatement.length() > 0) &&
-                                    updateStatement.charAt(updateStatement.length() -1 ) == ',') {
-                                updateStatement.setLength(updateStatement.length() - 1);
-                            }
+        if (exportAsOracle()) {
+            insertStatement.append("insert (");
+        } else {
+            insertStatement.append("insert into ");
+            insertStatement.append(rdoTableName);
+            insertStatement.append(" (");
+        }
 
+        for (final AeaEtkDataElement anElement : matchingEtkDataObjct.getDataElements()) {
 
-                            if (exportAsOracle()) {
-
-                            	//If the update statement is blank because C_CODE is the only other column in the table
-                            	//other than ID, set ID = ID.
-                            	if (StringUtility.isBlank(updateStatement.toString())) {
-                                	updateStatement.append(" ID = ID ");
-                                }
-
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append("tempCode := '");
-                                plsqlStatement.append(StringEscapeUtils.escapeSql((String) aTableRow.get("C_CODE")));
-                                plsqlStatement.append("';");
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append("MERGE INTO ");
-                                plsqlStatement.append(rdoTableName);
-                                plsqlStatement.append(" sr USING dual ON (sr.c_code = tempCode) ");
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append("WHEN MATCHED THEN");
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append(" UPDATE SET ");
-                                plsqlStatement.append(updateStatement.toString());
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append("WHEN NOT MATCHED THEN ");
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append(insertStatement);
+            //Only add column inserts for non-M data table elements.
+            if (StringUtility.isBlank(anElement.getmTableName())) {
+                insertStatement.append(anElement.getColumnName());
+                insertStatement.append(",");
+            }
+        }
+
+        if (exportAsOracle()) {
+            insertStatement.append("ID) values (");
+        } else {
+
+            if ((insertStatement.length() > 0) && insertStatement.charAt(insertStatement.length() - 1) == ',') {
+                insertStatement.setLength(insertStatement.length() - 1);
+            }
+
+            insertStatement.append(") values (");
+        }
+
+        //Begin exporting columns (aka data element values) for each row of reference data.
+        for (final AeaEtkDataElement anElement : matchingEtkDataObjct.getDataElements()) {
+
+            final String columnName = anElement.getColumnName();
+            Object value = aTableRow.get(columnName);
+
+            if (writeDebug) {
+                Utility.aeaLog(etk, "Processing AeaEtkDataElement with columnName = "
+                        + columnName + " || value = " + value);
+            }
+
+            if (!anElement.getIsBoundToLookup()) {
+                if (writeDebug) {
+                    Utility.aeaLog(etk, columnName + " is not a lookup.");
+                }
+
+                if (value == null) {
+                    value = "null";
+
+                } else if (DataElementType.NUMBER == anElement.getDataType() ||
+                		   DataElementType.LONG == anElement.getDataType()) {
+                    value = ((Number) value).longValue();
+                } else if (DataElementType.DATE == anElement.getDataType() ||
+                        DataElementType.TIMESTAMP == anElement.getDataType()) {
+
+                	SimpleDateFormat dateF = new SimpleDateFormat(DATE_FORMAT);
+
+                    if (exportAsOracle()) {
+                        value = (value != null) ? "to_date('"
+                                + dateF.format(value)
+                                + "','RRRR-MM-DD HH24:MI:SS')"
+                                : "null";
+                    } else {
+                        value = (value != null) ?
+                                                 "CONVERT(varchar, '" + dateF.format(value) + "', 120 )" :
+                                                     "null";
+                    }
+                } else if (DataElementType.TEXT == anElement.getDataType()) {
+                    value = "'" + StringEscapeUtils.escapeSql((String) value) + "'";
+                } else if (DataElementType.LONG_TEXT == anElement.getDataType()) {
+                    value = RdoDataExportUtility.convertClobToSQLInsert(value, exportAsOracle());
+                } else if(DataElementType.FILE == anElement.getDataType()) {
+                    try {
+                        if (exportAsSql) {
+                            value = handleFile (variableDeclares, variableInits,
+                                    sqlServerFileInsertStatements,
+                                    fileCounter, value);
+                            fileCounter++;
+                        } else {
+                            filesToTransfer.add((Number) value);
+
+                            if (this.exportAsOracle()) {
+                                value = "(select (select C_ETK_FILE_ID from T_AEA_RDO_FILE_STAGING where C_SOURCE_SYSTEM_ID = "
+                                        + ((Number) value).longValue()
+                                        + ") from dual)";
                             } else {
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append(sqlServerFileInsertStatements);
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append("SET @tempCode = '");
-                                plsqlStatement.append(StringEscapeUtils.escapeSql((String) aTableRow.get("C_CODE")));
-                                plsqlStatement.append("';");
-
-                                //Only build an update statement if the updateStatement is not blank.
-                                //RDOs with ONLY a C_CODE column can return a blank update statement...
-                                if (StringUtility.isNotBlank(updateStatement.toString())) {
-	                                plsqlStatement.append(NEWLINE_CHAR);
-	                                plsqlStatement.append("IF EXISTS( SELECT 1 FROM ");
-	                                plsqlStatement.append(rdoTableName);
-	                                plsqlStatement.append(" WHERE lower(C_CODE) = lower(@tempCode))");
-
-	                                plsqlStatement.append(NEWLINE_CHAR);
-	                                plsqlStatement.append("BEGIN");
-	                                plsqlStatement.append(NEWLINE_CHAR);
-	                                plsqlStatement.append(" UPDATE ");
-	                                plsqlStatement.append(rdoTableName);
-	                                plsqlStatement.append(" SET ");
-	                                plsqlStatement.append(updateStatement.toString());
-	                                plsqlStatement.append(" WHERE lower(C_CODE) = lower(@tempCode)");
-	                                plsqlStatement.append(NEWLINE_CHAR);
-	                                plsqlStatement.append(" END ");
-	                                plsqlStatement.append(NEWLINE_CHAR);
-                                }
-
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append("IF NOT EXISTS( SELECT 1 FROM ");
-                                plsqlStatement.append(rdoTableName);
-                                plsqlStatement.append(" WHERE lower(C_CODE) = lower(@tempCode))");
-
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append("BEGIN");
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append(insertStatement);
-                                plsqlStatement.append(NEWLINE_CHAR);
-                                plsqlStatement.append(" END ");
+                                value = "(select C_ETK_FILE_ID from T_AEA_RDO_FILE_STAGING where C_SOURCE_SYSTEM_ID = "
+                                        + ((Number) value).longValue()
+                                        + ")";
                             }
+                        }
+                    } catch (final Exception e) {
+                    	Utility.aeaLog(etk,
+                    			       "Error processing file with ID " + value + ", continuing.",
+                    			       e);
+                        return null;
+                    }
+                }
 
-                            plsqlStatement.append(NEWLINE_CHAR);
-                            plsqlStatement.append(NEWLINE_CHAR);
-                            plsqlStatement.append(mTableDeleteStatements);
-                            plsqlStatement.append(NEWLINE_CHAR);
-                            plsqlStatement.append(NEWLINE_CHAR);
-                            plsqlStatement.append(mTableInsertStatements);
+                insertStatement.append(value);
+                insertStatement.append(",");
 
-                            plsqlStatement.append(NEWLINE_CHAR);
-                            insertData.append(plsqlStatement);
+                //If this is the c_code column, don't put an update statement in the record.
+                if (!"c_code".equalsIgnoreCase(columnName)) {
+                    updateStatement.append(columnName);
+                    updateStatement.append(" = ");
+                    updateStatement.append(value);
+                    updateStatement.append(",");
+                }
+            } else { //Value is bound to a lookup.
+                final AeaEtkLookupDefinition lookupDef = anElement.getEtkLookupDefinition();
+                if (writeDebug) {
+                    Utility.aeaLog(etk, columnName + " is a lookup of type " + lookupDef.getLookupType());
+                }
 
-                            insertData.append(STATEMENT_SEPERATOR);
-                        }
+                if (StringUtility.isBlank(anElement.getmTableName())) {
+                    //Handle Single Value Lookup
+                    handleSingleValueLookup (
+                            anElement, value, insertStatement, updateStatement);
+                } else {
+                    //Handle Multi Value Lookup
+                    handleMDataLookup (anElement, rdoTableName, tableRowId, tableRowCCode,
+                             mTableDeleteStatements, mTableInsertStatements);
                 }
             }
+        }
 
-            String escapedErrors = "";
-
-            if (errorMessages != null && errorMessages.length() > 0) {
-                escapedErrors =	StringEscapeUtils.escapeSql(
-                        errorMessages.toString().replaceAll("\\n", "\n--").replaceAll("\\r", "\r--"));
+        if (exportAsOracle()) {
+            insertStatement.append("object_id.nextval);");
+        } else {
+            if ((insertStatement.length() > 0) && insertStatement.charAt(insertStatement.length() - 1) == ',') {
+                insertStatement.setLength(insertStatement.length() - 1);
             }
 
-            if (maxSqlFileLength == 0) {
-	            final StringBuilder sqlOutput = new StringBuilder();
+            insertStatement.append(");");
+        }
 
-	            String insertDataString = insertData.toString();
 
-	            sqlOutput.append(printSQLHeader(escapedErrors, variableDeclares.toString(), variableInits.toString()));
-	            insertDataString =
-	            		insertDataString.replaceAll(STATEMENT_SEPERATOR, PRINTED_STATEMENT_SEPERATOR);
-	            sqlOutput.append(insertDataString);
-	            sqlOutput.append(printSQLFooter(true));
+        //Remove trailing , on update statement if one exists.
+        if ((updateStatement.length() > 0) &&
+                updateStatement.charAt(updateStatement.length() -1 ) == ',') {
+            updateStatement.setLength(updateStatement.length() - 1);
+        }
 
-	            sqlFiles.add(sqlOutput.toString());
-            } else {
 
-            	String header = printSQLHeader(escapedErrors, variableDeclares.toString(), variableInits.toString());
-            	String footer = printSQLFooter(true);
-            	String insertDataString = insertData.toString();
-
-            	int headerLength = getLineCount(header);
-            	int insertDataLength = getLineCount(insertDataString);
-            	int footerLength = getLineCount(footer);
-            	int totalLength = headerLength + insertDataLength + footerLength;
-
-
-            	if (totalLength <= maxSqlFileLength) {
-            		final StringBuilder sqlOutput = new StringBuilder();
-            		sqlOutput.append(header);
-            		insertDataString =
-            				insertDataString.replaceAll(STATEMENT_SEPERATOR, PRINTED_STATEMENT_SEPERATOR);
-    	            sqlOutput.append(insertDataString);
-    	            sqlOutput.append(footer);
-
-    	            sqlFiles.add(sqlOutput.toString());
-            	} else {
-            		int insertSplitSize = maxSqlFileLength - (headerLength + footerLength);
-            		String[] insertStatementsSplit =
-            				insertDataString.split(STATEMENT_SEPERATOR);
-
-            		StringBuilder currentFileInsertData = new StringBuilder();
-            		for (int i = 0; i < insertStatementsSplit.length; i++) {
-            			currentFileInsertData.append(insertStatementsSplit[i]);
-            			currentFileInsertData.append(PRINTED_STATEMENT_SEPERATOR);
-
-            			if ((getLineCount(currentFileInsertData.toString()) >= insertSplitSize) ||
-            					((i + 1) == insertStatementsSplit.length)) {
-
-            				final StringBuilder sqlOutput = new StringBuilder();
-            				sqlOutput.append(header);
-            	            sqlOutput.append(currentFileInsertData);
-            	            sqlOutput.append(printSQLFooter(false));
-            	            sqlFiles.add(sqlOutput.toString());
-
-            	            currentFileInsertData = new StringBuilder();
-            			}
-            		}
-
-            		//Create file that only runs PLSQL procedure at end.
-            		final StringBuilder sqlOutput = new StringBuilder();
-            		sqlOutput.append(header);
-    	            sqlOutput.append(footer);
-    	            sqlFiles.add(sqlOutput.toString());
-            	}
+        if (exportAsOracle()) {
+
+        	//If the update statement is blank because C_CODE is the only other column in the table
+        	//other than ID, set ID = ID.
+        	if (StringUtility.isBlank(updateStatement.toString())) {
+            	updateStatement.append(" ID = ID ");
             }
 
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append("tempCode := '");
+            plsqlStatement.append(StringEscapeUtils.escapeSql((String) aTableRow.get("C_CODE")));
+            plsqlStatement.append("';");
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append("MERGE INTO ");
+            plsqlStatement.append(rdoTableName);
+            plsqlStatement.append(" sr USING dual ON (sr.c_code = tempCode) ");
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append("WHEN MATCHED THEN");
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append(" UPDATE SET ");
+            plsqlStatement.append(updateStatement.toString());
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append("WHEN NOT MATCHED THEN ");
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append(insertStatement);
+        } else {
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append(sqlServerFileInsertStatements);
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append("SET @tempCode = '");
+            plsqlStatement.append(StringEscapeUtils.escapeSql((String) aTableRow.get("C_CODE")));
+            plsqlStatement.append("';");
+
+            //Only build an update statement if the updateStatement is not blank.
+            //RDOs with ONLY a C_CODE column can return a blank update statement...
+            if (StringUtility.isNotBlank(updateStatement.toString())) {
+	            plsqlStatement.append(NEWLINE_CHAR);
+	            plsqlStatement.append("IF EXISTS( SELECT 1 FROM ");
+	            plsqlStatement.append(rdoTableName);
+	            plsqlStatement.append(" WHERE lower(C_CODE) = lower(@tempCode))");
+
+	            plsqlStatement.append(NEWLINE_CHAR);
+	            plsqlStatement.append("BEGIN");
+	            plsqlStatement.append(NEWLINE_CHAR);
+	            plsqlStatement.append(" UPDATE ");
+	            plsqlStatement.append(rdoTableName);
+	            plsqlStatement.append(" SET ");
+	            plsqlStatement.append(updateStatement.toString());
+	            plsqlStatement.append(" WHERE lower(C_CODE) = lower(@tempCode)");
+	            plsqlStatement.append(NEWLINE_CHAR);
+	            plsqlStatement.append(" END ");
+	            plsqlStatement.append(NEWLINE_CHAR);
+            }
 
-        } catch (final Exception e) {
-            throw new ApplicationException(e);
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append("IF NOT EXISTS( SELECT 1 FROM ");
+            plsqlStatement.append(rdoTableName);
+            plsqlStatement.append(" WHERE lower(C_CODE) = lower(@tempCode))");
+
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append("BEGIN");
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append(insertStatement);
+            plsqlStatement.append(NEWLINE_CHAR);
+            plsqlStatement.append(" END ");
+        }
+
+        plsqlStatement.append(NEWLINE_CHAR);
+        plsqlStatement.append(NEWLINE_CHAR);
+        plsqlStatement.append(mTableDeleteStatements);
+        plsqlStatement.append(NEWLINE_CHAR);
+        plsqlStatement.append(NEWLINE_CHAR);
+        plsqlStatement.append(mTableInsertStatements);
+
+        plsqlStatement.append(NEWLINE_CHAR);
+
+        return plsqlStatement.toString();
+    }
+
+    /**
+     * Returns the variable declarations which every SQL export needs.
+     *
+     * @return The variable declarations.
+     */
+    private StringBuilder getInitialVariableDeclares() {
+        final StringBuilder variableDeclares = new StringBuilder();
+
+        if (exportAsOracle()) {
+            variableDeclares.append(NEWLINE_CHAR + "rawTempVar RAW(32000); " + NEWLINE_CHAR);
+            variableDeclares.append(NEWLINE_CHAR + "longRawTempVar long raw; " + NEWLINE_CHAR);
+        }
+
+        return variableDeclares;
+    }
+
+    /**
+     * Returns the errors encountered during the export, escaped so that they can be written as SQL comments.
+     *
+     * @return The escaped errors.
+     */
+    private String getEscapedErrors() {
+        String escapedErrors = "";
+
+        if (errorMessages != null && errorMessages.length() > 0) {
+            escapedErrors =	StringEscapeUtils.escapeSql(
+                    errorMessages.toString().replaceAll("\\n", "\n--").replaceAll("\\r", "\r--"));
         }
 
-        return sqlFiles;
+        return escapedErrors;
     }
 
     /**
@@ -998,7 +1238,7 @@ public class RdoExportLogic {
         //These statements attempt to determine what table the lookup definition is actually
         //pointed to and what column it returned for "VALUE".
         final Map<String, String> rDataTableAndValueColumn =
-                RdoDataExportUtility.getRDataTableAndValueColumn (fullyQualifiedScriptNames, etk, lookupDef);
+                getLookupTarget(lookupDef);
         final String rDataTableName = rDataTableAndValueColumn.get("R_DATA_TABLE");
         final String rDataValueColumn = rDataTableAndValueColumn.get("R_DATA_VALUE_COLUMN");
 
@@ -1009,80 +1249,44 @@ public class RdoExportLogic {
         }
 
         //Determine if there is a filter for this R-Data data set in RDO Table
-        //"AEA RDO Data Export Config". This is necessary for things like ETK_DATA_OBJECT
-        //where you need to filter by max(trackingConfigId)
-        final String additonalFilterCriteria = getAdditionalFilterCriteria(rDataTableName);
-
-        //Determine if there is a set of UID columns for this R-Data data set in RDO Table
-        //"AEA RDO Data Export Config". This is necessary for things like ETK_DATA_OBJECT
-        //where you need to get values by BUSINESS_KEY, not by C_CODE.
-        final List<Map<String, Object>> lookupTableUIDColumns = getLookupTableUIDColumns
-                (rDataTableName);
+        //"AEA RDO Data Export Config" and a set of UID columns to export instead of the raw value.
+        final RdoLookupTranslationCache.LookupTable lookupTable = getLookupTable(rDataTableName);
+        final String additonalFilterCriteria = lookupTable.getAdditionalFilterCriteria();
+        final List<Map<String, Object>> lookupTableUIDColumns = lookupTable.getUidColumns();
 
         if (writeDebug) {
             Utility.aeaLog(etk, "additonalFilterCriteria = " + additonalFilterCriteria);
         }
 
-        //Try and see if there were any configured values for this lookup in
-        //AEA RDO Data Export Config. If not, see if the c_code column exists in the
-        //table. If not, we are going to pass the hard DB value through and hope it maps
+        //If there were no configured values for this lookup in AEA RDO Data Export Config and the
+        //table does not have a c_code column, we are going to pass the hard DB value through and hope it maps
         //to something in the target DB!
         if (lookupTableUIDColumns.size() == 0) {
-            try {
-                if (Utility.isSqlServer(etk)) {
-                    etk.createSQL("select top 1 c_code from " +
-                            rDataTableName)
-                            .returnEmptyResultSetAs(null)
-                            .fetchObject();
-                } else {
-                    etk.createSQL("select c_code from " +
-                            rDataTableName +
-                            " where rownum < 2")
-                            .returnEmptyResultSetAs(null)
-                            .fetchObject();
-                }
-
-                final HashMap<String, Object> tmpMap = new HashMap<String, Object>();
-                tmpMap.put("COLUMN_NAME", "C_CODE");
-                lookupTableUIDColumns.add(tmpMap);
-
-            } catch (final Exception e) {
-                if (writeDebug) {
-                    Utility.aeaLog(etk, currentlyExportingRdo + " - ERROR processing lookup \"" + lookupName
-                    		+ "\" on column \"" + columnName + "\": Table " + rDataTableName + " does not have a "
-                            + "C_CODE column or a configured value in "
-                            + " AEA RDO Data Export Config. Setting to hard "
-                            + "coded value.", e);
-                }
+            errorMessages.append("--" + currentlyExportingRdo + " - ERROR processing lookup \"" + lookupName
+            		+ "\" on column \"" + columnName + "\": Table " + rDataTableName + " does not have a "
+                    + "C_CODE column or a configured value in "
+                    + " AEA RDO Data Export Config. Setting to hard "
+                    + "coded value.");
 
-                errorMessages.append("--" + currentlyExportingRdo + " - ERROR processing lookup \"" + lookupName
-                		+ "\" on column \"" + columnName + "\": Table " + rDataTableName + " does not have a "
-                        + "C_CODE column or a configured value in "
-                        + " AEA RDO Data Export Config. Setting to hard "
-                        + "coded value.");
-
-                errorMessages.append(NEWLINE_CHAR);
+            errorMessages.append(NEWLINE_CHAR);
 
-                insertStatement.append(RdoDataExportUtility.valToSqlString(value));
-                insertStatement.append(",");
+            insertStatement.append(RdoDataExportUtility.valToSqlString(value));
+            insertStatement.append(",");
 
-                updateStatement.append(columnName);
-                updateStatement.append(" = ");
-                updateStatement.append(RdoDataExportUtility.valToSqlString(value));
-                updateStatement.append(",");
-
-                return;
-            }
+            updateStatement.append(columnName);
+            updateStatement.append(" = ");
+            updateStatement.append(RdoDataExportUtility.valToSqlString(value));
+            updateStatement.append(",");
 
+            return;
         }
 
-        //Return the complete row of data from rDataTableName where
+        //Return the UID columns of the row of data from rDataTableName where
         //rDataValueColumn = value and any additional filter criteria have been applied.
         //There should be only a single row of data.
-        final Map<String, Object> lookupTableRowData = getLookupTableRow (rDataTableName,
+        final Map<String, Object> lookupTableRowData = getLookupTableRow (lookupTable,
                 rDataValueColumn,
-                value,
-                additonalFilterCriteria);
+                value);
 
         if (exportAsOracle()) {
             insertStatement.append("(select (select ");
@@ -1250,7 +1454,7 @@ public class RdoExportLogic {
                 //These statements attempt to determine what table the lookup definition is actually
                 //pointed to and what column it returned for "VALUE".
                 final Map<String, String> rDataTableAndValueColumn =
-                        RdoDataExportUtility.getRDataTableAndValueColumn (fullyQualifiedScriptNames, etk, lookupDef);
+                        getLookupTarget(lookupDef);
                 final String rDataTableName = rDataTableAndValueColumn.get("R_DATA_TABLE");
                 final String rDataValueColumn = rDataTableAndValueColumn.get("R_DATA_VALUE_COLUMN");
 
@@ -1262,67 +1466,32 @@ public class RdoExportLogic {
                 }
 
                 //Determine if there is a filter for this R-Data data set in RDO Table
-                //"AEA RDO Data Export Config". This is necessary for things like ETK_DATA_OBJECT
-                //where you need to filter by max(trackingConfigId)
-                final String additonalFilterCriteria = getAdditionalFilterCriteria(rDataTableName);
+                //"AEA RDO Data Export Config" and a set of UID columns to export instead of the raw value.
+                final RdoLookupTranslationCache.LookupTable lookupTable = getLookupTable(rDataTableName);
+                final String additonalFilterCriteria = lookupTable.getAdditionalFilterCriteria();
+                final List<Map<String, Object>> lookupTableUIDColumns = lookupTable.getUidColumns();
 
                 if (writeDebug) {
                     Utility.aeaLog(etk, "additonalFilterCriteria = " + additonalFilterCriteria);
                 }
 
-                //Determine if there is a set of UID columns for this R-Data data set in RDO Table
-                //"AEA RDO Data Export Config". This is necessary for things like ETK_DATA_OBJECT
-                //where you need to get values by BUSINESS_KEY, not by C_CODE.
-                final List<Map<String, Object>> lookupTableUIDColumns = getLookupTableUIDColumns
-                        (rDataTableName);
-
-
-                //Try and see if there were any configured values for this lookup in
-                //AEA RDO Data Export Config. If not, see if the c_code column exists in the
-                //table. If not, we are going to pass the hard DB value through and hope it maps
-                //to something in the target DB!
+                //If there were no configured values for this lookup in AEA RDO Data Export Config and the
+                //table does not have a c_code column, we are going to pass the hard DB value through and hope it
+                //maps to something in the target DB!
                 if (lookupTableUIDColumns.size() == 0) {
-                    try {
-                        if (Utility.isSqlServer(etk)) {
-                            etk.createSQL("select top 1 c_code from " +
-                                    rDataTableName)
-                                    .returnEmptyResultSetAs(null)
-                                    .fetchObject();
-                        } else {
-                            etk.createSQL("select c_code from " +
-                                    rDataTableName +
-                                    " where rownum < 2")
-                                    .returnEmptyResultSetAs(null)
-                                    .fetchObject();
-                        }
-
-                        final HashMap<String, Object> tmpMap = new HashMap<String, Object>();
-                        tmpMap.put("COLUMN_NAME", "C_CODE");
-                        lookupTableUIDColumns.add(tmpMap);
-
-                    } catch (final Exception e) {
-                        if (writeDebug) {
-                            Utility.aeaLog(etk, currentlyExportingRdo + " - ERROR processing lookup \"" + lookupName
-                            		+ "\" on column \"" + columnName + "\": Table " + rDataTableName + " does not have a "
-                                    + "C_CODE column or a configured value in "
-                                    + " AEA RDO Data Export Config. Setting to hard "
-                                    + "coded value.", e);
-                        }
-
-                        errorMessages.append("--" + currentlyExportingRdo + " - ERROR processing lookup \"" + lookupName
-                        		+ "\" on column \"" + columnName + "\": Table " + rDataTableName + " does not have a "
-                                + "C_CODE column or a configured value in "
-                                + " AEA RDO Data Export Config. Setting to hard "
-                                + "coded value.");
+                    errorMessages.append("--" + currentlyExportingRdo + " - ERROR processing lookup \"" + lookupName
+                    		+ "\" on column \"" + columnName + "\": Table " + rDataTableName + " does not have a "
+                            + "C_CODE column or a configured value in "
+                            + " AEA RDO Data Export Config. Setting to hard "
+                            + "coded value.");
 
-                        errorMessages.append(NEWLINE_CHAR);
+                    errorMessages.append(NEWLINE_CHAR);
 
-						anMTableInsert.append(RdoDataExportUtility.valToSqlString(mDataValue));
-						anMTableInsert.append(");");
-						anMTableInsert.append(NEWLINE_CHAR);
-						mTableInsertStatements.append(anMTableInsert.toString());
-                        continue;
-                    }
+					anMTableInsert.append(RdoDataExportUtility.valToSqlString(mDataValue));
+					anMTableInsert.append(");");
+					anMTableInsert.append(NEWLINE_CHAR);
+					mTableInsertStatements.append(anMTableInsert.toString());
+                    continue;
                 }
 
                 if (exportAsOracle()) {
@@ -1335,13 +1504,12 @@ public class RdoExportLogic {
 				anMTableInsert.append(" from ");
 				anMTableInsert.append(rDataTableName);
 
-                //Return the complete row of data from rDataTableName where
+                //Return the UID columns of the row of data from rDataTableName where
                 //rDataValueColumn = value and any additional filter criteria have been applied.
                 //There should be only a single row of data.
-                final Map<String, Object> lookupTableRowData = getLookupTableRow (rDataTableName,
+                final Map<String, Object> lookupTableRowData = getLookupTableRow (lookupTable,
                         rDataValueColumn,
-                        mDataValue,
-                        additonalFilterCriteria);
+                        mDataValue);
 
                 String lookupTableWhereEqualsColumn;
                 Object rowVal;
@@ -1740,4 +1908,5 @@ public class RdoExportLogic {
 
 		return rdoExportMaxLines;
 	}
+
 }
\ No newline at end of file
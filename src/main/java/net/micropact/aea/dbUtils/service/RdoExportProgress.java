@@ -0,0 +1,126 @@
+package net.micropact.aea.dbUtils.service;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the progress of writing an RDO ZIP export, which happens in the background while the ZIP is being read.
+ * It can also be used to cancel the export.
+ *
+ * @author MicroPact
+ */
+public class RdoExportProgress {
+
+    private final int totalFiles;
+    private final AtomicInteger filesExported = new AtomicInteger();
+
+    private volatile boolean complete;
+    private volatile boolean cancelled;
+    private volatile Throwable failure;
+    private volatile Future<?> future;
+
+    /**
+     * Constructor.
+     *
+     * @param theTotalFiles the number of ETK_FILE records which will be exported
+     */
+    RdoExportProgress(final int theTotalFiles) {
+        totalFiles = theTotalFiles;
+    }
+
+    /**
+     * Get the number of ETK_FILE records which will be exported.
+     *
+     * @return the number of ETK_FILE records which will be exported
+     */
+    public int getTotalFiles() {
+        return totalFiles;
+    }
+
+    /**
+     * Get the number of ETK_FILE records which have been written to the ZIP.
+     *
+     * @return the number of ETK_FILE records which have been written to the ZIP
+     */
+    public int getFilesExported() {
+        return filesExported.get();
+    }
+
+    /**
+     * Get whether the whole ZIP has been written.
+     *
+     * @return whether the whole ZIP has been written
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Get whether the export was cancelled.
+     *
+     * @return whether the export was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Get the exception which stopped the export.
+     *
+     * @return the exception, or null if the export has not failed
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stop writing the export. Anyone reading the ZIP will receive an exception instead of a truncated ZIP.
+     * Does nothing if the export is already complete.
+     */
+    public void cancel() {
+        if (!complete) {
+            cancelled = true;
+
+            final Future<?> theFuture = future;
+            if (theFuture != null) {
+                theFuture.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Record the background task which is writing the export so that it can be cancelled.
+     *
+     * @param theFuture the background task
+     */
+    void setFuture(final Future<?> theFuture) {
+        future = theFuture;
+
+        if (cancelled) {
+            theFuture.cancel(true);
+        }
+    }
+
+    /**
+     * Record that an ETK_FILE record has been written to the ZIP.
+     */
+    void fileExported() {
+        filesExported.incrementAndGet();
+    }
+
+    /**
+     * Record that the whole ZIP has been written.
+     */
+    void completed() {
+        complete = true;
+    }
+
+    /**
+     * Record the exception which stopped the export.
+     *
+     * @param theFailure the exception
+     */
+    void failed(final Throwable theFailure) {
+        failure = theFailure;
+    }
+}
@@ -0,0 +1,168 @@
+package net.micropact.aea.dbUtils.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import net.micropact.aea.core.ioUtility.IOUtility;
+
+/**
+ * <p>
+ *  Spools the body of an RDO export SQL script to temporary files as it is generated so that the export does not
+ *  need to hold the whole script in memory. A new file is started whenever the current one reaches the maximum number
+ *  of lines, always on a statement boundary.
+ * </p>
+ * <p>
+ *  The header of the script lists every error found during the export, so it is only added when the files are
+ *  written to the ZIP by {@link #writeEntries(ZipOutputStream, String, String, String)}.
+ * </p>
+ *
+ * @author MicroPact
+ */
+class RdoExportSqlSpool implements RdoExportStatementWriter {
+
+    private static final char NEWLINE_CHAR = '\n';
+
+    private final String statementSeparator;
+    private final int maxLinesPerFile;
+    private final Path directory;
+    private final List<Path> files = new ArrayList<>();
+
+    private BufferedWriter currentWriter;
+    private int currentLines;
+
+    /**
+     * Constructor.
+     *
+     * @param theStatementSeparator text written after each statement
+     * @param theMaxLinesPerFile maximum number of lines of statements in each file, 0 for no maximum
+     * @throws IOException If the temporary directory could not be created
+     */
+    RdoExportSqlSpool(final String theStatementSeparator, final int theMaxLinesPerFile) throws IOException {
+        statementSeparator = theStatementSeparator;
+        maxLinesPerFile = theMaxLinesPerFile;
+        directory = Files.createTempDirectory("rdoExport");
+        startFile();
+    }
+
+    @Override
+    public void writeText(final String text) throws IOException {
+        if (currentWriter == null) {
+            startFile();
+        }
+
+        currentWriter.write(text);
+        currentLines += countLines(text);
+    }
+
+    @Override
+    public void writeStatement(final String statement) throws IOException {
+        writeText(statement);
+        writeText(statementSeparator);
+
+        if (maxLinesPerFile > 0 && currentLines >= maxLinesPerFile) {
+            /* The next file is only started if there is another statement, so that an export which exactly fills
+             * a file still produces a single file. */
+            finishFile();
+        }
+    }
+
+    /**
+     * Close the file which is currently being written. Must be called before the files are written to a ZIP.
+     *
+     * @throws IOException If the file could not be closed
+     */
+    public void finish() throws IOException {
+        finishFile();
+    }
+
+    /**
+     * Write the spooled script to a ZIP as entries named database_inserts_N.sql. If the script was split into more
+     * than one file, an additional final file which only contains the header and final footer is written.
+     *
+     * @param outputStream the ZIP
+     * @param header the header of each file
+     * @param chunkFooter the footer of each file when the script was split
+     * @param finalFooter the footer of the last file
+     * @throws IOException If the entries could not be written
+     */
+    public void writeEntries(final ZipOutputStream outputStream,
+            final String header,
+            final String chunkFooter,
+            final String finalFooter) throws IOException {
+        final boolean isSplit = files.size() > 1;
+
+        for (int i = 0; i < files.size(); i++) {
+            outputStream.putNextEntry(new ZipEntry("database_inserts_" + i + ".sql"));
+            outputStream.write(header.getBytes());
+            Files.copy(files.get(i), outputStream);
+            outputStream.write((isSplit ? chunkFooter : finalFooter).getBytes());
+            outputStream.closeEntry();
+        }
+
+        if (isSplit) {
+            //Create file that only runs PLSQL procedure at end.
+            outputStream.putNextEntry(new ZipEntry("database_inserts_" + files.size() + ".sql"));
+            outputStream.write((header + finalFooter).getBytes());
+            outputStream.closeEntry();
+        }
+    }
+
+    /**
+     * Delete the temporary files.
+     */
+    public void delete() {
+        IOUtility.closeQuietly(currentWriter);
+
+        for (final Path file : files) {
+            IOUtility.deleteQuietly(file);
+        }
+        IOUtility.deleteQuietly(directory);
+    }
+
+    /**
+     * Start a new file.
+     *
+     * @throws IOException If the file could not be created
+     */
+    private void startFile() throws IOException {
+        final Path file = directory.resolve("database_inserts_" + files.size() + ".sql");
+        files.add(file);
+        currentWriter = Files.newBufferedWriter(file, Charset.defaultCharset());
+        currentLines = 0;
+    }
+
+    /**
+     * Close the current file, if there is one.
+     *
+     * @throws IOException If the file could not be closed
+     */
+    private void finishFile() throws IOException {
+        if (currentWriter != null) {
+            currentWriter.close();
+            currentWriter = null;
+        }
+    }
+
+    /**
+     * Count the number of line breaks in a String.
+     *
+     * @param text the text
+     * @return the number of line breaks
+     */
+    private static int countLines(final String text) {
+        int lines = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == NEWLINE_CHAR) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,27 @@
+package net.micropact.aea.dbUtils.service;
+
+import java.io.IOException;
+
+/**
+ * Receives the body of an RDO export SQL script as it is generated by {@link RdoExportLogic}, one statement at a time.
+ *
+ * @author MicroPact
+ */
+interface RdoExportStatementWriter {
+
+    /**
+     * Write text which is not part of a statement, such as the comment at the start of each table.
+     *
+     * @param text the text
+     * @throws IOException If the text could not be written
+     */
+    void writeText(String text) throws IOException;
+
+    /**
+     * Write the statements which insert or update a single row.
+     *
+     * @param statement the statements
+     * @throws IOException If the statement could not be written
+     */
+    void writeStatement(String statement) throws IOException;
+}
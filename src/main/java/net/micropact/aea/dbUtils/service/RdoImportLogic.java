@@ -1,34 +1,32 @@
 package net.micropact.aea.dbUtils.service;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.RandomAccessFile;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.FactoryConfigurationError;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
+import org.apache.commons.io.input.CloseShieldInputStream;
 
 import com.entellitrak.ApplicationException;
-import com.entellitrak.DataAccessException;
 import com.entellitrak.ExecutionContext;
-import com.entellitrak.IncorrectResultSizeDataAccessException;
 
+import net.micropact.aea.core.cache.AeaCoreConfiguration;
 import net.micropact.aea.core.ioUtility.IOUtility;
 import net.micropact.aea.core.utility.StringEscapeUtils;
-import net.micropact.aea.utility.ImportExportUtility;
 import net.micropact.aea.utility.Utility;
 
 /**
@@ -92,6 +90,13 @@ public final class RdoImportLogic {
 	/**
 	 * Perform an import of the user provided XML file.
 	 *
+	 * <p>
+	 *  The ZIP is read in a single pass: each nested ZIP is read directly from the outer ZIP, its
+	 *  ETK_FILE_METADATA.xml is parsed as a stream and the file content is streamed into ETK_FILE.
+	 *  If the core configuration item dbutils.rdoImport.fileCommitBatchSize is greater than 0, the files are
+	 *  committed in separate transactions of that many files instead of in the caller's transaction.
+	 * </p>
+	 *
 	 * @param etk ExecutionContext.
 	 * @param inputStream input stream containing the import file
 	 * @return message indicating the result of the import.
@@ -101,52 +106,31 @@ public final class RdoImportLogic {
 	public static String uploadInternalZipOfFilesForTwoPartTransfer(final ExecutionContext etk,
 			final InputStream inputStream)
 					throws IOException, ApplicationException {
-		StringBuilder sb = new StringBuilder();
+		final StringBuilder sb = new StringBuilder();
 
 		ZipInputStream etkZipFileReader = null;
 
 		try {
-			etk.createSQL("delete from T_AEA_RDO_FILE_STAGING").execute();
-
-			sb.append("T_AEA_RDO_FILE_STAGING cleared, beginning import.");
-			sb.append(NEWLINE_CHAR);
-			sb.append(NEWLINE_CHAR);
+			final int commitBatchSize = (int) AeaCoreConfiguration.getRdoImportFileCommitBatchSize(etk);
 
 			etkZipFileReader = new ZipInputStream(inputStream);
+			final ZipInputStream zipReader = etkZipFileReader;
 
-			final int bufferSize = 4096;
-			byte[] buffer = new byte[bufferSize];
-			ZipEntry entry;
-
-			while ((entry = etkZipFileReader.getNextEntry()) != null) {
-
-				sb.append("Processing ETK_FILE ZIP = " + StringEscapeUtils.escapeHtml(entry.getName()));
-				sb.append(NEWLINE_CHAR);
-
-				int len = 0;
-				File tempFile = null;
-				RandomAccessFile rm = null;
-				ZipFile zf = null;
-
-				try {
-					tempFile = File.createTempFile(UUID.randomUUID().toString(), null);
-					rm = new RandomAccessFile(tempFile, "rw");
-
-					while ((len = etkZipFileReader.read(buffer)) > 0){
-						rm.write(buffer, 0, len);
-					}
-
-					zf = new ZipFile(tempFile);
-					importFile(etk, zf, sb);
-				} finally {
-					//Clean up the temp ZIP file.
-					try {
-						rm.close();
-					} catch (IOException e) {
-						throw e;
-					} finally {
-						tempFile.delete();
-					}
+			if (commitBatchSize <= 0) {
+				clearFileStaging(etk, sb);
+				importFiles(etk, zipReader, Integer.MAX_VALUE, sb);
+			} else {
+				etk.doWork(workEtk -> clearFileStaging(workEtk, sb));
+
+				final AtomicBoolean hasMoreFiles = new AtomicBoolean(true);
+				while (hasMoreFiles.get()) {
+					etk.doWork(workEtk -> {
+						try {
+							hasMoreFiles.set(importFiles(workEtk, zipReader, commitBatchSize, sb));
+						} catch (IOException | XMLStreamException e) {
+							throw new ApplicationException(e);
+						}
+					});
 				}
 			}
 		} catch (Exception e) {
@@ -161,122 +145,268 @@ public final class RdoImportLogic {
 		return sb.toString();
 	}
 
+	/**
+	 * Clears T_AEA_RDO_FILE_STAGING before files are imported.
+	 *
+	 * @param etk ExecutionContext.
+	 * @param sb String builder used to capture information for printed report on upload success.
+	 */
+	private static void clearFileStaging(final ExecutionContext etk, final StringBuilder sb) {
+		etk.createSQL("delete from T_AEA_RDO_FILE_STAGING").execute();
+
+		sb.append("T_AEA_RDO_FILE_STAGING cleared, beginning import.");
+		sb.append(NEWLINE_CHAR);
+		sb.append(NEWLINE_CHAR);
+	}
 
 	/**
-	 * Private utility method to import files attached to RDO records into T_AEA_RDO_FILE_STAGING.
+	 * Imports the nested ZIPs of files attached to RDO records from the outer ZIP.
 	 *
 	 * @param etk ExecutionContext.
-	 * @param zf Zip file containing files attached to RDO records.
+	 * @param etkZipFileReader The outer ZIP.
+	 * @param maxFiles The maximum number of nested ZIPs to import.
 	 * @param sb String builder used to capture information for printed report on upload success.
+	 * @return Whether the outer ZIP may contain more nested ZIPs.
 	 *
-	 * @throws DataAccessException Unexpected DataAccessException.
-	 * @throws IncorrectResultSizeDataAccessException Unexpected IncorrectResultSizeDataAccessException.
-	 * @throws SAXException Unexpected SAXException.
 	 * @throws IOException Unexpected IOException.
-	 * @throws ParserConfigurationException Unexpected ParserConfigurationException.
-	 * @throws FactoryConfigurationError Unexpected FactoryConfigurationError.
+	 * @throws XMLStreamException Unexpected XMLStreamException.
 	 */
-	private static void importFile(final ExecutionContext etk, final ZipFile zf, final StringBuilder sb)
-			throws DataAccessException, IncorrectResultSizeDataAccessException,
-			SAXException, IOException, ParserConfigurationException, FactoryConfigurationError {
-
-		final Document document = DocumentBuilderFactory
-				.newInstance()
-				.newDocumentBuilder()
-				.parse(new InputSource(new InputStreamReader(zf.getInputStream(zf.getEntry("ETK_FILE_METADATA.xml")))));
-
-		final List<Map<String, String>> fileData =
-				ImportExportUtility.getTable(document, "ETK_FILE");
-
-		String fileName = "";
-		Long newFileId;
-		Long oldFileId;
-
-		for(final Map<String, String> etkFile : fileData){
-
-			oldFileId = new Long(etkFile.get("ID"));
-			fileName = etkFile.get("FILE_NAME");
-
-			if (Utility.isSqlServer(etk)) {
-				newFileId = new Long (
-						etk.createSQL("INSERT INTO ETK_FILE "
-								+ "(FILE_NAME, FILE_SIZE, CONTENT_TYPE, FILE_TYPE, FILE_EXTENSION, "
-								+ "OBJECT_TYPE, RESOURCE_PATH, ETK_DM_RESOURCE_ID, "
-								+ "TOKEN, TIME_REQUESTED) VALUES "
-								+ "(:FILE_NAME, :FILE_SIZE, :CONTENT_TYPE, :FILE_TYPE, :FILE_EXTENSION, "
-								+ ":OBJECT_TYPE, :RESOURCE_PATH, :ETK_DM_RESOURCE_ID, "
-								+ ":TOKEN, :TIME_REQUESTED)")
-						.setParameter("FILE_NAME", fileName)
-						.setParameter("FILE_SIZE", etkFile.get("FILE_SIZE"))
-						.setParameter("CONTENT_TYPE", etkFile.get("CONTENT_TYPE"))
-						.setParameter("FILE_TYPE", etkFile.get("FILE_TYPE"))
-						.setParameter("FILE_EXTENSION", etkFile.get("FILE_EXTENSION"))
-						.setParameter("OBJECT_TYPE", etkFile.get("OBJECT_TYPE"))
-						.setParameter("RESOURCE_PATH", etkFile.get("RESOURCE_PATH"))
-						.setParameter("ETK_DM_RESOURCE_ID", etkFile.get("ETK_DM_RESOURCE_ID"))
-						.setParameter("TOKEN", etkFile.get("TOKEN"))
-						.setParameter("TIME_REQUESTED", etkFile.get("TIME_REQUESTED"))
-						.executeForKey("ID"));
+	private static boolean importFiles(final ExecutionContext etk,
+			final ZipInputStream etkZipFileReader,
+			final int maxFiles,
+			final StringBuilder sb) throws IOException, XMLStreamException {
+		int fileCount = 0;
 
+		while (fileCount < maxFiles) {
+			final ZipEntry entry = etkZipFileReader.getNextEntry();
 
-			} else {
-				newFileId =
-						((BigDecimal) etk.createSQL("select object_id.nextval from dual").fetchObject()).longValue();
-
-				etk.createSQL("INSERT INTO ETK_FILE "
-						+ "(ID, FILE_NAME, FILE_SIZE, CONTENT_TYPE, FILE_TYPE, FILE_EXTENSION, "
-						+ "OBJECT_TYPE, RESOURCE_PATH, ETK_DM_RESOURCE_ID, "
-						+ "TOKEN, TIME_REQUESTED) VALUES "
-						+ "(:ID, :FILE_NAME, :FILE_SIZE, :CONTENT_TYPE, :FILE_TYPE, :FILE_EXTENSION, "
-						+ ":OBJECT_TYPE, :RESOURCE_PATH, :ETK_DM_RESOURCE_ID, "
-						+ ":TOKEN, :TIME_REQUESTED)")
-				.setParameter("ID", newFileId)
-				.setParameter("FILE_NAME", fileName)
-				.setParameter("FILE_SIZE", etkFile.get("FILE_SIZE"))
-				.setParameter("CONTENT_TYPE", etkFile.get("CONTENT_TYPE"))
-				.setParameter("FILE_TYPE", etkFile.get("FILE_TYPE"))
-				.setParameter("FILE_EXTENSION", etkFile.get("FILE_EXTENSION"))
-				.setParameter("OBJECT_TYPE", etkFile.get("OBJECT_TYPE"))
-				.setParameter("RESOURCE_PATH", etkFile.get("RESOURCE_PATH"))
-				.setParameter("ETK_DM_RESOURCE_ID", etkFile.get("ETK_DM_RESOURCE_ID"))
-				.setParameter("TOKEN", etkFile.get("TOKEN"))
-				.setParameter("TIME_REQUESTED", etkFile.get("TIME_REQUESTED"))
-				.execute();
+			if (entry == null) {
+				return false;
 			}
 
-			com.entellitrak.file.File uploadedFile = etk.getFileService().get(newFileId);
-			uploadedFile.setContent(zf.getInputStream(zf.getEntry(fileName)));
-			etk.getFileService().update(uploadedFile);
-
-			if (Utility.isSqlServer(etk)) {
-				etk.createSQL(
-						"insert into T_AEA_RDO_FILE_STAGING (C_CODE, C_ETK_FILE_ID, C_SOURCE_SYSTEM_ID, C_NAME) "
-								+ "VALUES (:code, :newFileID, :oldFileId, :fileName) ")
-				.setParameter("code", oldFileId + "_" + fileName)
-				.setParameter("newFileID", newFileId)
-				.setParameter("oldFileId", oldFileId)
-				.setParameter("fileName", fileName)
-				.execute();
+			sb.append("Processing ETK_FILE ZIP = " + StringEscapeUtils.escapeHtml(entry.getName()));
+			sb.append(NEWLINE_CHAR);
+
+			importFile(etk, new ZipInputStream(new CloseShieldInputStream(etkZipFileReader)), sb);
+			fileCount++;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Private utility method to import files attached to RDO records into T_AEA_RDO_FILE_STAGING.
+	 * ETK_FILE_METADATA.xml must precede the file content within the ZIP, which is how RDO exports are written.
+	 *
+	 * @param etk ExecutionContext.
+	 * @param fileZip Zip file containing files attached to RDO records.
+	 * @param sb String builder used to capture information for printed report on upload success.
+	 *
+	 * @throws IOException Unexpected IOException.
+	 * @throws XMLStreamException Unexpected XMLStreamException.
+	 */
+	private static void importFile(final ExecutionContext etk, final ZipInputStream fileZip, final StringBuilder sb)
+			throws IOException, XMLStreamException {
+
+		List<Map<String, String>> fileData = null;
+		final Set<Map<String, String>> importedFiles = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		ZipEntry entry;
+		while ((entry = fileZip.getNextEntry()) != null) {
+			if ("ETK_FILE_METADATA.xml".equals(entry.getName())) {
+				fileData = readFileMetadata(new CloseShieldInputStream(fileZip));
+			} else if (fileData == null) {
+				throw new IOException("ETK_FILE_METADATA.xml was not found before the content of file "
+						+ entry.getName());
 			} else {
-				etk.createSQL(
-						"insert into T_AEA_RDO_FILE_STAGING (ID, C_CODE, C_ETK_FILE_ID, C_SOURCE_SYSTEM_ID, C_NAME) "
-								+ "VALUES (object_id.nextval, :code, :newFileID, :oldFileId, :fileName) ")
-				.setParameter("code", oldFileId + "_" + fileName)
-				.setParameter("newFileID", newFileId)
-				.setParameter("oldFileId", oldFileId)
-				.setParameter("fileName", fileName)
-				.execute();
+				for (final Map<String, String> etkFile : fileData) {
+					if (entry.getName().equals(etkFile.get("FILE_NAME")) && importedFiles.add(etkFile)) {
+						importEtkFile(etk, etkFile, new CloseShieldInputStream(fileZip), sb);
+						break;
+					}
+				}
 			}
+		}
 
-			sb.append("Successfully imported ETK_FILE with name = \"");
-			sb.append(StringEscapeUtils.escapeHtml(fileName));
-			sb.append("\", Source ETK_FILE ID = \"");
-			sb.append(oldFileId);
-			sb.append("\", New ETK_FILE ID = \"");
-			sb.append(newFileId);
-			sb.append("\"");
-			sb.append(NEWLINE_CHAR);
-			sb.append(NEWLINE_CHAR);
+		if (fileData == null) {
+			throw new IOException("ETK_FILE_METADATA.xml was not found");
 		}
+
+		for (final Map<String, String> etkFile : fileData) {
+			if (!importedFiles.contains(etkFile)) {
+				throw new IOException("The content of file " + etkFile.get("FILE_NAME") + " was not found");
+			}
+		}
+	}
+
+	/**
+	 * Reads the ETK_FILE rows from an ETK_FILE_METADATA.xml written by {@link RdoExportLogic}.
+	 *
+	 * @param inputStream The XML.
+	 * @return The ETK_FILE rows, keyed by column name.
+	 * @throws XMLStreamException Unexpected XMLStreamException.
+	 */
+	private static List<Map<String, String>> readFileMetadata(final InputStream inputStream)
+			throws XMLStreamException {
+		final int rowDepth = 3;
+		final int columnDepth = 4;
+
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+		final XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
+
+		final List<Map<String, String>> fileData = new ArrayList<>();
+
+		try {
+			Map<String, String> row = null;
+			String columnName = null;
+			StringBuilder columnValue = null;
+			boolean inFileTable = false;
+			int depth = 0;
+
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						depth++;
+
+						if (depth == rowDepth - 1) {
+							inFileTable = "ETK_FILE".equals(reader.getLocalName());
+						} else if (depth == rowDepth && inFileTable) {
+							row = new HashMap<>();
+						} else if (depth == columnDepth && row != null) {
+							columnName = reader.getLocalName();
+							columnValue = null;
+						}
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+						if (depth == columnDepth && columnName != null) {
+							if (columnValue == null) {
+								columnValue = new StringBuilder();
+							}
+							columnValue.append(reader.getText());
+						}
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						if (depth == columnDepth && columnName != null) {
+							row.put(columnName, columnValue == null ? null : columnValue.toString());
+							columnName = null;
+						} else if (depth == rowDepth && row != null) {
+							fileData.add(row);
+							row = null;
+						}
+
+						depth--;
+						break;
+					default:
+						break;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+
+		return fileData;
+	}
+
+	/**
+	 * Imports a single file attached to an RDO record into ETK_FILE and T_AEA_RDO_FILE_STAGING.
+	 *
+	 * @param etk ExecutionContext.
+	 * @param etkFile The ETK_FILE row from the source system.
+	 * @param content The content of the file.
+	 * @param sb String builder used to capture information for printed report on upload success.
+	 */
+	private static void importEtkFile(final ExecutionContext etk,
+			final Map<String, String> etkFile,
+			final InputStream content,
+			final StringBuilder sb) {
+
+		final Long oldFileId = new Long(etkFile.get("ID"));
+		final String fileName = etkFile.get("FILE_NAME");
+		final Long newFileId;
+
+		if (Utility.isSqlServer(etk)) {
+			newFileId = new Long (
+					etk.createSQL("INSERT INTO ETK_FILE "
+							+ "(FILE_NAME, FILE_SIZE, CONTENT_TYPE, FILE_TYPE, FILE_EXTENSION, "
+							+ "OBJECT_TYPE, RESOURCE_PATH, ETK_DM_RESOURCE_ID, "
+							+ "TOKEN, TIME_REQUESTED) VALUES "
+							+ "(:FILE_NAME, :FILE_SIZE, :CONTENT_TYPE, :FILE_TYPE, :FILE_EXTENSION, "
+							+ ":OBJECT_TYPE, :RESOURCE_PATH, :ETK_DM_RESOURCE_ID, "
+							+ ":TOKEN, :TIME_REQUESTED)")
+					.setParameter("FILE_NAME", fileName)
+					.setParameter("FILE_SIZE", etkFile.get("FILE_SIZE"))
+					.setParameter("CONTENT_TYPE", etkFile.get("CONTENT_TYPE"))
+					.setParameter("FILE_TYPE", etkFile.get("FILE_TYPE"))
+					.setParameter("FILE_EXTENSION", etkFile.get("FILE_EXTENSION"))
+					.setParameter("OBJECT_TYPE", etkFile.get("OBJECT_TYPE"))
+					.setParameter("RESOURCE_PATH", etkFile.get("RESOURCE_PATH"))
+					.setParameter("ETK_DM_RESOURCE_ID", etkFile.get("ETK_DM_RESOURCE_ID"))
+					.setParameter("TOKEN", etkFile.get("TOKEN"))
+					.setParameter("TIME_REQUESTED", etkFile.get("TIME_REQUESTED"))
+					.executeForKey("ID"));
+
+
+		} else {
+			newFileId =
+					((BigDecimal) etk.createSQL("select object_id.nextval from dual").fetchObject()).longValue();
+
+			etk.createSQL("INSERT INTO ETK_FILE "
+					+ "(ID, FILE_NAME, FILE_SIZE, CONTENT_TYPE, FILE_TYPE, FILE_EXTENSION, "
+					+ "OBJECT_TYPE, RESOURCE_PATH, ETK_DM_RESOURCE_ID, "
+					+ "TOKEN, TIME_REQUESTED) VALUES "
+					+ "(:ID, :FILE_NAME, :FILE_SIZE, :CONTENT_TYPE, :FILE_TYPE, :FILE_EXTENSION, "
+					+ ":OBJECT_TYPE, :RESOURCE_PATH, :ETK_DM_RESOURCE_ID, "
+					+ ":TOKEN, :TIME_REQUESTED)")
+			.setParameter("ID", newFileId)
+			.setParameter("FILE_NAME", fileName)
+			.setParameter("FILE_SIZE", etkFile.get("FILE_SIZE"))
+			.setParameter("CONTENT_TYPE", etkFile.get("CONTENT_TYPE"))
+			.setParameter("FILE_TYPE", etkFile.get("FILE_TYPE"))
+			.setParameter("FILE_EXTENSION", etkFile.get("FILE_EXTENSION"))
+			.setParameter("OBJECT_TYPE", etkFile.get("OBJECT_TYPE"))
+			.setParameter("RESOURCE_PATH", etkFile.get("RESOURCE_PATH"))
+			.setParameter("ETK_DM_RESOURCE_ID", etkFile.get("ETK_DM_RESOURCE_ID"))
+			.setParameter("TOKEN", etkFile.get("TOKEN"))
+			.setParameter("TIME_REQUESTED", etkFile.get("TIME_REQUESTED"))
+			.execute();
+		}
+
+		com.entellitrak.file.File uploadedFile = etk.getFileService().get(newFileId);
+		uploadedFile.setContent(content);
+		etk.getFileService().update(uploadedFile);
+
+		if (Utility.isSqlServer(etk)) {
+			etk.createSQL(
+					"insert into T_AEA_RDO_FILE_STAGING (C_CODE, C_ETK_FILE_ID, C_SOURCE_SYSTEM_ID, C_NAME) "
+							+ "VALUES (:code, :newFileID, :oldFileId, :fileName) ")
+			.setParameter("code", oldFileId + "_" + fileName)
+			.setParameter("newFileID", newFileId)
+			.setParameter("oldFileId", oldFileId)
+			.setParameter("fileName", fileName)
+			.execute();
+		} else {
+			etk.createSQL(
+					"insert into T_AEA_RDO_FILE_STAGING (ID, C_CODE, C_ETK_FILE_ID, C_SOURCE_SYSTEM_ID, C_NAME) "
+							+ "VALUES (object_id.nextval, :code, :newFileID, :oldFileId, :fileName) ")
+			.setParameter("code", oldFileId + "_" + fileName)
+			.setParameter("newFileID", newFileId)
+			.setParameter("oldFileId", oldFileId)
+			.setParameter("fileName", fileName)
+			.execute();
+		}
+
+		sb.append("Successfully imported ETK_FILE with name = \"");
+		sb.append(StringEscapeUtils.escapeHtml(fileName));
+		sb.append("\", Source ETK_FILE ID = \"");
+		sb.append(oldFileId);
+		sb.append("\", New ETK_FILE ID = \"");
+		sb.append(newFileId);
+		sb.append("\"");
+		sb.append(NEWLINE_CHAR);
+		sb.append(NEWLINE_CHAR);
 	}
 }
@@ -0,0 +1,110 @@
+package net.micropact.aea.dbUtils.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+import com.entellitrak.ExecutionContext;
+
+/**
+ * <p>
+ *  Executes a database_inserts_N.sql file from an RDO export ZIP while reading it, instead of loading the whole file
+ *  into a script object first.
+ * </p>
+ * <p>
+ *  Each file is a single PLSQL (Oracle) or T-SQL (SQL Server) block: a header which declares variables, the
+ *  statements separated by {@link RdoExportLogic#STATEMENT_SEPERATOR_LINE}, and a footer which closes the block.
+ *  Because the statements depend on the variables declared in the header, they are executed in batches with each
+ *  batch wrapped in the header and a closing for the block. The last batch is closed with the footer of the file,
+ *  which also runs AEA_UPDATE_FILE_REFERENCE_ID when the file contains it.
+ * </p>
+ *
+ * @author MicroPact
+ */
+final class RdoImportSqlExecutor {
+	private static final String NEWLINE_CHAR = "\n";
+
+	/** The maximum number of statements executed in a single block. */
+	static final int STATEMENT_BATCH_SIZE = 200;
+
+	private static final String ORACLE_DECLARE = "declare tempCode";
+	private static final String SQL_SERVER_DECLARE = "declare @tempCode";
+
+	/**
+	 * Private constructor.
+	 */
+	private RdoImportSqlExecutor() {
+	}
+
+	/**
+	 * Execute an RDO export SQL file.
+	 *
+	 * @param etk Execution context.
+	 * @param reader The SQL file.
+	 * @return The number of statements which were executed.
+	 * @throws IOException If the file could not be read.
+	 */
+	static int execute(final ExecutionContext etk, final BufferedReader reader) throws IOException {
+		final StringBuilder header = new StringBuilder();
+		final StringBuilder batch = new StringBuilder();
+		final StringBuilder statement = new StringBuilder();
+
+		boolean inHeader = true;
+		boolean isOracle = false;
+		String batchClosing = "";
+		int batchStatementCount = 0;
+		int statementCount = 0;
+
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (inHeader) {
+				header.append(line);
+				header.append(NEWLINE_CHAR);
+
+				if (line.startsWith(ORACLE_DECLARE)) {
+					isOracle = true;
+				} else if (line.startsWith(SQL_SERVER_DECLARE)) {
+					inHeader = false;
+				} else if (isOracle && "begin".equalsIgnoreCase(line.trim())) {
+					inHeader = false;
+
+					//Statements run inside the "begin" of the header, which may itself be inside an outer BEGIN.
+					batchClosing = header.toString().trim().toUpperCase().startsWith("BEGIN")
+							? "END;" + NEWLINE_CHAR + "END;" + NEWLINE_CHAR
+							: "END;" + NEWLINE_CHAR;
+				}
+			} else if (RdoExportLogic.STATEMENT_SEPERATOR_LINE.equals(line)) {
+				batch.append(statement);
+				statement.setLength(0);
+
+				statementCount++;
+				batchStatementCount++;
+
+				if (batchStatementCount == STATEMENT_BATCH_SIZE) {
+					executeBlock(etk, header.toString() + batch + batchClosing);
+
+					batch.setLength(0);
+					batchStatementCount = 0;
+				}
+			} else {
+				statement.append(line);
+				statement.append(NEWLINE_CHAR);
+			}
+		}
+
+		/* Everything after the last separator is the footer of the file. If the header was never recognized, the
+		 * whole file is in the header and is executed as it is. */
+		executeBlock(etk, header.toString() + batch + statement);
+
+		return statementCount;
+	}
+
+	/**
+	 * Execute a block of SQL.
+	 *
+	 * @param etk Execution context.
+	 * @param sql The SQL.
+	 */
+	private static void executeBlock(final ExecutionContext etk, final String sql) {
+		etk.createSQL(sql).execute();
+	}
+}
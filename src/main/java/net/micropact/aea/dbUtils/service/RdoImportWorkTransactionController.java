@@ -1,21 +1,23 @@
 package net.micropact.aea.dbUtils.service;
 
+import java.io.BufferedReader;
 import java.io.InputStream;
-import java.util.Collection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.CloseShieldInputStream;
 
 import com.entellitrak.ApplicationException;
 import com.entellitrak.ExecutionContext;
 import com.entellitrak.Work;
-import com.entellitrak.configuration.Script;
 
 import net.micropact.aea.core.ioUtility.IOUtility;
-import net.micropact.aea.core.utility.WorkspaceService;
 import net.micropact.aea.utility.Utility;
 
 public class RdoImportWorkTransactionController implements Work {
@@ -33,98 +35,85 @@ public class RdoImportWorkTransactionController implements Work {
 	public void execute(ExecutionContext etk) throws ApplicationException {
 
 		ZipInputStream etkZipFileReader = null;
-		HashMap<String, String> sqlToImport = new HashMap<String, String>();
+		Map<String, Path> sqlToImport = new HashMap<String, Path>();
 
 		try {
-			etkZipFileReader = new ZipInputStream(inputStream);
-
-			ZipEntry entry;
-
-			while ((entry = etkZipFileReader.getNextEntry()) != null) {
-				if ("ETK_FILE_DATA.zip".equals(entry.getName())) {
-					sb.append("Processing ETK_FILE_DATA.zip");
-					sb.append(NEWLINE_CHAR);
-
-					sb.append(RdoImportLogic.uploadInternalZipOfFilesForTwoPartTransfer(etk,
-							new CloseShieldInputStream(etkZipFileReader)));
-
-					sb.append(NEWLINE_CHAR);
-				} else if (entry.getName().startsWith("database_inserts_")) {
-					sb.append("Extracting " + entry.getName());
-					sb.append(NEWLINE_CHAR);
-					sqlToImport.put(entry.getName(), IOUtils.toString(etkZipFileReader, "UTF-8"));
+			try {
+				etkZipFileReader = new ZipInputStream(inputStream);
+
+				ZipEntry entry;
+
+				while ((entry = etkZipFileReader.getNextEntry()) != null) {
+					if ("ETK_FILE_DATA.zip".equals(entry.getName())) {
+						sb.append("Processing ETK_FILE_DATA.zip");
+						sb.append(NEWLINE_CHAR);
+
+						sb.append(RdoImportLogic.uploadInternalZipOfFilesForTwoPartTransfer(etk,
+								new CloseShieldInputStream(etkZipFileReader)));
+
+						sb.append(NEWLINE_CHAR);
+					} else if (entry.getName().startsWith("database_inserts_")) {
+						sb.append("Extracting " + entry.getName());
+						sb.append(NEWLINE_CHAR);
+
+						//The SQL precedes ETK_FILE_DATA.zip in the ZIP but must be executed after it, so it is
+						//spooled to disk instead of being held in memory.
+						final Path sqlFile = Files.createTempFile("rdoImport", ".sql");
+						sqlToImport.put(entry.getName(), sqlFile);
+						Files.copy(etkZipFileReader, sqlFile, StandardCopyOption.REPLACE_EXISTING);
+					}
 				}
-			}
-		} catch (Exception e) {
-
-			Utility.aeaLog(etk, "Error importing ETK_FILE data." + NEWLINE_CHAR + sb.toString());
-
-			throw new ApplicationException (e);
-		} finally {
-			IOUtility.closeQuietly(etkZipFileReader);
-			IOUtility.closeQuietly(inputStream);
-		}
+			} catch (Exception e) {
 
-		sb.append(NEWLINE_CHAR);
-		sb.append("Beginning SQL Import");
-		sb.append(NEWLINE_CHAR);
+				Utility.aeaLog(etk, "Error importing ETK_FILE data." + NEWLINE_CHAR + sb.toString());
 
+				throw new ApplicationException (e);
+			} finally {
+				IOUtility.closeQuietly(etkZipFileReader);
+				IOUtility.closeQuietly(inputStream);
+			}
 
-		Long scriptId = null;
-		int errorCount = 0;
-
-		Collection<Script> scripts =
-			etk.getWorkspaceService().getScripts(etk.getWorkspaceService().getActiveWorkspace());
+			sb.append(NEWLINE_CHAR);
+			sb.append("Beginning SQL Import");
+			sb.append(NEWLINE_CHAR);
 
-		for (Script aScript : scripts) {
-			if ("net.micropact.aea.dbUtils.temp.TemporarySqlForImport"
-					.equalsIgnoreCase(aScript.getFullyQualifiedName())) {
-				scriptId = new Long(aScript.getId());
-				break;
-			}
-		}
+			int errorCount = 0;
 
-		if (scriptId == null) {
-			sb.append("Could not file file net.micropact.aea.dbUtils.temp.TemporarySqlForImport in working repository. "
-					+ "Make sure you have checked out the latest component code from the system repository.");
-			errorCount++;
-		} else {
 			for (int i = 0; i < sqlToImport.size(); i++) {
 				String fileName = "database_inserts_" + i + ".sql";
 				sb.append("Processing file " + fileName);
 				sb.append(NEWLINE_CHAR);
 
-				etk.getLogger().error("RDO Data Importer - Uploading file " + fileName);
+				etk.getLogger().error("RDO Data Importer - Begin execute file " + fileName);
 
+				BufferedReader sqlReader = null;
 
-				//Cannot use SQL to update the TemporarySqlForImport script. executeSQLFromScriptObject will pull
-				//from Hibernate cache on all but the first execution.
-//				etk.createSQL(
-//						"update etk_script_object "
-//								+ " set code = :code, last_updated_on = " +
-//								(Utility.isSqlServer(etk) ? "DBO.ETKF_GETSERVERTIME()" : "ETKF_GETSERVERTIME()")
-//								+ " where script_id = :scriptId ")
-//				.setParameter("code", sqlToImport.get(fileName))
-//				.setParameter("scriptId", scriptId)
-//				.execute();
+				try {
+					sqlReader = Files.newBufferedReader(sqlToImport.get(fileName), StandardCharsets.UTF_8);
 
-				WorkspaceService.updateScriptObject(etk, scriptId, sqlToImport.get(fileName));
+					final int statementCount = RdoImportSqlExecutor.execute(etk, sqlReader);
 
-				try {
-					etk.getLogger().error("RDO Data Importer - Begin execute file " + fileName);
-					etk.executeSQLFromScriptObject("net.micropact.aea.dbUtils.temp.TemporarySqlForImport");
-					etk.getLogger().error("RDO Data Importer - End execute file " + fileName + ", successfully imported.");
+					sb.append("Imported " + statementCount + " statements from file " + fileName);
+					sb.append(NEWLINE_CHAR);
+					etk.getLogger().error("RDO Data Importer - End execute file " + fileName + ", successfully imported "
+							+ statementCount + " statements.");
 				} catch (Exception e) {
 					errorCount++;
 					sb.append("Error processing file " + fileName);
 					sb.append(NEWLINE_CHAR);
 					etk.getLogger().error("RDO Data Importer - error processing file " + fileName, e);
+				} finally {
+					IOUtility.closeQuietly(sqlReader);
 				}
 			}
-		}
 
-		if (errorCount > 0) {
-			throw new ApplicationException("Errors occurred while importing RDO data, rolling back.");
+			if (errorCount > 0) {
+				throw new ApplicationException("Errors occurred while importing RDO data, rolling back.");
+			}
+		} finally {
+			for (Path sqlFile : sqlToImport.values()) {
+				IOUtility.deleteQuietly(sqlFile);
+			}
 		}
 	}
 }
@@ -0,0 +1,359 @@
+package net.micropact.aea.dbUtils.service;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.entellitrak.ExecutionContext;
+import com.entellitrak.legacy.util.StringUtility;
+
+import net.micropact.aea.utility.Utility;
+
+/**
+ * <p>
+ *  Translates the values stored in lookup columns into the UID (C_CODE or configured UID columns) of the referenced
+ *  row during an RDO export. The first time a lookup table is used, its value to UID mapping is loaded with a single
+ *  query, so that rows can then be translated in memory instead of with a query per row and lookup.
+ * </p>
+ * <p>
+ *  The information about each lookup and lookup table which does not depend on the row being exported is also
+ *  remembered for the duration of the export.
+ * </p>
+ * <p>
+ *  Values which are not whole numbers, or which are not found or not unique in the mapping, are not translated so
+ *  that the caller can fall back to querying the row (which also reports any errors).
+ * </p>
+ *
+ * @author MicroPact
+ */
+class RdoLookupTranslationCache {
+
+    /** Alias of the value column in the query which loads a mapping. */
+    private static final String LOOKUP_VALUE_ALIAS = "AEA_LOOKUP_VALUE";
+
+    /** Marks a value which matches more than one row of the lookup table. */
+    private static final Map<String, Object> AMBIGUOUS = new HashMap<>();
+
+    private final Map<String, Map<String, String>> lookupTargets = new HashMap<>();
+    private final Map<String, LookupTable> lookupTables = new HashMap<>();
+    private final Map<String, LongKeyMap<Map<String, Object>>> translations = new HashMap<>();
+
+    /**
+     * Get the reference data table and value column of a lookup which was previously stored with
+     * {@link #putLookupTarget(String, Map)}.
+     *
+     * @param lookupKey identifies the lookup
+     * @return the R_DATA_TABLE and R_DATA_VALUE_COLUMN, or null if they have not been stored
+     */
+    public synchronized Map<String, String> getLookupTarget(final String lookupKey) {
+        return lookupTargets.get(lookupKey);
+    }
+
+    /**
+     * Store the reference data table and value column of a lookup.
+     *
+     * @param lookupKey identifies the lookup
+     * @param lookupTarget the R_DATA_TABLE and R_DATA_VALUE_COLUMN
+     */
+    public synchronized void putLookupTarget(final String lookupKey, final Map<String, String> lookupTarget) {
+        lookupTargets.put(lookupKey, Collections.unmodifiableMap(lookupTarget));
+    }
+
+    /**
+     * Get the information about a lookup table which was previously stored with {@link #putLookupTable(LookupTable)}.
+     *
+     * @param tableName the name of the lookup table
+     * @return the lookup table, or null if it has not been stored
+     */
+    public synchronized LookupTable getLookupTable(final String tableName) {
+        return lookupTables.get(tableName);
+    }
+
+    /**
+     * Store the information about a lookup table.
+     *
+     * @param lookupTable the lookup table
+     */
+    public synchronized void putLookupTable(final LookupTable lookupTable) {
+        lookupTables.put(lookupTable.getTableName(), lookupTable);
+    }
+
+    /**
+     * Get the UID column values of the row of a lookup table which a lookup value refers to.
+     *
+     * @param etk entellitrak execution context
+     * @param lookupTable the lookup table
+     * @param valueColumn the column of the lookup table which is stored in the lookup column
+     * @param value the value stored in the lookup column
+     * @return the UID column values keyed by column name, or null if the value could not be translated
+     */
+    public Map<String, Object> getUidValues(final ExecutionContext etk,
+            final LookupTable lookupTable,
+            final String valueColumn,
+            final Object value) {
+        final Long key = toKey(value);
+
+        if (key == null) {
+            return null;
+        }
+
+        final Map<String, Object> uidValues = getTranslations(etk, lookupTable, valueColumn).get(key);
+
+        return uidValues == AMBIGUOUS ? null : uidValues;
+    }
+
+    /**
+     * Get the value to UID mapping of a lookup table, loading it if this is the first time it is used.
+     *
+     * @param etk entellitrak execution context
+     * @param lookupTable the lookup table
+     * @param valueColumn the column of the lookup table which is stored in the lookup column
+     * @return the mapping
+     */
+    private synchronized LongKeyMap<Map<String, Object>> getTranslations(final ExecutionContext etk,
+            final LookupTable lookupTable,
+            final String valueColumn) {
+        final String translationsKey = lookupTable.getTableName() + "." + valueColumn;
+
+        LongKeyMap<Map<String, Object>> tableTranslations = translations.get(translationsKey);
+
+        if (tableTranslations == null) {
+            tableTranslations = loadTranslations(etk, lookupTable, valueColumn);
+            translations.put(translationsKey, tableTranslations);
+        }
+
+        return tableTranslations;
+    }
+
+    /**
+     * Load the value to UID mapping of a lookup table.
+     *
+     * @param etk entellitrak execution context
+     * @param lookupTable the lookup table
+     * @param valueColumn the column of the lookup table which is stored in the lookup column
+     * @return the mapping, which is empty if it could not be loaded
+     */
+    private static LongKeyMap<Map<String, Object>> loadTranslations(final ExecutionContext etk,
+            final LookupTable lookupTable,
+            final String valueColumn) {
+        final LongKeyMap<Map<String, Object>> tableTranslations = new LongKeyMap<>();
+        final String tableName = lookupTable.getTableName();
+
+        final String query = "select " + tableName + ".*, " + valueColumn + " as " + LOOKUP_VALUE_ALIAS
+                + " from " + tableName
+                + (StringUtility.isNotBlank(lookupTable.getAdditionalFilterCriteria())
+                        ? " where " + lookupTable.getAdditionalFilterCriteria()
+                        : "");
+
+        final List<Map<String, Object>> rows;
+        try {
+            rows = etk.createSQL(query).fetchList();
+        } catch (final Exception e) {
+            Utility.aeaLog(etk, "Could not load the lookup values of table " + tableName
+                    + ", each value will be queried separately. Query = " + query, e);
+            return tableTranslations;
+        }
+
+        for (final Map<String, Object> row : rows) {
+            final Long key = toKey(row.get(LOOKUP_VALUE_ALIAS));
+
+            if (key != null) {
+                final Map<String, Object> uidValues = new HashMap<>();
+                for (final Map<String, Object> uidColumn : lookupTable.getUidColumns()) {
+                    final String columnName = (String) uidColumn.get("COLUMN_NAME");
+                    uidValues.put(columnName, row.get(columnName));
+                }
+
+                tableTranslations.put(key, tableTranslations.get(key) == null ? uidValues : AMBIGUOUS);
+            }
+        }
+
+        return tableTranslations;
+    }
+
+    /**
+     * Convert a lookup value to a key of the mapping.
+     *
+     * @param value the lookup value
+     * @return the key, or null if the value is not a whole number
+     */
+    private static Long toKey(final Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof BigDecimal) {
+            try {
+                return ((BigDecimal) value).longValueExact();
+            } catch (final ArithmeticException e) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * The information about a lookup table which is needed to translate lookup values into UIDs.
+     *
+     * @author MicroPact
+     */
+    static final class LookupTable {
+
+        private final String tableName;
+        private final String additionalFilterCriteria;
+        private final List<Map<String, Object>> uidColumns;
+
+        /**
+         * Constructor.
+         *
+         * @param theTableName the name of the lookup table
+         * @param theAdditionalFilterCriteria any additional filter criteria to limit the rows of the table
+         * @param theUidColumns the UID columns of the table, keyed by COLUMN_NAME. Empty if the table does not
+         *          have any, in which case the raw value will be exported.
+         */
+        LookupTable(final String theTableName,
+                final String theAdditionalFilterCriteria,
+                final List<Map<String, Object>> theUidColumns) {
+            tableName = theTableName;
+            additionalFilterCriteria = theAdditionalFilterCriteria;
+            uidColumns = Collections.unmodifiableList(theUidColumns);
+        }
+
+        /**
+         * Get the name of the lookup table.
+         *
+         * @return the name of the lookup table
+         */
+        String getTableName() {
+            return tableName;
+        }
+
+        /**
+         * Get any additional filter criteria to limit the rows of the table.
+         *
+         * @return the additional filter criteria
+         */
+        String getAdditionalFilterCriteria() {
+            return additionalFilterCriteria;
+        }
+
+        /**
+         * Get the UID columns of the table.
+         *
+         * @return the UID columns, keyed by COLUMN_NAME
+         */
+        List<Map<String, Object>> getUidColumns() {
+            return uidColumns;
+        }
+    }
+
+    /**
+     * A hash map with primitive long keys, which avoids boxing every key of a large lookup table.
+     * Values may not be null.
+     *
+     * @param <V> type of the values
+     *
+     * @author MicroPact
+     */
+    private static final class LongKeyMap<V> {
+
+        private static final int INITIAL_CAPACITY = 16;
+        private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private int size;
+
+        /**
+         * Get the value of a key.
+         *
+         * @param key the key
+         * @return the value, or null if there is none
+         */
+        @SuppressWarnings("unchecked")
+        V get(final long key) {
+            int index = indexOf(key, keys.length);
+
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    return (V) values[index];
+                }
+                index = (index + 1) & (keys.length - 1);
+            }
+
+            return null;
+        }
+
+        /**
+         * Set the value of a key.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void put(final long key, final V value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+
+            if (insert(keys, values, key, value)) {
+                size++;
+            }
+        }
+
+        /**
+         * Double the capacity of the map.
+         */
+        private void resize() {
+            final long[] newKeys = new long[keys.length * 2];
+            final Object[] newValues = new Object[values.length * 2];
+
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] != null) {
+                    insert(newKeys, newValues, keys[i], values[i]);
+                }
+            }
+
+            keys = newKeys;
+            values = newValues;
+        }
+
+        /**
+         * Set the value of a key in a pair of arrays.
+         *
+         * @param theKeys the keys
+         * @param theValues the values
+         * @param key the key
+         * @param value the value
+         * @return whether the key was added (as opposed to replaced)
+         */
+        private static boolean insert(final long[] theKeys, final Object[] theValues, final long key,
+                final Object value) {
+            int index = indexOf(key, theKeys.length);
+
+            while (theValues[index] != null) {
+                if (theKeys[index] == key) {
+                    theValues[index] = value;
+                    return false;
+                }
+                index = (index + 1) & (theKeys.length - 1);
+            }
+
+            theKeys[index] = key;
+            theValues[index] = value;
+            return true;
+        }
+
+        /**
+         * Get the preferred index of a key.
+         *
+         * @param key the key
+         * @param capacity the capacity of the map, a power of 2
+         * @return the index
+         */
+        private static int indexOf(final long key, final int capacity) {
+            final long hash = key * HASH_MULTIPLIER;
+            return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.entellitrak.page.PageController;
 import com.entellitrak.page.Response;
 import com.entellitrak.page.TextResponse;
 
+import net.micropact.aea.core.cache.ICacheStatistics;
 import net.micropact.aea.utility.JsonUtilities;
 
 /**
@@ -126,6 +127,7 @@ public class CacheFetchDataAjaxController implements PageController {
      *   className: "java.lang.String",
      *   value: "Hello World!"}
      *  </pre>
+     * Objects which implement {@link ICacheStatistics} are described as a map of their statistics.
      * @param object The object to build a description for
      * @return A map with a description of the object.
      */
@@ -135,6 +137,10 @@ public class CacheFetchDataAjaxController implements PageController {
         if(object == null){
             // Handle null
             map.put("type", null);
+        }else if(object instanceof ICacheStatistics){
+            // Handle caches which keep statistics, such as their hit ratio
+            map.putAll(buildDescription(((ICacheStatistics) object).getStatistics()));
+            map.put("className", object.getClass().getName());
         }else if(object instanceof Map<?, ?>){
             // Handle Maps
             map.put("type", "map");
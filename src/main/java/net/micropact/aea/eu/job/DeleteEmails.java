@@ -5,6 +5,7 @@ import com.entellitrak.scheduler.JobHandler;
 import com.entellitrak.scheduler.SchedulerExecutionContext;
 
 import net.micropact.aea.core.cache.AeaCoreConfiguration;
+import net.micropact.aea.utility.FileType;
 import net.micropact.aea.utility.Utility;
 
 /**
@@ -34,6 +35,17 @@ public class DeleteEmails implements JobHandler {
         etk.createSQL("DELETE FROM t_eu_queue_attachment WHERE NOT EXISTS( SELECT * FROM t_eu_email_queue WHERE t_eu_email_queue.id = t_eu_queue_attachment.c_email_queue_id )")
         .execute();
 
+        /* Attachments with identical content share a single etk_file. If the attachment which etk_file.reference_id
+         * points to was deleted but other attachments still use the file, point the file at one of the survivors so
+         * that it is not treated as an orphaned file. */
+        etk.createSQL("UPDATE etk_file SET reference_id = (SELECT MIN(queueAttachment.id) FROM t_eu_queue_attachment queueAttachment WHERE queueAttachment.c_file = etk_file.id) WHERE object_type = 'T_EU_QUEUE_ATTACHMENT' AND NOT EXISTS(SELECT * FROM t_eu_queue_attachment queueAttachment WHERE queueAttachment.id = etk_file.reference_id) AND EXISTS(SELECT * FROM t_eu_queue_attachment queueAttachment WHERE queueAttachment.c_file = etk_file.id)")
+        .execute();
+
+        /* Delete any attachment files which are no longer used by any attachment */
+        etk.createSQL("DELETE FROM etk_file WHERE object_type = 'T_EU_QUEUE_ATTACHMENT' AND file_type <> :documentManagementFileType AND NOT EXISTS(SELECT * FROM t_eu_queue_attachment queueAttachment WHERE queueAttachment.c_file = etk_file.id)")
+        .setParameter("documentManagementFileType", FileType.DOCUMENT_MANAGEMENT_FILE.getEntellitrakNumber())
+        .execute();
+
         /* Delete any queue addresses which are not referenced anywhere */
         etk.createSQL("DELETE FROM t_eu_queue_address WHERE NOT EXISTS(SELECT * FROM t_eu_email_queue WHERE c_from_address = t_eu_queue_address.id)")
             .execute();
@@ -1,33 +1,71 @@
 package net.micropact.aea.eu.utility;
 
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.mail.internet.InternetAddress;
 
 import com.entellitrak.ApplicationException;
 import com.entellitrak.DataAccessException;
 import com.entellitrak.ExecutionContext;
+import com.entellitrak.SQLFacade;
+import com.entellitrak.Work;
+import com.entellitrak.WorkExecutionException;
+import com.entellitrak.mail.Attachment;
+import com.entellitrak.mail.Mail;
 
-import net.entellitrak.aea.eu.AttachmentFactory;
-import net.entellitrak.aea.eu.EmailQueue;
 import net.entellitrak.aea.eu.IAttachment;
+import net.entellitrak.aea.eu.IEmail;
 import net.entellitrak.aea.eu.SimpleEmail;
 import net.entellitrak.aea.exception.EmailException;
 import net.micropact.aea.core.cache.AeaCoreConfiguration;
+import net.micropact.aea.core.enums.AeaCoreConfigurationItem;
 import net.micropact.aea.core.exceptionTools.ExceptionUtility;
+import net.micropact.aea.core.query.Coersion;
+import net.micropact.aea.core.query.InClauseInfo;
+import net.micropact.aea.core.query.QueryUtility;
+import net.micropact.aea.eu.attachment.ByteArrayAttachment;
+import net.micropact.aea.eu.attachment.DocumentManagementAttachment;
+import net.micropact.aea.utility.FileType;
 import net.micropact.aea.utility.Utility;
 
 /**
  * This class provides a common location for code related to sending items in the EU Email Queue since there
  * is more than one place which does this, and the logic is a little involved and changes frequently.
  *
+ * <p>
+ *  Emails are sent in batches. Each batch is claimed, sent and has its status recorded within its own unit of work
+ *  so that database locks are only held for a single batch and other senders skip the rows which are already claimed.
+ *  The emails are sent on the calling thread because the mail service belongs to its execution context.
+ *  Emails are handed to the email server before their status is committed, so if the commit fails the emails of that
+ *  batch are sent again by the next run.
+ * </p>
+ *
  * @author zmiller
  */
 public final class EmailQueueSender {
 
+    /**
+     * Maximum number of emails which may fail within a single run. The ids of failed emails are bound to the claim
+     * query to keep them from being claimed again, so this keeps the query below the parameter limit of SQL Server.
+     * Once it is reached the run stops and the remaining emails are left for the next run.
+     */
+    private static final int MAX_FAILED_EMAILS_PER_RUN = 1000;
+
+    /**
+     * Oracle locks every row which a SKIP LOCKED query returns, so on Oracle the queue is read in windows of at most
+     * the number of emails which still need to be claimed. This is the maximum number of windows a single batch reads,
+     * which bounds the time spent stepping over rows that other senders have already claimed.
+     */
+    private static final int MAX_CLAIM_WINDOWS_PER_BATCH = 100;
+
     /** Hide the default constructor for Utility classes. */
     private EmailQueueSender(){}
 
@@ -56,7 +94,8 @@ public final class EmailQueueSender {
     /**
      * This method attempts to send emails in the Email Queue. Which emails it attempts to send is partially controlled
      * by the AEA - CORE - Configuration RDO. For instance it will stop attempting to send emails  with status error
-     * which are more than a certain age.
+     * which are more than a certain age. The size of each batch is also controlled by the AEA - CORE - Configuration
+     * RDO.
      *
      * @param etk entellitrak Execution Context
      * @param onlySendErrors This indicates what type of emails we want to send.
@@ -65,64 +104,396 @@ public final class EmailQueueSender {
      * @throws EmailException If any errors were encountered
      */
     public static void sendQueuedEmails(final ExecutionContext etk, final boolean onlySendErrors) throws EmailException{
+        final int batchSize;
+        final Long minutesUntilAbortResending;
+
+        try {
+            batchSize = (int) Math.max(1, AeaCoreConfiguration.getEuSendEmailsBatchSize(etk));
+            minutesUntilAbortResending = AeaCoreConfiguration.getEuMinutesUntilAbortResendingErrors(etk);
+        } catch (final ApplicationException e) {
+            throw new EmailException(e);
+        }
+
+        /* Emails which have failed in this run. They stay in the queue with status error so we need to remember them
+         * in order to not pick them up again. Emails which were sent are excluded by their status. */
+        final Set<Long> failedEmailQueueIds = new HashSet<>();
+
+        try {
+            int claimedCount;
+            do {
+                final SendBatchWork sendBatchWork = new SendBatchWork(onlySendErrors,
+                        minutesUntilAbortResending,
+                        batchSize,
+                        failedEmailQueueIds);
+
+                etk.doWork(sendBatchWork);
 
-        /* Get the emails that need to be sent */
-        List<Map<String, Object>> emailQueues; /*EMAILQUEUEID, SUBJECT, BODY, RECIPIENTS, CCRECIPIENTS, BCCRECIPIENTS*/
+                claimedCount = sendBatchWork.getClaimedCount();
+            } while (claimedCount > 0 && failedEmailQueueIds.size() < MAX_FAILED_EMAILS_PER_RUN);
+
+            if(failedEmailQueueIds.size() >= MAX_FAILED_EMAILS_PER_RUN){
+                etk.getLogger().error(String.format("Stopped sending emails from the Email Queue after %s emails failed. The remaining emails will be sent by the next run.",
+                        failedEmailQueueIds.size()));
+            }
+        } catch (final WorkExecutionException e) {
+            throw new EmailException(e);
+        }
+    }
+
+    /**
+     * Converts an {@link IEmail} into a {@link Mail} which is ready to be handed to the email server.
+     * The attachment contents are read into the {@link Mail} by this method, so the {@link Mail} can be sent without
+     * further database access.
+     *
+     * @param etk entellitrak execution context
+     * @param email the email
+     * @return the mail, or null if there is nothing to send because emails are disabled or there are no recipients
+     * @throws EmailException If any problem occurs
+     */
+    public static Mail createMail(final ExecutionContext etk, final IEmail email) throws EmailException{
         try {
+            if(!AeaCoreConfiguration.isEuEmailEnabled(etk)){
+                etk.getLogger().error(
+                        String.format("An email has not been sent to the email server because emails are not enabled. If you want emails sent you must set the \"%s\" option in the \"AEA CORE Configuration\" RDO.", AeaCoreConfigurationItem.EU_ENABLE_EMAIL.getCode()));
+                return null;
+            }
+
+            final Collection<String> recipients = InternetAddressUtility.toTextCollection(email.getRecipients());
+            final Collection<String> ccRecipients =
+                    InternetAddressUtility.toTextCollection(email.getCcRecipients());
+            final Collection<String> bccRecipients =
+                    InternetAddressUtility.toTextCollection(email.getBccRecipients());
+
+            if(recipients.isEmpty()
+                    && ccRecipients.isEmpty()
+                    && bccRecipients.isEmpty()){
+                return null;
+            }
+
+            final Mail mail = etk.getMailService().createMail();
+
+            for(final String recipient : recipients){
+                mail.addTo(recipient);
+            }
+
+            for(final String ccRecipient : ccRecipients){
+                mail.addCc(ccRecipient);
+            }
+
+            for(final String bccRecipient : bccRecipients){
+                mail.addBcc(bccRecipient);
+            }
+
+            mail.setSubject(email.getSubject());
+            mail.setMessage(email.getBody());
+            mail.setHtmlMessage(true);
+
+            final InternetAddress fromAddress = email.getFrom();
+            if(fromAddress != null){
+                mail.setFrom(etk.getMailService().createInternetAddress(
+                        fromAddress.getAddress(),
+                        fromAddress.getPersonal()));
+            }
+
+            for(final IAttachment attachment : email.getAttachments()){
+                try (InputStream contentStream = attachment.getContent()) {
+                    mail.addAttachment(
+                            new Attachment(attachment.getName(),
+                                    FileUtility.toByteArray(etk, contentStream)));
+                } catch (final Exception e) {
+                    throw new EmailException(String.format("Error getting attachment with name: \"%s\"", attachment.getName()),
+                            e);
+                }
+            }
+
+            return mail;
+        } catch (final EmailException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new EmailException("Error encountered creating email.", e);
+        }
+    }
+
+    /**
+     * Unit of work which claims a single batch of emails, sends them and records the outcome.
+     *
+     * @author zmiller
+     */
+    private static final class SendBatchWork implements Work {
+
+        private final boolean onlySendErrors;
+        private final Long minutesUntilAbortResending;
+        private final int batchSize;
+        private final Set<Long> failedEmailQueueIds;
+
+        private int claimedCount;
+
+        /**
+         * Constructor.
+         *
+         * @param isOnlySendErrors whether only emails with status error should be sent
+         * @param theMinutesUntilAbortResending minutes after which errors are no longer resent, may be null
+         * @param theBatchSize maximum number of emails to claim
+         * @param theFailedEmailQueueIds ids of emails which have already failed in this run, this batch's failures
+         *          will be added to it
+         */
+        SendBatchWork(final boolean isOnlySendErrors,
+                final Long theMinutesUntilAbortResending,
+                final int theBatchSize,
+                final Set<Long> theFailedEmailQueueIds){
+            onlySendErrors = isOnlySendErrors;
+            minutesUntilAbortResending = theMinutesUntilAbortResending;
+            batchSize = theBatchSize;
+            failedEmailQueueIds = theFailedEmailQueueIds;
+        }
+
+        /**
+         * The number of emails which this batch claimed.
+         *
+         * @return the number of emails which this batch claimed
+         */
+        int getClaimedCount(){
+            return claimedCount;
+        }
+
+        @Override
+        public void execute(final ExecutionContext etk) throws ApplicationException {
+            /*EMAILQUEUEID, SUBJECT, BODY, RECIPIENTS, CCRECIPIENTS, BCCRECIPIENTS, FROMID, FROMADDRESS, FROMPERSONAL*/
+            final List<Map<String, Object>> emailQueues = claimEmails(etk);
+            claimedCount = emailQueues.size();
+
+            if(emailQueues.isEmpty()){
+                return;
+            }
+
+            final List<Long> emailQueueIds = new ArrayList<>();
+            for(final Map<String, Object> emailQueue : emailQueues){
+                emailQueueIds.add(Coersion.toLong(emailQueue.get("EMAILQUEUEID")));
+            }
+
+            final Map<Long, Collection<IAttachment>> attachments = loadAttachments(etk, emailQueueIds);
+
+            final List<Long> sentIds = new ArrayList<>();
+
+            for(final Map<String, Object> emailQueue : emailQueues){
+                final long emailQueueId = Coersion.toLong(emailQueue.get("EMAILQUEUEID"));
+                try {
+                    final InternetAddress fromAddress;
+                    final Object fromId = emailQueue.get("FROMID");
+                    if(fromId == null){
+                        fromAddress = null;
+                    }else{
+                        fromAddress = new InternetAddress(
+                                (String) emailQueue.get("FROMADDRESS"),
+                                (String) emailQueue.get("FROMPERSONAL"));
+                    }
+
+                    final Mail mail = createMail(etk, new SimpleEmail(etk,
+                            (String) emailQueue.get("SUBJECT"),
+                            (String) emailQueue.get("BODY"),
+                            fromAddress,
+                            emailQueue.get("RECIPIENTS"),
+                            emailQueue.get("CCRECIPIENTS"),
+                            emailQueue.get("BCCRECIPIENTS"),
+                            attachments.getOrDefault(emailQueueId, new LinkedList<>())));
+
+                    if(mail != null){
+                        etk.getMailService().send(mail);
+                    }
+                    sentIds.add(emailQueueId);
+                } catch (final Exception exception) {
+                    logError(etk, String.valueOf(emailQueueId), exception);
+                }
+            }
+
+            markSent(etk, sentIds);
+
+            final Set<Long> failedIds = new HashSet<>(emailQueueIds);
+            failedIds.removeAll(sentIds);
+            failedEmailQueueIds.addAll(failedIds);
+        }
+
+        /**
+         * Claims the next batch of emails. Rows which are locked by another sender are skipped.
+         *
+         * @param etk entellitrak execution context
+         * @return the claimed emails
+         * @throws ApplicationException If there was an underlying {@link ApplicationException}
+         */
+        private List<Map<String, Object>> claimEmails(final ExecutionContext etk) throws ApplicationException{
+            final boolean isSqlServer = Utility.isSqlServer(etk);
+
+            final String statusCondition;
             if(onlySendErrors){
-                emailQueues = etk.createSQL(Utility.isSqlServer(etk) ? "SELECT eq.id EMAILQUEUEID, eq.c_subject SUBJECT, eq.c_body BODY, eq.c_recipients RECIPIENTS, eq.c_cc_recipients CCRECIPIENTS, eq.c_bcc_recipients BCCRECIPIENTS, fromAddress.id FROMID, fromAddress.c_address FROMADDRESS, fromAddress.c_personal FROMPERSONAL FROM t_eu_email_queue eq WITH ( UPDLOCK ) JOIN t_eu_email_queue_status eqs ON eqs.id = eq.c_status LEFT JOIN t_eu_queue_address fromAddress ON fromAddress.id = eq.c_from_address WHERE eqs.c_code = 'error' ORDER BY eq.c_created_time"
-                        : "SELECT eq.id EMAILQUEUEID, eq.c_subject SUBJECT, eq.c_body BODY, eq.c_recipients RECIPIENTS, eq.c_cc_recipients CCRECIPIENTS, eq.c_bcc_recipients BCCRECIPIENTS, fromAddress.id FROMID, fromAddress.c_address FROMADDRESS, fromAddress.c_personal FROMPERSONAL FROM t_eu_email_queue eq JOIN t_eu_email_queue_status eqs ON eqs.id = eq.c_status LEFT JOIN t_eu_queue_address fromAddress ON fromAddress.id = eq.c_from_address WHERE eqs.c_code = 'error' ORDER BY eq.c_created_time FOR UPDATE ")
-                        .fetchList();
+                statusCondition = "eqs.c_code = 'error'";
             }else{
-                emailQueues = etk.createSQL(Utility.isSqlServer(etk) ? "SELECT eq.id EMAILQUEUEID, eq.c_subject SUBJECT, eq.c_body BODY, eq.c_recipients RECIPIENTS, eq.c_cc_recipients CCRECIPIENTS, eq.c_bcc_recipients BCCRECIPIENTS, fromAddress.id FROMID, fromAddress.c_address FROMADDRESS, fromAddress.c_personal FROMPERSONAL FROM t_eu_email_queue eq WITH ( UPDLOCK ) JOIN t_eu_email_queue_status eqs ON eqs.id = eq.c_status LEFT JOIN t_eu_queue_address fromAddress ON fromAddress.id = eq.c_from_address WHERE eqs.c_code = 'created' OR (eqs.c_code = 'error' AND (:minutesUntilAbortResending IS NULL OR DATEDIFF(MINUTE, c_created_time, DBO.ETKF_GETSERVERTIME()) <= :minutesUntilAbortResending)) ORDER BY eq.c_created_time "
-                        : "SELECT eq.id EMAILQUEUEID, eq.c_subject SUBJECT, eq.c_body BODY, eq.c_recipients RECIPIENTS, eq.c_cc_recipients CCRECIPIENTS, eq.c_bcc_recipients BCCRECIPIENTS, fromAddress.id FROMID, fromAddress.c_address FROMADDRESS, fromAddress.c_personal FROMPERSONAL FROM t_eu_email_queue eq JOIN t_eu_email_queue_status eqs ON eqs.id = eq.c_status LEFT JOIN t_eu_queue_address fromAddress ON fromAddress.id = eq.c_from_address WHERE eqs.c_code = 'created' OR (eqs.c_code = 'error' AND (:minutesUntilAbortResending IS NULL OR eq.c_created_time >= ETKF_GETSERVERTIME() - :minutesUntilAbortResending * 1 / 24 / 60) ) ORDER BY eq.c_created_time FOR UPDATE")
-                        .setParameter("minutesUntilAbortResending",
-                                AeaCoreConfiguration.getEuMinutesUntilAbortResendingErrors(etk))
-                        .fetchList();
+                statusCondition = isSqlServer
+                        ? "(eqs.c_code = 'created' OR (eqs.c_code = 'error' AND (:minutesUntilAbortResending IS NULL OR DATEDIFF(MINUTE, eq.c_created_time, DBO.ETKF_GETSERVERTIME()) <= :minutesUntilAbortResending)))"
+                          : "(eqs.c_code = 'created' OR (eqs.c_code = 'error' AND (:minutesUntilAbortResending IS NULL OR eq.c_created_time >= ETKF_GETSERVERTIME() - :minutesUntilAbortResending * 1 / 24 / 60)))";
+            }
+
+            final InClauseInfo failedInClause = new InClauseInfo("eq.id", "failedIds",
+                    new ArrayList<>(failedEmailQueueIds));
+            final String failedCondition = failedEmailQueueIds.isEmpty()
+                    ? ""
+                      : String.format(" AND NOT %s", failedInClause.getQueryFragment());
+
+            try {
+                if(isSqlServer){
+                    /* READPAST is applied before TOP, so rows locked by another sender do not use up the batch */
+                    final SQLFacade claimQuery = etk.createSQL(String.format("SELECT TOP (:batchSize) eq.id EMAILQUEUEID, eq.c_subject SUBJECT, eq.c_body BODY, eq.c_recipients RECIPIENTS, eq.c_cc_recipients CCRECIPIENTS, eq.c_bcc_recipients BCCRECIPIENTS, fromAddress.id FROMID, fromAddress.c_address FROMADDRESS, fromAddress.c_personal FROMPERSONAL FROM t_eu_email_queue eq WITH ( UPDLOCK, READPAST, ROWLOCK ) JOIN t_eu_email_queue_status eqs ON eqs.id = eq.c_status LEFT JOIN t_eu_queue_address fromAddress ON fromAddress.id = eq.c_from_address WHERE %s%s ORDER BY eq.c_created_time",
+                            statusCondition,
+                            failedCondition))
+                            .setParameter("batchSize", batchSize)
+                            .setParameter(failedInClause.getParameterMap());
+
+                    if(!onlySendErrors){
+                        claimQuery.setParameter("minutesUntilAbortResending", minutesUntilAbortResending);
+                    }
+
+                    return claimQuery.fetchList();
+                }else{
+                    final List<Long> lockedIds = lockOracleEmails(etk, statusCondition, failedCondition, failedInClause);
+
+                    if(lockedIds.isEmpty()){
+                        return new ArrayList<>();
+                    }
+
+                    final InClauseInfo claimedInClause = new InClauseInfo("eq.id", "emailQueueIds", lockedIds);
+
+                    return etk.createSQL(String.format("SELECT eq.id EMAILQUEUEID, eq.c_subject SUBJECT, eq.c_body BODY, eq.c_recipients RECIPIENTS, eq.c_cc_recipients CCRECIPIENTS, eq.c_bcc_recipients BCCRECIPIENTS, fromAddress.id FROMID, fromAddress.c_address FROMADDRESS, fromAddress.c_personal FROMPERSONAL FROM t_eu_email_queue eq LEFT JOIN t_eu_queue_address fromAddress ON fromAddress.id = eq.c_from_address WHERE %s ORDER BY eq.c_created_time",
+                            claimedInClause.getQueryFragment()))
+                            .setParameter(claimedInClause.getParameterMap())
+                            .fetchList();
+                }
+            } catch (final DataAccessException e) {
+                throw new ApplicationException("Error claiming emails from the Email Queue", e);
             }
-        } catch (final DataAccessException | ApplicationException e) {
-            throw new EmailException(e);
         }
 
-        for(final Map<String, Object> emailQueue : emailQueues){
-            try{
-                final List<Map<String, Object>> emailQueueAttachments = etk.createSQL("SELECT C_FILE FROM t_eu_queue_attachment WHERE c_email_queue_id = :emailQueueId ORDER BY id")
-                        .setParameter("emailQueueId",
-                                emailQueue.get("EMAILQUEUEID")).fetchList();
+        /**
+         * Locks up to batchSize emails on Oracle, skipping rows which are locked by another sender.
+         *
+         * <p>
+         *  Oracle applies ROWNUM before SKIP LOCKED and locks every row a SKIP LOCKED query returns. So the queue is
+         *  read in id order, in windows no larger than the number of emails which are still needed. The ids of each
+         *  window are read without locking them, and then only the rows of the window which are still unlocked and
+         *  still need to be sent are locked. A sender therefore never locks more emails than it sends, and steps over
+         *  the emails which another sender has claimed.
+         * </p>
+         *
+         * @param etk entellitrak execution context
+         * @param statusCondition the condition on the status of the emails
+         * @param failedCondition the condition which excludes emails which have already failed in this run
+         * @param failedInClause the parameters of failedCondition
+         * @return the ids of the locked emails, in id order
+         */
+        private List<Long> lockOracleEmails(final ExecutionContext etk,
+                final String statusCondition,
+                final String failedCondition,
+                final InClauseInfo failedInClause){
+            final List<Long> lockedIds = new ArrayList<>();
+            long lastId = 0;
 
-                final Collection<IAttachment> attachments = new LinkedList<>();
+            for(int window = 0; window < MAX_CLAIM_WINDOWS_PER_BATCH && lockedIds.size() < batchSize; window++){
+                final int windowSize = batchSize - lockedIds.size();
 
-                for(final Map<String, Object> attachment : emailQueueAttachments){
-                    attachments.add(AttachmentFactory.generateAttachment(etk,
-                            ((Number) attachment.get("C_FILE")).longValue()));
+                final SQLFacade windowQuery = etk.createSQL(String.format("SELECT EMAILQUEUEID FROM (SELECT eq.id EMAILQUEUEID FROM t_eu_email_queue eq JOIN t_eu_email_queue_status eqs ON eqs.id = eq.c_status WHERE eq.id > :lastId AND %s%s ORDER BY eq.id) WHERE ROWNUM <= :windowSize",
+                        statusCondition,
+                        failedCondition))
+                        .setParameter("lastId", lastId)
+                        .setParameter("windowSize", windowSize)
+                        .setParameter(failedInClause.getParameterMap());
+
+                if(!onlySendErrors){
+                    windowQuery.setParameter("minutesUntilAbortResending", minutesUntilAbortResending);
                 }
 
-                final InternetAddress fromAddress;
-                final Object fromId = emailQueue.get("FROMID");
-                if(fromId == null){
-                    fromAddress = null;
+                final List<Long> windowIds = QueryUtility.mapsToLongs(windowQuery.fetchList());
+
+                if(windowIds.isEmpty()){
+                    break;
+                }
+
+                /* The conditions are checked again because another sender may have sent the email since it was read */
+                final InClauseInfo windowInClause = new InClauseInfo("eq.id", "windowIds", windowIds);
+                final SQLFacade lockQuery = etk.createSQL(String.format("SELECT eq.id EMAILQUEUEID FROM t_eu_email_queue eq JOIN t_eu_email_queue_status eqs ON eqs.id = eq.c_status WHERE %s AND %s ORDER BY eq.id FOR UPDATE OF eq.id SKIP LOCKED",
+                        windowInClause.getQueryFragment(),
+                        statusCondition))
+                        .setParameter(windowInClause.getParameterMap());
+
+                if(!onlySendErrors){
+                    lockQuery.setParameter("minutesUntilAbortResending", minutesUntilAbortResending);
+                }
+
+                lockedIds.addAll(QueryUtility.mapsToLongs(lockQuery.fetchList()));
+
+                if(windowIds.size() < windowSize){
+                    break;
+                }
+
+                lastId = windowIds.get(windowIds.size() - 1);
+            }
+
+            return lockedIds;
+        }
+
+        /**
+         * Loads the attachments of all emails in the batch with a single query.
+         *
+         * @param etk entellitrak execution context
+         * @param emailQueueIds the ids of the emails in the batch
+         * @return the attachments, grouped by email queue id
+         */
+        private static Map<Long, Collection<IAttachment>> loadAttachments(final ExecutionContext etk,
+                final List<Long> emailQueueIds){
+            final Map<Long, Collection<IAttachment>> attachments = new LinkedHashMap<>();
+            final InClauseInfo emailQueueInClause = new InClauseInfo("queueAttachment.c_email_queue_id",
+                    "emailQueueIds",
+                    emailQueueIds);
+
+            for(final Map<String, Object> attachment : etk.createSQL(String.format("SELECT queueAttachment.c_email_queue_id EMAILQUEUEID, etkFile.id FILEID, etkFile.file_name FILENAME, etkFile.file_type FILETYPE, etkFile.content CONTENT FROM t_eu_queue_attachment queueAttachment JOIN etk_file etkFile ON etkFile.id = queueAttachment.c_file WHERE %s ORDER BY queueAttachment.id",
+                    emailQueueInClause.getQueryFragment()))
+                    .setParameter(emailQueueInClause.getParameterMap())
+                    .fetchList()){
+                final String fileName = (String) attachment.get("FILENAME");
+                final IAttachment emailAttachment;
+
+                if(FileType.DOCUMENT_MANAGEMENT_FILE.getEntellitrakNumber()
+                        == ((Number) attachment.get("FILETYPE")).intValue()){
+                    emailAttachment = new DocumentManagementAttachment(etk,
+                            fileName,
+                            Coersion.toLong(attachment.get("FILEID")));
                 }else{
-                    fromAddress = new InternetAddress(
-                            (String) emailQueue.get("FROMADDRESS"),
-                            (String) emailQueue.get("FROMPERSONAL"));
+                    emailAttachment = new ByteArrayAttachment(fileName, (byte[]) attachment.get("CONTENT"));
                 }
 
-                EmailQueue.sendEmail(etk, new SimpleEmail(etk,
-                        (String) emailQueue.get("SUBJECT"),
-                        (String) emailQueue.get("BODY"),
-                        fromAddress,
-                        emailQueue.get("RECIPIENTS"),
-                        emailQueue.get("CCRECIPIENTS"),
-                        emailQueue.get("BCCRECIPIENTS"),
-                        attachments));
+                attachments.computeIfAbsent(Coersion.toLong(attachment.get("EMAILQUEUEID")),
+                        key -> new LinkedList<>())
+                .add(emailAttachment);
+            }
 
-                etk.createSQL(Utility.isSqlServer(etk) ? "UPDATE t_eu_email_queue SET c_sent_time = DBO.ETKF_GETSERVERTIME(), c_error = NULL, c_status = ( SELECT eqs.id FROM t_eu_email_queue_status eqs WHERE eqs.c_code = 'sent' ) WHERE id = :emailQueueId"
-                        : "UPDATE t_eu_email_queue SET c_sent_time = ETKF_GETSERVERTIME(), c_error = NULL, c_status = (SELECT eqs.id FROM t_eu_email_queue_status eqs WHERE eqs.c_code = 'sent') WHERE id = :emailQueueId ")
-                    .setParameter("emailQueueId", emailQueue.get("EMAILQUEUEID")).execute();
+            return attachments;
+        }
 
-            } catch (final Exception exception){
-                logError(etk, emailQueue.get("EMAILQUEUEID").toString(), exception);
+        /**
+         * Marks emails as having been sent with a single statement.
+         *
+         * @param etk entellitrak execution context
+         * @param sentIds the ids of the emails which were sent
+         */
+        private static void markSent(final ExecutionContext etk, final List<Long> sentIds){
+            if(sentIds.isEmpty()){
+                return;
             }
+
+            final InClauseInfo sentInClause = new InClauseInfo("id", "emailQueueIds", sentIds);
+
+            etk.createSQL(String.format(Utility.isSqlServer(etk) ? "UPDATE t_eu_email_queue SET c_sent_time = DBO.ETKF_GETSERVERTIME(), c_error = NULL, c_status = ( SELECT eqs.id FROM t_eu_email_queue_status eqs WHERE eqs.c_code = 'sent' ) WHERE %s"
+                    : "UPDATE t_eu_email_queue SET c_sent_time = ETKF_GETSERVERTIME(), c_error = NULL, c_status = (SELECT eqs.id FROM t_eu_email_queue_status eqs WHERE eqs.c_code = 'sent') WHERE %s",
+                    sentInClause.getQueryFragment()))
+            .setParameter(sentInClause.getParameterMap())
+            .execute();
         }
     }
 }
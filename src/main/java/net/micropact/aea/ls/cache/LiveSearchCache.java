@@ -0,0 +1,110 @@
+package net.micropact.aea.ls.cache;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.ExecutionContext;
+
+import net.entellitrak.aea.core.cache.CacheManager;
+import net.micropact.aea.core.cache.AeaCoreConfiguration;
+
+/**
+ * Entry point for the values which the Live Search component keeps in the entellitrak cache.
+ *
+ * @author MicroPact
+ */
+public final class LiveSearchCache {
+
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    /**
+     * Utility classes do not need public constructors.
+     */
+    private LiveSearchCache() {}
+
+    /**
+     * Get the cache of Live Search candidates.
+     *
+     * @param etk entellitrak execution context
+     * @return the cache
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static LiveSearchCandidateCache getCandidateCache(final ExecutionContext etk) throws ApplicationException {
+        return CacheManager.load(etk, new LiveSearchCandidateCacheCacheable(
+                AeaCoreConfiguration.getLsCandidateCacheTimeToLiveSeconds(etk) * MILLIS_PER_SECOND,
+                (int) AeaCoreConfiguration.getLsCandidateCacheMaxEntries(etk)));
+    }
+
+    /**
+     * Get the cache of Live Search trigram indexes.
+     *
+     * @param etk entellitrak execution context
+     * @return the cache
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static LiveSearchIndexCache getIndexCache(final ExecutionContext etk) throws ApplicationException {
+        return CacheManager.load(etk, new LiveSearchIndexCacheCacheable(
+                (int) AeaCoreConfiguration.getLsTrigramIndexMaxIndexes(etk),
+                AeaCoreConfiguration.getLsTrigramIndexTimeToLiveSeconds(etk) * MILLIS_PER_SECOND));
+    }
+
+    /**
+     * Removes all Live Search candidates from the cache. This is called when reference data is saved through an event
+     * handler which reports the change, because most lookups are built on reference data. Nothing is stored for a few seconds afterwards so that other transactions
+     * do not put the old candidates back before the current transaction is committed.
+     *
+     * @param etk entellitrak execution context
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static void clear(final ExecutionContext etk) throws ApplicationException {
+        getCandidateCache(etk).invalidateAll();
+    }
+
+    /**
+     * Updates the Live Search caches after a reference data record was created, updated or deleted. The candidates
+     * are cleared and the trigram indexes are updated. The save which made the change must not fail because of Live
+     * Search, so errors are logged instead of being thrown.
+     *
+     * @param etk entellitrak execution context
+     * @param tableName the table of the record
+     * @param trackingId the id of the record
+     * @param isDelete whether the record is being deleted
+     */
+    public static void applyChange(final ExecutionContext etk,
+            final String tableName,
+            final Long trackingId,
+            final boolean isDelete) {
+        try {
+            clear(etk);
+
+            final LiveSearchIndexCache indexCache = getIndexCache(etk);
+            if (indexCache.isEnabled()) {
+                indexCache.applyChange(etk, tableName, trackingId, isDelete);
+            }
+        } catch (final ApplicationException | RuntimeException e) {
+            etk.getLogger().error(String.format("Error updating the Live Search caches after a change to %s %s",
+                    tableName,
+                    trackingId), e);
+        }
+    }
+
+    /**
+     * Updates the Live Search caches after any number of records of a reference data table were changed, for
+     * instance by SQL. The candidates are cleared and every trigram index whose query mentions the table is rebuilt
+     * the next time it is used. Errors are logged instead of being thrown.
+     *
+     * @param etk entellitrak execution context
+     * @param tableName the table of the records
+     */
+    public static void applyTableChange(final ExecutionContext etk, final String tableName) {
+        try {
+            clear(etk);
+
+            final LiveSearchIndexCache indexCache = getIndexCache(etk);
+            if (indexCache.isEnabled()) {
+                indexCache.invalidateTable(tableName);
+            }
+        } catch (final ApplicationException | RuntimeException e) {
+            etk.getLogger().error(String.format("Error updating the Live Search caches after a change to %s",
+                    tableName), e);
+        }
+    }
+}
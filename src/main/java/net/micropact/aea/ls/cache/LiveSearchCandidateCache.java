@@ -0,0 +1,194 @@
+package net.micropact.aea.ls.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.micropact.aea.core.cache.ICacheStatistics;
+
+/**
+ * <p>
+ *  A bounded, time limited cache of {@link LiveSearchCandidates} keyed by lookup query and the values of
+ *  the parameters it uses (see {@link LiveSearchCandidates#getKey()}).
+ *  Entries expire after a fixed time so that changes to tracking data and to reference data which is not reported
+ *  through {@link net.entellitrak.aea.lookup.LiveSearchUtility} are picked up, the least recently used entries are
+ *  discarded once the cache is full, and the whole cache is invalidated whenever a reference data change is reported.
+ * </p>
+ * <p>
+ *  Instances are thread safe and are shared through the entellitrak cache by
+ *  {@link LiveSearchCandidateCacheCacheable}.
+ * </p>
+ *
+ * @author MicroPact
+ */
+public final class LiveSearchCandidateCache implements ICacheStatistics {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    /**
+     * How long nothing is stored after an invalidation. Reference data is invalidated before its transaction commits,
+     * and a search which runs in the meantime would otherwise store the old rows again.
+     */
+    private static final long INVALIDATION_GRACE_MILLIS = 10_000;
+
+    private final long timeToLiveMillis;
+    private final int maxSize;
+    private final Map<String, Entry> entries;
+
+    /** Incremented whenever the cache is invalidated so that loads which were already running are not stored. */
+    private long generation;
+
+    /** Time before which nothing is stored because the cache was invalidated recently. */
+    private long storeAfterMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong hitNanos = new AtomicLong();
+    private final AtomicLong missNanos = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param theTimeToLiveMillis how long an entry may be used after it was stored
+     * @param theMaxSize the maximum number of entries
+     */
+    public LiveSearchCandidateCache(final long theTimeToLiveMillis, final int theMaxSize) {
+        timeToLiveMillis = theTimeToLiveMillis;
+        maxSize = theMaxSize;
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Whether entries are stored at all. If they are not, there is no point in loading all of the rows of a lookup.
+     *
+     * @return whether the cache is enabled
+     */
+    public boolean isEnabled() {
+        return maxSize > 0 && timeToLiveMillis > 0;
+    }
+
+    /**
+     * Get the candidates of a lookup.
+     *
+     * @param key the key of the candidates
+     * @return the candidates, or null if they are not cached or have expired
+     */
+    public synchronized LiveSearchCandidates get(final String key) {
+        final Entry entry = entries.get(key);
+
+        if (entry == null) {
+            return null;
+        } else if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        } else {
+            return entry.candidates;
+        }
+    }
+
+    /**
+     * Get the current generation of the cache. This must be read before the candidates are loaded and passed to
+     * {@link #put(String, LiveSearchCandidates, long)}.
+     *
+     * @return the current generation
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Store the candidates of a lookup. Nothing is stored if the cache has been invalidated since the candidates
+     * started loading, or if it was invalidated so recently that the change may not have been committed yet.
+     *
+     * @param key the key of the candidates
+     * @param candidates the candidates
+     * @param loadGeneration the generation of the cache when the candidates started loading
+     */
+    public synchronized void put(final String key, final LiveSearchCandidates candidates, final long loadGeneration) {
+        if (isEnabled() && loadGeneration == generation && System.currentTimeMillis() >= storeAfterMillis) {
+            entries.put(key, new Entry(candidates, System.currentTimeMillis() + timeToLiveMillis));
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        generation++;
+        storeAfterMillis = System.currentTimeMillis() + INVALIDATION_GRACE_MILLIS;
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Record a search which was answered from the cache.
+     *
+     * @param elapsedNanos how long the search took
+     */
+    public void recordHit(final long elapsedNanos) {
+        hits.incrementAndGet();
+        hitNanos.addAndGet(elapsedNanos);
+    }
+
+    /**
+     * Record a search which had to resolve the lookup query.
+     *
+     * @param elapsedNanos how long the search took
+     */
+    public void recordMiss(final long elapsedNanos) {
+        misses.incrementAndGet();
+        missNanos.addAndGet(elapsedNanos);
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        final long theHits = hits.get();
+        final long theMisses = misses.get();
+        final long requests = theHits + theMisses;
+
+        final Map<String, Object> statistics = new TreeMap<>();
+        synchronized (this) {
+            statistics.put("size", entries.size());
+        }
+        statistics.put("maxSize", maxSize);
+        statistics.put("timeToLiveMillis", timeToLiveMillis);
+        statistics.put("hits", theHits);
+        statistics.put("misses", theMisses);
+        statistics.put("hitRatio", requests == 0 ? 0d : (double) theHits / requests);
+        statistics.put("averageHitMillis", theHits == 0 ? 0d : hitNanos.get() / NANOS_PER_MILLI / theHits);
+        statistics.put("averageMissMillis", theMisses == 0 ? 0d : missNanos.get() / NANOS_PER_MILLI / theMisses);
+        statistics.put("invalidations", invalidations.get());
+        return statistics;
+    }
+
+    /**
+     * Cached candidates.
+     *
+     * @author MicroPact
+     */
+    private static final class Entry {
+
+        private final LiveSearchCandidates candidates;
+        private final long expiresAt;
+
+        /**
+         * Simple constructor.
+         *
+         * @param theCandidates the candidates
+         * @param theExpiresAt when the entry expires, in milliseconds since the epoch
+         */
+        Entry(final LiveSearchCandidates theCandidates, final long theExpiresAt) {
+            candidates = theCandidates;
+            expiresAt = theExpiresAt;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package net.micropact.aea.ls.cache;
+
+import net.entellitrak.aea.core.cache.ICacheable;
+
+/**
+ * {@link ICacheable} which stores the {@link LiveSearchCandidateCache}. The time to live and size are part of the key
+ * so that changing the configuration starts a new cache.
+ *
+ * @author MicroPact
+ * @see LiveSearchCache
+ */
+public class LiveSearchCandidateCacheCacheable implements ICacheable<LiveSearchCandidateCache> {
+
+    private final long timeToLiveMillis;
+    private final int maxSize;
+
+    /**
+     * Constructor.
+     *
+     * @param theTimeToLiveMillis how long an entry may be used after it was stored
+     * @param theMaxSize the maximum number of entries
+     */
+    public LiveSearchCandidateCacheCacheable(final long theTimeToLiveMillis, final int theMaxSize) {
+        timeToLiveMillis = theTimeToLiveMillis;
+        maxSize = theMaxSize;
+    }
+
+    @Override
+    public String getKey() {
+        return String.format("%s.%s.%s", getClass().getName(), timeToLiveMillis, maxSize);
+    }
+
+    @Override
+    public LiveSearchCandidateCache getValue() {
+        return new LiveSearchCandidateCache(timeToLiveMillis, maxSize);
+    }
+}
@@ -0,0 +1,191 @@
+package net.micropact.aea.ls.cache;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ *  The resolved lookup query of a Live Search data element along with its bound parameters and, if the lookup is
+ *  small enough, all of its rows. Once the rows are known each keystroke is filtered in memory instead of running a
+ *  <code>lower(display) like '%x%'</code> scan against the database.
+ * </p>
+ * <p>
+ *  Instances are immutable and are cached by {@link LiveSearchCandidateCache}.
+ * </p>
+ *
+ * @author MicroPact
+ */
+public final class LiveSearchCandidates {
+
+    private final String query;
+    private final Map<String, Object> parameters;
+    private final Set<String> referencedParameterNames;
+    private final String sourceTableName;
+    private final List<Map<String, Object>> rows;
+    private final String[] lowerCaseDisplays;
+
+    /**
+     * Constructor.
+     *
+     * @param theQuery the lookup query with its replacement parameters converted to bind parameters
+     * @param theParameters the bind parameters of the query
+     * @param theReferencedParameterNames the names of the bind parameters which the query actually uses
+     * @param theSourceTableName the table of a data object lookup whose VALUE is the ID, otherwise null
+     * @param theRows all of the rows of the query, or null if there were too many to keep in memory
+     */
+    public LiveSearchCandidates(final String theQuery,
+            final Map<String, Object> theParameters,
+            final Set<String> theReferencedParameterNames,
+            final String theSourceTableName,
+            final List<Map<String, Object>> theRows) {
+        query = theQuery;
+        parameters = Collections.unmodifiableMap(new HashMap<>(theParameters));
+        referencedParameterNames = Collections.unmodifiableSet(new TreeSet<>(theReferencedParameterNames));
+        sourceTableName = theSourceTableName;
+
+        if (theRows == null) {
+            rows = null;
+            lowerCaseDisplays = null;
+        } else {
+            rows = Collections.unmodifiableList(new ArrayList<>(theRows));
+            lowerCaseDisplays = new String[rows.size()];
+
+            for (int i = 0; i < lowerCaseDisplays.length; i++) {
+                final Object display = getDisplay(rows.get(i));
+                lowerCaseDisplays[i] = display == null ? null : display.toString().toLowerCase();
+            }
+        }
+    }
+
+    /**
+     * Get the lookup query.
+     *
+     * @return the lookup query with its replacement parameters converted to bind parameters
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Get the bind parameters of the lookup query.
+     *
+     * @return the bind parameters
+     */
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Get the table of a data object lookup whose VALUE is the ID of the table. Changes to records of this table can
+     * be applied to a {@link LiveSearchTrigramIndex} without rebuilding it.
+     *
+     * @return the table name, or null if the lookup is not a data object lookup on the ID
+     */
+    public String getSourceTableName() {
+        return sourceTableName;
+    }
+
+    /**
+     * Get the key of the candidates and of the {@link LiveSearchTrigramIndex} of the lookup. This only contains the
+     * query and the values of the parameters it actually uses, so records and users which see the same rows share
+     * them.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        final StringBuilder key = new StringBuilder(query);
+
+        for (final String parameterName : referencedParameterNames) {
+            key.append('\u0000').append(parameterName).append('=').append(parameters.get(parameterName));
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Get a copy of these candidates which holds all of the rows of the lookup.
+     *
+     * @param theRows all of the rows of the query, or null if there were too many to keep in memory
+     * @return the candidates with the rows
+     */
+    public LiveSearchCandidates withRows(final List<Map<String, Object>> theRows) {
+        return new LiveSearchCandidates(query, parameters, referencedParameterNames, sourceTableName, theRows);
+    }
+
+    /**
+     * Whether all of the rows of the lookup are held in memory.
+     *
+     * @return whether {@link #filter(String, int)} may be used
+     */
+    public boolean hasRows() {
+        return rows != null;
+    }
+
+    /**
+     * Get the number of rows held in memory.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rows == null ? 0 : rows.size();
+    }
+
+    /**
+     * Get the rows whose display contains the user entered search, ignoring case. This matches the
+     * <code>lower(display) like '%x%'</code> filter which is used when the rows are not held in memory.
+     *
+     * @param userEnteredSearch the text the user has typed
+     * @param maxResults the maximum number of rows to return
+     * @return the matching rows in the order of the lookup query
+     */
+    public List<Map<String, Object>> filter(final String userEnteredSearch, final int maxResults) {
+        final String search = userEnteredSearch == null ? "" : userEnteredSearch.toLowerCase();
+        final List<Map<String, Object>> matches = new ArrayList<>();
+
+        for (int i = 0; i < lowerCaseDisplays.length && matches.size() < maxResults; i++) {
+            if (lowerCaseDisplays[i] != null && lowerCaseDisplays[i].contains(search)) {
+                matches.add(rows.get(i));
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Normalizes a lookup value so that numbers of different types compare equal.
+     *
+     * @param value the value
+     * @return the normalized value
+     */
+    public static String normalizeValue(final Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof Number) {
+            return new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+        } else {
+            return value.toString();
+        }
+    }
+
+    /**
+     * Get the DISPLAY column of a row. The case of the column name depends on the database.
+     *
+     * @param row the row
+     * @return the display value
+     */
+    private static Object getDisplay(final Map<String, Object> row) {
+        for (final Map.Entry<String, Object> column : row.entrySet()) {
+            if ("display".equalsIgnoreCase(column.getKey())) {
+                return column.getValue();
+            }
+        }
+
+        return null;
+    }
+}
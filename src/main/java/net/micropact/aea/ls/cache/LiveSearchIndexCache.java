@@ -0,0 +1,344 @@
+package net.micropact.aea.ls.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.entellitrak.ExecutionContext;
+
+import net.micropact.aea.core.cache.ICacheStatistics;
+
+/**
+ * <p>
+ *  Holds the {@link LiveSearchTrigramIndex} of each lookup which is too large for {@link LiveSearchCandidates} to hold
+ *  its rows. An index is built the first time its lookup is searched, and is rebuilt the next time it is searched
+ *  once it is older than the time to live. In between, {@link #applyChange(ExecutionContext, String, Long, boolean)}
+ *  keeps it current when reference data is saved through an event handler which reports the change
+ *  (see {@link net.entellitrak.aea.lookup.LiveSearchUtility}). The least recently used indexes are discarded once the
+ *  cache is full.
+ * </p>
+ * <p>
+ *  Instances are thread safe and are shared through the entellitrak cache by {@link LiveSearchIndexCacheCacheable}.
+ * </p>
+ *
+ * @author MicroPact
+ */
+public final class LiveSearchIndexCache implements ICacheStatistics {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    /** Matches the words of a query which could be table names. */
+    private static final Pattern WORD_PATTERN = Pattern.compile("[A-Za-z0-9_$#]+");
+
+    private final int maxIndexes;
+    private final long timeToLiveMillis;
+    private final Map<String, IndexHolder> holders;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong buildNanos = new AtomicLong();
+    private final AtomicLong incrementalUpdates = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param theMaxIndexes the maximum number of lookups to index
+     * @param theTimeToLiveMillis how long an index is used before it is rebuilt, 0 for no limit
+     */
+    public LiveSearchIndexCache(final int theMaxIndexes, final long theTimeToLiveMillis) {
+        maxIndexes = theMaxIndexes;
+        timeToLiveMillis = theTimeToLiveMillis;
+        holders = new LinkedHashMap<String, IndexHolder>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, IndexHolder> eldest) {
+                return size() > maxIndexes;
+            }
+        };
+    }
+
+    /**
+     * Whether lookups are indexed at all.
+     *
+     * @return whether the cache is enabled
+     */
+    public boolean isEnabled() {
+        return maxIndexes > 0;
+    }
+
+    /**
+     * Search a lookup, building its index if it has not been built yet.
+     *
+     * @param etk entellitrak execution context
+     * @param candidates the resolved lookup query and its parameters
+     * @param userEnteredSearch the text the user has typed
+     * @param maxResults the maximum number of rows to return
+     * @return the VALUE of the matching rows, best match first
+     */
+    public List<Object> search(final ExecutionContext etk,
+            final LiveSearchCandidates candidates,
+            final String userEnteredSearch,
+            final int maxResults) {
+        final IndexHolder holder;
+        synchronized (this) {
+            holder = holders.computeIfAbsent(candidates.getKey(), key -> new IndexHolder(candidates));
+        }
+
+        final LiveSearchTrigramIndex index = holder.getIndex(etk);
+
+        final long startNanos = System.nanoTime();
+        final List<Object> values = index.search(userEnteredSearch, maxResults);
+        searches.incrementAndGet();
+        searchNanos.addAndGet(System.nanoTime() - startNanos);
+
+        return values;
+    }
+
+    /**
+     * Update the indexes after a reference data record was saved or deleted. Indexes of data object lookups on the
+     * table whose VALUE is the ID are updated in place. Any other index whose query mentions the table is rebuilt the
+     * next time it is used.
+     * An index which cannot be updated is rebuilt the next time it is used, and the error is logged.
+     * <em>
+     *  The change is applied before the transaction is committed. If the transaction is rolled back the index keeps
+     *  the change until it is rebuilt, either once it is older than the time to live or by
+     *  {@link net.micropact.aea.ls.job.RebuildLiveSearchIndexes}.
+     * </em>
+     *
+     * @param etk entellitrak execution context
+     * @param tableName the table of the record
+     * @param trackingId the id of the record
+     * @param isDelete whether the record is being deleted
+     */
+    public void applyChange(final ExecutionContext etk,
+            final String tableName,
+            final Long trackingId,
+            final boolean isDelete) {
+        for (final IndexHolder holder : getHolders()) {
+            try {
+                holder.applyChange(etk, tableName, trackingId, isDelete);
+            } catch (final RuntimeException e) {
+                holder.invalidate();
+                etk.getLogger().error(String.format("Error updating a Live Search index after a change to %s %s, it will be rebuilt",
+                        tableName,
+                        trackingId), e);
+            }
+        }
+    }
+
+    /**
+     * Mark every index whose query mentions a table as stale so that it is rebuilt the next time it is used.
+     *
+     * @param tableName the table
+     */
+    public void invalidateTable(final String tableName) {
+        for (final IndexHolder holder : getHolders()) {
+            if (holder.mentionsTable(tableName)) {
+                holder.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Rebuild every index which has been built. This picks up changes which are not made through reference data
+     * object event handlers.
+     *
+     * @param etk entellitrak execution context
+     */
+    public void rebuildAll(final ExecutionContext etk) {
+        for (final IndexHolder holder : getHolders()) {
+            holder.rebuild(etk);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        final List<IndexHolder> theHolders = getHolders();
+        long indexedRows = 0;
+        for (final IndexHolder holder : theHolders) {
+            indexedRows += holder.getSize();
+        }
+
+        final long theSearches = searches.get();
+        final long theBuilds = builds.get();
+
+        final Map<String, Object> statistics = new TreeMap<>();
+        statistics.put("indexes", theHolders.size());
+        statistics.put("maxIndexes", maxIndexes);
+        statistics.put("indexedRows", indexedRows);
+        statistics.put("searches", theSearches);
+        statistics.put("averageSearchMillis", theSearches == 0 ? 0d : searchNanos.get() / NANOS_PER_MILLI / theSearches);
+        statistics.put("builds", theBuilds);
+        statistics.put("averageBuildMillis", theBuilds == 0 ? 0d : buildNanos.get() / NANOS_PER_MILLI / theBuilds);
+        statistics.put("incrementalUpdates", incrementalUpdates.get());
+        return statistics;
+    }
+
+    /**
+     * Get a snapshot of the holders so that they can be used without holding the lock of the cache.
+     *
+     * @return the holders
+     */
+    private synchronized List<IndexHolder> getHolders() {
+        return new ArrayList<>(holders.values());
+    }
+
+    /**
+     * The index of a single lookup along with what is needed to build it.
+     *
+     * @author MicroPact
+     */
+    private final class IndexHolder {
+
+        private final String query;
+        private final Map<String, Object> parameters;
+        private final String sourceTableName;
+
+        private LiveSearchTrigramIndex index;
+        private long builtTime;
+        private boolean isStale;
+
+        /**
+         * Constructor.
+         *
+         * @param candidates the resolved lookup query and its parameters
+         */
+        IndexHolder(final LiveSearchCandidates candidates) {
+            query = candidates.getQuery();
+            parameters = candidates.getParameters();
+            sourceTableName = candidates.getSourceTableName();
+        }
+
+        /**
+         * Get the index, building it if it has not been built, is stale or is older than the time to live.
+         *
+         * @param etk entellitrak execution context
+         * @return the index
+         */
+        synchronized LiveSearchTrigramIndex getIndex(final ExecutionContext etk) {
+            if (index == null
+                    || isStale
+                    || (timeToLiveMillis > 0 && System.currentTimeMillis() - builtTime >= timeToLiveMillis)) {
+                rebuild(etk);
+            }
+            return index;
+        }
+
+        /**
+         * Mark the index as stale so that it is rebuilt the next time it is used.
+         */
+        synchronized void invalidate() {
+            isStale = true;
+        }
+
+        /**
+         * Get the number of rows in the index.
+         *
+         * @return the number of rows, 0 if the index has not been built
+         */
+        synchronized int getSize() {
+            return index == null ? 0 : index.size();
+        }
+
+        /**
+         * Build the index from the VALUE and DISPLAY columns of the lookup query.
+         *
+         * @param etk entellitrak execution context
+         */
+        synchronized void rebuild(final ExecutionContext etk) {
+            final long startNanos = System.nanoTime();
+
+            final List<Map<String, Object>> rows = etk.createSQL(
+                    "select VALUE, DISPLAY from (" + query + ") TEMP_QUERY")
+                    .setParameter(parameters)
+                    .fetchList();
+
+            final List<Object> values = new ArrayList<>(rows.size());
+            final List<String> displays = new ArrayList<>(rows.size());
+            for (final Map<String, Object> row : rows) {
+                values.add(row.get("VALUE"));
+                displays.add(toDisplay(row.get("DISPLAY")));
+            }
+
+            index = new LiveSearchTrigramIndex(values, displays);
+            builtTime = System.currentTimeMillis();
+            isStale = false;
+
+            builds.incrementAndGet();
+            buildNanos.addAndGet(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Update the index after a reference data record was saved or deleted.
+         *
+         * @param etk entellitrak execution context
+         * @param tableName the table of the record
+         * @param trackingId the id of the record
+         * @param isDelete whether the record is being deleted
+         */
+        synchronized void applyChange(final ExecutionContext etk,
+                final String tableName,
+                final Long trackingId,
+                final boolean isDelete) {
+            if (index == null || isStale) {
+                return;
+            }
+
+            if (tableName.equalsIgnoreCase(sourceTableName)) {
+                final List<String> displays = new ArrayList<>();
+
+                if (!isDelete) {
+                    final Map<String, Object> changedParameters = new HashMap<>(parameters);
+                    changedParameters.put("aeaLsChangedValue", trackingId);
+
+                    for (final Map<String, Object> row : etk.createSQL(
+                            "select DISPLAY from (" + query + ") TEMP_QUERY where VALUE = :aeaLsChangedValue")
+                            .setParameter(changedParameters)
+                            .fetchList()) {
+                        displays.add(toDisplay(row.get("DISPLAY")));
+                    }
+                }
+
+                index.update(trackingId, displays);
+                incrementalUpdates.incrementAndGet();
+            } else if (mentionsTable(tableName)) {
+                isStale = true;
+            }
+        }
+
+        /**
+         * Whether the lookup query refers to a table.
+         *
+         * @param tableName the table
+         * @return whether the table name appears as a word in the query
+         */
+        boolean mentionsTable(final String tableName) {
+            final Matcher matcher = WORD_PATTERN.matcher(query);
+
+            while (matcher.find()) {
+                if (matcher.group().equalsIgnoreCase(tableName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Convert a DISPLAY column to a String.
+     *
+     * @param display the DISPLAY column
+     * @return the display, or null
+     */
+    private static String toDisplay(final Object display) {
+        return display == null ? null : display.toString();
+    }
+}
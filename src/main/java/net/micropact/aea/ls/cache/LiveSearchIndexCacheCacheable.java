@@ -0,0 +1,37 @@
+package net.micropact.aea.ls.cache;
+
+import net.entellitrak.aea.core.cache.ICacheable;
+
+/**
+ * {@link ICacheable} which stores the {@link LiveSearchIndexCache}. The size and time to live are part of the key so
+ * that changing the configuration starts a new cache.
+ *
+ * @author MicroPact
+ * @see LiveSearchCache
+ */
+public class LiveSearchIndexCacheCacheable implements ICacheable<LiveSearchIndexCache> {
+
+    private final int maxIndexes;
+    private final long timeToLiveMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param theMaxIndexes the maximum number of lookups to index
+     * @param theTimeToLiveMillis how long an index is used before it is rebuilt, 0 for no limit
+     */
+    public LiveSearchIndexCacheCacheable(final int theMaxIndexes, final long theTimeToLiveMillis) {
+        maxIndexes = theMaxIndexes;
+        timeToLiveMillis = theTimeToLiveMillis;
+    }
+
+    @Override
+    public String getKey() {
+        return String.format("%s.%s.%s", getClass().getName(), maxIndexes, timeToLiveMillis);
+    }
+
+    @Override
+    public LiveSearchIndexCache getValue() {
+        return new LiveSearchIndexCache(maxIndexes, timeToLiveMillis);
+    }
+}
@@ -0,0 +1,393 @@
+package net.micropact.aea.ls.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *  An in-memory trigram index of the VALUE and DISPLAY columns of a large lookup. It answers the same question as
+ *  <code>lower(display) like '%x%'</code> without scanning every row: the rows which contain every trigram of the
+ *  search are found by intersecting sorted posting lists, and are then checked with {@link String#indexOf(String)}.
+ *  Matches are ranked by the position of the search within the display and then by the order of the lookup query.
+ * </p>
+ * <p>
+ *  The posting lists are stored in three primitive arrays: the sorted trigrams, the offset of each trigram's postings
+ *  and the postings (row numbers) themselves. Rows which are added after the postings were built are scanned linearly
+ *  and the postings are rebuilt once there are too many of them. Removed rows are only marked as deleted until then.
+ *  The rows of each VALUE are kept in a chain so that an update does not have to scan the whole index.
+ * </p>
+ * <p>
+ *  Instances are thread safe.
+ * </p>
+ *
+ * @author MicroPact
+ */
+public final class LiveSearchTrigramIndex {
+
+    private static final int TRIGRAM_LENGTH = 3;
+    private static final int CHAR_BITS = 16;
+
+    /** The postings are rebuilt once more than 1 / REBUILD_RATIO of the rows are not covered by them. */
+    private static final int REBUILD_RATIO = 8;
+    private static final int MIN_UNINDEXED_ROWS = 1000;
+
+    private Object[] values;
+    private String[] lowerCaseDisplays;
+    private int rowCount;
+    private final BitSet deleted = new BitSet();
+
+    /** Rows numbered below this are covered by the postings. */
+    private int indexedRowCount;
+    private long[] trigrams;
+    private int[] postingOffsets;
+    private int[] postings;
+
+    /** The last row of each normalized VALUE. The other rows with the VALUE follow {@link #nextRowWithSameValue}. */
+    private Map<String, Integer> lastRowByValue;
+    /** The previous row with the same VALUE as each row, or -1. */
+    private int[] nextRowWithSameValue;
+
+    /**
+     * Build an index.
+     *
+     * @param theValues the VALUE of each row, in the order of the lookup query
+     * @param theDisplays the DISPLAY of each row, in the order of the lookup query
+     */
+    public LiveSearchTrigramIndex(final List<Object> theValues, final List<String> theDisplays) {
+        rowCount = theValues.size();
+        values = theValues.toArray(new Object[rowCount]);
+        lowerCaseDisplays = new String[rowCount];
+
+        for (int i = 0; i < rowCount; i++) {
+            final String display = theDisplays.get(i);
+            lowerCaseDisplays[i] = display == null ? null : display.toLowerCase();
+        }
+
+        buildPostings();
+    }
+
+    /**
+     * Get the number of rows in the index.
+     *
+     * @return the number of rows which have not been removed
+     */
+    public synchronized int size() {
+        return rowCount - deleted.cardinality();
+    }
+
+    /**
+     * Find the rows whose display contains the search, ignoring case.
+     *
+     * @param userEnteredSearch the text the user has typed
+     * @param maxResults the maximum number of rows to return
+     * @return the VALUE of the matching rows, best match first
+     */
+    public synchronized List<Object> search(final String userEnteredSearch, final int maxResults) {
+        final String search = userEnteredSearch == null ? "" : userEnteredSearch.toLowerCase();
+        final RankedRows rankedRows = new RankedRows(maxResults);
+
+        if (search.length() < TRIGRAM_LENGTH) {
+            for (int row = 0; row < rowCount; row++) {
+                rankedRows.offer(row, search);
+            }
+        } else {
+            for (final int row : findIndexedCandidates(search)) {
+                rankedRows.offer(row, search);
+            }
+
+            for (int row = indexedRowCount; row < rowCount; row++) {
+                rankedRows.offer(row, search);
+            }
+        }
+
+        final List<Object> result = new ArrayList<>();
+        for (final int row : rankedRows.getRows()) {
+            result.add(values[row]);
+        }
+        return result;
+    }
+
+    /**
+     * Replace the rows with a particular VALUE.
+     *
+     * @param value the VALUE
+     * @param theDisplays the new DISPLAY of each row with the VALUE. This is empty if the rows were removed.
+     */
+    public synchronized void update(final Object value, final List<String> theDisplays) {
+        final String normalizedValue = LiveSearchCandidates.normalizeValue(value);
+        final Integer lastRow = lastRowByValue.remove(normalizedValue);
+
+        for (int row = lastRow == null ? -1 : lastRow; row >= 0; row = nextRowWithSameValue[row]) {
+            deleted.set(row);
+        }
+
+        int previousRow = -1;
+        for (final String display : theDisplays) {
+            if (rowCount == values.length) {
+                final int newLength = Math.max(rowCount * 2, 16);
+                values = Arrays.copyOf(values, newLength);
+                lowerCaseDisplays = Arrays.copyOf(lowerCaseDisplays, newLength);
+                nextRowWithSameValue = Arrays.copyOf(nextRowWithSameValue, newLength);
+            }
+
+            values[rowCount] = value;
+            lowerCaseDisplays[rowCount] = display == null ? null : display.toLowerCase();
+            nextRowWithSameValue[rowCount] = previousRow;
+            previousRow = rowCount;
+            rowCount++;
+        }
+
+        if (previousRow >= 0) {
+            lastRowByValue.put(normalizedValue, previousRow);
+        }
+
+        if (rowCount - indexedRowCount > Math.max(MIN_UNINDEXED_ROWS, indexedRowCount / REBUILD_RATIO)) {
+            compact();
+            buildPostings();
+        }
+    }
+
+    /**
+     * Removes the deleted rows.
+     */
+    private void compact() {
+        int newRowCount = 0;
+
+        for (int row = 0; row < rowCount; row++) {
+            if (!deleted.get(row)) {
+                values[newRowCount] = values[row];
+                lowerCaseDisplays[newRowCount] = lowerCaseDisplays[row];
+                newRowCount++;
+            }
+        }
+
+        Arrays.fill(values, newRowCount, rowCount, null);
+        Arrays.fill(lowerCaseDisplays, newRowCount, rowCount, null);
+        rowCount = newRowCount;
+        deleted.clear();
+    }
+
+    /**
+     * Builds the postings and the VALUE chains of every row.
+     */
+    private void buildPostings() {
+        final Map<String, Integer> theLastRowByValue = new HashMap<>();
+        final int[] theNextRowWithSameValue = new int[values.length];
+
+        for (int row = 0; row < rowCount; row++) {
+            final Integer previousRow = theLastRowByValue.put(LiveSearchCandidates.normalizeValue(values[row]), row);
+            theNextRowWithSameValue[row] = previousRow == null ? -1 : previousRow;
+        }
+
+
+        /* First pass: find the distinct trigrams and count the rows of each. */
+        int totalPostings = 0;
+        final long[][] trigramsByRow = new long[rowCount][];
+
+        for (int row = 0; row < rowCount; row++) {
+            trigramsByRow[row] = getTrigrams(lowerCaseDisplays[row]);
+            totalPostings += trigramsByRow[row].length;
+        }
+
+        final long[] rowTrigrams = new long[totalPostings];
+        int position = 0;
+        for (int row = 0; row < rowCount; row++) {
+            System.arraycopy(trigramsByRow[row], 0, rowTrigrams, position, trigramsByRow[row].length);
+            position += trigramsByRow[row].length;
+        }
+        Arrays.sort(rowTrigrams);
+
+        int distinctTrigrams = 0;
+        for (int i = 0; i < rowTrigrams.length; i++) {
+            if (i == 0 || rowTrigrams[i] != rowTrigrams[i - 1]) {
+                rowTrigrams[distinctTrigrams++] = rowTrigrams[i];
+            }
+        }
+
+        final long[] theTrigrams = Arrays.copyOf(rowTrigrams, distinctTrigrams);
+        final int[] counts = new int[distinctTrigrams + 1];
+
+        for (int row = 0; row < rowCount; row++) {
+            for (final long trigram : trigramsByRow[row]) {
+                counts[Arrays.binarySearch(theTrigrams, trigram) + 1]++;
+            }
+        }
+
+        /* Second pass: fill in the postings. Rows are visited in order, so each posting list is sorted. */
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+
+        final int[] theOffsets = Arrays.copyOf(counts, counts.length);
+        final int[] thePostings = new int[totalPostings];
+
+        for (int row = 0; row < rowCount; row++) {
+            for (final long trigram : trigramsByRow[row]) {
+                thePostings[counts[Arrays.binarySearch(theTrigrams, trigram)]++] = row;
+            }
+        }
+
+        trigrams = theTrigrams;
+        postingOffsets = theOffsets;
+        postings = thePostings;
+        lastRowByValue = theLastRowByValue;
+        nextRowWithSameValue = theNextRowWithSameValue;
+        indexedRowCount = rowCount;
+    }
+
+    /**
+     * Find the indexed rows which contain every trigram of the search.
+     *
+     * @param search the lower case search, at least three characters long
+     * @return the candidate rows in ascending order
+     */
+    private int[] findIndexedCandidates(final String search) {
+        final long[] searchTrigrams = getTrigrams(search);
+        final int[][] postingLists = new int[searchTrigrams.length][];
+
+        for (int i = 0; i < searchTrigrams.length; i++) {
+            final int trigramIndex = Arrays.binarySearch(trigrams, searchTrigrams[i]);
+
+            if (trigramIndex < 0) {
+                return new int[0];
+            }
+
+            postingLists[i] = Arrays.copyOfRange(postings,
+                    postingOffsets[trigramIndex],
+                    postingOffsets[trigramIndex + 1]);
+        }
+
+        /* Intersect the shortest lists first so that the candidates shrink as quickly as possible. */
+        Arrays.sort(postingLists, (list1, list2) -> Integer.compare(list1.length, list2.length));
+
+        int[] candidates = postingLists[0];
+        for (int i = 1; i < postingLists.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, postingLists[i]);
+        }
+        return candidates;
+    }
+
+    /**
+     * Intersect two sorted lists of rows.
+     *
+     * @param list1 the first list
+     * @param list2 the second list
+     * @return the rows which are in both lists
+     */
+    private static int[] intersect(final int[] list1, final int[] list2) {
+        final int[] result = new int[Math.min(list1.length, list2.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < list1.length && j < list2.length) {
+            if (list1[i] < list2[j]) {
+                i++;
+            } else if (list1[i] > list2[j]) {
+                j++;
+            } else {
+                result[size++] = list1[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Get the distinct trigrams of a string. Each trigram is packed into a long, 16 bits per character.
+     *
+     * @param string the string
+     * @return the sorted, distinct trigrams
+     */
+    private static long[] getTrigrams(final String string) {
+        if (string == null || string.length() < TRIGRAM_LENGTH) {
+            return new long[0];
+        }
+
+        final long[] result = new long[string.length() - TRIGRAM_LENGTH + 1];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((long) string.charAt(i) << (2 * CHAR_BITS))
+                    | ((long) string.charAt(i + 1) << CHAR_BITS)
+                    | string.charAt(i + 2);
+        }
+
+        Arrays.sort(result);
+
+        int distinct = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    /**
+     * Keeps the best matching rows, ordered by the position of the search within the display and then by row.
+     *
+     * @author MicroPact
+     */
+    private final class RankedRows {
+
+        private final int maxRows;
+        private final int[] rows;
+        private final int[] positions;
+        private int size;
+
+        /**
+         * Constructor.
+         *
+         * @param theMaxRows the maximum number of rows to keep
+         */
+        RankedRows(final int theMaxRows) {
+            maxRows = Math.max(theMaxRows, 0);
+            rows = new int[maxRows];
+            positions = new int[maxRows];
+        }
+
+        /**
+         * Consider a row. Rows must be offered in ascending order within the postings and the unindexed rows.
+         *
+         * @param row the row
+         * @param search the lower case search
+         */
+        void offer(final int row, final String search) {
+            if (deleted.get(row) || lowerCaseDisplays[row] == null) {
+                return;
+            }
+
+            final int position = lowerCaseDisplays[row].indexOf(search);
+
+            if (position < 0 || (size == maxRows && (maxRows == 0 || position >= positions[size - 1]))) {
+                return;
+            }
+
+            int insertAt = size == maxRows ? size - 1 : size++;
+            while (insertAt > 0
+                    && (positions[insertAt - 1] > position
+                            || (positions[insertAt - 1] == position && rows[insertAt - 1] > row))) {
+                rows[insertAt] = rows[insertAt - 1];
+                positions[insertAt] = positions[insertAt - 1];
+                insertAt--;
+            }
+
+            rows[insertAt] = row;
+            positions[insertAt] = position;
+        }
+
+        /**
+         * Get the best matching rows.
+         *
+         * @return the rows, best match first
+         */
+        int[] getRows() {
+            return Arrays.copyOf(rows, size);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package net.micropact.aea.ls.job;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.scheduler.JobHandler;
+import com.entellitrak.scheduler.SchedulerExecutionContext;
+
+import net.micropact.aea.ls.cache.LiveSearchCache;
+import net.micropact.aea.ls.cache.LiveSearchIndexCache;
+
+/**
+ * This job rebuilds the Live Search trigram indexes which have been built so far. Changes to reference data which
+ * report them through {@link net.entellitrak.aea.lookup.LiveSearchUtility} are applied to the indexes as they are
+ * saved, and every index is rebuilt once it is older than ls.trigramIndexTimeToLiveSeconds. This job picks up other
+ * changes, such as direct SQL updates or rolled back transactions, sooner than that.
+ *
+ * @author MicroPact
+ * @see LiveSearchIndexCache
+ */
+public class RebuildLiveSearchIndexes implements JobHandler {
+
+    @Override
+    public void execute(final SchedulerExecutionContext etk)
+            throws ApplicationException {
+        final LiveSearchIndexCache indexCache = LiveSearchCache.getIndexCache(etk);
+
+        if (indexCache.isEnabled()) {
+            indexCache.rebuildAll(etk);
+
+            etk.getLogger().info(indexCache.getStatistics().toString());
+        }
+    }
+}
@@ -9,16 +9,23 @@ package net.micropact.aea.ls.page.lsAjax;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
+import net.micropact.aea.core.cache.AeaCoreConfiguration;
 import net.micropact.aea.core.exceptionTools.ExceptionUtility;
+import net.micropact.aea.ls.cache.LiveSearchCache;
+import net.micropact.aea.ls.cache.LiveSearchCandidateCache;
+import net.micropact.aea.ls.cache.LiveSearchCandidates;
+import net.micropact.aea.ls.cache.LiveSearchIndexCache;
 import net.micropact.aea.utility.JsonUtilities;
 import net.micropact.aea.utility.Utility;
 import net.micropact.aea.utility.lookup.AeaLookupExecutionContextImpl;
+import net.micropact.aea.utility.lookup.BoundLookupQuery;
 import net.micropact.aea.utility.lookup.LookupDataUtility;
+import net.micropact.aea.utility.lookup.LookupQueryPlan;
 
 import com.entellitrak.ApplicationException;
 import com.entellitrak.PageExecutionContext;
@@ -58,7 +65,7 @@ public class LsAjaxController implements PageController {
 		final Long dataFormId = new Long(etk.getParameters().getSingle("dataFormId"));
 		final String dataElementId  = etk.getParameters().getSingle("dataElementId");
 		final String operation = etk.getParameters().getSingle("operation");
-	    String userEnteredSearch = etk.getParameters().getSingle("userEnteredSearch");
+		final String userEnteredSearch = etk.getParameters().getSingle("userEnteredSearch");
 		final List<String> columnHeaders = etk.getParameters().getField("columnHeaders");
 		final List<String> replacementParams = etk.getParameters().getField("replacementParams");
 
@@ -66,8 +73,6 @@ public class LsAjaxController implements PageController {
 		final Long ouId = etk.getCurrentUser().getHierarchy().getId();
 		final Long roleId = etk.getCurrentUser().getRole().getId();
 
-		final String breakText = "@r@Nd0mP@tT3rn@";
-
 		final LookupDataUtility lsu = new LookupDataUtility(etk);
 
 		DataObject dataObject = etk.getConfigurationService().loadDataObject(dataObjectKey);
@@ -82,10 +87,10 @@ public class LsAjaxController implements PageController {
 			sb.append("{\"jsonResult\": {");
 
 			//Attempts to retrieve the query and returns a JSON error message if the retrieval was unsuccessful.
-			String lookupQuery = "";
+			final BoundLookupQuery boundLookupQuery;
 			try {
 
-				lookupQuery = lsu.getLookupQuery(dataFormId, dataElementId,
+				boundLookupQuery = lsu.getBoundLookupQuery(dataFormId, dataElementId,
 						                        new AeaLookupExecutionContextImpl(etk, For.TRACKING, trackingIdLong, baseIdLong,
 						                        		parentIdLong, dataObjectBusinessKey, dataObjectTableName));
 			} catch (final Throwable t) {
@@ -102,18 +107,12 @@ public class LsAjaxController implements PageController {
 			}
 
 			//Log the query that was retrieved.
-			//net.micropact.aea.utility.Utility.aeaLog(etk, "Live Search Query = " + lookupQuery);
-
-			final Pattern p = Pattern.compile("\\{\\?.*?\\}");
-			final Matcher m = p.matcher(lookupQuery);
+			//net.micropact.aea.utility.Utility.aeaLog(etk, "Live Search Query = " + boundLookupQuery.getSql());
 
-			//Find all replacement parameters based on pattern above and add them to the JSON response.
+			//Add all replacement parameters of the query to the JSON response.
 			sb.append("\"isValid\": \"true\", \"parameters\": [");
 			boolean deleteLastComma = false;
-			while(m.find()){
-				String tmp = m.group();
-				tmp = tmp.substring(2, tmp.length() - 1);
-
+			for (final String tmp : boundLookupQuery.getParameterNames()) {
 				if ("trackingId".equals(tmp) ||
 						"baseId".equals(tmp) ||
 						"parentId".equals(tmp) ||
@@ -142,7 +141,6 @@ public class LsAjaxController implements PageController {
 			//This is the method that builds the response table with the search results.
 
 			final StringBuilder sb = new StringBuilder();
-			final boolean isSqlServer = Utility.isSqlServer(etk);
 
 			try {
 				//Load the configured max number of search results.
@@ -174,109 +172,50 @@ public class LsAjaxController implements PageController {
 					etk.getCache().store("ls.maxSearchResults", maxSearchResults);
 				}
 
-				final Map<String, Object> parameterMap = new HashMap<>();
-				parameterMap.put("trackingId", trackingId);
-				parameterMap.put("parentId", parentId);
-				parameterMap.put("baseId", baseId);
-				parameterMap.put("currentUser.id", userId);
-				parameterMap.put("currentUser.ouId", ouId);
-				parameterMap.put("currentUser.roleId", roleId);
-
-				//Get the lookup query for the provided data element.
-				String lookupQuery = lsu.getLookupQuery(dataFormId, dataElementId,
-			                                new AeaLookupExecutionContextImpl(etk, For.TRACKING, trackingIdLong, baseIdLong,
-					                        		parentIdLong, dataObjectBusinessKey, dataObjectTableName));
-				lookupQuery = lookupQuery.replaceAll("\\{\\$isLiveSearchAjax\\}", "1");
-				final StringBuffer modifiedQuery = new StringBuffer();
-
-				final Pattern p = Pattern.compile("\\{\\?.*?\\}");
-				final Matcher m = p.matcher(lookupQuery);
-
-				//Find all replacement parameters and bind the replacementParams passed from the form
-				//to the query.
-				while(m.find()) {
-					final String tmp = m.group();
-					final String stripped = tmp.substring(2, tmp.length() - 1);
-
-					if (!("trackingId".equals(stripped) ||
-							"baseId".equals(stripped) ||
-							"parentId".equals(stripped) ||
-							"currentUser.id".equals(stripped) ||
-							"currentUser.roleId".equals(stripped) ||
-							"currentUser.ouId".equals(stripped) ||
-							"assignmentRoleId".equals(stripped))) {
-						parameterMap.put(stripped, null);
-					}
+				final long startNanos = System.nanoTime();
+				final LiveSearchCandidateCache candidateCache = LiveSearchCache.getCandidateCache(etk);
 
-					m.appendReplacement(modifiedQuery, Matcher.quoteReplacement(":" + stripped));
-				}
-
-				m.appendTail(modifiedQuery);
+				//The key only contains the parameters which the query uses, so records and users which see the same
+				//rows share them.
+				LiveSearchCandidates candidates = bindCandidates(etk, lsu, dataFormId, dataElementId,
+						new AeaLookupExecutionContextImpl(etk, For.TRACKING, trackingIdLong, baseIdLong,
+								parentIdLong, dataObjectBusinessKey, dataObjectTableName),
+						trackingId, parentId, baseId, userId, ouId, roleId, replacementParams);
+				final String candidateKey = candidates.getKey();
 
-				final String inClauseQuery = modifiedQuery.toString();
+				final LiveSearchCandidates cachedCandidates = candidateCache.get(candidateKey);
+				final boolean isCacheHit = cachedCandidates != null;
 
-				if (replacementParams != null) {
-					for (final String aString : replacementParams) {
-
-						if (StringUtility.isBlank(aString)) {
-							continue;
-						}
+				if (isCacheHit) {
+					candidates = cachedCandidates;
+				} else if (candidateCache.isEnabled()) {
+					final long generation = candidateCache.getGeneration();
 
-						final String[] params = aString.split(breakText);
+					candidates = fetchCandidateRows(etk, candidates);
 
-						if (params.length == 2) {
-							if (params[1].contains(",")) {
-								final List<String> objectArray = new ArrayList<>();
-								objectArray.add("-1935223"); //dummy value
-
-								final String[] paramList = params[1].split(",");
-
-								for (final String aParam : paramList) {
-									if (StringUtility.isNotBlank(aParam)) {
-										objectArray.add(aParam);
-									}
-								}
-
-								parameterMap.put(params[0], objectArray);
-							} else {
-								parameterMap.put(params[0], params[1]);
-							}
-						}
-					}
+					candidateCache.put(candidateKey, candidates, generation);
 				}
 
-				//Wrap the query in an outer select, replace all wild card variables.
-				final StringBuilder finalQuery = new StringBuilder();
-				finalQuery.append("select ");
+				//Filter the cached rows in memory when the whole lookup fits, otherwise use the trigram index
+				//or search the database.
+				final List<Map<String, Object>> rowsToWrite;
+				final LiveSearchIndexCache indexCache = LiveSearchCache.getIndexCache(etk);
 
-				if (isSqlServer) {
-					finalQuery.append(" top ");
-					finalQuery.append(maxSearchResults);
+				if (candidates.hasRows()) {
+					rowsToWrite = candidates.filter(userEnteredSearch, maxSearchResults);
+				} else if (indexCache.isEnabled()) {
+					rowsToWrite = fetchRowsByValue(etk, candidates,
+							indexCache.search(etk, candidates, userEnteredSearch, maxSearchResults));
 				} else {
-					userEnteredSearch = userEnteredSearch.replaceAll("\\\\", "\\\\\\\\");
-					userEnteredSearch = userEnteredSearch.replaceAll("%", "\\\\%");
-					userEnteredSearch = userEnteredSearch.replaceAll("_", "\\\\_");
+					rowsToWrite = searchDatabase(etk, candidates, userEnteredSearch, maxSearchResults);
 				}
 
-				finalQuery.append(" * from (");
-				finalQuery.append(inClauseQuery);
-
-				//Filter by the user entered search string. Escape Oracle special characters.
-				if (!isSqlServer) {
-					finalQuery.append(") where lower(display) like ('%' || :userEnteredSearch || '%') ");
-					finalQuery.append(" ESCAPE '\\' and rownum <= ");
-					finalQuery.append(maxSearchResults);
+				if (isCacheHit) {
+					candidateCache.recordHit(System.nanoTime() - startNanos);
 				} else {
-					finalQuery.append(") TEMP_QUERY where lower(display) like ('%' + :userEnteredSearch + '%')");
+					candidateCache.recordMiss(System.nanoTime() - startNanos);
 				}
 
-				parameterMap.put("userEnteredSearch", userEnteredSearch.toLowerCase());
-
-				final List<Map<String, Object>> rowsToWrite =
-						etk.createSQL (finalQuery.toString())
-						.setParameter(parameterMap)
-						.fetchList();
-
 				sb.append("{\"jsonResult\": {\"isValid\": \"true\", \"tableResult\":");
 				sb.append(JsonUtilities.encode(lsu.writeTableHeader(columnHeaders)
 									        +  lsu.writeTableBody(columnHeaders, rowsToWrite, dataElementId)));
@@ -298,4 +237,226 @@ public class LsAjaxController implements PageController {
 
 		return tr;
 	}
-}
+
+	/**
+	 * Resolves the lookup query of a data element and binds its replacement parameters. The rows are not fetched.
+	 *
+	 * @param etk entellitrak execution context.
+	 * @param lsu The lookup data utility.
+	 * @param dataFormId The data form.
+	 * @param dataElementId The data element.
+	 * @param lookupContext The lookup execution context.
+	 * @param trackingId The trackingId of the record.
+	 * @param parentId The parentId of the record.
+	 * @param baseId The baseId of the record.
+	 * @param userId The current user.
+	 * @param ouId The hierarchy of the current user.
+	 * @param roleId The role of the current user.
+	 * @param replacementParams The replacement parameters passed from the form.
+	 * @return The candidates.
+	 * @throws Exception If the lookup query could not be resolved or executed.
+	 */
+	private static LiveSearchCandidates bindCandidates(final PageExecutionContext etk,
+			                                           final LookupDataUtility lsu,
+			                                           final Long dataFormId,
+			                                           final String dataElementId,
+			                                           final AeaLookupExecutionContextImpl lookupContext,
+			                                           final String trackingId,
+			                                           final String parentId,
+			                                           final String baseId,
+			                                           final Long userId,
+			                                           final Long ouId,
+			                                           final Long roleId,
+			                                           final List<String> replacementParams) throws Exception {
+		final String breakText = "@r@Nd0mP@tT3rn@";
+
+		final Map<String, Object> parameterMap = new HashMap<>();
+		final Set<String> referencedParameterNames = new HashSet<>();
+		parameterMap.put("trackingId", trackingId);
+		parameterMap.put("parentId", parentId);
+		parameterMap.put("baseId", baseId);
+		parameterMap.put("currentUser.id", userId);
+		parameterMap.put("currentUser.ouId", ouId);
+		parameterMap.put("currentUser.roleId", roleId);
+
+		//Get the lookup query for the provided data element, with its replacement parameters already bound.
+		final LookupQueryPlan lookupQueryPlan = lsu.getLookupQueryPlan(dataFormId, dataElementId);
+		final BoundLookupQuery boundLookupQuery = lookupQueryPlan.bind(lookupContext);
+
+		//Bind the replacementParams passed from the form to the query.
+		for (final String stripped : boundLookupQuery.getParameterNames()) {
+			referencedParameterNames.add(stripped);
+
+			if (!("trackingId".equals(stripped) ||
+					"baseId".equals(stripped) ||
+					"parentId".equals(stripped) ||
+					"currentUser.id".equals(stripped) ||
+					"currentUser.roleId".equals(stripped) ||
+					"currentUser.ouId".equals(stripped) ||
+					"assignmentRoleId".equals(stripped))) {
+				parameterMap.put(stripped, null);
+			}
+		}
+
+		final String inClauseQuery = boundLookupQuery.getSql().replaceAll("\\{\\$isLiveSearchAjax\\}", "1");
+
+		if (replacementParams != null) {
+			for (final String aString : replacementParams) {
+
+				if (StringUtility.isBlank(aString)) {
+					continue;
+				}
+
+				final String[] params = aString.split(breakText);
+
+				if (params.length == 2) {
+					if (params[1].contains(",")) {
+						final List<String> objectArray = new ArrayList<>();
+						objectArray.add("-1935223"); //dummy value
+
+						final String[] paramList = params[1].split(",");
+
+						for (final String aParam : paramList) {
+							if (StringUtility.isNotBlank(aParam)) {
+								objectArray.add(aParam);
+							}
+						}
+
+						parameterMap.put(params[0], objectArray);
+					} else {
+						parameterMap.put(params[0], params[1]);
+					}
+				}
+			}
+		}
+
+		//Changes to a data object lookup on the ID of its table can be applied to the trigram index in place.
+		final String sourceTableName =
+				lookupQueryPlan.isDataObjectLookup() && "ID".equalsIgnoreCase(lookupQueryPlan.getValueColumn())
+						? lookupQueryPlan.getTableName()
+						: null;
+
+		return new LiveSearchCandidates(inClauseQuery, parameterMap, referencedParameterNames, sourceTableName, null);
+	}
+
+	/**
+	 * Fetches all of the rows of a lookup if it is small enough for them to be filtered in memory.
+	 *
+	 * @param etk entellitrak execution context.
+	 * @param candidates The resolved lookup query and its parameters.
+	 * @return The candidates with their rows, or the candidates without rows if the lookup is too large.
+	 * @throws ApplicationException If the configuration could not be read.
+	 */
+	private static LiveSearchCandidates fetchCandidateRows(final PageExecutionContext etk,
+			                                               final LiveSearchCandidates candidates)
+			                                               throws ApplicationException {
+		final long maxRows = AeaCoreConfiguration.getLsCandidateCacheMaxRows(etk);
+
+		if (maxRows <= 0) {
+			return candidates;
+		}
+
+		//Fetch one row more than the limit to find out whether the whole lookup fits in memory.
+		final String candidateQuery = Utility.isSqlServer(etk)
+				? "select top " + (maxRows + 1) + " * from (" + candidates.getQuery() + ") TEMP_QUERY"
+				: "select * from (" + candidates.getQuery() + ") where rownum <= " + (maxRows + 1);
+
+		final List<Map<String, Object>> rows = etk.createSQL(candidateQuery)
+				.setParameter(candidates.getParameters())
+				.fetchList();
+
+		return rows.size() > maxRows ? candidates : candidates.withRows(rows);
+	}
+
+	/**
+	 * Fetches the rows of a lookup which were found by the trigram index.
+	 *
+	 * @param etk entellitrak execution context.
+	 * @param candidates The resolved lookup query and its parameters.
+	 * @param values The VALUE of the rows, best match first.
+	 * @return The rows, in the same order as values.
+	 */
+	private static List<Map<String, Object>> fetchRowsByValue(final PageExecutionContext etk,
+			                                                  final LiveSearchCandidates candidates,
+			                                                  final List<Object> values) {
+		if (values.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		final Map<String, Object> parameterMap = new HashMap<>(candidates.getParameters());
+		final StringBuilder finalQuery = new StringBuilder();
+		finalQuery.append("select * from (");
+		finalQuery.append(candidates.getQuery());
+		finalQuery.append(") TEMP_QUERY where ");
+		Utility.addLargeInClause("VALUE", finalQuery, parameterMap, values);
+
+		final Map<String, Map<String, Object>> rowsByValue = new HashMap<>();
+		for (final Map<String, Object> row : etk.createSQL(finalQuery.toString())
+				.setParameter(parameterMap)
+				.fetchList()) {
+			for (final Map.Entry<String, Object> column : row.entrySet()) {
+				if ("value".equalsIgnoreCase(column.getKey())) {
+					rowsByValue.putIfAbsent(LiveSearchCandidates.normalizeValue(column.getValue()), row);
+				}
+			}
+		}
+
+		final List<Map<String, Object>> rows = new ArrayList<>();
+		for (final Object value : values) {
+			final Map<String, Object> row = rowsByValue.get(LiveSearchCandidates.normalizeValue(value));
+			if (row != null) {
+				rows.add(row);
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Searches a lookup which is too large to filter in memory with a <code>lower(display) like '%x%'</code> query.
+	 *
+	 * @param etk entellitrak execution context.
+	 * @param candidates The resolved lookup query and its parameters.
+	 * @param userEnteredSearch The text the user has typed.
+	 * @param maxSearchResults The maximum number of rows to return.
+	 * @return The matching rows.
+	 */
+	private static List<Map<String, Object>> searchDatabase(final PageExecutionContext etk,
+			                                                final LiveSearchCandidates candidates,
+			                                                final String userEnteredSearch,
+			                                                final Integer maxSearchResults) {
+		final boolean isSqlServer = Utility.isSqlServer(etk);
+		String escapedSearch = userEnteredSearch;
+
+		//Wrap the query in an outer select, replace all wild card variables.
+		final StringBuilder finalQuery = new StringBuilder();
+		finalQuery.append("select ");
+
+		if (isSqlServer) {
+			finalQuery.append(" top ");
+			finalQuery.append(maxSearchResults);
+		} else {
+			escapedSearch = escapedSearch.replaceAll("\\\\", "\\\\\\\\");
+			escapedSearch = escapedSearch.replaceAll("%", "\\\\%");
+			escapedSearch = escapedSearch.replaceAll("_", "\\\\_");
+		}
+
+		finalQuery.append(" * from (");
+		finalQuery.append(candidates.getQuery());
+
+		//Filter by the user entered search string. Escape Oracle special characters.
+		if (!isSqlServer) {
+			finalQuery.append(") where lower(display) like ('%' || :userEnteredSearch || '%') ");
+			finalQuery.append(" ESCAPE '\\' and rownum <= ");
+			finalQuery.append(maxSearchResults);
+		} else {
+			finalQuery.append(") TEMP_QUERY where lower(display) like ('%' + :userEnteredSearch + '%')");
+		}
+
+		final Map<String, Object> parameterMap = new HashMap<>(candidates.getParameters());
+		parameterMap.put("userEnteredSearch", escapedSearch.toLowerCase());
+
+		return etk.createSQL (finalQuery.toString())
+				.setParameter(parameterMap)
+				.fetchList();
+	}
+}
\ No newline at end of file
@@ -25,15 +25,23 @@ public class CustomParameters implements ICustomParameters {
      * @param workflowEffectId The tracking id of the RF Workflow Effect which these parameters are being generated for
      * */
     public CustomParameters(final ExecutionContext etk, final long workflowEffectId) {
+        /* Here we set up the parameters that are specific to this RfScript */
+        this(etk.createSQL("SELECT scriptParameter.c_code SCRIPTPARAMETERCODE, scriptParameter.c_allow_multiple ALLOWMULTIPLE, scriptParameterValue.c_value VALUE FROM t_rf_workflow_effect workflowEffect JOIN t_rf_script_parameter scriptParameter ON scriptParameter.id_parent = workflowEffect.c_script LEFT JOIN t_rf_script_parameter_value scriptParameterValue ON scriptParameterValue.id_parent = workflowEffect.id AND scriptParameterValue.c_script_parameter = scriptParameter.id WHERE workflowEffect.id = :workflowEffectId ORDER BY scriptParameterValue.id")
+                .setParameter("workflowEffectId", workflowEffectId)
+                .fetchList()); /* SCRIPTPARAMETERCODE, ALLOWMULTIPLE, VALUE*/
+    }
+
+    /**
+     * Creates the Custom Parameters from rows which have already been retrieved from the database.
+     * The rows must be ordered the same way the values should be ordered within multi-valued parameters.
+     *
+     * @param customParameters rows containing the keys SCRIPTPARAMETERCODE, ALLOWMULTIPLE and VALUE
+     */
+    public CustomParameters(final List<Map<String, Object>> customParameters) {
 
         singles = new HashMap<>();
         multiples = new HashMap<>();
 
-        /* Here we set up the parameters that are specific to this RfScript */
-        final List<Map<String, Object>> customParameters = etk.createSQL("SELECT scriptParameter.c_code SCRIPTPARAMETERCODE, scriptParameter.c_allow_multiple ALLOWMULTIPLE, scriptParameterValue.c_value VALUE FROM t_rf_workflow_effect workflowEffect JOIN t_rf_script_parameter scriptParameter ON scriptParameter.id_parent = workflowEffect.c_script LEFT JOIN t_rf_script_parameter_value scriptParameterValue ON scriptParameterValue.id_parent = workflowEffect.id AND scriptParameterValue.c_script_parameter = scriptParameter.id WHERE workflowEffect.id = :workflowEffectId ORDER BY scriptParameterValue.id")
-                .setParameter("workflowEffectId", workflowEffectId)
-                .fetchList(); /* SCRIPTPARAMETERCODE, ALLOWMULTIPLE, VALUE*/
-
         /* Initialize all the customParameters to default values */
         customParameters.forEach(parameter -> {
             if("1".equals(parameter.get("ALLOWMULTIPLE")+"")){
@@ -62,6 +70,8 @@ public class CustomParameters implements ICustomParameters {
 
     @Override
     public List<String> getMultiple(final String parameterCode){
-        return multiples.get(parameterCode);
+        /* Return a copy because these parameters are shared by every transition of a cached workflow */
+        final List<String> values = multiples.get(parameterCode);
+        return values == null ? null : new LinkedList<>(values);
     }
 }
@@ -1,14 +1,14 @@
 package net.micropact.aea.rf;
 
-import java.util.Map;
-
 import com.entellitrak.ExecutionContext;
 
 import net.entellitrak.aea.rf.IDefaultParameters;
-import net.entellitrak.aea.rf.RfServiceFactory;
 import net.entellitrak.aea.rf.dao.IRfState;
 import net.entellitrak.aea.rf.dao.IRfTransition;
 import net.entellitrak.aea.rf.dao.IRfWorkflow;
+import net.micropact.aea.rf.cache.CompiledRfState;
+import net.micropact.aea.rf.cache.CompiledRfTransition;
+import net.micropact.aea.rf.cache.CompiledRfWorkflow;
 import net.micropact.aea.rf.service.RfDaoServicePrivate;
 import net.micropact.aea.utility.Utility;
 
@@ -18,6 +18,8 @@ import net.micropact.aea.utility.Utility;
  */
 public final class DefaultParameters implements IDefaultParameters {
 
+    private final RfDaoServicePrivate daoService;
+    private final long workflowId;
     private final String workflowCode;
     private final long childTrackingId;
     private final long parentTrackingId;
@@ -27,55 +29,65 @@ public final class DefaultParameters implements IDefaultParameters {
     private final String fromStateCode;
     private final long transitionId;
     private final String transitionCode;
-    private final IRfWorkflow rfWorkflow;
-    private final IRfTransition rfTransition;
-    private final IRfState fromState;
-    private final IRfState toState;
-    private final IRfState nextState;
+    private final String childTable;
+    private final String transitionColumn;
+    private final String parentTable;
+    private final String parentStateColumn;
+
+    /* The DAO objects are only loaded if an effect actually asks for them */
+    private IRfWorkflow rfWorkflow;
+    private IRfTransition rfTransition;
+    private IRfState fromState;
+    private IRfState toState;
 
     /**
-     * Constructor for default parameters.
+     * Constructor for default parameters. All of the metadata comes from the compiled workflow so no queries are
+     * run unless one of the DAO objects is requested.
      *
      * @param etk entellitrak execution context
-     * @param rfWorkflowCode The Code of the RF Workflow that the parameters should be generated for
+     * @param compiledWorkflow The compiled RF Workflow that the parameters should be generated for
+     * @param compiledTransition The compiled RF Transition which is being taken
      * @param childObjectTrackingId The tracking id of the workflow's child object to generate the parameters for
+     * @param parentObjectTrackingId The tracking id of the workflow's parent object
      * @param workflowFromStateId The tracking id of the RF State that the parent object is coming from
-     * @param workflowTransitionId The tracking id of the RF Transition which is being taken.
-     * @throws Exception If there is any underlying exception
      */
     public DefaultParameters(final ExecutionContext etk,
-            final String rfWorkflowCode,
+            final CompiledRfWorkflow compiledWorkflow,
+            final CompiledRfTransition compiledTransition,
             final long childObjectTrackingId,
-            final Long workflowFromStateId,
-            final long workflowTransitionId)
-                    throws Exception {
+            final long parentObjectTrackingId,
+            final Long workflowFromStateId) {
+
+        daoService = new RfDaoServicePrivate(etk);
+
+        workflowId = compiledWorkflow.getId();
+        workflowCode = compiledWorkflow.getCode();
+        childTable = compiledWorkflow.getChildTable();
+        transitionColumn = compiledWorkflow.getChildTransitionColumn();
+        parentTable = compiledWorkflow.getParentTable();
+        parentStateColumn = compiledWorkflow.getParentStateColumn();
 
-        workflowCode = rfWorkflowCode;
         childTrackingId = childObjectTrackingId;
+        parentTrackingId = parentObjectTrackingId;
 
-        rfWorkflow = RfServiceFactory.getRfDaoService(etk).loadRfWorkflowByCode(workflowCode);
+        transitionId = compiledTransition.getId();
+        transitionCode = compiledTransition.getCode();
 
-        final Map<String, Object> info = etk.createSQL(String.format(Utility.isSqlServer(etk) ? "SELECT (SELECT id_parent FROM %s WHERE id = :trackingId) PARENTTRACKINGID, (SELECT toState.c_code FROM t_rf_transition transition JOIN t_rf_state toState ON toState.id = transition.c_to_state WHERE transition.id = :transitionId) TOSTATECODE, (SELECT transition.c_to_state FROM t_rf_transition transition WHERE transition.id = :transitionId) TOSTATEID, (SELECT c_code FROM t_rf_state WHERE id = :fromStateId) FROMSTATECODE, (SELECT c_code FROM t_rf_transition WHERE id = :transitionId) TRANSITIONCODE"
-                                                                                                : "SELECT (SELECT id_parent FROM %s WHERE id = :trackingId) PARENTTRACKINGID, (SELECT toState.c_code FROM t_rf_transition transition JOIN t_rf_state toState ON toState.id = transition.c_to_state WHERE transition.id = :transitionId) TOSTATECODE, (SELECT transition.c_to_state FROM t_rf_transition transition WHERE transition.id = :transitionId) TOSTATEID, (SELECT c_code FROM t_rf_state WHERE id = :fromStateId) FROMSTATECODE, (SELECT c_code FROM t_rf_transition WHERE id = :transitionId) TRANSITIONCODE FROM DUAL",
-                                                                                                getChildTable()))
-                .setParameter("trackingId", childObjectTrackingId)
-                .setParameter("fromStateId", workflowFromStateId)
-                .setParameter("transitionId", workflowTransitionId)
-                .fetchMap();
+        toStateId = compiledTransition.getToStateId();
+        toStateCode = getStateCode(compiledWorkflow.getState(toStateId));
 
-        parentTrackingId = ((Number) info.get("PARENTTRACKINGID")).longValue();
-        toStateId = info.get("TOSTATEID") != null ? ((Number) info.get("TOSTATEID")).longValue() : null ;
-        toStateCode = (String) info.get("TOSTATECODE");
         fromStateId = workflowFromStateId;
-        fromStateCode = (String) info.get("FROMSTATECODE");
-        transitionId = workflowTransitionId;
-        transitionCode = (String) info.get("TRANSITIONCODE");
+        fromStateCode = getStateCode(compiledWorkflow.getState(fromStateId));
+    }
 
-        final RfDaoServicePrivate daoServicePrivate = new RfDaoServicePrivate(etk);
-        rfTransition = daoServicePrivate.loadRfTransitionById(transitionId);
-        fromState = fromStateId == null ? null : daoServicePrivate.loadRfStateById(fromStateId);
-        toState = toStateId == null ? null : daoServicePrivate.loadRfStateById(toStateId);
-        nextState = Utility.nvl(rfTransition.getToState(), fromState);
+    /**
+     * Null-safe way to get the code of a compiled RF State.
+     *
+     * @param state the compiled RF State
+     * @return the code of the state or null if the state is null
+     */
+    private static String getStateCode(final CompiledRfState state){
+        return state == null ? null : state.getCode();
     }
 
     @Override
@@ -95,23 +107,22 @@ public final class DefaultParameters implements IDefaultParameters {
 
     @Override
     public String getChildTable(){
-        return rfWorkflow.getChildTransitionElement().getDataObject().getTableName();
+        return childTable;
     }
 
     @Override
     public String getTransitionColumn(){
-        return rfWorkflow.getChildTransitionElement().getColumnName();
+        return transitionColumn;
     }
 
     @Override
     public String getParentTable(){
-        return rfWorkflow.getParentStateElement().getDataObject().getTableName();
-
+        return parentTable;
     }
 
     @Override
     public String getParentStateColumn(){
-        return rfWorkflow.getParentStateElement().getColumnName();
+        return parentStateColumn;
     }
 
     @Override
@@ -156,26 +167,38 @@ public final class DefaultParameters implements IDefaultParameters {
 
     @Override
     public IRfWorkflow getRfWorkflow() {
+        if(rfWorkflow == null){
+            rfWorkflow = daoService.loadRfWorkflowById(workflowId);
+        }
         return rfWorkflow;
     }
 
     @Override
     public IRfTransition getRfTransition() {
+        if(rfTransition == null){
+            rfTransition = daoService.loadRfTransitionById(transitionId);
+        }
         return rfTransition;
     }
 
     @Override
     public IRfState getFromState() {
+        if(fromState == null && fromStateId != null){
+            fromState = daoService.loadRfStateById(fromStateId);
+        }
         return fromState;
     }
 
     @Override
     public IRfState getToState() {
+        if(toState == null && toStateId != null){
+            toState = daoService.loadRfStateById(toStateId);
+        }
         return toState;
     }
 
     @Override
     public IRfState getNextState() {
-        return nextState;
+        return Utility.nvl(getToState(), getFromState());
     }
 }
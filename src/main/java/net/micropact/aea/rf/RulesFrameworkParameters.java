@@ -1,7 +1,5 @@
 package net.micropact.aea.rf;
 
-import com.entellitrak.ExecutionContext;
-
 import net.entellitrak.aea.rf.ICustomParameters;
 import net.entellitrak.aea.rf.IDefaultParameters;
 import net.entellitrak.aea.rf.IRulesFrameworkParameters;
@@ -20,17 +18,15 @@ public class RulesFrameworkParameters implements IRulesFrameworkParameters {
     /**
      * A simple constructor.
      *
-     * @param etk entellitrak execution context
      * @param workflowDefaultParameters the default parameters to use.
+     * @param workflowCustomParameters The Parameters specific to the particular workflow effect being fired.
      * @param workflowTransitionParameters The Parameters specific to the particular transition being taken.
-     * @param workflowEffectId The tracking id of the RF Workflow Effect to generate the parameters for.
      */
-    public RulesFrameworkParameters(final ExecutionContext etk,
-            final IDefaultParameters workflowDefaultParameters,
-            final ITransitionParameters workflowTransitionParameters,
-            final long workflowEffectId) {
+    public RulesFrameworkParameters(final IDefaultParameters workflowDefaultParameters,
+            final ICustomParameters workflowCustomParameters,
+            final ITransitionParameters workflowTransitionParameters) {
         defaultParameters = workflowDefaultParameters;
-        customParameters =  new CustomParameters(etk, workflowEffectId);
+        customParameters = workflowCustomParameters;
         transitionParameters = workflowTransitionParameters;
     }
 
@@ -26,13 +26,21 @@ public class TransitionParameters implements ITransitionParameters {
      * @param transitionId RF Transition Id
      */
     public TransitionParameters(final ExecutionContext etk, final long transitionId) {
-        singles = new HashMap<>();
-        multiples = new HashMap<>();
-
         /* Here we set up the parameters that are specific to this RF Transition */
-        final List<Map<String, Object>> transitionParameters = etk.createSQL("SELECT workflowParameter.c_code PARAMETERCODE, workflowParameter.c_allow_multiple ALLOWMULTIPLE, transitionParameterValue.c_value VALUE FROM t_rf_transition transition JOIN t_rf_workflow_parameter workflowParameter ON workflowParameter.id_parent = transition.id_parent LEFT JOIN t_rf_transition_parameter_valu transitionParameterValue ON transitionParameterValue.id_parent = transition.id AND transitionParameterValue.c_workflow_parameter = workflowParameter.id WHERE transition.id = :transitionId ORDER BY transitionParameterValue.id ")
+        this(etk.createSQL("SELECT workflowParameter.c_code PARAMETERCODE, workflowParameter.c_allow_multiple ALLOWMULTIPLE, transitionParameterValue.c_value VALUE FROM t_rf_transition transition JOIN t_rf_workflow_parameter workflowParameter ON workflowParameter.id_parent = transition.id_parent LEFT JOIN t_rf_transition_parameter_valu transitionParameterValue ON transitionParameterValue.id_parent = transition.id AND transitionParameterValue.c_workflow_parameter = workflowParameter.id WHERE transition.id = :transitionId ORDER BY transitionParameterValue.id ")
                 .setParameter("transitionId", transitionId)
-                .fetchList(); /* PARAMETERCODE, ALLOWMULTIPLE, VALUE */
+                .fetchList()); /* PARAMETERCODE, ALLOWMULTIPLE, VALUE */
+    }
+
+    /**
+     * Creates a new Transition Parameters from rows which have already been retrieved from the database.
+     * The rows must be ordered the same way the values should be ordered within multi-valued parameters.
+     *
+     * @param transitionParameters rows containing the keys PARAMETERCODE, ALLOWMULTIPLE and VALUE
+     */
+    public TransitionParameters(final List<Map<String, Object>> transitionParameters) {
+        singles = new HashMap<>();
+        multiples = new HashMap<>();
 
         /* Initialize all the customParameters to default values */
         transitionParameters.forEach(parameter -> {
@@ -62,6 +70,8 @@ public class TransitionParameters implements ITransitionParameters {
 
     @Override
     public List<String> getMultiple(final String parameterCode){
-        return multiples.get(parameterCode);
+        /* Return a copy because these parameters are shared by every transition of a cached workflow */
+        final List<String> values = multiples.get(parameterCode);
+        return values == null ? null : new LinkedList<>(values);
     }
 }
@@ -0,0 +1,76 @@
+package net.micropact.aea.rf;
+
+import net.entellitrak.aea.exception.RulesFrameworkException;
+import net.entellitrak.aea.rf.IWorkflowBatchResult;
+
+/**
+ * This class contains the private implementation of the public {@link IWorkflowBatchResult} interface.
+ *
+ * @author zmiller
+ */
+public final class WorkflowBatchResult implements IWorkflowBatchResult {
+
+    private final long trackingId;
+    private final Long childTrackingId;
+    private final RulesFrameworkException error;
+
+    /**
+     * A simple constructor.
+     *
+     * @param theTrackingId the trackingId which the result is for
+     * @param theChildTrackingId the trackingId of the Child Object, may be null
+     * @param theError the error which was encountered, null if there was no error
+     */
+    private WorkflowBatchResult(final long theTrackingId,
+            final Long theChildTrackingId,
+            final RulesFrameworkException theError){
+        trackingId = theTrackingId;
+        childTrackingId = theChildTrackingId;
+        error = theError;
+    }
+
+    /**
+     * Create a result for a record which was processed successfully.
+     *
+     * @param trackingId the trackingId which the result is for
+     * @param childTrackingId the trackingId of the Child Object
+     * @return the result
+     */
+    public static WorkflowBatchResult success(final long trackingId, final long childTrackingId){
+        return new WorkflowBatchResult(trackingId, childTrackingId, null);
+    }
+
+    /**
+     * Create a result for a record which could not be processed.
+     *
+     * @param trackingId the trackingId which the result is for
+     * @param childTrackingId the trackingId of the Child Object, may be null
+     * @param error the error which was encountered
+     * @return the result
+     */
+    public static WorkflowBatchResult failure(final long trackingId,
+            final Long childTrackingId,
+            final RulesFrameworkException error){
+        return new WorkflowBatchResult(trackingId, childTrackingId, error);
+    }
+
+    @Override
+    public long getTrackingId(){
+        return trackingId;
+    }
+
+    @Override
+    public Long getChildTrackingId(){
+        return childTrackingId;
+    }
+
+    @Override
+    public boolean isSuccessful(){
+        return error == null;
+    }
+
+    @Override
+    public RulesFrameworkException getError(){
+        return error;
+    }
+}
@@ -0,0 +1,42 @@
+package net.micropact.aea.rf.cache;
+
+/**
+ * Immutable, cacheable representation of the parts of an RF State which are needed to take a transition.
+ *
+ * @author zmiller
+ * @see CompiledRfWorkflow
+ */
+public final class CompiledRfState {
+
+    private final long id;
+    private final String code;
+
+    /**
+     * Simple constructor.
+     *
+     * @param stateId tracking id of the RF State
+     * @param stateCode Code of the RF State
+     */
+    CompiledRfState(final long stateId, final String stateCode) {
+        id = stateId;
+        code = stateCode;
+    }
+
+    /**
+     * Gets the tracking id.
+     *
+     * @return the tracking id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the Code.
+     *
+     * @return the Code
+     */
+    public String getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,151 @@
+package net.micropact.aea.rf.cache;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import net.entellitrak.aea.rf.ITransitionParameters;
+
+/**
+ * Immutable, cacheable representation of an RF Transition. It contains everything needed to take the transition
+ * (including its effects in execution order) without going back to the database.
+ *
+ * @author zmiller
+ * @see CompiledRfWorkflow
+ */
+public final class CompiledRfTransition {
+
+    private final long id;
+    private final String code;
+    private final Long toStateId;
+    private final boolean initialTransition;
+    private final Long startDate;
+    private final Long endDate;
+    private final Set<Long> fromStateIds;
+    private final Set<Long> roleIds;
+    private final List<CompiledRfWorkflowEffect> workflowEffects;
+    private final ITransitionParameters transitionParameters;
+
+    /**
+     * Simple constructor.
+     *
+     * @param transitionId tracking id of the RF Transition
+     * @param transitionCode Code of the RF Transition
+     * @param theToStateId tracking id of the To State, may be null
+     * @param isInitialTransition whether this is the initial transition of the workflow
+     * @param theStartDate Start Date, may be null
+     * @param theEndDate End Date, may be null
+     * @param theFromStateIds tracking ids of the RF States this transition may be taken from
+     * @param theRoleIds ids of the Roles which may take this transition
+     * @param theWorkflowEffects the effects of this transition, in execution order
+     * @param theTransitionParameters the RF Transition Parameter values of this transition
+     */
+    CompiledRfTransition(final long transitionId,
+            final String transitionCode,
+            final Long theToStateId,
+            final boolean isInitialTransition,
+            final Date theStartDate,
+            final Date theEndDate,
+            final Set<Long> theFromStateIds,
+            final Set<Long> theRoleIds,
+            final List<CompiledRfWorkflowEffect> theWorkflowEffects,
+            final ITransitionParameters theTransitionParameters) {
+        id = transitionId;
+        code = transitionCode;
+        toStateId = theToStateId;
+        initialTransition = isInitialTransition;
+        startDate = theStartDate == null ? null : theStartDate.getTime();
+        endDate = theEndDate == null ? null : theEndDate.getTime();
+        fromStateIds = Collections.unmodifiableSet(theFromStateIds);
+        roleIds = Collections.unmodifiableSet(theRoleIds);
+        workflowEffects = Collections.unmodifiableList(theWorkflowEffects);
+        transitionParameters = theTransitionParameters;
+    }
+
+    /**
+     * Gets the tracking id.
+     *
+     * @return the tracking id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the Code.
+     *
+     * @return the Code
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the tracking id of the To State.
+     *
+     * @return the tracking id of the To State, null if the transition does not change the state
+     */
+    public Long getToStateId() {
+        return toStateId;
+    }
+
+    /**
+     * Gets whether this is the initial transition of the workflow.
+     *
+     * @return whether this is the initial transition
+     */
+    public boolean isInitialTransition() {
+        return initialTransition;
+    }
+
+    /**
+     * Gets the tracking ids of the RF States which this transition may originate from.
+     *
+     * @return the From State tracking ids
+     */
+    public Set<Long> getFromStateIds() {
+        return fromStateIds;
+    }
+
+    /**
+     * Gets the ids of the Roles which may take this transition.
+     *
+     * @return the Role ids
+     */
+    public Set<Long> getRoleIds() {
+        return roleIds;
+    }
+
+    /**
+     * Gets the RF Workflow Effects of this transition, ordered by execution order.
+     *
+     * @return the RF Workflow Effects
+     */
+    public List<CompiledRfWorkflowEffect> getWorkflowEffects() {
+        return workflowEffects;
+    }
+
+    /**
+     * Gets the RF Transition Parameter values of this transition.
+     *
+     * @return the Transition Parameters
+     */
+    public ITransitionParameters getTransitionParameters() {
+        return transitionParameters;
+    }
+
+    /**
+     * Determines whether this transition is active on a particular day. This mirrors the
+     * <code>c_start_date &lt;= TRUNC(ETKF_GETSERVERTIME())</code> and
+     * <code>c_end_date &gt; TRUNC(ETKF_GETSERVERTIME())</code> checks which used to be done in SQL.
+     *
+     * @param today the current date, truncated to midnight
+     * @return whether the transition is active
+     */
+    public boolean isActive(final Date today) {
+        final long todayTime = today.getTime();
+        return (startDate == null || startDate <= todayTime)
+                && (endDate == null || endDate > todayTime);
+    }
+}
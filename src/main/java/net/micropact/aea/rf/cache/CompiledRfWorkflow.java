@@ -0,0 +1,178 @@
+package net.micropact.aea.rf.cache;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, cacheable representation of an RF Workflow. It contains all of the metadata which
+ * {@link net.entellitrak.aea.rf.RulesFramework} needs in order to take a transition so that the only queries which
+ * need to be run when taking a transition are the ones which update the parent and child objects.
+ *
+ * @author zmiller
+ * @see RfWorkflowCache
+ */
+public final class CompiledRfWorkflow {
+
+    private final long id;
+    private final String code;
+    private final String parentTable;
+    private final String parentStateColumn;
+    private final String childTable;
+    private final String childTransitionColumn;
+    private final boolean parentIsBase;
+    private final Map<Long, CompiledRfState> statesById;
+    private final Map<Long, CompiledRfTransition> transitionsById;
+    private final Map<String, CompiledRfTransition> transitionsByCode;
+
+    /**
+     * Simple constructor.
+     *
+     * @param workflowId tracking id of the RF Workflow
+     * @param workflowCode Code of the RF Workflow
+     * @param theParentTable table of the parent object
+     * @param theParentStateColumn column of the parent object which stores the RF State
+     * @param theChildTable table of the child object
+     * @param theChildTransitionColumn column of the child object which stores the RF Transition
+     * @param isParentBase whether the parent object is a base tracked object
+     * @param theStatesById the RF States of the workflow, keyed by tracking id
+     * @param theTransitionsById the RF Transitions of the workflow, keyed by tracking id
+     * @param theTransitionsByCode the RF Transitions of the workflow, keyed by code
+     */
+    CompiledRfWorkflow(final long workflowId,
+            final String workflowCode,
+            final String theParentTable,
+            final String theParentStateColumn,
+            final String theChildTable,
+            final String theChildTransitionColumn,
+            final boolean isParentBase,
+            final Map<Long, CompiledRfState> theStatesById,
+            final Map<Long, CompiledRfTransition> theTransitionsById,
+            final Map<String, CompiledRfTransition> theTransitionsByCode) {
+        id = workflowId;
+        code = workflowCode;
+        parentTable = theParentTable;
+        parentStateColumn = theParentStateColumn;
+        childTable = theChildTable;
+        childTransitionColumn = theChildTransitionColumn;
+        parentIsBase = isParentBase;
+        statesById = Collections.unmodifiableMap(theStatesById);
+        transitionsById = Collections.unmodifiableMap(theTransitionsById);
+        transitionsByCode = Collections.unmodifiableMap(theTransitionsByCode);
+    }
+
+    /**
+     * Gets the tracking id.
+     *
+     * @return the tracking id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the Code.
+     *
+     * @return the Code
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the table of the parent object.
+     *
+     * @return the parent table
+     */
+    public String getParentTable() {
+        return parentTable;
+    }
+
+    /**
+     * Gets the column of the parent object which stores the RF State.
+     *
+     * @return the parent state column
+     */
+    public String getParentStateColumn() {
+        return parentStateColumn;
+    }
+
+    /**
+     * Gets the table of the child object.
+     *
+     * @return the child table
+     */
+    public String getChildTable() {
+        return childTable;
+    }
+
+    /**
+     * Gets the column of the child object which stores the RF Transition.
+     *
+     * @return the child transition column
+     */
+    public String getChildTransitionColumn() {
+        return childTransitionColumn;
+    }
+
+    /**
+     * Gets whether the parent object is a base tracked object.
+     *
+     * @return whether the parent object is a base object
+     */
+    public boolean isParentBase() {
+        return parentIsBase;
+    }
+
+    /**
+     * Gets an RF State by its tracking id.
+     *
+     * @param stateId tracking id of the RF State, may be null
+     * @return the RF State, or null if it is not part of this workflow
+     */
+    public CompiledRfState getState(final Long stateId) {
+        return stateId == null ? null : statesById.get(stateId);
+    }
+
+    /**
+     * Gets an RF Transition by its tracking id.
+     *
+     * @param transitionId tracking id of the RF Transition
+     * @return the RF Transition, or null if it is not part of this workflow
+     */
+    public CompiledRfTransition getTransition(final long transitionId) {
+        return transitionsById.get(transitionId);
+    }
+
+    /**
+     * Gets an RF Transition by its Code.
+     *
+     * @param transitionCode Code of the RF Transition
+     * @return the RF Transition, or null if it is not part of this workflow
+     */
+    public CompiledRfTransition getTransitionByCode(final String transitionCode) {
+        return transitionsByCode.get(transitionCode);
+    }
+
+    /**
+     * Gets the initial transitions of this workflow which may be taken by a particular role on a particular day.
+     * A correctly configured workflow will return exactly one.
+     *
+     * @param roleId id of the Role taking the transition
+     * @param today the current date, truncated to midnight
+     * @return the matching initial transitions
+     */
+    public List<CompiledRfTransition> getInitialTransitions(final Long roleId, final Date today) {
+        final List<CompiledRfTransition> initialTransitions = new LinkedList<>();
+        for(final CompiledRfTransition transition : transitionsById.values()){
+            if(transition.isInitialTransition()
+                    && transition.getRoleIds().contains(roleId)
+                    && transition.isActive(today)){
+                initialTransitions.add(transition);
+            }
+        }
+        return initialTransitions;
+    }
+}
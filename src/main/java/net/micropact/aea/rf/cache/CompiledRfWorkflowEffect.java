@@ -0,0 +1,59 @@
+package net.micropact.aea.rf.cache;
+
+import net.entellitrak.aea.rf.ICustomParameters;
+
+/**
+ * Immutable, cacheable representation of an RF Workflow Effect. It contains everything needed to fire the effect
+ * without going back to the database.
+ *
+ * @author zmiller
+ * @see CompiledRfWorkflow
+ */
+public final class CompiledRfWorkflowEffect {
+
+    private final long id;
+    private final String scriptObjectName;
+    private final ICustomParameters customParameters;
+
+    /**
+     * Simple constructor.
+     *
+     * @param workflowEffectId tracking id of the RF Workflow Effect
+     * @param theScriptObjectName fully qualified name of the {@link net.entellitrak.aea.rf.IScript} implementation
+     * @param theCustomParameters the values of the RF Script Parameters for this effect
+     */
+    CompiledRfWorkflowEffect(final long workflowEffectId,
+            final String theScriptObjectName,
+            final ICustomParameters theCustomParameters) {
+        id = workflowEffectId;
+        scriptObjectName = theScriptObjectName;
+        customParameters = theCustomParameters;
+    }
+
+    /**
+     * Gets the tracking id.
+     *
+     * @return the tracking id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the fully qualified name of the {@link net.entellitrak.aea.rf.IScript} which implements the effect.
+     *
+     * @return the fully qualified class name
+     */
+    public String getScriptObjectName() {
+        return scriptObjectName;
+    }
+
+    /**
+     * Gets the Custom Parameters (RF Script Parameter values) for this effect.
+     *
+     * @return the Custom Parameters
+     */
+    public ICustomParameters getCustomParameters() {
+        return customParameters;
+    }
+}
@@ -0,0 +1,103 @@
+package net.micropact.aea.rf.cache;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.ExecutionContext;
+
+import net.entellitrak.aea.core.cache.CacheManager;
+import net.micropact.aea.core.query.QueryUtility;
+
+/**
+ * This class provides access to the cached {@link CompiledRfWorkflow}s. Anything which modifies the configuration of
+ * the Rules Framework must call {@link #clear(ExecutionContext, String...)} so that the compiled workflows are rebuilt.
+ *
+ * @author zmiller
+ */
+public final class RfWorkflowCache {
+
+    /**
+     * Utility classes do not need constructors.
+     */
+    private RfWorkflowCache(){}
+
+    /**
+     * Load the compiled form of an RF Workflow, compiling it if it is not already in the cache.
+     *
+     * @param etk entellitrak execution context
+     * @param workflowCode Code of the RF Workflow
+     * @return the compiled RF Workflow
+     * @throws ApplicationException If there was an underlying {@link ApplicationException}
+     */
+    public static CompiledRfWorkflow load(final ExecutionContext etk, final String workflowCode)
+            throws ApplicationException{
+        return CacheManager.load(etk, new RfWorkflowCacheable(etk, workflowCode));
+    }
+
+    /**
+     * Load a compiled RF Transition. If the transition is not found in the cached workflow, the workflow is recompiled
+     * once in case the cache was populated by a transaction which had not yet seen the transition.
+     *
+     * @param etk entellitrak execution context
+     * @param workflowCode Code of the RF Workflow
+     * @param transitionId tracking id of the RF Transition
+     * @return the compiled RF Transition
+     * @throws ApplicationException If the transition does not belong to the workflow
+     */
+    public static CompiledRfTransition loadTransition(final ExecutionContext etk,
+            final String workflowCode,
+            final long transitionId) throws ApplicationException{
+        CompiledRfTransition transition = load(etk, workflowCode).getTransition(transitionId);
+
+        if(transition == null){
+            clear(etk, workflowCode);
+            transition = load(etk, workflowCode).getTransition(transitionId);
+        }
+
+        if(transition == null){
+            throw new ApplicationException(String.format("Could not find RF Transition with id %s in RF Workflow \"%s\"",
+                    transitionId,
+                    workflowCode));
+        }
+        return transition;
+    }
+
+    /**
+     * Removes all compiled RF Workflows from the cache.
+     *
+     * @param etk entellitrak execution context
+     * @param additionalWorkflowCodes workflow codes which should be removed in addition to the codes currently in the
+     *          database. This is needed when the code of a workflow is changed or a workflow is deleted.
+     */
+    public static void clear(final ExecutionContext etk, final String... additionalWorkflowCodes){
+        final List<String> workflowCodes = QueryUtility.toSimpleList(etk.createSQL("SELECT c_code FROM t_rf_workflow")
+                .fetchList());
+
+        for(final String workflowCode : workflowCodes){
+            CacheManager.remove(etk, new RfWorkflowCacheable(etk, workflowCode));
+        }
+
+        for(final String workflowCode : additionalWorkflowCodes){
+            if(workflowCode != null){
+                CacheManager.remove(etk, new RfWorkflowCacheable(etk, workflowCode));
+            }
+        }
+    }
+
+    /**
+     * Gets the current date truncated to midnight. This is the date used to determine whether RF Transitions are
+     * active.
+     *
+     * @return the current date
+     */
+    public static Date getToday(){
+        final Calendar calendar = Calendar.getInstance();
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
+    }
+}
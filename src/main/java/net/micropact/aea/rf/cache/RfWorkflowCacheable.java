@@ -0,0 +1,175 @@
+package net.micropact.aea.rf.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.ExecutionContext;
+import com.entellitrak.configuration.DataElement;
+
+import net.entellitrak.aea.core.cache.ICacheable;
+import net.entellitrak.aea.rf.dao.IRfWorkflow;
+import net.micropact.aea.core.query.Coersion;
+import net.micropact.aea.rf.CustomParameters;
+import net.micropact.aea.rf.TransitionParameters;
+import net.micropact.aea.rf.service.RfDaoServicePrivate;
+
+/**
+ * {@link ICacheable} which compiles a single RF Workflow (identified by its code) into a {@link CompiledRfWorkflow}.
+ * The workflow is loaded with a fixed number of set-based queries regardless of how many states, transitions and
+ * effects it contains.
+ *
+ * @author zmiller
+ * @see RfWorkflowCache
+ */
+public class RfWorkflowCacheable implements ICacheable<CompiledRfWorkflow> {
+
+    private final ExecutionContext etk;
+    private final String workflowCode;
+
+    /**
+     * Constructor.
+     *
+     * @param executionContext entellitrak execution context
+     * @param rfWorkflowCode Code of the RF Workflow
+     */
+    public RfWorkflowCacheable(final ExecutionContext executionContext, final String rfWorkflowCode) {
+        etk = executionContext;
+        workflowCode = rfWorkflowCode;
+    }
+
+    @Override
+    public String getKey() {
+        return String.format("%s.%s", getClass().getName(), workflowCode);
+    }
+
+    @Override
+    public CompiledRfWorkflow getValue() throws ApplicationException {
+        try {
+            final IRfWorkflow rfWorkflow = new RfDaoServicePrivate(etk).loadRfRfWorkflowByCode(workflowCode);
+            final long workflowId = rfWorkflow.getId();
+
+            final DataElement parentStateElement = rfWorkflow.getParentStateElement();
+            final DataElement childTransitionElement = rfWorkflow.getChildTransitionElement();
+
+            final Map<Long, CompiledRfState> statesById = new HashMap<>();
+            for(final Map<String, Object> state : etk.createSQL("SELECT id ID, c_code CODE FROM t_rf_state WHERE id_parent = :rfWorkflowId")
+                    .setParameter("rfWorkflowId", workflowId)
+                    .fetchList()){
+                final long stateId = Coersion.toLong(state.get("ID"));
+                statesById.put(stateId, new CompiledRfState(stateId, (String) state.get("CODE")));
+            }
+
+            final Map<Long, Set<Long>> fromStateIds = groupLongs(etk.createSQL("SELECT fromState.id_owner TRANSITIONID, fromState.c_from_state VALUE FROM t_rf_transition transition JOIN m_rf_transition_from_state fromState ON fromState.id_owner = transition.id WHERE transition.id_parent = :rfWorkflowId")
+                    .setParameter("rfWorkflowId", workflowId)
+                    .fetchList());
+
+            final Map<Long, Set<Long>> roleIds = groupLongs(etk.createSQL("SELECT transitionRole.id_owner TRANSITIONID, transitionRole.c_role VALUE FROM t_rf_transition transition JOIN m_rf_transition_role transitionRole ON transitionRole.id_owner = transition.id WHERE transition.id_parent = :rfWorkflowId")
+                    .setParameter("rfWorkflowId", workflowId)
+                    .fetchList());
+
+            final Map<Long, List<Map<String, Object>>> customParameterRows = groupRows("WORKFLOWEFFECTID",
+                    etk.createSQL("SELECT workflowEffect.id WORKFLOWEFFECTID, scriptParameter.c_code SCRIPTPARAMETERCODE, scriptParameter.c_allow_multiple ALLOWMULTIPLE, scriptParameterValue.c_value VALUE FROM t_rf_workflow_effect workflowEffect JOIN t_rf_script_parameter scriptParameter ON scriptParameter.id_parent = workflowEffect.c_script LEFT JOIN t_rf_script_parameter_value scriptParameterValue ON scriptParameterValue.id_parent = workflowEffect.id AND scriptParameterValue.c_script_parameter = scriptParameter.id WHERE workflowEffect.id IN (SELECT effectTransition.id_owner FROM t_rf_transition transition JOIN m_rf_effect_transition effectTransition ON effectTransition.c_transition = transition.id WHERE transition.id_parent = :rfWorkflowId) ORDER BY scriptParameterValue.id")
+                    .setParameter("rfWorkflowId", workflowId)
+                    .fetchList()); /* WORKFLOWEFFECTID, SCRIPTPARAMETERCODE, ALLOWMULTIPLE, VALUE */
+
+            final Map<Long, CompiledRfWorkflowEffect> effectsById = new HashMap<>();
+            final Map<Long, List<CompiledRfWorkflowEffect>> effectsByTransition = new HashMap<>();
+            for(final Map<String, Object> effect : etk.createSQL("SELECT effectTransition.c_transition TRANSITIONID, workflowEffect.id WORKFLOWEFFECTID, script.c_script_object SCRIPTOBJECT FROM t_rf_transition transition JOIN m_rf_effect_transition effectTransition ON effectTransition.c_transition = transition.id JOIN t_rf_workflow_effect workflowEffect ON workflowEffect.id = effectTransition.id_owner JOIN t_rf_script script ON script.id = workflowEffect.c_script WHERE transition.id_parent = :rfWorkflowId ORDER BY workflowEffect.c_execution_order, workflowEffect.id")
+                    .setParameter("rfWorkflowId", workflowId)
+                    .fetchList()){ /* TRANSITIONID, WORKFLOWEFFECTID, SCRIPTOBJECT */
+                final long workflowEffectId = Coersion.toLong(effect.get("WORKFLOWEFFECTID"));
+
+                final CompiledRfWorkflowEffect compiledEffect = effectsById.computeIfAbsent(workflowEffectId,
+                        key -> new CompiledRfWorkflowEffect(workflowEffectId,
+                                (String) effect.get("SCRIPTOBJECT"),
+                                new CustomParameters(customParameterRows.getOrDefault(workflowEffectId,
+                                        Collections.emptyList()))));
+
+                effectsByTransition.computeIfAbsent(Coersion.toLong(effect.get("TRANSITIONID")),
+                        key -> new ArrayList<>())
+                .add(compiledEffect);
+            }
+
+            final Map<Long, List<Map<String, Object>>> transitionParameterRows = groupRows("TRANSITIONID",
+                    etk.createSQL("SELECT transition.id TRANSITIONID, workflowParameter.c_code PARAMETERCODE, workflowParameter.c_allow_multiple ALLOWMULTIPLE, transitionParameterValue.c_value VALUE FROM t_rf_transition transition JOIN t_rf_workflow_parameter workflowParameter ON workflowParameter.id_parent = transition.id_parent LEFT JOIN t_rf_transition_parameter_valu transitionParameterValue ON transitionParameterValue.id_parent = transition.id AND transitionParameterValue.c_workflow_parameter = workflowParameter.id WHERE transition.id_parent = :rfWorkflowId ORDER BY transitionParameterValue.id")
+                    .setParameter("rfWorkflowId", workflowId)
+                    .fetchList()); /* TRANSITIONID, PARAMETERCODE, ALLOWMULTIPLE, VALUE */
+
+            final Map<Long, CompiledRfTransition> transitionsById = new LinkedHashMap<>();
+            final Map<String, CompiledRfTransition> transitionsByCode = new HashMap<>();
+            for(final Map<String, Object> transition : etk.createSQL("SELECT id ID, c_code CODE, c_to_state TOSTATEID, c_initial_transition INITIALTRANSITION, c_start_date STARTDATE, c_end_date ENDDATE FROM t_rf_transition WHERE id_parent = :rfWorkflowId ORDER BY c_order, c_name, id")
+                    .setParameter("rfWorkflowId", workflowId)
+                    .fetchList()){
+                final long transitionId = Coersion.toLong(transition.get("ID"));
+
+                final CompiledRfTransition compiledTransition = new CompiledRfTransition(transitionId,
+                        (String) transition.get("CODE"),
+                        Coersion.toLong(transition.get("TOSTATEID")),
+                        Coersion.toBooleanNonNull(transition.get("INITIALTRANSITION")),
+                        (Date) transition.get("STARTDATE"),
+                        (Date) transition.get("ENDDATE"),
+                        fromStateIds.getOrDefault(transitionId, Collections.emptySet()),
+                        roleIds.getOrDefault(transitionId, Collections.emptySet()),
+                        effectsByTransition.getOrDefault(transitionId, Collections.emptyList()),
+                        new TransitionParameters(transitionParameterRows.getOrDefault(transitionId,
+                                Collections.emptyList())));
+
+                transitionsById.put(transitionId, compiledTransition);
+                transitionsByCode.put(compiledTransition.getCode(), compiledTransition);
+            }
+
+            return new CompiledRfWorkflow(workflowId,
+                    workflowCode,
+                    parentStateElement.getDataObject().getTableName(),
+                    parentStateElement.getColumnName(),
+                    childTransitionElement.getDataObject().getTableName(),
+                    childTransitionElement.getColumnName(),
+                    etk.getDataObjectService().getParent(parentStateElement.getDataObject()) == null,
+                    statesById,
+                    transitionsById,
+                    transitionsByCode);
+        } catch (final Exception e) {
+            throw new ApplicationException(String.format("Error compiling RF Workflow with code \"%s\"", workflowCode),
+                    e);
+        }
+    }
+
+    /**
+     * Groups query results by the numeric value of one of their columns, preserving the order of the rows.
+     *
+     * @param keyColumn the column to group by
+     * @param rows the query results
+     * @return the rows, grouped by the value of keyColumn
+     */
+    private static Map<Long, List<Map<String, Object>>> groupRows(final String keyColumn,
+            final List<Map<String, Object>> rows){
+        final Map<Long, List<Map<String, Object>>> groups = new HashMap<>();
+        for(final Map<String, Object> row : rows){
+            groups.computeIfAbsent(Coersion.toLong(row.get(keyColumn)), key -> new ArrayList<>()).add(row);
+        }
+        return groups;
+    }
+
+    /**
+     * Converts query results with the columns TRANSITIONID and VALUE into a map from transition to the set of values.
+     *
+     * @param rows the query results
+     * @return map from RF Transition tracking id to the values
+     */
+    private static Map<Long, Set<Long>> groupLongs(final List<Map<String, Object>> rows){
+        final Map<Long, Set<Long>> groups = new HashMap<>();
+        for(final Map<String, Object> row : rows){
+            groups.computeIfAbsent(Coersion.toLong(row.get("TRANSITIONID")), key -> new HashSet<>())
+            .add(Coersion.toLong(row.get("VALUE")));
+        }
+        return groups;
+    }
+}
@@ -2,6 +2,7 @@ package net.micropact.aea.rf.dao;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import com.entellitrak.ExecutionContext;
 import com.entellitrak.IncorrectResultSizeDataAccessException;
@@ -50,6 +51,25 @@ public class RfStateImpl implements IRfState {
         order = Coersion.toLong(rfState.getOrder());
     }
 
+    /**
+     * Constructor used when loading an entire RF Workflow graph. The row must contain the columns
+     * ID, NAME, CODE, DESCRIPTION, STARTDATE, ENDDATE and DISPLAYORDER.
+     *
+     * @param rfDaoService service for lazily loading related objects
+     * @param rfState the database row of the RF State
+     */
+    RfStateImpl(final RfDaoServicePrivate rfDaoService, final Map<String, Object> rfState) {
+        daoService = rfDaoService;
+        trackingId = Coersion.toLong(rfState.get("ID"));
+
+        name = (String) rfState.get("NAME");
+        code = (String) rfState.get("CODE");
+        description = (String) rfState.get("DESCRIPTION");
+        startDate = (Date) rfState.get("STARTDATE");
+        endDate = (Date) rfState.get("ENDDATE");
+        order = Coersion.toLong(rfState.get("DISPLAYORDER"));
+    }
+
     @Override
     public long getId(){
         return trackingId;
@@ -92,4 +112,13 @@ public class RfStateImpl implements IRfState {
         }
         return allowedTransitions;
     }
+
+    /**
+     * Set the RF Transitions which can originate from this state so that they will not be lazily loaded.
+     *
+     * @param theAllowedTransitions the RF Transitions
+     */
+    void setAllowedTransitions(final List<IRfTransition> theAllowedTransitions){
+        allowedTransitions = theAllowedTransitions;
+    }
 }
@@ -2,6 +2,7 @@ package net.micropact.aea.rf.dao;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import com.entellitrak.ExecutionContext;
 import com.entellitrak.IncorrectResultSizeDataAccessException;
@@ -64,6 +65,27 @@ public class RfTransitionImpl implements IRfTransition {
         toStateId = Coersion.toLong(rfTransition.getToState());
     }
 
+    /**
+     * Constructor used when loading an entire RF Workflow graph. The row must contain the columns
+     * ID, NAME, CODE, DESCRIPTION, ENDDATE, INITIALTRANSITION, DISPLAYORDER, STARTDATE and TOSTATE.
+     *
+     * @param rfDaoService service for lazily loading related objects
+     * @param rfTransition the database row of the RF Transition
+     */
+    RfTransitionImpl(final RfDaoServicePrivate rfDaoService, final Map<String, Object> rfTransition) {
+        daoService = rfDaoService;
+        trackingId = Coersion.toLong(rfTransition.get("ID"));
+
+        name = (String) rfTransition.get("NAME");
+        code = (String) rfTransition.get("CODE");
+        description = (String) rfTransition.get("DESCRIPTION");
+        endDate = (Date) rfTransition.get("ENDDATE");
+        initialTransition = Coersion.toBooleanNonNull(rfTransition.get("INITIALTRANSITION"));
+        order = Coersion.toLong(rfTransition.get("DISPLAYORDER"));
+        startDate = (Date) rfTransition.get("STARTDATE");
+        toStateId = Coersion.toLong(rfTransition.get("TOSTATE"));
+    }
+
     @Override
     public long getId() {
         return trackingId;
@@ -136,6 +158,51 @@ public class RfTransitionImpl implements IRfTransition {
         return workflowEffects;
     }
 
+    /**
+     * Get the tracking id of the RF State this transition goes to without loading the state.
+     *
+     * @return the tracking id of the RF State this transition goes to
+     */
+    Long getToStateId(){
+        return toStateId;
+    }
+
+    /**
+     * Set the RF State this transition goes to so that it will not be lazily loaded.
+     *
+     * @param theToState the RF State
+     */
+    void setToState(final IRfState theToState){
+        toState = theToState;
+    }
+
+    /**
+     * Set the RF States this transition may originate from so that they will not be lazily loaded.
+     *
+     * @param theFromStates the RF States
+     */
+    void setFromStates(final List<IRfState> theFromStates){
+        fromStates = theFromStates;
+    }
+
+    /**
+     * Set the Roles which may take this transition so that they will not be lazily loaded.
+     *
+     * @param theRoles the Roles
+     */
+    void setRoles(final List<Role> theRoles){
+        roles = theRoles;
+    }
+
+    /**
+     * Set the RF Workflow Effects which fire for this transition so that they will not be lazily loaded.
+     *
+     * @param theWorkflowEffects the RF Workflow Effects
+     */
+    void setWorkflowEffects(final List<IRfWorkflowEffect> theWorkflowEffects){
+        workflowEffects = theWorkflowEffects;
+    }
+
     @Override
     public ITransitionParameters getTransitionParameters() {
         return daoService.loadTransitionParametersByTransitionId(trackingId);
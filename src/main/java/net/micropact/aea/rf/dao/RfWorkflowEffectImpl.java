@@ -1,6 +1,7 @@
 package net.micropact.aea.rf.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import com.entellitrak.ExecutionContext;
 import com.entellitrak.IncorrectResultSizeDataAccessException;
@@ -10,6 +11,7 @@ import net.entellitrak.aea.rf.ICustomParameters;
 import net.entellitrak.aea.rf.dao.IRfScript;
 import net.entellitrak.aea.rf.dao.IRfTransition;
 import net.entellitrak.aea.rf.dao.IRfWorkflowEffect;
+import net.micropact.aea.core.query.Coersion;
 import net.micropact.aea.rf.service.RfDaoServicePrivate;
 
 /**
@@ -48,6 +50,23 @@ public class RfWorkflowEffectImpl implements IRfWorkflowEffect {
         rfScriptId = rfWorkflowEffect.getScript();
     }
 
+    /**
+     * Constructor used when loading an entire RF Workflow graph. The row must contain the columns
+     * ID, NAME, CODE, EXECUTIONORDER and SCRIPT.
+     *
+     * @param rfDaoService service for lazily loading related objects
+     * @param rfWorkflowEffect the database row of the RF Workflow Effect
+     */
+    RfWorkflowEffectImpl(final RfDaoServicePrivate rfDaoService, final Map<String, Object> rfWorkflowEffect) {
+        daoService = rfDaoService;
+        trackingId = Coersion.toLong(rfWorkflowEffect.get("ID"));
+
+        name = (String) rfWorkflowEffect.get("NAME");
+        code = (String) rfWorkflowEffect.get("CODE");
+        executionOrder = Coersion.toLong(rfWorkflowEffect.get("EXECUTIONORDER"));
+        rfScriptId = Coersion.toLong(rfWorkflowEffect.get("SCRIPT"));
+    }
+
     @Override
     public long getId(){
         return trackingId;
@@ -84,6 +103,15 @@ public class RfWorkflowEffectImpl implements IRfWorkflowEffect {
         return transitions;
     }
 
+    /**
+     * Set the RF Transitions which this effect fires for so that they will not be lazily loaded.
+     *
+     * @param theTransitions the RF Transitions
+     */
+    void setTransitions(final List<IRfTransition> theTransitions){
+        transitions = theTransitions;
+    }
+
     @Override
     public ICustomParameters getParameters() {
         return daoService.loadCustomParametersByRfWorkflowEffect(trackingId);
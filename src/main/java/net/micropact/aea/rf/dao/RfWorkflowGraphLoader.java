@@ -0,0 +1,172 @@
+package net.micropact.aea.rf.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.entellitrak.ExecutionContext;
+import com.entellitrak.user.Role;
+
+import net.entellitrak.aea.rf.dao.IRfState;
+import net.entellitrak.aea.rf.dao.IRfTransition;
+import net.entellitrak.aea.rf.dao.IRfWorkflow;
+import net.entellitrak.aea.rf.dao.IRfWorkflowEffect;
+import net.entellitrak.aea.rf.dao.IRfWorkflowParameter;
+import net.micropact.aea.core.query.Coersion;
+import net.micropact.aea.rf.service.RfDaoServicePrivate;
+
+/**
+ * This class loads an entire RF Workflow along with its states, transitions, workflow effects and workflow parameters
+ * using a fixed number of queries (one per table) instead of the one query per object which the lazily loaded DAOs
+ * use. Objects further out in the graph such as RF Scripts, RF Lookups and parameter values are still lazily loaded.
+ *
+ * @author zachary.miller
+ */
+public final class RfWorkflowGraphLoader {
+
+    /**
+     * Utility classes do not need constructors.
+     */
+    private RfWorkflowGraphLoader(){}
+
+    /**
+     * Load an RF Workflow and its graph.
+     *
+     * @param etk entellitrak execution context
+     * @param rfDaoService service for lazily loading the objects which are not part of the graph
+     * @param workflowId tracking id of the RF Workflow
+     * @return the RF Workflow
+     */
+    public static IRfWorkflow load(final ExecutionContext etk,
+            final RfDaoServicePrivate rfDaoService,
+            final long workflowId){
+
+        final RfWorkflowImpl rfWorkflow = new RfWorkflowImpl(etk, rfDaoService,
+                etk.createSQL("SELECT id ID, c_name NAME, c_code CODE, c_description DESCRIPTION, c_child_transition_element CHILDTRANSITIONELEMENT, c_parent_state_element PARENTSTATEELEMENT FROM t_rf_workflow WHERE id = :rfWorkflowId")
+                .setParameter("rfWorkflowId", workflowId)
+                .fetchMap());
+
+        /* States */
+        final List<IRfState> states = new ArrayList<>();
+        final Map<Long, RfStateImpl> statesById = new HashMap<>();
+        final Map<Long, List<IRfTransition>> allowedTransitionsByState = new HashMap<>();
+        for(final Map<String, Object> row : fetchByWorkflow(etk, "SELECT id ID, c_name NAME, c_code CODE, c_description DESCRIPTION, c_start_date STARTDATE, c_end_date ENDDATE, c_order DISPLAYORDER FROM t_rf_state WHERE id_parent = :rfWorkflowId ORDER BY c_order, c_name, id",
+                workflowId)){
+            final RfStateImpl state = new RfStateImpl(rfDaoService, row);
+            states.add(state);
+            statesById.put(state.getId(), state);
+            final List<IRfTransition> allowedTransitions = new ArrayList<>();
+            state.setAllowedTransitions(allowedTransitions);
+            allowedTransitionsByState.put(state.getId(), allowedTransitions);
+        }
+
+        /* Transitions */
+        final List<IRfTransition> transitions = new ArrayList<>();
+        final Map<Long, RfTransitionImpl> transitionsById = new HashMap<>();
+        final Map<Long, List<IRfState>> fromStatesByTransition = new HashMap<>();
+        final Map<Long, List<Role>> rolesByTransition = new HashMap<>();
+        final Map<Long, List<IRfWorkflowEffect>> workflowEffectsByTransition = new HashMap<>();
+        for(final Map<String, Object> row : fetchByWorkflow(etk, "SELECT id ID, c_name NAME, c_code CODE, c_description DESCRIPTION, c_end_date ENDDATE, c_initial_transition INITIALTRANSITION, c_order DISPLAYORDER, c_start_date STARTDATE, c_to_state TOSTATE FROM t_rf_transition WHERE id_parent = :rfWorkflowId ORDER BY c_order, c_name, id",
+                workflowId)){
+            final RfTransitionImpl transition = new RfTransitionImpl(rfDaoService, row);
+            transitions.add(transition);
+            transitionsById.put(transition.getId(), transition);
+
+            final Long toStateId = transition.getToStateId();
+            if(toStateId != null && statesById.containsKey(toStateId)){
+                transition.setToState(statesById.get(toStateId));
+            }
+
+            final List<IRfState> fromStates = new ArrayList<>();
+            final List<Role> roles = new ArrayList<>();
+            final List<IRfWorkflowEffect> transitionEffects = new ArrayList<>();
+            transition.setFromStates(fromStates);
+            transition.setRoles(roles);
+            transition.setWorkflowEffects(transitionEffects);
+            fromStatesByTransition.put(transition.getId(), fromStates);
+            rolesByTransition.put(transition.getId(), roles);
+            workflowEffectsByTransition.put(transition.getId(), transitionEffects);
+        }
+
+        /* From States. Ordering by transition and then state keeps both sides in the same order as lazy loading. */
+        for(final Map<String, Object> row : fetchByWorkflow(etk, "SELECT fromState.id_owner TRANSITIONID, fromState.c_from_state STATEID FROM t_rf_transition transition JOIN m_rf_transition_from_state fromState ON fromState.id_owner = transition.id WHERE transition.id_parent = :rfWorkflowId ORDER BY fromState.id_owner, fromState.c_from_state",
+                workflowId)){
+            final long transitionId = Coersion.toLong(row.get("TRANSITIONID"));
+            final long stateId = Coersion.toLong(row.get("STATEID"));
+            final RfStateImpl state = statesById.get(stateId);
+
+            if(state == null){
+                fromStatesByTransition.get(transitionId).add(rfDaoService.loadRfStateById(stateId));
+            }else{
+                fromStatesByTransition.get(transitionId).add(state);
+                allowedTransitionsByState.get(stateId).add(transitionsById.get(transitionId));
+            }
+        }
+
+        /* Roles */
+        final Map<Long, Role> rolesById = new HashMap<>();
+        for(final Map<String, Object> row : fetchByWorkflow(etk, "SELECT transitionRole.id_owner TRANSITIONID, transitionRole.c_role ROLEID FROM t_rf_transition transition JOIN m_rf_transition_role transitionRole ON transitionRole.id_owner = transition.id WHERE transition.id_parent = :rfWorkflowId ORDER BY transitionRole.id_owner, transitionRole.c_role",
+                workflowId)){
+            rolesByTransition.get(Coersion.toLong(row.get("TRANSITIONID")))
+            .add(rolesById.computeIfAbsent(Coersion.toLong(row.get("ROLEID")),
+                    roleId -> etk.getUserService().getRole(roleId)));
+        }
+
+        /* Workflow Effects */
+        final List<IRfWorkflowEffect> workflowEffects = new ArrayList<>();
+        final Map<Long, RfWorkflowEffectImpl> workflowEffectsById = new HashMap<>();
+        final Map<Long, List<IRfTransition>> transitionsByWorkflowEffect = new HashMap<>();
+        for(final Map<String, Object> row : fetchByWorkflow(etk, "SELECT id ID, c_name NAME, c_code CODE, c_execution_order EXECUTIONORDER, c_script SCRIPT FROM t_rf_workflow_effect WHERE id_parent = :rfWorkflowId ORDER BY c_execution_order, c_name, id",
+                workflowId)){
+            final RfWorkflowEffectImpl workflowEffect = new RfWorkflowEffectImpl(rfDaoService, row);
+            workflowEffects.add(workflowEffect);
+            workflowEffectsById.put(workflowEffect.getId(), workflowEffect);
+            final List<IRfTransition> effectTransitions = new ArrayList<>();
+            workflowEffect.setTransitions(effectTransitions);
+            transitionsByWorkflowEffect.put(workflowEffect.getId(), effectTransitions);
+        }
+
+        /* Effect Transitions */
+        for(final Map<String, Object> row : fetchByWorkflow(etk, "SELECT effectTransition.id_owner WORKFLOWEFFECTID, effectTransition.c_transition TRANSITIONID FROM t_rf_workflow_effect workflowEffect JOIN m_rf_effect_transition effectTransition ON effectTransition.id_owner = workflowEffect.id WHERE workflowEffect.id_parent = :rfWorkflowId ORDER BY effectTransition.id_owner, effectTransition.c_transition",
+                workflowId)){
+            final long workflowEffectId = Coersion.toLong(row.get("WORKFLOWEFFECTID"));
+            final long transitionId = Coersion.toLong(row.get("TRANSITIONID"));
+            final RfTransitionImpl transition = transitionsById.get(transitionId);
+
+            if(transition == null){
+                transitionsByWorkflowEffect.get(workflowEffectId).add(rfDaoService.loadRfTransitionById(transitionId));
+            }else{
+                transitionsByWorkflowEffect.get(workflowEffectId).add(transition);
+                workflowEffectsByTransition.get(transitionId).add(workflowEffectsById.get(workflowEffectId));
+            }
+        }
+
+        /* Workflow Parameters */
+        final List<IRfWorkflowParameter> workflowParameters = new ArrayList<>();
+        for(final Map<String, Object> row : fetchByWorkflow(etk, "SELECT id ID, c_name NAME, c_type TYPE, c_lookup LOOKUP, c_required REQUIRED, c_allow_multiple ALLOWMULTIPLE, c_code CODE, c_order DISPLAYORDER, c_description DESCRIPTION FROM t_rf_workflow_parameter WHERE id_parent = :rfWorkflowId ORDER BY c_order, c_name, id",
+                workflowId)){
+            workflowParameters.add(new RfWorkflowParameterImpl(rfDaoService, row));
+        }
+
+        rfWorkflow.setChildren(states, transitions, workflowEffects, workflowParameters);
+
+        return rfWorkflow;
+    }
+
+    /**
+     * Run a query which has a single parameter named rfWorkflowId.
+     *
+     * @param etk entellitrak execution context
+     * @param query the query
+     * @param workflowId tracking id of the RF Workflow
+     * @return the results of the query
+     */
+    private static List<Map<String, Object>> fetchByWorkflow(final ExecutionContext etk,
+            final String query,
+            final long workflowId){
+        return etk.createSQL(query)
+                .setParameter("rfWorkflowId", workflowId)
+                .fetchList();
+    }
+}
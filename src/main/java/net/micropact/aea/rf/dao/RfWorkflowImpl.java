@@ -1,6 +1,7 @@
 package net.micropact.aea.rf.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import com.entellitrak.ExecutionContext;
 import com.entellitrak.IncorrectResultSizeDataAccessException;
@@ -13,6 +14,7 @@ import net.entellitrak.aea.rf.dao.IRfTransition;
 import net.entellitrak.aea.rf.dao.IRfWorkflow;
 import net.entellitrak.aea.rf.dao.IRfWorkflowEffect;
 import net.entellitrak.aea.rf.dao.IRfWorkflowParameter;
+import net.micropact.aea.core.query.Coersion;
 import net.micropact.aea.rf.service.RfDaoServicePrivate;
 
 /**
@@ -58,6 +60,27 @@ public class RfWorkflowImpl implements IRfWorkflow {
         parentStateElement = dataElementService.getDataElementByBusinessKey(rfWorkflow.getParentStateElement());
     }
 
+    /**
+     * Constructor used when loading an entire RF Workflow graph. The row must contain the columns
+     * ID, NAME, CODE, DESCRIPTION, CHILDTRANSITIONELEMENT and PARENTSTATEELEMENT.
+     *
+     * @param etk entellitrak execution context
+     * @param rfDaoService service for lazily loading related objects
+     * @param rfWorkflow the database row of the RF Workflow
+     */
+    RfWorkflowImpl(final ExecutionContext etk, final RfDaoServicePrivate rfDaoService, final Map<String, Object> rfWorkflow) {
+        final DataElementService dataElementService = etk.getDataElementService();
+
+        daoService = rfDaoService;
+        trackingId = Coersion.toLong(rfWorkflow.get("ID"));
+
+        name = (String) rfWorkflow.get("NAME");
+        code = (String) rfWorkflow.get("CODE");
+        description = (String) rfWorkflow.get("DESCRIPTION");
+        childTransitionElement = dataElementService.getDataElementByBusinessKey((String) rfWorkflow.get("CHILDTRANSITIONELEMENT"));
+        parentStateElement = dataElementService.getDataElementByBusinessKey((String) rfWorkflow.get("PARENTSTATEELEMENT"));
+    }
+
     @Override
     public long getId(){
         return trackingId;
@@ -119,4 +142,22 @@ public class RfWorkflowImpl implements IRfWorkflow {
         }
         return workflowParameters;
     }
+
+    /**
+     * Set the children of this RF Workflow so that they will not be lazily loaded.
+     *
+     * @param theStates the RF States
+     * @param theTransitions the RF Transitions
+     * @param theWorkflowEffects the RF Workflow Effects
+     * @param theWorkflowParameters the RF Workflow Parameters
+     */
+    void setChildren(final List<IRfState> theStates,
+            final List<IRfTransition> theTransitions,
+            final List<IRfWorkflowEffect> theWorkflowEffects,
+            final List<IRfWorkflowParameter> theWorkflowParameters){
+        states = theStates;
+        transitions = theTransitions;
+        workflowEffects = theWorkflowEffects;
+        workflowParameters = theWorkflowParameters;
+    }
 }
@@ -1,5 +1,7 @@
 package net.micropact.aea.rf.dao;
 
+import java.util.Map;
+
 import com.entellitrak.ExecutionContext;
 import com.entellitrak.IncorrectResultSizeDataAccessException;
 import com.entellitrak.dynamic.RfWorkflowParameter;
@@ -52,6 +54,27 @@ public class RfWorkflowParameterImpl implements IRfWorkflowParameter {
         description = rfWorkflowParameter.getDescription();
     }
 
+    /**
+     * Constructor used when loading an entire RF Workflow graph. The row must contain the columns
+     * ID, NAME, TYPE, LOOKUP, REQUIRED, ALLOWMULTIPLE, CODE, DISPLAYORDER and DESCRIPTION.
+     *
+     * @param rfDaoService {@link RfDaoServicePrivate} for lazily loading other objects
+     * @param rfWorkflowParameter the database row of the RF Workflow Parameter
+     */
+    RfWorkflowParameterImpl(final RfDaoServicePrivate rfDaoService, final Map<String, Object> rfWorkflowParameter) {
+        daoService = rfDaoService;
+
+        trackingId = Coersion.toLong(rfWorkflowParameter.get("ID"));
+        name = (String) rfWorkflowParameter.get("NAME");
+        parameterTypeId = Coersion.toLong(rfWorkflowParameter.get("TYPE"));
+        rfLookupId = Coersion.toLong(rfWorkflowParameter.get("LOOKUP"));
+        required = Coersion.toBooleanNonNull(rfWorkflowParameter.get("REQUIRED"));
+        allowMultiple = Coersion.toBooleanNonNull(rfWorkflowParameter.get("ALLOWMULTIPLE"));
+        code = (String) rfWorkflowParameter.get("CODE");
+        order = Coersion.toLong(rfWorkflowParameter.get("DISPLAYORDER"));
+        description = (String) rfWorkflowParameter.get("DESCRIPTION");
+    }
+
     @Override
     public long getId(){
         return trackingId;
@@ -4,6 +4,7 @@ package net.micropact.aea.rf.doe;
 import com.entellitrak.DataObjectEventContext;
 
 import net.micropact.aea.core.doe.ADataObjectEventHandler;
+import net.micropact.aea.rf.cache.RfWorkflowCache;
 
 /**
  * This class is the Data Object Event Handler for the RF Script object.
@@ -15,6 +16,6 @@ public class RfScriptDoe extends ADataObjectEventHandler {
 
     @Override
     protected void executeObject(final DataObjectEventContext etk) {
-        // No object-specific code
+        RfWorkflowCache.clear(etk);
     }
 }
@@ -3,6 +3,7 @@ package net.micropact.aea.rf.doe;
 import com.entellitrak.DataObjectEventContext;
 
 import net.micropact.aea.core.doe.ADataObjectEventHandler;
+import net.micropact.aea.rf.cache.RfWorkflowCache;
 import net.micropact.aea.rf.utility.twoWayMultiselect.TwoWayMultiselectFactory;
 import net.micropact.aea.rf.utility.twoWayMultiselect.TwoWayMultiselectUtility;
 
@@ -22,5 +23,7 @@ public final class RfStateDoe extends ADataObjectEventHandler{
     protected void executeObject(final DataObjectEventContext etk) throws Exception {
         TwoWayMultiselectUtility.parseUnboundMultiselects(etk,
                 TwoWayMultiselectFactory.getRfStateAllowedTransitionsMultiselect(etk));
+
+        RfWorkflowCache.clear(etk);
     }
 }
@@ -3,6 +3,7 @@ package net.micropact.aea.rf.doe;
 import com.entellitrak.DataObjectEventContext;
 
 import net.micropact.aea.core.doe.ADataObjectEventHandler;
+import net.micropact.aea.rf.cache.RfWorkflowCache;
 import net.micropact.aea.rf.utility.dynamicParameters.DynamicParametersUseFactory;
 import net.micropact.aea.rf.utility.dynamicParameters.DynamicParametersUseFactory.DynamicParameterUsage;
 import net.micropact.aea.rf.utility.dynamicParameters.DynamicParametersUtility;
@@ -32,6 +33,8 @@ public final class RfTransitionDoe extends ADataObjectEventHandler{
                 DynamicParametersUseFactory.loadDynamicParameterUseInfo(etk,
                         DynamicParameterUsage.RF_TRANSITION_PARAMETER));
 
+        RfWorkflowCache.clear(etk);
+
         /* Since our only child is hidden, we are going to redirect to the listing screen because it's convenient
          * (and that's how the rest of entellitrak works) */
         etk.getRedirectManager()
@@ -1,8 +1,10 @@
 package net.micropact.aea.rf.doe;
 
 import com.entellitrak.DataObjectEventContext;
+import com.entellitrak.dynamic.RfWorkflow;
 
 import net.micropact.aea.core.doe.ADataObjectEventHandler;
+import net.micropact.aea.rf.cache.RfWorkflowCache;
 
 /**
  * The Data Object Event Handler for the RF Workflow object.
@@ -14,6 +16,17 @@ public class RfWorkflowDoe extends ADataObjectEventHandler {
 
     @Override
     protected void executeObject(final DataObjectEventContext etk) {
-        // No additional logic
+        /* The old code must be removed too in case the workflow's code was changed or the workflow was deleted */
+        RfWorkflowCache.clear(etk, getCode((RfWorkflow) etk.getOldObject()), getCode((RfWorkflow) etk.getNewObject()));
+    }
+
+    /**
+     * Null-safe way to get the code of an RF Workflow.
+     *
+     * @param rfWorkflow the RF Workflow
+     * @return the code of the RF Workflow, or null if the workflow is null
+     */
+    private static String getCode(final RfWorkflow rfWorkflow){
+        return rfWorkflow == null ? null : rfWorkflow.getCode();
     }
 }
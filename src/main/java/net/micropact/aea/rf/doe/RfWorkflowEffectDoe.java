@@ -4,6 +4,7 @@ import com.entellitrak.DataObjectEventContext;
 import com.entellitrak.dynamic.RfWorkflowEffect;
 
 import net.micropact.aea.core.doe.ADataObjectEventHandler;
+import net.micropact.aea.rf.cache.RfWorkflowCache;
 import net.micropact.aea.rf.utility.dynamicParameters.DynamicParametersUseFactory;
 import net.micropact.aea.rf.utility.dynamicParameters.DynamicParametersUseFactory.DynamicParameterUsage;
 import net.micropact.aea.rf.utility.dynamicParameters.DynamicParametersUtility;
@@ -25,6 +26,8 @@ public final class RfWorkflowEffectDoe extends ADataObjectEventHandler {
                 DynamicParametersUseFactory.loadDynamicParameterUseInfo(etk,
                         DynamicParameterUsage.RF_WORKFLOW_EFFECT_PARAMETER));
 
+        RfWorkflowCache.clear(etk);
+
         /* Since our only child is hidden, we are going to redirect to the listing screen because it's convenient
          * (and that's how the rest of entellitrak works) */
         etk.getRedirectManager().redirectToList("object.rfWorkflowEffect", new Long(workflowId));
@@ -3,6 +3,7 @@ package net.micropact.aea.rf.doe;
 import com.entellitrak.DataObjectEventContext;
 
 import net.micropact.aea.core.doe.ADataObjectEventHandler;
+import net.micropact.aea.rf.cache.RfWorkflowCache;
 import net.micropact.aea.rf.utility.dynamicParameters.DynamicParametersUtility;
 
 /**
@@ -16,5 +17,6 @@ public class RfWorkflowParameterDoe extends ADataObjectEventHandler {
     @Override
     protected void executeObject(final DataObjectEventContext etk) throws Exception {
         DynamicParametersUtility.validateLookupField(etk);
+        RfWorkflowCache.clear(etk);
     }
 }
@@ -10,6 +10,7 @@ import com.entellitrak.page.PageController;
 import com.entellitrak.page.Response;
 import com.entellitrak.page.TextResponse;
 
+import net.micropact.aea.rf.cache.RfWorkflowCache;
 import net.micropact.aea.utility.Utility;
 
 /**
@@ -50,6 +51,8 @@ public class ManageRoleTransitionsController implements PageController {
                 .setParameter("roleId", transitionRoleArray[1])
                 .execute();
             }
+
+            RfWorkflowCache.clear(etk);
         }
 
         response.put("roles", etk.createSQL("SELECT role_id ROLEID, name NAME FROM etk_role ORDER BY name")
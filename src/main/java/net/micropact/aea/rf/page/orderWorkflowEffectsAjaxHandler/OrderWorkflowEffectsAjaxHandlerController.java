@@ -24,6 +24,8 @@ import com.entellitrak.page.PageController;
 import com.entellitrak.page.Response;
 import com.entellitrak.page.TextResponse;
 
+import net.micropact.aea.rf.cache.RfWorkflowCache;
+
 /**
  * This page handles the AJAX saving of a new RF Workflow Effect ordering.
  * It takes an XML document through the xmlData parameter that looks like
@@ -55,6 +57,8 @@ public class OrderWorkflowEffectsAjaxHandlerController implements PageController
                 .setParameter("trackingId", workflowEffect.get("id"))
                 .execute());
 
+            RfWorkflowCache.clear(etk);
+
             return response;
         } catch (final Exception e) {
             throw new ApplicationException(e);
@@ -14,18 +14,35 @@ import net.entellitrak.aea.rf.service.IRfDaoService;
 public class RfDaoService implements IRfDaoService{
 
     private final ExecutionContext etk;
+    private final boolean lazyLoad;
 
     /**
-     * {@link RfDaoService} execution context.
+     * {@link RfDaoService} execution context. Workflows are loaded as an entire graph.
      *
      * @param executionContext entellitrak execution context
      */
     public RfDaoService(final ExecutionContext executionContext) {
+        this(executionContext, false);
+    }
+
+    /**
+     * Constructor which allows choosing whether workflows are loaded as an entire graph or lazily one object at a
+     * time.
+     *
+     * @param executionContext entellitrak execution context
+     * @param isLazyLoad whether related objects should be lazily loaded one at a time instead of loading the whole
+     *          graph up front
+     */
+    public RfDaoService(final ExecutionContext executionContext, final boolean isLazyLoad) {
         etk = executionContext;
+        lazyLoad = isLazyLoad;
     }
 
     @Override
     public IRfWorkflow loadRfWorkflowByCode(final String workflowCode) throws IncorrectResultSizeDataAccessException {
-        return new RfDaoServicePrivate(etk).loadRfRfWorkflowByCode(workflowCode);
+        final RfDaoServicePrivate daoService = new RfDaoServicePrivate(etk);
+        return lazyLoad
+                ? daoService.loadRfRfWorkflowByCode(workflowCode)
+                : daoService.loadRfWorkflowGraphByCode(workflowCode);
     }
 }
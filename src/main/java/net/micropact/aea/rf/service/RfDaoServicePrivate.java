@@ -29,6 +29,7 @@ import net.micropact.aea.rf.dao.RfScriptParameterImpl;
 import net.micropact.aea.rf.dao.RfStateImpl;
 import net.micropact.aea.rf.dao.RfTransitionImpl;
 import net.micropact.aea.rf.dao.RfWorkflowEffectImpl;
+import net.micropact.aea.rf.dao.RfWorkflowGraphLoader;
 import net.micropact.aea.rf.dao.RfWorkflowImpl;
 import net.micropact.aea.rf.dao.RfWorkflowParameterImpl;
 import net.micropact.aea.rf.dao.ScriptObjectImpl;
@@ -264,6 +265,34 @@ public class RfDaoServicePrivate {
         return loadRfWorkflowById(rfWorkflowId);
     }
 
+    /**
+     * Load an RF Workflow along with its RF States, RF Transitions, RF Workflow Effects and RF Workflow Parameters
+     * using one query per table instead of lazily loading each object individually.
+     * This should be preferred over {@link #loadRfWorkflowById(long)} when most of the workflow will be walked.
+     *
+     * @param workflowId tracking id of the RF Workflow
+     * @return the RF Workflow
+     */
+    public IRfWorkflow loadRfWorkflowGraphById(final long workflowId){
+        return RfWorkflowGraphLoader.load(etk, this, workflowId);
+    }
+
+    /**
+     * Load an RF Workflow graph given the value of its Code element.
+     *
+     * @param workflowCode value of the Code element of the RF Workflow
+     * @return the RF Workflow
+     * @throws IncorrectResultSizeDataAccessException
+     *          If there was an underlying {@link IncorrectResultSizeDataAccessException}
+     * @see #loadRfWorkflowGraphById(long)
+     */
+    public IRfWorkflow loadRfWorkflowGraphByCode(final String workflowCode) throws IncorrectResultSizeDataAccessException{
+        final int rfWorkflowId = etk.createSQL("SELECT ID FROM t_rf_workflow WHERE c_code = :rfWorkflowCode")
+                .setParameter("rfWorkflowCode", workflowCode)
+                .fetchInt();
+        return loadRfWorkflowGraphById(rfWorkflowId);
+    }
+
     /**
      * Loads all RF States which are children of a particular RF Workflow.
      *
@@ -0,0 +1,122 @@
+package net.micropact.aea.rf.utility;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import com.entellitrak.ApplicationException;
+
+import net.entellitrak.aea.rf.IScript;
+import net.entellitrak.aea.rf.IStatelessScript;
+
+/**
+ * <p>
+ *  This class creates the {@link IScript} instances for RF Workflow Effects.
+ *  Each class is only inspected once. After that, {@link IStatelessScript}s share a single instance and all other
+ *  scripts are created through a cached constructor {@link MethodHandle} instead of reflection.
+ * </p>
+ * <p>
+ *  The factories are keyed on the {@link Class} which the script repository currently resolves the name to, not on
+ *  the name itself. When scripts are changed the new class gets a new factory right away and the factory of the old
+ *  class is garbage collected along with it.
+ * </p>
+ *
+ * @author zmiller
+ */
+public final class RfScriptFactoryRegistry {
+
+    private static final MethodType NO_ARGUMENT_CONSTRUCTOR = MethodType.methodType(IScript.class);
+
+    private static final ClassValue<IScriptFactory> FACTORIES = new ClassValue<IScriptFactory>() {
+        @Override
+        protected IScriptFactory computeValue(final Class<?> scriptClass) {
+            return createFactory(scriptClass);
+        }
+    };
+
+    /**
+     * Utility classes do not need constructors.
+     */
+    private RfScriptFactoryRegistry(){}
+
+    /**
+     * Get an instance of an {@link IScript}.
+     *
+     * @param scriptObjectName fully qualified name of the {@link IScript} implementation
+     * @return the script
+     * @throws ApplicationException If the class could not be found or instantiated
+     */
+    public static IScript getScript(final String scriptObjectName) throws ApplicationException{
+        final Class<?> scriptClass;
+        try {
+            scriptClass = Class.forName(scriptObjectName);
+        } catch (final ClassNotFoundException e) {
+            throw new ApplicationException(String.format("Could not load RF Script \"%s\"", scriptObjectName), e);
+        }
+
+        return FACTORIES.get(scriptClass).create();
+    }
+
+    /**
+     * Creates the factory which will be used to get instances of a script class.
+     * A class which cannot be used as a script gets a factory which throws, so that the class is only inspected once.
+     *
+     * @param theScriptClass the class of the {@link IScript} implementation
+     * @return the factory
+     */
+    private static IScriptFactory createFactory(final Class<?> theScriptClass){
+        final String scriptObjectName = theScriptClass.getName();
+
+        try {
+            final Class<? extends IScript> scriptClass = theScriptClass.asSubclass(IScript.class);
+
+            final MethodHandle constructor = MethodHandles.publicLookup()
+                    .findConstructor(scriptClass, MethodType.methodType(void.class))
+                    .asType(NO_ARGUMENT_CONSTRUCTOR);
+
+            if(IStatelessScript.class.isAssignableFrom(scriptClass)){
+                final IScript sharedInstance = invoke(scriptObjectName, constructor);
+                return () -> sharedInstance;
+            }else{
+                return () -> invoke(scriptObjectName, constructor);
+            }
+        } catch (final ClassCastException | NoSuchMethodException | IllegalAccessException | ApplicationException e) {
+            return () -> {
+                throw new ApplicationException(String.format("Could not load RF Script \"%s\"", scriptObjectName), e);
+            };
+        }
+    }
+
+    /**
+     * Invokes a no-argument {@link IScript} constructor.
+     *
+     * @param scriptObjectName fully qualified name of the {@link IScript} implementation
+     * @param constructor the constructor
+     * @return the new instance
+     * @throws ApplicationException If the constructor threw an exception
+     */
+    private static IScript invoke(final String scriptObjectName, final MethodHandle constructor)
+            throws ApplicationException{
+        try {
+            return (IScript) constructor.invokeExact();
+        } catch (final Throwable e) {
+            throw new ApplicationException(String.format("Could not instantiate RF Script \"%s\"", scriptObjectName),
+                    e);
+        }
+    }
+
+    /**
+     * Creates {@link IScript} instances.
+     */
+    @FunctionalInterface
+    private interface IScriptFactory {
+
+        /**
+         * Gets an instance of the script.
+         *
+         * @return the script
+         * @throws ApplicationException If the script could not be instantiated
+         */
+        IScript create() throws ApplicationException;
+    }
+}
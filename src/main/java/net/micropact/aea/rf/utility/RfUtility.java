@@ -2,6 +2,7 @@ package net.micropact.aea.rf.utility;
 
 import com.entellitrak.ExecutionContext;
 
+import net.micropact.aea.rf.cache.RfWorkflowCache;
 import net.micropact.aea.utility.Utility;
 
 /**
@@ -53,5 +54,7 @@ public final class RfUtility {
 
         /* Could do one that deletes rf_transition_parmater_valu and t_rf_script_parameter_value
          * that have multiples but are not set as multiples */
+
+        RfWorkflowCache.clear(etk);
     }
 }
@@ -0,0 +1,61 @@
+package net.micropact.aea.tu.cache;
+
+import com.entellitrak.ApplicationException;
+
+import net.entellitrak.aea.core.cache.ICacheable;
+import net.entellitrak.aea.tu.CompiledTemplate;
+import net.entellitrak.aea.tu.ITemplater;
+
+/**
+ * {@link ICacheable} which compiles a template stored in a single column of a single row of a reference data list.
+ * Since the compiled form depends on the start and end characters of the {@link ITemplater}, they are part of the key.
+ *
+ * @author zmiller
+ * @see TemplateCache
+ */
+public class CompiledTemplateCacheable implements ICacheable<CompiledTemplate> {
+
+    private final ITemplater templater;
+    private final String tableName;
+    private final String columnName;
+    private final long id;
+    private final String source;
+
+    /**
+     * Constructor.
+     *
+     * @param theTemplater the templater which compiles the template
+     * @param theTableName table which the template is stored in
+     * @param theColumnName column which the template is stored in
+     * @param theId tracking id of the row which the template is stored in
+     * @param theSource the current text of the template
+     */
+    public CompiledTemplateCacheable(final ITemplater theTemplater,
+            final String theTableName,
+            final String theColumnName,
+            final long theId,
+            final String theSource) {
+        templater = theTemplater;
+        tableName = theTableName;
+        columnName = theColumnName;
+        id = theId;
+        source = theSource;
+    }
+
+    @Override
+    public String getKey() {
+        return String.format("%s.%s.%s.%s.%s.%s%s",
+                getClass().getName(),
+                templater.getClass().getName(),
+                tableName,
+                columnName,
+                id,
+                templater.getStartCharacter(),
+                templater.getEndCharacter());
+    }
+
+    @Override
+    public CompiledTemplate getValue() throws ApplicationException {
+        return templater.compile(source);
+    }
+}
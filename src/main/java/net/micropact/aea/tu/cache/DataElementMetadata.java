@@ -0,0 +1,70 @@
+package net.micropact.aea.tu.cache;
+
+/**
+ * Immutable, cacheable representation of the information about a data element which the
+ * {@link net.entellitrak.aea.tu.replacers.DataElementReplacer} needs.
+ *
+ * @author zmiller
+ * @see DataElementMetadataCacheable
+ */
+public final class DataElementMetadata {
+
+    private final String tableName;
+    private final String columnName;
+    private final long dataType;
+    private final String businessKey;
+
+    /**
+     * Simple constructor.
+     *
+     * @param theTableName table of the data object
+     * @param theColumnName column of the data element
+     * @param theDataType entellitrak number of the data element's data type
+     * @param theBusinessKey business key of the data element
+     */
+    DataElementMetadata(final String theTableName,
+            final String theColumnName,
+            final long theDataType,
+            final String theBusinessKey) {
+        tableName = theTableName;
+        columnName = theColumnName;
+        dataType = theDataType;
+        businessKey = theBusinessKey;
+    }
+
+    /**
+     * Gets the table of the data object.
+     *
+     * @return the table name
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Gets the column of the data element.
+     *
+     * @return the column name
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * Gets the entellitrak number of the data element's data type.
+     *
+     * @return the data type
+     */
+    public long getDataType() {
+        return dataType;
+    }
+
+    /**
+     * Gets the business key of the data element.
+     *
+     * @return the business key
+     */
+    public String getBusinessKey() {
+        return businessKey;
+    }
+}
@@ -0,0 +1,59 @@
+package net.micropact.aea.tu.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.entellitrak.ExecutionContext;
+
+import net.entellitrak.aea.core.cache.ICacheable;
+import net.micropact.aea.core.query.Coersion;
+
+/**
+ * {@link ICacheable} which stores the metadata of every data element in a tracking configuration,
+ * keyed by DataObjectName_dataElementName (the syntax used by the
+ * {@link net.entellitrak.aea.tu.replacers.DataElementReplacer}).
+ * Since the tracking configuration id is part of the key, applying changes automatically causes new metadata to be
+ * loaded.
+ *
+ * @author zmiller
+ * @see TemplateCache
+ */
+public class DataElementMetadataCacheable implements ICacheable<Map<String, DataElementMetadata>> {
+
+    private final ExecutionContext etk;
+    private final long trackingConfigId;
+
+    /**
+     * Constructor.
+     *
+     * @param executionContext entellitrak execution context
+     * @param theTrackingConfigId the tracking configuration id
+     */
+    public DataElementMetadataCacheable(final ExecutionContext executionContext, final long theTrackingConfigId) {
+        etk = executionContext;
+        trackingConfigId = theTrackingConfigId;
+    }
+
+    @Override
+    public String getKey() {
+        return String.format("%s.%s", getClass().getName(), trackingConfigId);
+    }
+
+    @Override
+    public Map<String, DataElementMetadata> getValue() {
+        final Map<String, DataElementMetadata> metadata = new HashMap<>();
+
+        for(final Map<String, Object> dataElement : etk.createSQL("SELECT do.OBJECT_NAME, de.ELEMENT_NAME, do.TABLE_NAME, de.COLUMN_NAME, de.DATA_TYPE, de.BUSINESS_KEY FROM etk_data_object DO JOIN etk_data_element de ON de.data_object_id = do.data_object_id WHERE do.tracking_config_id = :trackingConfigId")
+                .setParameter("trackingConfigId", trackingConfigId)
+                .fetchList()){
+            metadata.putIfAbsent(dataElement.get("OBJECT_NAME") + "_" + dataElement.get("ELEMENT_NAME"),
+                    new DataElementMetadata((String) dataElement.get("TABLE_NAME"),
+                            (String) dataElement.get("COLUMN_NAME"),
+                            Coersion.toLong(dataElement.get("DATA_TYPE")),
+                            (String) dataElement.get("BUSINESS_KEY")));
+        }
+
+        return Collections.unmodifiableMap(metadata);
+    }
+}
@@ -0,0 +1,42 @@
+package net.micropact.aea.tu.cache;
+
+/**
+ * Immutable, cacheable representation of a TU Replacement Section.
+ *
+ * @author zmiller
+ * @see ReplacementSectionDefinitionsCacheable
+ */
+public final class ReplacementSection {
+
+    private final long id;
+    private final String text;
+
+    /**
+     * Simple constructor.
+     *
+     * @param sectionId tracking id of the TU Replacement Section
+     * @param sectionText Text of the TU Replacement Section
+     */
+    ReplacementSection(final long sectionId, final String sectionText) {
+        id = sectionId;
+        text = sectionText;
+    }
+
+    /**
+     * Gets the tracking id.
+     *
+     * @return the tracking id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the Text.
+     *
+     * @return the Text
+     */
+    public String getText() {
+        return text;
+    }
+}
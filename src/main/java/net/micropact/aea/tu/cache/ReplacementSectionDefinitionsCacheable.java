@@ -0,0 +1,45 @@
+package net.micropact.aea.tu.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.entellitrak.ExecutionContext;
+
+import net.entellitrak.aea.core.cache.AClassKeyCacheable;
+import net.micropact.aea.core.query.Coersion;
+
+/**
+ * {@link net.entellitrak.aea.core.cache.ICacheable} which stores every TU Replacement Section,
+ * keyed by the name of the section.
+ *
+ * @author zmiller
+ * @see TemplateCache
+ */
+public class ReplacementSectionDefinitionsCacheable extends AClassKeyCacheable<Map<String, ReplacementSection>> {
+
+    private final ExecutionContext etk;
+
+    /**
+     * Constructor.
+     *
+     * @param executionContext entellitrak execution context
+     */
+    public ReplacementSectionDefinitionsCacheable(final ExecutionContext executionContext) {
+        etk = executionContext;
+    }
+
+    @Override
+    public Map<String, ReplacementSection> getValue() {
+        final Map<String, ReplacementSection> definitions = new HashMap<>();
+
+        for(final Map<String, Object> section : etk.createSQL("SELECT ID, C_NAME, C_TEXT FROM t_tu_replacement_section ORDER BY id")
+                .fetchList()){
+            final Object text = section.get("C_TEXT");
+            definitions.putIfAbsent((String) section.get("C_NAME"),
+                    new ReplacementSection(Coersion.toLong(section.get("ID")), text == null ? null : text.toString()));
+        }
+
+        return Collections.unmodifiableMap(definitions);
+    }
+}
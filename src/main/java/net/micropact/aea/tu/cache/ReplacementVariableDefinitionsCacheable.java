@@ -0,0 +1,43 @@
+package net.micropact.aea.tu.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.entellitrak.ExecutionContext;
+
+import net.entellitrak.aea.core.cache.AClassKeyCacheable;
+
+/**
+ * {@link net.entellitrak.aea.core.cache.ICacheable} which stores the SQL of every TU Replacement Variable,
+ * keyed by the name of the variable.
+ *
+ * @author zmiller
+ * @see TemplateCache
+ */
+public class ReplacementVariableDefinitionsCacheable extends AClassKeyCacheable<Map<String, String>> {
+
+    private final ExecutionContext etk;
+
+    /**
+     * Constructor.
+     *
+     * @param executionContext entellitrak execution context
+     */
+    public ReplacementVariableDefinitionsCacheable(final ExecutionContext executionContext) {
+        etk = executionContext;
+    }
+
+    @Override
+    public Map<String, String> getValue() {
+        final Map<String, String> definitions = new HashMap<>();
+
+        for(final Map<String, Object> variable : etk.createSQL("SELECT C_NAME, C_SQL FROM t_tu_replacement_variable ORDER BY id")
+                .fetchList()){
+            final Object sql = variable.get("C_SQL");
+            definitions.putIfAbsent((String) variable.get("C_NAME"), sql == null ? null : sql.toString());
+        }
+
+        return Collections.unmodifiableMap(definitions);
+    }
+}
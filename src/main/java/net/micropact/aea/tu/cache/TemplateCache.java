@@ -0,0 +1,146 @@
+package net.micropact.aea.tu.cache;
+
+import java.util.Map;
+import java.util.Objects;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.ExecutionContext;
+
+import net.entellitrak.aea.core.cache.CacheManager;
+import net.entellitrak.aea.exception.TemplateException;
+import net.entellitrak.aea.tu.CompiledTemplate;
+import net.entellitrak.aea.tu.ITemplater;
+import net.micropact.aea.core.cache.CurrentTrackingConfigIdCacheable;
+
+/**
+ * This class provides access to cached {@link CompiledTemplate}s for templates which are stored in the database,
+ * such as the subject and body of EU Email Templates and the text of TU Replacement Sections.
+ * Templates are cached by the row they are stored in. The source of the cached template is compared to the current
+ * text of the row (which the caller has already queried) so that an edited template is never rendered from a
+ * stale compilation.
+ * It also caches the definitions of TU Replacement Variables and TU Replacement Sections. Anything which modifies
+ * those reference data lists must call {@link #clearReplacementVariables(ExecutionContext)} or
+ * {@link #clearReplacementSections(ExecutionContext)}.
+ *
+ * @author zmiller
+ */
+public final class TemplateCache {
+
+    /**
+     * Utility classes do not need constructors.
+     */
+    private TemplateCache(){}
+
+    /**
+     * Load the compiled form of a template, compiling it if it is not already in the cache or if the cached template
+     * was compiled from a different version of the text.
+     *
+     * @param etk entellitrak execution context
+     * @param templater the templater which will render the template
+     * @param tableName table which the template is stored in
+     * @param columnName column which the template is stored in
+     * @param id tracking id of the row which the template is stored in
+     * @param source the current text of the template
+     * @return the compiled template
+     * @throws TemplateException If the template could not be compiled
+     */
+    public static CompiledTemplate load(final ExecutionContext etk,
+            final ITemplater templater,
+            final String tableName,
+            final String columnName,
+            final long id,
+            final String source) throws TemplateException{
+        final CompiledTemplateCacheable cacheable = new CompiledTemplateCacheable(templater,
+                tableName,
+                columnName,
+                id,
+                source);
+        try {
+            CompiledTemplate compiledTemplate = CacheManager.load(etk, cacheable);
+
+            if(!Objects.equals(source, compiledTemplate.getSource())){
+                CacheManager.remove(etk, cacheable);
+                compiledTemplate = CacheManager.load(etk, cacheable);
+            }
+
+            return compiledTemplate;
+        } catch (final TemplateException e) {
+            throw e;
+        } catch (final ApplicationException e) {
+            throw new TemplateException(String.format("Error compiling template stored in %s.%s with id %s",
+                    tableName, columnName, id),
+                    e);
+        }
+    }
+
+    /**
+     * Gets the SQL of a TU Replacement Variable.
+     *
+     * @param etk entellitrak execution context
+     * @param variableName name of the TU Replacement Variable
+     * @return the SQL, or null if there is no TU Replacement Variable with that name
+     * @throws TemplateException If the definitions could not be loaded
+     */
+    public static String getReplacementVariableSql(final ExecutionContext etk, final String variableName)
+            throws TemplateException{
+        try {
+            return CacheManager.load(etk, new ReplacementVariableDefinitionsCacheable(etk)).get(variableName);
+        } catch (final ApplicationException e) {
+            throw new TemplateException("Error loading TU Replacement Variables", e);
+        }
+    }
+
+    /**
+     * Gets a TU Replacement Section.
+     *
+     * @param etk entellitrak execution context
+     * @param sectionName name of the TU Replacement Section
+     * @return the section, or null if there is no TU Replacement Section with that name
+     * @throws TemplateException If the definitions could not be loaded
+     */
+    public static ReplacementSection getReplacementSection(final ExecutionContext etk, final String sectionName)
+            throws TemplateException{
+        try {
+            return CacheManager.load(etk, new ReplacementSectionDefinitionsCacheable(etk)).get(sectionName);
+        } catch (final ApplicationException e) {
+            throw new TemplateException("Error loading TU Replacement Sections", e);
+        }
+    }
+
+    /**
+     * Gets the metadata of the data elements in the currently deployed tracking configuration, keyed by
+     * DataObjectName_dataElementName.
+     *
+     * @param etk entellitrak execution context
+     * @return the data element metadata
+     * @throws TemplateException If the metadata could not be loaded
+     */
+    public static Map<String, DataElementMetadata> getDataElementMetadata(final ExecutionContext etk)
+            throws TemplateException{
+        try {
+            final long trackingConfigId = CacheManager.load(etk, new CurrentTrackingConfigIdCacheable(etk));
+
+            return CacheManager.load(etk, new DataElementMetadataCacheable(etk, trackingConfigId));
+        } catch (final ApplicationException e) {
+            throw new TemplateException("Error loading data element metadata", e);
+        }
+    }
+
+    /**
+     * Removes the cached TU Replacement Variable definitions.
+     *
+     * @param etk entellitrak execution context
+     */
+    public static void clearReplacementVariables(final ExecutionContext etk){
+        CacheManager.remove(etk, new ReplacementVariableDefinitionsCacheable(etk));
+    }
+
+    /**
+     * Removes the cached TU Replacement Section definitions.
+     *
+     * @param etk entellitrak execution context
+     */
+    public static void clearReplacementSections(final ExecutionContext etk){
+        CacheManager.remove(etk, new ReplacementSectionDefinitionsCacheable(etk));
+    }
+}
@@ -3,6 +3,7 @@ package net.micropact.aea.tu.doe;
 import com.entellitrak.ReferenceObjectEventContext;
 
 import net.micropact.aea.core.doe.AReferenceObjectEventHandler;
+import net.micropact.aea.tu.cache.TemplateCache;
 
 /**
  * Data Object Event Handler for the TU Replacement Section.
@@ -13,6 +14,6 @@ public class TuReplacementSectionDoe extends AReferenceObjectEventHandler {
 
     @Override
     protected void executeObject(final ReferenceObjectEventContext etk) {
-        // No additional logic
+        TemplateCache.clearReplacementSections(etk);
     }
 }
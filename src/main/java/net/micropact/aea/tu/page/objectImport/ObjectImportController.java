@@ -20,6 +20,7 @@ import com.entellitrak.page.Response;
 
 import net.micropact.aea.core.importExport.ComponentDataImporter;
 import net.micropact.aea.core.importExport.IImportLogic;
+import net.micropact.aea.tu.cache.TemplateCache;
 import net.micropact.aea.utility.ImportExportUtility;
 import net.micropact.aea.utility.Utility;
 
@@ -126,6 +127,10 @@ public class ObjectImportController implements PageController {
 
                     importReplacementVariables(document);
                     importReplacementSections(document);
+
+                    /* The rows were changed with SQL, so the reference data event handlers did not clear the cache */
+                    TemplateCache.clearReplacementVariables(etk);
+                    TemplateCache.clearReplacementSections(etk);
                 } catch (final SAXException | IOException | ParserConfigurationException e) {
                     throw new ApplicationException(e);
                 }
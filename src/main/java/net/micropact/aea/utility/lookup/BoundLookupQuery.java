@@ -0,0 +1,78 @@
+package net.micropact.aea.utility.lookup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A lookup query with its {?parameter} replacement parameters converted to :parameter bind parameters.
+ *
+ * @author MicroPact
+ * @see LookupQueryPlan
+ */
+public final class BoundLookupQuery {
+
+	/** Matches the {?parameters} in an SQL query. */
+	private static final Pattern REPLACEMENT_PARAMETER_PATTERN = Pattern.compile("\\{\\?(.*?)\\}");
+
+	private final String sql;
+	private final List<String> parameterNames;
+
+	/**
+	 * Simple constructor.
+	 *
+	 * @param theSql The query with bind parameters.
+	 * @param theParameterNames The names of the bind parameters.
+	 */
+	private BoundLookupQuery(final String theSql, final List<String> theParameterNames) {
+		sql = theSql;
+		parameterNames = Collections.unmodifiableList(theParameterNames);
+	}
+
+	/**
+	 * Converts the replacement parameters of a lookup query to bind parameters.
+	 *
+	 * @param lookupQuery The lookup query.
+	 * @return The bound query.
+	 */
+	public static BoundLookupQuery parse(final String lookupQuery) {
+		final StringBuffer modifiedQuery = new StringBuffer();
+		final List<String> parameterNames = new ArrayList<>();
+
+		final Matcher m = REPLACEMENT_PARAMETER_PATTERN.matcher(lookupQuery);
+
+		while (m.find()) {
+			final String parameterName = m.group(1);
+
+			if (!parameterNames.contains(parameterName)) {
+				parameterNames.add(parameterName);
+			}
+
+			m.appendReplacement(modifiedQuery, Matcher.quoteReplacement(":" + parameterName));
+		}
+
+		m.appendTail(modifiedQuery);
+
+		return new BoundLookupQuery(modifiedQuery.toString(), parameterNames);
+	}
+
+	/**
+	 * Returns the query with bind parameters.
+	 *
+	 * @return The query.
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * Returns the names of the bind parameters, in the order they first appear in the query.
+	 *
+	 * @return The parameter names.
+	 */
+	public List<String> getParameterNames() {
+		return parameterNames;
+	}
+}
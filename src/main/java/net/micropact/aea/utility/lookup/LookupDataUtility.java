@@ -12,9 +12,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import net.entellitrak.aea.core.cache.CacheManager;
 import net.micropact.aea.core.utility.StringEscapeUtils;
 import net.micropact.aea.utility.DataElementType;
 import net.micropact.aea.utility.DataObjectType;
@@ -30,7 +30,6 @@ import com.entellitrak.IncorrectResultSizeDataAccessException;
 import com.entellitrak.legacy.util.DateUtility;
 import com.entellitrak.legacy.util.StringUtility;
 import com.entellitrak.lookup.LookupExecutionContext;
-import com.entellitrak.lookup.LookupHandler;
 import com.micropact.entellitrak.cfg.model.DataType;
 
 /**
@@ -40,6 +39,9 @@ import com.micropact.entellitrak.cfg.model.DataType;
  *
  */
 public class LookupDataUtility {
+	/** Matches the selects which {@link #peformSelectReplacements(String)} adds TOP to. */
+	private static final Pattern SELECT_PATTERN = Pattern.compile("(select)(\\s)+(?!top)", Pattern.CASE_INSENSITIVE);
+
 	private ExecutionContext etk = null;
 
     // Thread local variable containing this thread's previous lookup ID value.
@@ -102,14 +104,12 @@ public class LookupDataUtility {
 	 * @param aString A Query
 	 * @return The modified query.
 	 */
-	private String peformSelectReplacements(final String aString) {
+	static String peformSelectReplacements(final String aString) {
 		if (aString == null) {
 			return null;
 		}
 
-		final Pattern p = Pattern.compile("(select)(\\s)+(?!top)", Pattern.CASE_INSENSITIVE);
-		final Matcher m = p.matcher(aString);
-		return m.replaceAll("SELECT TOP 2147483647 ");
+		return SELECT_PATTERN.matcher(aString).replaceAll("SELECT TOP 2147483647 ");
 	}
 
 
@@ -485,7 +485,7 @@ public class LookupDataUtility {
 																IllegalAccessException,
 																ClassNotFoundException,
 																ApplicationException {
-		return getLookupQuery (dataFormId, dataElementName, null, aLookupExecutionContext, true);
+		return getLookupQueryPlan(dataFormId, dataElementName, null, true).getLookupQuery(aLookupExecutionContext);
 	}
 
 
@@ -511,19 +511,44 @@ public class LookupDataUtility {
 																IllegalAccessException,
 																ClassNotFoundException,
 																ApplicationException {
-		return getLookupQuery (null, null, dataElementBusinessKey, aLookupExecutionContext, false);
+		return getLookupQueryPlan(null, null, dataElementBusinessKey, false).getLookupQuery(aLookupExecutionContext);
 	}
 
 	/**
-	 * Gets the lookup query for a data object / data element id or by a data element by business key.
+	 * Gets the lookup query for a data object / data element id with its {?parameter} replacement parameters
+	 * converted to :parameter bind parameters.
 	 *
 	 * @param dataFormId The data form id.
 	 * @param dataElementName The data element name.
-	 * @param dataElementBusinessKey The data element business key.
 	 * @param aLookupExecutionContext context to pass to the lookup handler
-	 * @param filterStartStopDate whether to add stop/start date filtering to data object lookup queries.
+	 * @return The bound SQL query for the data object with the given ID.
+	 * @throws IncorrectResultSizeDataAccessException Incorrect Result Size Data Access Exception.
+	 * @throws DataAccessException Data Access Exception.
+	 * @throws InstantiationException Instantiation Exception.
+	 * @throws IllegalAccessException Illegal Access Exception.
+	 * @throws ClassNotFoundException Class Not Found Exception.
+	 * @throws ApplicationException Application Exception.
+	 */
+	public BoundLookupQuery getBoundLookupQuery (final Long dataFormId,
+			                                     final String dataElementName,
+			                                     final LookupExecutionContext aLookupExecutionContext)
+														throws IncorrectResultSizeDataAccessException,
+																DataAccessException,
+																InstantiationException,
+																IllegalAccessException,
+																ClassNotFoundException,
+																ApplicationException {
+		return getLookupQueryPlan(dataFormId, dataElementName, null, true).bind(aLookupExecutionContext);
+	}
+
+	/**
+	 * Gets the lookup query for a data element by business key with its {?parameter} replacement parameters
+	 * converted to :parameter bind parameters. If multiple, pulls the first result.
+	 * Returns data object queries with no start/stop date filtering on the query.
 	 *
-	 * @return The SQL query for the data object with the given ID.
+	 * @param dataElementBusinessKey The data element business key.
+	 * @param aLookupExecutionContext context to pass to the lookup handler
+	 * @return The bound SQL query for the data element.
 	 * @throws IncorrectResultSizeDataAccessException Incorrect Result Size Data Access Exception.
 	 * @throws DataAccessException Data Access Exception.
 	 * @throws InstantiationException Instantiation Exception.
@@ -531,18 +556,66 @@ public class LookupDataUtility {
 	 * @throws ClassNotFoundException Class Not Found Exception.
 	 * @throws ApplicationException Application Exception.
 	 */
-	private String getLookupQuery (final Long dataFormId,
-			                       final String dataElementName,
-			                       final String dataElementBusinessKey,
-			                       final LookupExecutionContext aLookupExecutionContext,
-			                       final boolean filterStartStopDate
-			                      )
-			throws IncorrectResultSizeDataAccessException,
-			DataAccessException,
-			InstantiationException,
-			IllegalAccessException,
-			ClassNotFoundException,
-			ApplicationException {
+	public BoundLookupQuery getBoundLookupQuery (final String dataElementBusinessKey,
+			                                     final LookupExecutionContext aLookupExecutionContext)
+														throws IncorrectResultSizeDataAccessException,
+																DataAccessException,
+																InstantiationException,
+																IllegalAccessException,
+																ClassNotFoundException,
+																ApplicationException {
+		return getLookupQueryPlan(null, null, dataElementBusinessKey, false).bind(aLookupExecutionContext);
+	}
+
+	/**
+	 * Gets the cached lookup query plan for a data object / data element id.
+	 *
+	 * @param dataFormId The data form id.
+	 * @param dataElementName The data element name.
+	 * @return The lookup query plan.
+	 * @throws ApplicationException Application Exception.
+	 */
+	public LookupQueryPlan getLookupQueryPlan (final Long dataFormId,
+			                                   final String dataElementName) throws ApplicationException {
+		return getLookupQueryPlan(dataFormId, dataElementName, null, true);
+	}
+
+	/**
+	 * Gets the cached lookup query plan for a data object / data element id or for a data element by business key.
+	 * Plans are kept until the cache is cleared when changes are applied.
+	 *
+	 * @param dataFormId The data form id.
+	 * @param dataElementName The data element name.
+	 * @param dataElementBusinessKey The data element business key.
+	 * @param filterStartStopDate whether to add stop/start date filtering to data object lookup queries.
+	 * @return The lookup query plan.
+	 * @throws ApplicationException Application Exception.
+	 */
+	private LookupQueryPlan getLookupQueryPlan (final Long dataFormId,
+			                                    final String dataElementName,
+			                                    final String dataElementBusinessKey,
+			                                    final boolean filterStartStopDate) throws ApplicationException {
+		return CacheManager.load(etk, new LookupQueryPlanCacheable(this,
+				dataFormId,
+				dataElementName,
+				dataElementBusinessKey,
+				filterStartStopDate));
+	}
+
+	/**
+	 * Gets the lookup information of a data object / data element id or of a data element by business key.
+	 * The result is kept in the cache.
+	 *
+	 * @param dataFormId The data form id.
+	 * @param dataElementName The data element name.
+	 * @param dataElementBusinessKey The data element business key.
+	 * @return The lookup information.
+	 * @throws ApplicationException Application Exception.
+	 */
+	private Map<String, Object> getDataElementLookupInfo (final Long dataFormId,
+			                                              final String dataElementName,
+			                                              final String dataElementBusinessKey)
+			throws ApplicationException {
 		final boolean isSqlServer = Utility.isSqlServer(etk);
 
 		String selectClause = null;
@@ -628,9 +701,39 @@ public class LookupDataUtility {
 					+ "\ndataElementBusinessKey =  " + dataElementBusinessKey);
 		}
 
+		return queryResult;
+	}
+
+	/**
+	 * Builds the lookup query plan for a data object / data element id or for a data element by business key.
+	 * Data object, query and system object lookups have their query built here, script lookups only have their
+	 * handler class resolved.
+	 *
+	 * @param dataFormId The data form id.
+	 * @param dataElementName The data element name.
+	 * @param dataElementBusinessKey The data element business key.
+	 * @param filterStartStopDate whether to add stop/start date filtering to data object lookup queries.
+	 *
+	 * @return The lookup query plan.
+	 * @throws ClassNotFoundException Class Not Found Exception.
+	 * @throws ApplicationException Application Exception.
+	 */
+	LookupQueryPlan buildLookupQueryPlan (final Long dataFormId,
+			                              final String dataElementName,
+			                              final String dataElementBusinessKey,
+			                              final boolean filterStartStopDate
+			                             )
+			throws ClassNotFoundException,
+			ApplicationException {
+		final boolean isSqlServer = Utility.isSqlServer(etk);
+
+		final Map<String, Object> queryResult =
+				getDataElementLookupInfo(dataFormId, dataElementName, dataElementBusinessKey);
+
 		final int lookupType = getIntVal(queryResult.get("LOOKUP_TYPE"));
 
 		String returnString = null;
+		Class<?> lookupHandlerClass = null;
 
 		if (LookupSourceType.DATA_OBJECT_LOOKUP.getEntellitrakNumber() == lookupType) {
 			final StringBuilder queryBuilder = new StringBuilder();
@@ -702,22 +805,20 @@ public class LookupDataUtility {
 
 			final String javaScriptId = (String) queryResult.get("SCRIPT_JAVA_ID");
 
-			final LookupHandler luHandler = (LookupHandler)
-					Class.forName(javaScriptId).newInstance();
-
-
-			returnString = luHandler.execute(aLookupExecutionContext);
+			lookupHandlerClass = Class.forName(javaScriptId);
 		} else if (LookupSourceType.SYSTEM_OBJECT_LOOKUP.getEntellitrakNumber() == lookupType) {
 			returnString = LookupDataUtility.getSystemObjectQuery (etk,
 					  SystemObjectType.getById(((Number) queryResult.get("SYSTEM_OBJECT_TYPE")).intValue()),
 					  SystemObjectDisplayFormat.getById(((Number) queryResult.get("SYSTEM_OBJECT_DISPLAY_FORMAT")).intValue()));
 		}
 
-		if (isSqlServer) {
-			return peformSelectReplacements(returnString);
-		} else {
-			return returnString;
-		}
+		return new LookupQueryPlan(lookupType,
+				(String) queryResult.get("TABLE_NAME"),
+				(String) queryResult.get("VALUE_COLUMN"),
+				(String) queryResult.get("DISPLAY_COLUMN"),
+				isSqlServer ? peformSelectReplacements(returnString) : returnString,
+				lookupHandlerClass,
+				isSqlServer);
 	}
 
 	public static String getSystemObjectQuery (ExecutionContext etk,
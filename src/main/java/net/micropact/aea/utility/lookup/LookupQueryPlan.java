@@ -0,0 +1,163 @@
+package net.micropact.aea.utility.lookup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.entellitrak.ApplicationException;
+import com.entellitrak.lookup.LookupExecutionContext;
+import com.entellitrak.lookup.LookupHandler;
+
+import net.micropact.aea.utility.LookupSourceType;
+
+/**
+ * <p>
+ *  Everything needed to evaluate the lookup of a data element without querying AEA_LS_DATA_ELEMENT_VIEW: the lookup
+ *  type, the value and display columns and either the query (already converted to bind parameters) or the class of
+ *  the lookup handler.
+ * </p>
+ * <p>
+ *  Plans are immutable apart from a small memo of bound script lookup queries, and are cached by
+ *  {@link LookupDataUtility} until changes are applied.
+ * </p>
+ *
+ * @author MicroPact
+ */
+public final class LookupQueryPlan {
+
+	/** The maximum number of distinct queries of a script lookup which are kept in bound form. */
+	private static final int MAX_SCRIPT_QUERIES = 64;
+
+	private final int lookupType;
+	private final String tableName;
+	private final String valueColumn;
+	private final String displayColumn;
+	private final String lookupQuery;
+	private final BoundLookupQuery boundLookupQuery;
+	private final Class<?> lookupHandlerClass;
+	private final boolean isSqlServer;
+	private final Map<String, BoundLookupQuery> scriptQueries = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param theLookupType The {@link LookupSourceType} number of the lookup.
+	 * @param theTableName The table of a data object lookup.
+	 * @param theValueColumn The value column of a data object lookup.
+	 * @param theDisplayColumn The display column of a data object lookup.
+	 * @param theLookupQuery The lookup query, null for script lookups.
+	 * @param theLookupHandlerClass The lookup handler class of a script lookup.
+	 * @param isTheDatabaseSqlServer Whether the database is SQL Server.
+	 */
+	LookupQueryPlan(final int theLookupType,
+			        final String theTableName,
+			        final String theValueColumn,
+			        final String theDisplayColumn,
+			        final String theLookupQuery,
+			        final Class<?> theLookupHandlerClass,
+			        final boolean isTheDatabaseSqlServer) {
+		lookupType = theLookupType;
+		tableName = theTableName;
+		valueColumn = theValueColumn;
+		displayColumn = theDisplayColumn;
+		lookupQuery = theLookupQuery;
+		boundLookupQuery = theLookupQuery == null ? null : BoundLookupQuery.parse(theLookupQuery);
+		lookupHandlerClass = theLookupHandlerClass;
+		isSqlServer = isTheDatabaseSqlServer;
+	}
+
+	/**
+	 * Returns the {@link LookupSourceType} number of the lookup.
+	 *
+	 * @return The lookup type.
+	 */
+	public int getLookupType() {
+		return lookupType;
+	}
+
+	/**
+	 * Returns whether the lookup is a data object lookup.
+	 *
+	 * @return Whether the lookup is a data object lookup.
+	 */
+	public boolean isDataObjectLookup() {
+		return LookupSourceType.DATA_OBJECT_LOOKUP.getEntellitrakNumber() == lookupType;
+	}
+
+	/**
+	 * Returns the table of a data object lookup.
+	 *
+	 * @return The table name, or null if this is not a data object lookup.
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * Returns the column of a data object lookup which is selected as VALUE.
+	 *
+	 * @return The value column, or null if this is not a data object lookup.
+	 */
+	public String getValueColumn() {
+		return valueColumn;
+	}
+
+	/**
+	 * Returns the column of a data object lookup which is selected as DISPLAY.
+	 *
+	 * @return The display column, or null if this is not a data object lookup.
+	 */
+	public String getDisplayColumn() {
+		return displayColumn;
+	}
+
+	/**
+	 * Returns the lookup query with its {?parameter} replacement parameters. Script lookups execute their handler.
+	 *
+	 * @param aLookupExecutionContext context to pass to the lookup handler
+	 * @return The lookup query.
+	 * @throws InstantiationException Instantiation Exception.
+	 * @throws IllegalAccessException Illegal Access Exception.
+	 * @throws ApplicationException Application Exception.
+	 */
+	public String getLookupQuery(final LookupExecutionContext aLookupExecutionContext)
+			throws InstantiationException, IllegalAccessException, ApplicationException {
+		if (lookupHandlerClass == null) {
+			return lookupQuery;
+		}
+
+		final LookupHandler luHandler = (LookupHandler) lookupHandlerClass.newInstance();
+		final String returnString = luHandler.execute(aLookupExecutionContext);
+
+		return isSqlServer ? LookupDataUtility.peformSelectReplacements(returnString) : returnString;
+	}
+
+	/**
+	 * Returns the lookup query with its replacement parameters converted to bind parameters.
+	 *
+	 * @param aLookupExecutionContext context to pass to the lookup handler
+	 * @return The bound lookup query.
+	 * @throws InstantiationException Instantiation Exception.
+	 * @throws IllegalAccessException Illegal Access Exception.
+	 * @throws ApplicationException Application Exception.
+	 */
+	public BoundLookupQuery bind(final LookupExecutionContext aLookupExecutionContext)
+			throws InstantiationException, IllegalAccessException, ApplicationException {
+		if (lookupHandlerClass == null) {
+			return boundLookupQuery;
+		}
+
+		final String scriptQuery = getLookupQuery(aLookupExecutionContext);
+		BoundLookupQuery boundScriptQuery = scriptQueries.get(scriptQuery);
+
+		if (boundScriptQuery == null) {
+			boundScriptQuery = BoundLookupQuery.parse(scriptQuery);
+
+			if (scriptQueries.size() >= MAX_SCRIPT_QUERIES) {
+				scriptQueries.clear();
+			}
+			scriptQueries.put(scriptQuery, boundScriptQuery);
+		}
+
+		return boundScriptQuery;
+	}
+}
@@ -0,0 +1,63 @@
+package net.micropact.aea.utility.lookup;
+
+import com.entellitrak.ApplicationException;
+
+import net.entellitrak.aea.core.cache.ICacheable;
+
+/**
+ * {@link ICacheable} which stores the {@link LookupQueryPlan} of a data element. The cache is cleared when changes are
+ * applied, which discards plans of lookups whose configuration or handler has changed.
+ *
+ * @author MicroPact
+ */
+public class LookupQueryPlanCacheable implements ICacheable<LookupQueryPlan> {
+
+	private final LookupDataUtility lookupDataUtility;
+	private final Long dataFormId;
+	private final String dataElementName;
+	private final String dataElementBusinessKey;
+	private final boolean filterStartStopDate;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param theLookupDataUtility The utility used to build the plan.
+	 * @param theDataFormId The data form id.
+	 * @param theDataElementName The data element name.
+	 * @param theDataElementBusinessKey The data element business key.
+	 * @param theFilterStartStopDate whether to add stop/start date filtering to data object lookup queries.
+	 */
+	public LookupQueryPlanCacheable(final LookupDataUtility theLookupDataUtility,
+			final Long theDataFormId,
+			final String theDataElementName,
+			final String theDataElementBusinessKey,
+			final boolean theFilterStartStopDate) {
+		lookupDataUtility = theLookupDataUtility;
+		dataFormId = theDataFormId;
+		dataElementName = theDataElementName;
+		dataElementBusinessKey = theDataElementBusinessKey;
+		filterStartStopDate = theFilterStartStopDate;
+	}
+
+	@Override
+	public String getKey() {
+		return String.format("%s&dataFormId=%s&dataElementName=%s&dataElementBusinessKey=%s&filterStartStopDate=%s",
+				getClass().getName(),
+				dataFormId == null ? "" : dataFormId,
+				dataElementName == null ? "" : dataElementName,
+				dataElementBusinessKey == null ? "" : dataElementBusinessKey,
+				filterStartStopDate);
+	}
+
+	@Override
+	public LookupQueryPlan getValue() throws ApplicationException {
+		try {
+			return lookupDataUtility.buildLookupQueryPlan(dataFormId,
+					dataElementName,
+					dataElementBusinessKey,
+					filterStartStopDate);
+		} catch (final ClassNotFoundException e) {
+			throw new ApplicationException(e);
+		}
+	}
+}